@@ -1,17 +1,23 @@
 package GUI;
 
 import sudoku.SudokuBoard;
-import sudoku.SudokuSolver;
+import sudoku.generator.PuzzlePool;
+import sudoku.logic.Difficulty;
+import sudoku.logic.Hint;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 
 /**
- * Frame containing a sudoku panel and a solve button.
+ * Frame containing a sudoku panel, a solve button, a hint button and a new game button.
  */
 public class MainFrame extends JFrame {
+	// New games come from a pool shared by every frame, which is filled in the background once the first frame opens.
+	private static PuzzlePool newGames;
+
 	SudokuBoardPanel boardPanel;
+	JLabel statusLabel;
 
 	public MainFrame()
 	{
@@ -31,8 +37,32 @@ public class MainFrame extends JFrame {
 		solveButton.setAlignmentX(Component.CENTER_ALIGNMENT);
 		add(solveButton);
 
+		// Create the hint button
+		JButton hintButton = new JButton("Hint");
+		hintButton.setFont(new Font(null, Font.PLAIN, 32));
+		hintButton.addActionListener(this::showHint);
+		hintButton.setPreferredSize(new Dimension(panelSize, 50));
+		hintButton.setAlignmentX(Component.CENTER_ALIGNMENT);
+		add(hintButton);
+
+		// Create the new game button
+		JButton newGameButton = new JButton("New game");
+		newGameButton.setFont(new Font(null, Font.PLAIN, 32));
+		newGameButton.addActionListener(this::newGame);
+		newGameButton.setPreferredSize(new Dimension(panelSize, 50));
+		newGameButton.setAlignmentX(Component.CENTER_ALIGNMENT);
+		add(newGameButton);
+		startNewGamePool();
+
+		// Create the label which describes the last hint
+		statusLabel = new JLabel(" ");
+		statusLabel.setFont(new Font(null, Font.PLAIN, 16));
+		statusLabel.setPreferredSize(new Dimension(panelSize, 30));
+		statusLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
+		add(statusLabel);
+
 		// Set the frame properties
-		getContentPane().setPreferredSize(new Dimension(panelSize, panelSize + 50));
+		getContentPane().setPreferredSize(new Dimension(panelSize, panelSize + 180));
 		pack();
 		setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
 		setLayout(new BoxLayout(getContentPane(), BoxLayout.Y_AXIS));
@@ -46,15 +76,59 @@ public class MainFrame extends JFrame {
 	 */
 	private void solveSudoku(ActionEvent e)
 	{
-		String layout = boardPanel.getLayoutString();
-		SudokuBoard board = new SudokuBoard(layout);
-
-		SudokuSolver solver = new SudokuSolver(board);
-		solver.solve();
+		SudokuBoard solved = boardPanel.solve();
 
-		SudokuBoard solved = solver.getBoard();
+		if(solved == null)
+		{
+			statusLabel.setText(boardPanel.hasConflicts() ? "Fix the highlighted squares first." : "No solution.");
+			return;
+		}
 
 		MainFrame solvedFrame = new MainFrame();
-		solvedFrame.boardPanel.setBoard(solved);
+		solvedFrame.boardPanel.animateSolve(new SudokuBoard(boardPanel.getLayoutString().trim()), solved);
+	}
+
+	/**
+	 * Event handler that highlights the next square which can be filled in, without solving the whole sudoku.
+	 * @param e the event.
+	 */
+	private void showHint(ActionEvent e)
+	{
+		if(boardPanel.hasConflicts())
+		{
+			statusLabel.setText("Fix the highlighted squares first.");
+			return;
+		}
+
+		Hint hint = boardPanel.showHint();
+
+		statusLabel.setText(hint == null ? "No hint available." : "Try " + hint);
+	}
+
+	/**
+	 * Event handler that replaces the board with a new puzzle, if one is ready.
+	 * @param e the event.
+	 */
+	private void newGame(ActionEvent e)
+	{
+		SudokuBoard puzzle = newGames.poll(Difficulty.EASY);
+
+		if(puzzle == null)
+		{
+			statusLabel.setText("No new game is ready yet, try again in a moment.");
+			return;
+		}
+
+		boardPanel.setBoard(puzzle);
+		statusLabel.setText(" ");
+	}
+
+	private static synchronized void startNewGamePool()
+	{
+		if(newGames == null)
+		{
+			newGames = new PuzzlePool(2, 5, Difficulty.EASY);
+			newGames.start(1);
+		}
 	}
 }
@@ -1,51 +1,53 @@
 package GUI;
 
+import sudoku.IncrementalSolver;
 import sudoku.SudokuBoard;
+import sudoku.SudokuSolver;
+import sudoku.SudokuUnits;
+import sudoku.logic.Hint;
+import sudoku.logic.IncrementalCandidateModel;
 
 import javax.swing.*;
 import java.awt.*;
 
 /**
- * Panel which makes a sudoku board.
+ * Panel which makes a sudoku board. The board is checked as it is typed in: squares which clash with another square
+ * are highlighted, and empty squares show the values which could still go in them.
  */
 public class SudokuBoardPanel extends JPanel {
-	SudokuSquareTextField[] board;
+	private final SudokuGridComponent grid = new SudokuGridComponent(3);
+	private final IncrementalCandidateModel model = new IncrementalCandidateModel();
+	private final IncrementalSolver solver = new IncrementalSolver(new SudokuBoard());
+	private int hintedSquare = -1;
+	private Thread animation;
+	private SudokuSolver animatedSearch;
 
 	public SudokuBoardPanel(int size)
 	{
-		board = new SudokuSquareTextField[81];
+		super(new BorderLayout());
 
 		setBackground(Color.WHITE);
-		createSudokuGrid();
+		grid.setEditListener(this::squareEdited);
+		add(grid, BorderLayout.CENTER);
 
-		setPreferredSize(new Dimension(size, size));
-		setLayout(new GridLayout(9, 9, 15, 15));
-	}
-
-	/**
-	 * Creates the grid of SudokuSquareTextField()s.
-	 */
-	private void createSudokuGrid()
-	{
-		for(int square = 0; square < board.length; square++)
+		for(int square = 0; square < 81; square++)
 		{
-			SudokuSquareTextField newSquare = new SudokuSquareTextField();
-
-			add(newSquare);
-			board[square] = newSquare;
+			grid.setPencilMarks(square, model.getCandidates(square));
 		}
+
+		setPreferredSize(new Dimension(size, size));
 	}
 
 	/**
-	 * Gets the layout string of the board based on each of the text boxes.
+	 * Gets the layout string of the board based on the values in each square.
 	 * @return the layout string.
 	 */
 	public String getLayoutString() {
 		StringBuilder output = new StringBuilder();
 
-		for(SudokuSquareTextField square : board)
+		for(int square = 0; square < 81; square++)
 		{
-			output.append(square.getText());
+			output.append(grid.getValue(square));
 			output.append(" ");
 		}
 
@@ -58,10 +60,138 @@ public class SudokuBoardPanel extends JPanel {
 	 */
 	public void setBoard(SudokuBoard board)
 	{
-		String layout = board.getLayoutString();
-		for(int square = 0; square < this.board.length; square++)
+		stopAnimation();
+
+		for(int square = 0; square < 81; square++)
+		{
+			grid.setValue(square, board.getValueAt(square));
+			squareEdited(square);
+		}
+	}
+
+	/**
+	 * Shows a solver searching for a solution, then shows the solution. The search runs on a thread of its own and
+	 * is shown as it goes, a frame at a time.
+	 * @param puzzle the board to search from.
+	 * @param solution the solution to show once the search has finished.
+	 */
+	public void animateSolve(SudokuBoard puzzle, SudokuBoard solution)
+	{
+		stopAnimation();
+		setBoard(puzzle);
+		grid.setAnimating(true);
+
+		SudokuSolver search = new SudokuSolver(puzzle);
+		search.setPlacementListener(grid::publish);
+		animatedSearch = search;
+
+		animation = new Thread(() -> {
+			search.solve();
+
+			SwingUtilities.invokeLater(() -> {
+				// Unless another board has been shown since.
+				if(animatedSearch == search)
+				{
+					setBoard(solution);
+				}
+			});
+		}, "sudoku-animation");
+		animation.setDaemon(true);
+		animation.start();
+	}
+
+	/**
+	 * Finds the next square that can be filled in by logic alone and highlights it.
+	 * @return the hint, or null if there isn't one.
+	 */
+	public Hint showHint()
+	{
+		clearHint();
+
+		Hint hint = model.nextHint();
+
+		if(hint != null)
+		{
+			hintedSquare = hint.getSquare();
+			grid.setHinted(hintedSquare, true);
+			grid.select(hintedSquare);
+			grid.requestFocusInWindow();
+		}
+
+		return hint;
+	}
+
+	/**
+	 * Solves the board as it stands. The last solution is kept between edits, so only the part of it around the
+	 * squares edited since is searched again.
+	 * @return the solution, or null if the board can't be solved.
+	 */
+	public SudokuBoard solve()
+	{
+		return solver.solve() ? solver.getBoard() : null;
+	}
+
+	/**
+	 * Indicates whether any squares clash with each other.
+	 * @return boolean indicating whether or not there are any conflicts.
+	 */
+	public boolean hasConflicts()
+	{
+		return model.hasConflicts();
+	}
+
+	@Override
+	public void removeNotify()
+	{
+		stopAnimation();
+		super.removeNotify();
+	}
+
+	/**
+	 * Updates the model after a square has been edited. Only the square and the squares which share a unit with it
+	 * can have changed, so only they are refreshed.
+	 * @param square the square which was edited.
+	 */
+	private void squareEdited(int square)
+	{
+		model.setValue(square, grid.getValue(square));
+		solver.setValue(square, grid.getValue(square));
+
+		if(square == hintedSquare)
+		{
+			clearHint();
+		}
+
+		refreshSquare(square);
+		for(int peer : SudokuUnits.PEERS[square])
+		{
+			refreshSquare(peer);
+		}
+	}
+
+	private void refreshSquare(int square)
+	{
+		grid.setConflicting(square, model.isConflicting(square));
+		grid.setPencilMarks(square, model.getCandidates(square));
+	}
+
+	private void clearHint()
+	{
+		if(hintedSquare != -1)
+		{
+			grid.setHinted(hintedSquare, false);
+			hintedSquare = -1;
+		}
+	}
+
+	private void stopAnimation()
+	{
+		if(animation != null)
 		{
-			this.board[square].setText(Character.toString(layout.charAt(square * 2)));
+			animation.interrupt();
+			animation = null;
+			animatedSearch = null;
+			grid.setAnimating(false);
 		}
 	}
 }
@@ -0,0 +1,571 @@
+package GUI;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.IntConsumer;
+
+/**
+ * Draws a whole sudoku grid as one component, rather than one text field per square, so that grids of 16x16 or 25x25
+ * squares are as quick to draw as 9x9 ones.
+ *
+ * Changing a square only repaints that square, and painting only draws the squares the clip touches, so typing a value
+ * or animating a search never redraws the whole grid. The digits and pencil marks are drawn once per square size into
+ * images, rather than laying out text for every square on every paint, and each square is kept drawn in an image of
+ * its own which is only drawn again when the square changes, so a paint is mostly copying pixels.
+ *
+ * The selected square is moved with the arrow keys or the mouse, and a value is typed in with its symbol: 1-9, then
+ * A-P on the larger grids. Backspace, delete, 0 and . empty the square.
+ *
+ * Another thread, such as a solver, can show its progress through publish(). Published values are only picked up by
+ * a timer on the event dispatch thread at most once a frame, however fast they're published, so the thread publishing
+ * never waits on painting and the event queue is never flooded.
+ */
+public class SudokuGridComponent extends JComponent {
+	/** The symbol for each value, from 1 upwards. */
+	static final String SYMBOLS = "123456789ABCDEFGHIJKLMNOP";
+
+	private static final Color CONFLICT_COLOUR = new Color(255, 200, 200);
+	private static final Color HINT_COLOUR = new Color(255, 245, 170);
+	private static final Color SELECTED_COLOUR = new Color(205, 225, 255);
+	private static final Color PROGRESS_COLOUR = new Color(70, 100, 170);
+	private static final int FRAME_MILLISECONDS = 16;
+
+	private final int boxSize;
+	private final int side;
+	private final int[] values;
+	private final int[] pencilMarks;
+	private final boolean[] conflicting;
+	private final boolean[] hinted;
+	private int selected;
+	private IntConsumer editListener;
+
+	// Values published from another thread, and whether each square's displayed value came from there.
+	private final AtomicIntegerArray published;
+	private final boolean[] inProgress;
+	private final Timer animation = new Timer(FRAME_MILLISECONDS, e -> applyProgress());
+
+	// The glyphs for each value in black and in the progress colour, then the pencil marks, all for one square size.
+	private BufferedImage[] valueGlyphs;
+	private BufferedImage[] progressGlyphs;
+	private BufferedImage[] markGlyphs;
+	private int glyphCellSize;
+	private double glyphScale;
+	// What each square looks like, drawn again only once the square has changed.
+	private final BufferedImage[] tiles;
+	private final boolean[] staleTiles;
+
+	/**
+	 * @param boxSize the number of squares along the side of a box: 3 for a 9x9 grid, up to 5 for a 25x25 grid.
+	 */
+	public SudokuGridComponent(int boxSize)
+	{
+		if(boxSize < 2 || boxSize > 5)
+		{
+			throw new IllegalArgumentException("Grids can have boxes of 2 to 5 squares a side.");
+		}
+
+		this.boxSize = boxSize;
+		this.side = boxSize * boxSize;
+
+		int squares = side * side;
+		values = new int[squares];
+		pencilMarks = new int[squares];
+		conflicting = new boolean[squares];
+		hinted = new boolean[squares];
+		published = new AtomicIntegerArray(squares);
+		inProgress = new boolean[squares];
+		tiles = new BufferedImage[squares];
+		staleTiles = new boolean[squares];
+
+		setFocusable(true);
+		setOpaque(true);
+		setBackground(Color.WHITE);
+		addKeyListener(new GridKeyListener());
+		addMouseListener(new MouseAdapter() {
+			@Override
+			public void mousePressed(MouseEvent e)
+			{
+				int square = squareAt(e.getX(), e.getY());
+
+				if(square != -1)
+				{
+					select(square);
+				}
+
+				requestFocusInWindow();
+			}
+		});
+	}
+
+	/**
+	 * Returns the number of squares along each side of the grid.
+	 * @return the number of squares.
+	 */
+	public int getSide()
+	{
+		return side;
+	}
+
+	/**
+	 * Sets something to be told whenever a value is typed into a square, with the square's position.
+	 * @param editListener the listener, or null for none.
+	 */
+	public void setEditListener(IntConsumer editListener)
+	{
+		this.editListener = editListener;
+	}
+
+	/**
+	 * Gets the value of a square.
+	 * @param square the square's position, counting along the rows from the top left.
+	 * @return the value, or 0 if the square is empty.
+	 */
+	public int getValue(int square)
+	{
+		return values[square];
+	}
+
+	/**
+	 * Sets the value of a square. The edit listener isn't told, as it's only told about values typed in.
+	 * @param square the square.
+	 * @param value the value, or 0 to empty the square.
+	 */
+	public void setValue(int square, int value)
+	{
+		if(value < 0 || value > side)
+		{
+			throw new IllegalArgumentException("This grid can only contain values from 0-" + side + ".");
+		}
+
+		if(values[square] != value || inProgress[square])
+		{
+			values[square] = value;
+			inProgress[square] = false;
+			repaintSquare(square);
+		}
+	}
+
+	/**
+	 * Sets the pencil marks shown while a square is empty.
+	 * @param square the square.
+	 * @param pencilMarks a mask with bit (value - 1) set for each value to show.
+	 */
+	public void setPencilMarks(int square, int pencilMarks)
+	{
+		if(this.pencilMarks[square] != pencilMarks)
+		{
+			this.pencilMarks[square] = pencilMarks;
+
+			if(values[square] == 0)
+			{
+				repaintSquare(square);
+			}
+		}
+	}
+
+	/**
+	 * Sets whether a square's value clashes with another square.
+	 * @param square the square.
+	 * @param conflicting whether or not the square is in conflict.
+	 */
+	public void setConflicting(int square, boolean conflicting)
+	{
+		if(this.conflicting[square] != conflicting)
+		{
+			this.conflicting[square] = conflicting;
+			repaintSquare(square);
+		}
+	}
+
+	/**
+	 * Sets whether a square is highlighted as the subject of a hint.
+	 * @param square the square.
+	 * @param hinted whether or not to highlight the square.
+	 */
+	public void setHinted(int square, boolean hinted)
+	{
+		if(this.hinted[square] != hinted)
+		{
+			this.hinted[square] = hinted;
+			repaintSquare(square);
+		}
+	}
+
+	/**
+	 * Returns the selected square, which typing goes into.
+	 * @return the square.
+	 */
+	public int getSelected()
+	{
+		return selected;
+	}
+
+	/**
+	 * Selects a square.
+	 * @param square the square.
+	 */
+	public void select(int square)
+	{
+		if(square < 0 || square >= values.length)
+		{
+			throw new IllegalArgumentException("There's no square " + square + " on this grid.");
+		}
+
+		if(selected != square)
+		{
+			repaintSquare(selected);
+			selected = square;
+			repaintSquare(selected);
+		}
+	}
+
+	/**
+	 * Shows a value from any thread while animating. This only stores the value, so it can be called on every step of
+	 * a search.
+	 * @param square the square.
+	 * @param value the value, or 0 if the square has been emptied.
+	 */
+	public void publish(int square, int value)
+	{
+		published.lazySet(square, value);
+	}
+
+	/**
+	 * Starts or stops showing published values. Published values start out as the current values, and once animation
+	 * stops, any published values still showing are left as they are until set.
+	 * @param animating whether or not to show published values.
+	 */
+	public void setAnimating(boolean animating)
+	{
+		if(animating && !animation.isRunning())
+		{
+			for(int square = 0; square < values.length; square++)
+			{
+				published.set(square, values[square]);
+			}
+
+			animation.start();
+		}
+		else if(!animating && animation.isRunning())
+		{
+			animation.stop();
+			applyProgress();
+		}
+	}
+
+	/**
+	 * Shows the values published since the last frame, repainting only the squares which changed.
+	 */
+	void applyProgress()
+	{
+		for(int square = 0; square < values.length; square++)
+		{
+			int value = published.get(square);
+
+			if(values[square] != value)
+			{
+				values[square] = value;
+				inProgress[square] = true;
+				repaintSquare(square);
+			}
+		}
+	}
+
+	@Override
+	public Dimension getPreferredSize()
+	{
+		return isPreferredSizeSet() ? super.getPreferredSize() : new Dimension(side * 40 + 4, side * 40 + 4);
+	}
+
+	@Override
+	protected void paintComponent(Graphics g)
+	{
+		Graphics2D g2 = (Graphics2D) g;
+		int cell = getCellSize();
+		Rectangle clip = g2.getClipBounds();
+
+		if(clip == null)
+		{
+			clip = new Rectangle(0, 0, getWidth(), getHeight());
+		}
+
+		g2.setColor(getBackground());
+		g2.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+		if(cell < 4)
+		{
+			return;
+		}
+
+		updateGlyphs(cell, g2.getTransform());
+
+		int left = getGridLeft(cell);
+		int top = getGridTop(cell);
+		int firstRow = Math.max(0, (clip.y - top) / cell);
+		int lastRow = Math.min(side - 1, (clip.y + clip.height - top) / cell);
+		int firstColumn = Math.max(0, (clip.x - left) / cell);
+		int lastColumn = Math.min(side - 1, (clip.x + clip.width - left) / cell);
+
+		for(int row = firstRow; row <= lastRow; row++)
+		{
+			for(int column = firstColumn; column <= lastColumn; column++)
+			{
+				paintSquare(g2, row * side + column, left + column * cell, top + row * cell, cell);
+			}
+		}
+
+		paintLines(g2, left, top, cell);
+	}
+
+	private void paintSquare(Graphics2D g, int square, int x, int y, int cell)
+	{
+		if(staleTiles[square])
+		{
+			drawTile(square);
+			staleTiles[square] = false;
+		}
+
+		// Without scaling, drawing a tile is a straight copy of its pixels, which is much quicker.
+		if(glyphScale == 1)
+		{
+			g.drawImage(tiles[square], x, y, null);
+		}
+		else
+		{
+			g.drawImage(tiles[square], x, y, cell, cell, null);
+		}
+	}
+
+	/**
+	 * Draws a square's background and value, or its pencil marks, into its tile.
+	 */
+	private void drawTile(int square)
+	{
+		BufferedImage tile = tiles[square];
+		int pixels = tile.getWidth();
+		Graphics2D g = tile.createGraphics();
+
+		g.setColor(conflicting[square] ? CONFLICT_COLOUR : hinted[square] ? HINT_COLOUR
+				: square == selected ? SELECTED_COLOUR : getBackground());
+		g.fillRect(0, 0, pixels, pixels);
+
+		int value = values[square];
+
+		if(value != 0)
+		{
+			g.drawImage((inProgress[square] ? progressGlyphs : valueGlyphs)[value], 0, 0, null);
+		}
+		else
+		{
+			int marks = pencilMarks[square];
+			int markPixels = markGlyphs[1].getWidth();
+			int margin = (pixels - markPixels * boxSize) / 2;
+
+			// Each mark goes where its value would be in a box, so a mark is always in the same place in every square.
+			while(marks != 0)
+			{
+				int mark = Integer.numberOfTrailingZeros(marks);
+				marks &= marks - 1;
+
+				g.drawImage(markGlyphs[mark + 1], margin + (mark % boxSize) * markPixels,
+						margin + (mark / boxSize) * markPixels, null);
+			}
+		}
+
+		g.dispose();
+	}
+
+	private void paintLines(Graphics2D g, int left, int top, int cell)
+	{
+		int size = cell * side;
+
+		g.setColor(Color.LIGHT_GRAY);
+		for(int line = 1; line < side; line++)
+		{
+			if(line % boxSize != 0)
+			{
+				g.fillRect(left + line * cell, top, 1, size);
+				g.fillRect(left, top + line * cell, size, 1);
+			}
+		}
+
+		g.setColor(Color.BLACK);
+		for(int line = 0; line <= side; line += boxSize)
+		{
+			g.fillRect(left + line * cell - 1, top - 1, 2, size + 2);
+			g.fillRect(left - 1, top + line * cell - 1, size + 2, 2);
+		}
+	}
+
+	/**
+	 * Draws the glyphs again, and marks every tile to be drawn again, if the squares have changed size or the screen's
+	 * scale has changed.
+	 */
+	private void updateGlyphs(int cell, AffineTransform transform)
+	{
+		double scale = Math.max(1, transform.getScaleX());
+
+		if(cell == glyphCellSize && scale == glyphScale)
+		{
+			return;
+		}
+
+		int markCell = Math.max(1, cell / boxSize);
+		int tilePixels = (int) Math.ceil(cell * scale);
+		valueGlyphs = new BufferedImage[side + 1];
+		progressGlyphs = new BufferedImage[side + 1];
+		markGlyphs = new BufferedImage[side + 1];
+
+		for(int value = 1; value <= side; value++)
+		{
+			valueGlyphs[value] = createGlyph(value, cell, scale, 0.6, Color.BLACK);
+			progressGlyphs[value] = createGlyph(value, cell, scale, 0.6, PROGRESS_COLOUR);
+			markGlyphs[value] = createGlyph(value, markCell, scale, 0.8, Color.GRAY);
+		}
+
+		for(int square = 0; square < tiles.length; square++)
+		{
+			tiles[square] = new BufferedImage(tilePixels, tilePixels, BufferedImage.TYPE_INT_RGB);
+			staleTiles[square] = true;
+		}
+
+		glyphCellSize = cell;
+		glyphScale = scale;
+	}
+
+	private static BufferedImage createGlyph(int value, int size, double scale, double fontShare, Color colour)
+	{
+		int pixels = Math.max(1, (int) Math.ceil(size * scale));
+		BufferedImage glyph = new BufferedImage(pixels, pixels, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = glyph.createGraphics();
+
+		g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+		g.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, Math.max(1, (int) (pixels * fontShare))));
+		g.setColor(colour);
+
+		String symbol = SYMBOLS.substring(value - 1, value);
+		FontMetrics metrics = g.getFontMetrics();
+		g.drawString(symbol, (pixels - metrics.stringWidth(symbol)) / 2,
+				(pixels - metrics.getHeight()) / 2 + metrics.getAscent());
+		g.dispose();
+
+		return glyph;
+	}
+
+	private void repaintSquare(int square)
+	{
+		int cell = getCellSize();
+		staleTiles[square] = true;
+
+		// Repaints made together are merged by Swing into one paint of the area around them.
+		repaint(getGridLeft(cell) + (square % side) * cell - 1, getGridTop(cell) + (square / side) * cell - 1,
+				cell + 2, cell + 2);
+	}
+
+	/**
+	 * Finds the square at a point of the component.
+	 * @return the square, or -1 if the point isn't on the grid.
+	 */
+	int squareAt(int x, int y)
+	{
+		int cell = getCellSize();
+
+		if(cell < 1)
+		{
+			return -1;
+		}
+
+		int column = Math.floorDiv(x - getGridLeft(cell), cell);
+		int row = Math.floorDiv(y - getGridTop(cell), cell);
+
+		return row < 0 || row >= side || column < 0 || column >= side ? -1 : row * side + column;
+	}
+
+	private int getCellSize()
+	{
+		// Room is left for the thick lines around the outside.
+		return (Math.min(getWidth(), getHeight()) - 4) / side;
+	}
+
+	private int getGridLeft(int cell)
+	{
+		return (getWidth() - cell * side) / 2;
+	}
+
+	private int getGridTop(int cell)
+	{
+		return (getHeight() - cell * side) / 2;
+	}
+
+	private void type(int value)
+	{
+		setValue(selected, value);
+
+		if(editListener != null)
+		{
+			editListener.accept(selected);
+		}
+	}
+
+	/**
+	 * Moves the selection with the arrow keys and types values into the selected square.
+	 */
+	private class GridKeyListener extends KeyAdapter
+	{
+		@Override
+		public void keyPressed(KeyEvent e)
+		{
+			int row = selected / side;
+			int column = selected % side;
+
+			switch(e.getKeyCode())
+			{
+				case KeyEvent.VK_UP:
+					row = Math.max(0, row - 1);
+					break;
+				case KeyEvent.VK_DOWN:
+					row = Math.min(side - 1, row + 1);
+					break;
+				case KeyEvent.VK_LEFT:
+					column = Math.max(0, column - 1);
+					break;
+				case KeyEvent.VK_RIGHT:
+					column = Math.min(side - 1, column + 1);
+					break;
+				case KeyEvent.VK_BACK_SPACE:
+				case KeyEvent.VK_DELETE:
+					type(0);
+					e.consume();
+					return;
+				default:
+					return;
+			}
+
+			select(row * side + column);
+			e.consume();
+		}
+
+		@Override
+		public void keyTyped(KeyEvent e)
+		{
+			char symbol = Character.toUpperCase(e.getKeyChar());
+			int value = SYMBOLS.indexOf(symbol) + 1;
+
+			if(symbol == '0' || symbol == '.')
+			{
+				type(0);
+			}
+			else if(value >= 1 && value <= side)
+			{
+				type(value);
+			}
+		}
+	}
+}
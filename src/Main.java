@@ -1,8 +1,21 @@
 import GUI.MainFrame;
+import sudoku.cli.SudokuCli;
+import sudoku.metrics.MetricsRegistry;
 
 public class Main {
 
-	public static void main(String[] args) {
+	/**
+	 * Opens the window, or with arguments, runs a command line command without loading any of the GUI.
+	 * @param args the command line arguments; see SudokuCli.
+	 */
+	public static void main(String[] args) throws InterruptedException {
+		if(args.length > 0)
+		{
+			SudokuCli.main(args);
+			return;
+		}
+
+		MetricsRegistry.getDefault().registerPlatformMBeans();
 		MainFrame window = new MainFrame();
 	}
 }
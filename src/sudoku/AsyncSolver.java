@@ -0,0 +1,228 @@
+package sudoku;
+
+import sudoku.metrics.Histogram;
+import sudoku.metrics.MetricsRegistry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Solves boards in the background, handing back a future for each one.
+ *
+ * Most puzzles take only microseconds to solve, which is less than it costs to hand a task to an executor thread and
+ * wake it up. So rather than each board being a task of its own, boards are queued, and each worker thread takes a
+ * chunk of them at once and solves them one after another with the same SudokuSolver, so that after starting up,
+ * nothing is allocated but the solutions. The size of the chunks follows how long solves have recently taken, aiming
+ * for a chunk to take about a millisecond: easy puzzles go in chunks of up to 256, while slow ones go one at a time, so
+ * that a worker never sits on a backlog of boards the other workers could be solving. A worker also never takes more
+ * than its share of the boards waiting.
+ *
+ * Futures are completed on the worker threads, so anything slow that depends on them should be run with one of the
+ * CompletableFuture methods ending in Async.
+ */
+public class AsyncSolver implements AutoCloseable {
+	private static final long TARGET_CHUNK_NANOS = 1_000_000;
+	private static final int MAX_CHUNK = 256;
+	private static final Histogram CHUNKS = MetricsRegistry.getDefault().histogram("async.chunks");
+
+	private final LinkedBlockingQueue<Job> pending = new LinkedBlockingQueue<>();
+	private final Thread[] workers;
+	// How long a solve has taken recently, starting high so that the first chunks hold a single board each.
+	private volatile long averageNanos = TARGET_CHUNK_NANOS;
+	private volatile boolean closed;
+
+	/**
+	 * Creates a solver with a worker thread for each core.
+	 */
+	public AsyncSolver()
+	{
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * @param threads the number of worker threads.
+	 */
+	public AsyncSolver(int threads)
+	{
+		if(threads < 1)
+		{
+			throw new IllegalArgumentException("An async solver needs at least one thread.");
+		}
+
+		workers = new Thread[threads];
+
+		for(int worker = 0; worker < threads; worker++)
+		{
+			workers[worker] = new Thread(this::work, "sudoku-async-" + worker);
+			workers[worker].setDaemon(true);
+			workers[worker].start();
+		}
+	}
+
+	/**
+	 * Queues a board to be solved.
+	 * @param board the board; it's copied, so it can be changed once this returns.
+	 * @return a future completed with the solution, or with null if the board has no solution, which includes a board
+	 *         whose clues already clash. It's cancelled if the solver is closed first, and cancelling it before its
+	 *         board is reached means it's skipped.
+	 */
+	public CompletableFuture<SudokuBoard> solveAsync(SudokuBoard board)
+	{
+		if(closed)
+		{
+			throw new IllegalStateException("The solver has been closed.");
+		}
+		if(!board.isValid())
+		{
+			return CompletableFuture.completedFuture(null);
+		}
+
+		Job job = new Job(copyOf(board));
+		pending.add(job);
+
+		// If closing drained the queue before the board went in, nothing else will.
+		if(closed)
+		{
+			cancelPending();
+		}
+
+		return job.future;
+	}
+
+	/**
+	 * Returns the number of boards the next chunk would hold, if enough boards were waiting.
+	 * @return the chunk size.
+	 */
+	public int getChunkSize()
+	{
+		return (int) Math.max(1, Math.min(MAX_CHUNK, TARGET_CHUNK_NANOS / Math.max(1, averageNanos)));
+	}
+
+	/**
+	 * Returns the number of boards waiting for a worker.
+	 * @return the number of boards.
+	 */
+	public int getPending()
+	{
+		return pending.size();
+	}
+
+	/**
+	 * Stops the worker threads, cancelling the futures of boards not yet solved.
+	 */
+	@Override
+	public void close()
+	{
+		closed = true;
+
+		for(Thread worker : workers)
+		{
+			worker.interrupt();
+		}
+
+		cancelPending();
+	}
+
+	private void work()
+	{
+		SudokuSolver solver = new SudokuSolver(new SudokuBoard());
+		List<Job> chunk = new ArrayList<>(MAX_CHUNK);
+
+		try
+		{
+			while(!closed)
+			{
+				chunk.add(pending.take());
+				// Leave the other workers their share of what's waiting.
+				int share = Math.max(1, pending.size() / workers.length);
+				pending.drainTo(chunk, Math.min(getChunkSize(), share) - 1);
+
+				long start = System.nanoTime();
+
+				for(Job job : chunk)
+				{
+					solve(solver, job);
+				}
+
+				long perSolve = (System.nanoTime() - start) / chunk.size();
+				// Workers can overwrite each other's updates, which only makes the average a little less smooth.
+				averageNanos = (averageNanos * 3 + perSolve) / 4;
+				CHUNKS.record(chunk.size());
+				chunk.clear();
+			}
+		}
+		catch(InterruptedException e)
+		{
+			// The solver is closing.
+		}
+	}
+
+	private static void solve(SudokuSolver solver, Job job)
+	{
+		if(job.future.isDone())
+		{
+			return;
+		}
+
+		try
+		{
+			solver.load(job.board);
+			boolean solved = solver.solve();
+
+			if(solver.wasCancelled())
+			{
+				job.future.cancel(false);
+			}
+			else
+			{
+				job.future.complete(solved ? copyOf(solver.getBoard()) : null);
+			}
+		}
+		catch(RuntimeException e)
+		{
+			job.future.completeExceptionally(e);
+		}
+	}
+
+	/**
+	 * Copies a board square by square, which is much quicker than the copy constructor going through a layout string.
+	 */
+	private static SudokuBoard copyOf(SudokuBoard board)
+	{
+		SudokuBoard copy = new SudokuBoard();
+
+		for(int square = 0; square < 81; square++)
+		{
+			copy.setValueAt(square, board.getValueAt(square));
+		}
+
+		return copy;
+	}
+
+	private void cancelPending()
+	{
+		List<Job> cancelled = new ArrayList<>();
+		pending.drainTo(cancelled);
+
+		for(Job job : cancelled)
+		{
+			job.future.cancel(false);
+		}
+	}
+
+	/**
+	 * A board waiting to be solved, with the future to complete.
+	 */
+	private static class Job
+	{
+		final SudokuBoard board;
+		final CompletableFuture<SudokuBoard> future = new CompletableFuture<>();
+
+		Job(SudokuBoard board)
+		{
+			this.board = board;
+		}
+	}
+}
@@ -0,0 +1,349 @@
+package sudoku;
+
+/**
+ * Solves a board that is edited a square at a time, reusing the last solution instead of searching from scratch.
+ *
+ * Edits are recorded as they're made, and the next call to solve() deals with all of them together. If the last
+ * solution already agrees with every edited square, e.g. because a clue was removed or the value typed in was the one
+ * in the solution, it's kept as it is. Otherwise only a region around the edited squares is searched again, with the
+ * rest of the last solution held fixed. Changing a value in a solved grid means moving the old and new values around
+ * it, so first just the squares holding either value are searched, then the whole bands and stacks of the edited
+ * squares, and only if neither can be repaired, the whole board.
+ */
+public class IncrementalSolver implements SudokuEngine {
+	private static final int ALL_VALUES = 0x1FF;
+
+	private final int[] puzzle = new int[81];
+	private final int[] solution = new int[81];
+	private boolean hasSolution;
+	private boolean solved;
+	private final boolean[] edited = new boolean[81];
+	private int editedCount;
+	private int lastRepairSize;
+
+	// Working state for searching a region.
+	private final int[] rowUsed = new int[9];
+	private final int[] columnUsed = new int[9];
+	private final int[] subBoardUsed = new int[9];
+	private final int[] free = new int[81];
+	private final boolean[] inRegion = new boolean[81];
+
+	/**
+	 * @param board the board to start from.
+	 */
+	public IncrementalSolver(SudokuBoard board)
+	{
+		for(int square = 0; square < 81; square++)
+		{
+			puzzle[square] = board.getValueAt(square);
+		}
+	}
+
+	/**
+	 * Changes the value of a square. Nothing is searched until solve() is next called.
+	 * @param square the square's position in the board array.
+	 * @param value the value, from 1-9, or 0 to empty the square.
+	 */
+	public void setValue(int square, int value)
+	{
+		if(value < 0 || value > 9)
+		{
+			throw new IllegalArgumentException("Sudoku board can only contain values from 0-9.");
+		}
+
+		if(puzzle[square] == value)
+		{
+			return;
+		}
+
+		puzzle[square] = value;
+		solved = false;
+
+		if(!edited[square])
+		{
+			edited[square] = true;
+			editedCount++;
+		}
+	}
+
+	/**
+	 * Gets the value of a square of the board being solved, not of its solution.
+	 * @param square the square.
+	 * @return the value, or 0 if the square is empty.
+	 */
+	public int getValue(int square)
+	{
+		return puzzle[square];
+	}
+
+	/**
+	 * Brings the solution up to date with the edits made since the last call.
+	 * @return whether or not the board has a solution.
+	 */
+	@Override
+	public boolean solve()
+	{
+		if(solved)
+		{
+			return hasSolution;
+		}
+
+		if(!loadMasks(null))
+		{
+			hasSolution = false;
+		}
+		else if(hasSolution && agreesWithEdits())
+		{
+			lastRepairSize = 0;
+		}
+		else
+		{
+			hasSolution = hasSolution && (repair(false) || repair(true));
+
+			if(!hasSolution)
+			{
+				hasSolution = searchRegion(null);
+			}
+		}
+
+		for(int square = 0; square < 81 && editedCount > 0; square++)
+		{
+			edited[square] = false;
+		}
+		editedCount = 0;
+		solved = true;
+
+		return hasSolution;
+	}
+
+	/**
+	 * Returns the solution found by the last call to solve().
+	 * @return the solution, or the board being solved if it has no solution.
+	 */
+	@Override
+	public SudokuBoard getBoard()
+	{
+		SudokuBoard board = new SudokuBoard();
+
+		for(int square = 0; square < 81; square++)
+		{
+			board.setValueAt(square, hasSolution ? solution[square] : puzzle[square]);
+		}
+
+		return board;
+	}
+
+	/**
+	 * Returns the number of squares that were searched again by the last call to solve() which had to search.
+	 * @return the number of squares, or 0 if the last solution could be kept as it was.
+	 */
+	public int getLastRepairSize()
+	{
+		return lastRepairSize;
+	}
+
+	private boolean agreesWithEdits()
+	{
+		for(int square = 0; square < 81; square++)
+		{
+			if(edited[square] && puzzle[square] != 0 && puzzle[square] != solution[square])
+			{
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Searches again around the edited squares, keeping the rest of the last solution.
+	 * @param wide whether to search the bands and stacks of the edited squares, rather than just the squares holding
+	 *             the values that were swapped.
+	 * @return whether or not a solution was found.
+	 */
+	private boolean repair(boolean wide)
+	{
+		int swappedValues = 0;
+		int bands = 0;
+		int stacks = 0;
+
+		for(int square = 0; square < 81; square++)
+		{
+			if(edited[square])
+			{
+				// 1 << value >> 1 is the value's bit, or nothing for an empty square.
+				swappedValues |= 1 << solution[square] >> 1 | 1 << puzzle[square] >> 1;
+				bands |= 1 << SudokuUnits.ROW[square] / 3;
+				stacks |= 1 << SudokuUnits.COLUMN[square] / 3;
+			}
+		}
+
+		for(int square = 0; square < 81; square++)
+		{
+			boolean inBandOrStack = (bands >> SudokuUnits.ROW[square] / 3 & 1) != 0
+					|| (stacks >> SudokuUnits.COLUMN[square] / 3 & 1) != 0;
+			boolean holdsSwappedValue = (swappedValues & 1 << solution[square] >> 1) != 0;
+
+			inRegion[square] = edited[square] || (wide ? inBandOrStack : holdsSwappedValue);
+		}
+
+		return searchRegion(inRegion);
+	}
+
+	/**
+	 * Empties the non-clue squares of a region, keeps the last solution everywhere else, and searches the region.
+	 * @param region the squares to search, or null to search the whole board.
+	 * @return whether or not a solution was found, in which case it's in the solution array.
+	 */
+	private boolean searchRegion(boolean[] region)
+	{
+		int count = 0;
+
+		for(int square = 0; square < 81; square++)
+		{
+			if(puzzle[square] == 0 && (region == null || region[square]))
+			{
+				free[count++] = square;
+			}
+		}
+
+		int[] kept = solution.clone();
+
+		if(!loadMasks(region))
+		{
+			return false;
+		}
+
+		lastRepairSize = count;
+
+		if(search(0, count))
+		{
+			for(int square = 0; square < 81; square++)
+			{
+				if(puzzle[square] != 0)
+				{
+					solution[square] = puzzle[square];
+				}
+			}
+
+			return true;
+		}
+
+		System.arraycopy(kept, 0, solution, 0, 81);
+
+		return false;
+	}
+
+	/**
+	 * Sets up the unit masks from the clues, plus the last solution outside the region.
+	 * @param region the squares being searched, or null for the whole board.
+	 * @return false if any value is repeated in a unit.
+	 */
+	private boolean loadMasks(boolean[] region)
+	{
+		for(int unit = 0; unit < 9; unit++)
+		{
+			rowUsed[unit] = 0;
+			columnUsed[unit] = 0;
+			subBoardUsed[unit] = 0;
+		}
+
+		boolean keepSolution = region != null;
+
+		for(int square = 0; square < 81; square++)
+		{
+			int value = puzzle[square] != 0 ? puzzle[square] : keepSolution && !region[square] ? solution[square] : 0;
+
+			if(value == 0)
+			{
+				continue;
+			}
+
+			int bit = 1 << (value - 1);
+			if((candidatesOf(square) & bit) == 0)
+			{
+				return false;
+			}
+
+			toggle(square, bit);
+		}
+
+		return true;
+	}
+
+	/**
+	 * Fills in the free squares from the given position onwards, always taking the one with the fewest candidates.
+	 */
+	private boolean search(int position, int count)
+	{
+		if(position == count)
+		{
+			return true;
+		}
+
+		int best = position;
+		int bestCandidates = 0;
+		int fewest = 10;
+
+		for(int index = position; index < count; index++)
+		{
+			int candidates = candidatesOf(free[index]);
+			int size = Integer.bitCount(candidates);
+
+			if(size < fewest)
+			{
+				best = index;
+				bestCandidates = candidates;
+				fewest = size;
+
+				if(size <= 1)
+				{
+					break;
+				}
+			}
+		}
+
+		if(fewest == 0)
+		{
+			return false;
+		}
+
+		int square = free[best];
+		free[best] = free[position];
+		free[position] = square;
+
+		while(bestCandidates != 0)
+		{
+			int bit = bestCandidates & -bestCandidates;
+			bestCandidates ^= bit;
+
+			toggle(square, bit);
+			solution[square] = Integer.numberOfTrailingZeros(bit) + 1;
+
+			if(search(position + 1, count))
+			{
+				return true;
+			}
+
+			toggle(square, bit);
+		}
+
+		free[position] = free[best];
+		free[best] = square;
+
+		return false;
+	}
+
+	private int candidatesOf(int square)
+	{
+		return ~(rowUsed[SudokuUnits.ROW[square]] | columnUsed[SudokuUnits.COLUMN[square]]
+				| subBoardUsed[SudokuUnits.SUB_BOARD[square]]) & ALL_VALUES;
+	}
+
+	private void toggle(int square, int bit)
+	{
+		rowUsed[SudokuUnits.ROW[square]] ^= bit;
+		columnUsed[SudokuUnits.COLUMN[square]] ^= bit;
+		subBoardUsed[SudokuUnits.SUB_BOARD[square]] ^= bit;
+	}
+}
@@ -0,0 +1,157 @@
+package sudoku;
+
+import sudoku.SudokuSolver.CellOrder;
+import sudoku.SudokuSolver.ValueOrder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Solves a board by racing several differently configured searches against each other and taking whichever answers
+ * first. No single search order is fastest on every puzzle, so this cuts down on the puzzles which happen to be very
+ * slow for one particular order. The searches that lose are cancelled as soon as there is an answer.
+ */
+public class PortfolioSolver implements SudokuEngine {
+	private static final ExecutorService SHARED_EXECUTOR = Executors.newFixedThreadPool(
+			Runtime.getRuntime().availableProcessors(), runnable -> {
+				Thread thread = new Thread(runnable, "sudoku-portfolio");
+				thread.setDaemon(true);
+				return thread;
+			});
+
+	private SudokuBoard board;
+	private final ExecutorService executor;
+	private final List<Function<SudokuBoard, SudokuEngine>> strategies;
+	private SudokuEngine winner;
+
+	/**
+	 * Creates a portfolio of the default strategies running on a shared executor.
+	 * @param board the board to solve.
+	 */
+	public PortfolioSolver(SudokuBoard board)
+	{
+		this(board, SHARED_EXECUTOR, defaultStrategies());
+	}
+
+	/**
+	 * Creates a portfolio of the given strategies.
+	 * @param board the board to solve.
+	 * @param executor the executor to run the strategies on; it should have a thread for each strategy, otherwise
+	 *                 some strategies will only start once others have finished.
+	 * @param strategies creates the engine for each strategy; every engine must give up when its thread is
+	 *                   interrupted.
+	 */
+	public PortfolioSolver(SudokuBoard board, ExecutorService executor,
+						   List<Function<SudokuBoard, SudokuEngine>> strategies)
+	{
+		if(strategies.isEmpty())
+		{
+			throw new IllegalArgumentException("A portfolio needs at least one strategy.");
+		}
+
+		this.board = new SudokuBoard(board);
+		this.executor = executor;
+		this.strategies = new ArrayList<>(strategies);
+	}
+
+	/**
+	 * Returns the strategies used by default: each cell order, forwards and backwards value orders, and a couple of
+	 * randomised searches.
+	 * @return the strategies.
+	 */
+	public static List<Function<SudokuBoard, SudokuEngine>> defaultStrategies()
+	{
+		return Collections.unmodifiableList(Arrays.asList(
+				board -> new SudokuSolver(board, CellOrder.FIRST_EMPTY, ValueOrder.ASCENDING, 0),
+				board -> new SudokuSolver(board, CellOrder.LAST_EMPTY, ValueOrder.DESCENDING, 0),
+				board -> new SudokuSolver(board, CellOrder.FEWEST_CANDIDATES, ValueOrder.ASCENDING, 0),
+				board -> new SudokuSolver(board, CellOrder.FEWEST_CANDIDATES, ValueOrder.RANDOM, 1),
+				board -> new SudokuSolver(board, CellOrder.FIRST_EMPTY, ValueOrder.RANDOM, 2)
+		));
+	}
+
+	/**
+	 * Solves the board with every strategy at once, stopping as soon as one of them finishes. Every strategy searches
+	 * the whole space, so the first one to finish has the answer even if there is no solution.
+	 * @return whether or not a solution was found.
+	 */
+	@Override
+	public boolean solve()
+	{
+		ExecutorCompletionService<SudokuEngine> completion = new ExecutorCompletionService<>(executor);
+		List<Future<SudokuEngine>> running = new ArrayList<>(strategies.size());
+
+		try
+		{
+			for(Function<SudokuBoard, SudokuEngine> strategy : strategies)
+			{
+				SudokuEngine engine = strategy.apply(board);
+				running.add(completion.submit(() -> engine.solve() ? engine : null));
+			}
+
+			for(int finished = 0; finished < running.size(); finished++)
+			{
+				SudokuEngine result;
+
+				try
+				{
+					result = completion.take().get();
+				}
+				catch(ExecutionException e)
+				{
+					// A strategy that breaks shouldn't stop the others from finding the answer.
+					continue;
+				}
+
+				if(result != null)
+				{
+					winner = result;
+					board = new SudokuBoard(result.getBoard());
+				}
+
+				return result != null;
+			}
+
+			throw new IllegalStateException("Every strategy in the portfolio failed.");
+		}
+		catch(InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			return false;
+		}
+		finally
+		{
+			for(Future<SudokuEngine> strategy : running)
+			{
+				strategy.cancel(true);
+			}
+		}
+	}
+
+	/**
+	 * Returns the board.
+	 * @return sudoku.SudokuBoard.
+	 */
+	@Override
+	public SudokuBoard getBoard()
+	{
+		return board;
+	}
+
+	/**
+	 * Returns the engine which found the solution.
+	 * @return the engine, or null if no solution has been found.
+	 */
+	public SudokuEngine getWinner()
+	{
+		return winner;
+	}
+}
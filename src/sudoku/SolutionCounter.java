@@ -0,0 +1,144 @@
+package sudoku;
+
+/**
+ * Counts the solutions of a board, up to a limit. This is much cheaper than solving with a SudokuEngine when all that
+ * matters is whether a puzzle has exactly one solution: the used values of every row, column and sub-board are kept
+ * as masks and updated as values are placed, and the search always branches on the square with the fewest candidates.
+ *
+ * A counter keeps its working state between boards to avoid allocating, so each thread needs its own.
+ */
+public class SolutionCounter {
+	private static final int ALL_VALUES = 0x1FF;
+
+	private final int[] values = new int[81];
+	private final int[] rowUsed = new int[9];
+	private final int[] columnUsed = new int[9];
+	private final int[] subBoardUsed = new int[9];
+
+	/**
+	 * Counts the solutions of a board, stopping once the limit is reached.
+	 * @param board the board.
+	 * @param limit the most solutions to look for; 2 is enough to tell whether a solution is unique.
+	 * @return the number of solutions, at most the limit; 0 if the board is invalid.
+	 */
+	public int count(SudokuBoard board, int limit)
+	{
+		if(limit < 1)
+		{
+			throw new IllegalArgumentException("The limit must be at least one solution.");
+		}
+
+		for(int unit = 0; unit < 9; unit++)
+		{
+			rowUsed[unit] = 0;
+			columnUsed[unit] = 0;
+			subBoardUsed[unit] = 0;
+		}
+
+		for(int square = 0; square < 81; square++)
+		{
+			int value = board.getValueAt(square);
+			values[square] = value;
+
+			if(value == 0)
+			{
+				continue;
+			}
+
+			int bit = 1 << (value - 1);
+			if(((rowUsed[SudokuUnits.ROW[square]] | columnUsed[SudokuUnits.COLUMN[square]]
+					| subBoardUsed[SudokuUnits.SUB_BOARD[square]]) & bit) != 0)
+			{
+				return 0;
+			}
+
+			place(square, bit);
+		}
+
+		return search(limit);
+	}
+
+	/**
+	 * Indicates whether a board has exactly one solution.
+	 * @param board the board.
+	 * @return boolean indicating whether or not the solution is unique.
+	 */
+	public boolean hasUniqueSolution(SudokuBoard board)
+	{
+		return count(board, 2) == 1;
+	}
+
+	private int search(int limit)
+	{
+		int best = -1;
+		int bestCandidates = 0;
+		int fewest = 10;
+
+		for(int square = 0; square < 81; square++)
+		{
+			if(values[square] != 0)
+			{
+				continue;
+			}
+
+			int candidates = candidatesOf(square);
+			int count = Integer.bitCount(candidates);
+
+			if(count == 0)
+			{
+				return 0;
+			}
+			if(count < fewest)
+			{
+				best = square;
+				bestCandidates = candidates;
+				fewest = count;
+
+				if(count == 1)
+				{
+					break;
+				}
+			}
+		}
+
+		// Every square is filled, so this is a solution.
+		if(best == -1)
+		{
+			return 1;
+		}
+
+		int found = 0;
+
+		while(bestCandidates != 0 && found < limit)
+		{
+			int bit = bestCandidates & -bestCandidates;
+			bestCandidates ^= bit;
+
+			place(best, bit);
+			values[best] = Integer.numberOfTrailingZeros(bit) + 1;
+
+			found += search(limit - found);
+
+			place(best, bit);
+			values[best] = 0;
+		}
+
+		return found;
+	}
+
+	private int candidatesOf(int square)
+	{
+		return ~(rowUsed[SudokuUnits.ROW[square]] | columnUsed[SudokuUnits.COLUMN[square]]
+				| subBoardUsed[SudokuUnits.SUB_BOARD[square]]) & ALL_VALUES;
+	}
+
+	/**
+	 * Toggles a value in the masks of a square's units, so the same call both places and removes it.
+	 */
+	private void place(int square, int bit)
+	{
+		rowUsed[SudokuUnits.ROW[square]] ^= bit;
+		columnUsed[SudokuUnits.COLUMN[square]] ^= bit;
+		subBoardUsed[SudokuUnits.SUB_BOARD[square]] ^= bit;
+	}
+}
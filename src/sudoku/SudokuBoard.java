@@ -1,10 +1,14 @@
 package sudoku;
 
+import java.util.Arrays;
+
 /**
  * The main object for the board. Represents a sudoku board as an array, with each index representing a square in
  * the board, with 0 being the top left, and 80 being the bottom right.
  */
 public class SudokuBoard {
+	private static final int ALL_VALUES = 0x1FF;
+
 	private int[] board;
 
 	public SudokuBoard() {
@@ -151,14 +155,54 @@ public class SudokuBoard {
 	 */
 	public boolean isValid()
 	{
-		for(int count = 0; count < 9; count++)
+		return computeOccupancy(new int[27]);
+	}
+
+	/**
+	 * Works out which values could go in every square at once, i.e. the values which aren't already in the square's
+	 * row, column or sub-board.
+	 * @param candidates array of 81 to fill with a mask per square, with bit (value - 1) set for each value that could
+	 *                   go in the square. Squares which already hold a value get 0.
+	 * @return false if the board isn't valid, in which case the masks aren't filled in.
+	 */
+	public boolean getCandidateMasks(int[] candidates)
+	{
+		return getCandidateMasks(candidates, new int[27]);
+	}
+
+	/**
+	 * Works out which values could go in every square at once, using the given array to work in so that nothing is
+	 * allocated, e.g. when called at every node of a search.
+	 * @param candidates array of 81 to fill with a mask per square, as for {@link #getCandidateMasks(int[])}.
+	 * @param occupancy array of 27 to work in; its contents are overwritten.
+	 * @return false if the board isn't valid, in which case the masks aren't filled in.
+	 */
+	public boolean getCandidateMasks(int[] candidates, int[] occupancy)
+	{
+		if(candidates.length != board.length)
 		{
-			boolean countValid = validateRow(count) && validateColumn(count) && validateSubBoard(count);
+			throw new IllegalArgumentException("There must be room for a candidate mask for every square.");
+		}
+		if(occupancy.length != 27)
+		{
+			throw new IllegalArgumentException("There must be room for the values in every unit.");
+		}
 
-			if(!countValid)
-			{
-				return false;
-			}
+		Arrays.fill(occupancy, 0);
+
+		if(!computeOccupancy(occupancy))
+		{
+			return false;
+		}
+
+		for(int square = 0; square < board.length; square++)
+		{
+			// (value - 1) >> 31 is all ones for an empty square and zero for a filled one, which avoids a branch.
+			int emptyMask = (board[square] - 1) >> 31;
+			int used = occupancy[SudokuUnits.ROW[square]] | occupancy[9 + SudokuUnits.COLUMN[square]]
+					| occupancy[18 + SudokuUnits.SUB_BOARD[square]];
+
+			candidates[square] = ~used & ALL_VALUES & emptyMask;
 		}
 
 		return true;
@@ -314,88 +358,36 @@ public class SudokuBoard {
 	}
 
 	/**
-	 * Returns a boolean indicating whether or not the given row contains a valid set of numbers.
-	 * @param row the row to verify.
-	 * @return boolean representing the validity of the row.
+	 * Works out which values are in each row, column and sub-board, in a single pass over the board.
+	 * @param occupancy array of 27 zeros to fill with a mask of the values in each row (0-8), column (9-17) and
+	 *                  sub-board (18-26).
+	 * @return false if any value appears more than once in a row, column or sub-board.
 	 */
-	private boolean validateRow(int row)
+	private boolean computeOccupancy(int[] occupancy)
 	{
-		if(!inRange(row, 0, 8))
-		{
-			throw new IndexOutOfBoundsException("There are only 9 rows in the board.");
-		}
-
-		int rowStartPoint = row * 9;
-		NumberConstraint rowValidity = new NumberConstraint();
-
-		for(int rowItem = 0; rowItem < 9; rowItem++)
+		for(int square = 0; square < board.length; square++)
 		{
-			if(board[rowStartPoint + rowItem] != 0)
+			if(board[square] == 0)
 			{
-				rowValidity.add(board[rowStartPoint + rowItem]);
+				continue;
 			}
-		}
-
-		return rowValidity.isValid();
-	}
-
-	/**
-	 * Returns a boolean indicating whether or not the given column contains a valid set of numbers.
-	 * @param col the column to validate.
-	 * @return boolean indicating whether or not the column is valid.
-	 */
-	private boolean validateColumn(int col)
-	{
-		if(!inRange(col, 0, 8))
-		{
-			throw new IndexOutOfBoundsException("There are only 9 columns");
-		}
 
-		NumberConstraint colValidity = new NumberConstraint();
+			int bit = 1 << (board[square] - 1);
+			int row = SudokuUnits.ROW[square];
+			int col = 9 + SudokuUnits.COLUMN[square];
+			int subBoard = 18 + SudokuUnits.SUB_BOARD[square];
 
-		for(int row = 0; row < 9; row++)
-		{
-			if (board[col + row * 9] != 0)
+			if(((occupancy[row] | occupancy[col] | occupancy[subBoard]) & bit) != 0)
 			{
-				colValidity.add(board[col + row * 9]);
+				return false;
 			}
-		}
-
-		return colValidity.isValid();
-	}
-
-	/**
-	 * Returns a boolean indicating whether or no the given sub-board contains a valid set of numbers.
-	 * @param subBoard the sub-board to validate; 0 is top left, and moving left to right, 8 is bottom right.
-	 * @return boolean indicating whether or now the sub-board is valid.
-	 */
-	private boolean validateSubBoard(int subBoard)
-	{
-		if(!inRange(subBoard, 0, 8))
-		{
-			throw new IndexOutOfBoundsException("There are only 9 sub-boards");
-		}
-
-		// This formula maps the numbers 0-8 onto the starting points (i.e. top left square) of each sub-board in the array.
-		// 0 -> 0, 1 -> 3, 2 -> 6, 3 -> 27, 4 -> 30, ..., 7 -> 57, 8 -> 60
-		int startingPoint = (subBoard / 3) * 27 + (subBoard % 3) * 3;
 
-		NumberConstraint subBoardValidity = new NumberConstraint();
-
-		// Outer loop loops through the rows of the sub-board, each separated by 9 in the array.
-		for(int subBoardRow = startingPoint; subBoardRow < startingPoint + 27; subBoardRow += 9)
-		{
-			// Inner loop loops through the columns of each row of the sub-board.
-			for(int subBoardCol = subBoardRow; subBoardCol < subBoardRow + 3; subBoardCol += 1)
-			{
-				if(board[subBoardCol] != 0)
-				{
-					subBoardValidity.add(board[subBoardCol]);
-				}
-			}
+			occupancy[row] |= bit;
+			occupancy[col] |= bit;
+			occupancy[subBoard] |= bit;
 		}
 
-		return subBoardValidity.isValid();
+		return true;
 	}
 
 	private int performCoordinateToIndexTranslation(int col, int row)
@@ -422,48 +414,4 @@ public class SudokuBoard {
 
 		return value >= lower && value <= upper;
 	}
-
-	/**
-	 * Inner class to represent the numbers in a row/column/sub-board. Allows easy validation of the entire board.
-	 */
-	private class NumberConstraint
-	{
-		// Keep track of all the numbers in the row/col/sub-board with an array that counts the appearances of the number at each index.
-		int[] numbers = new int[9];
-
-		/**
-		 * Adds 1 to the count for the given number.
-		 * @param number the number to count.
-		 */
-		public void add(int number)
-		{
-			// Subtract one as we're using an array here to track each number in the row/col/sub-board.
-			number--;
-
-			if(!inRange(number, 0, 8))
-			{
-				throw new IndexOutOfBoundsException("Sudoku boards only contain numbers 1 - 9.");
-			}
-
-			numbers[number]++;
-		}
-
-		/**
-		 * Returns a boolean indicating whether or not the row/col/sub-board is valid, i.e. has at most 1 occurance of
-		 * each number.
-		 * @return boolean representing validity.
-		 */
-		public boolean isValid()
-		{
-			for (int number : numbers)
-			{
-				if(number > 1)
-				{
-					return false;
-				}
-			}
-
-			return true;
-		}
-	}
 }
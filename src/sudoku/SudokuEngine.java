@@ -0,0 +1,20 @@
+package sudoku;
+
+/**
+ * Something that can find a solution to an incomplete SudokuBoard. Engines are given the board to solve when they
+ * are created, so any engine can be used wherever a SudokuSolver is, e.g. through a {@code SudokuSolver::new} style
+ * constructor reference.
+ */
+public interface SudokuEngine {
+	/**
+	 * Solves the board.
+	 * @return whether or not a solution was found.
+	 */
+	boolean solve();
+
+	/**
+	 * Returns the board, which holds the solution once solve() has returned true.
+	 * @return the board.
+	 */
+	SudokuBoard getBoard();
+}
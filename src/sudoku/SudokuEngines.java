@@ -0,0 +1,56 @@
+package sudoku;
+
+import sudoku.SudokuSolver.CellOrder;
+import sudoku.SudokuSolver.ValueOrder;
+import sudoku.sat.SatSudokuSolver;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * The engines that can be picked by name, e.g. from the command line or in benchmark results.
+ */
+public final class SudokuEngines {
+	private static final Map<String, Function<SudokuBoard, SudokuEngine>> ENGINES = new LinkedHashMap<>();
+
+	static
+	{
+		ENGINES.put("backtracking", SudokuSolver::new);
+		ENGINES.put("fewest-candidates",
+				board -> new SudokuSolver(board, CellOrder.FEWEST_CANDIDATES, ValueOrder.ASCENDING, 0));
+		ENGINES.put("sat", SatSudokuSolver::new);
+		ENGINES.put("portfolio", PortfolioSolver::new);
+	}
+
+	private SudokuEngines()
+	{
+	}
+
+	/**
+	 * Returns the engine with the given name.
+	 * @param name the name of the engine.
+	 * @return a function creating the engine for a board.
+	 */
+	public static Function<SudokuBoard, SudokuEngine> get(String name)
+	{
+		Function<SudokuBoard, SudokuEngine> engine = ENGINES.get(name);
+
+		if(engine == null)
+		{
+			throw new IllegalArgumentException("Unknown engine " + name + ". Known engines are " + ENGINES.keySet());
+		}
+
+		return engine;
+	}
+
+	/**
+	 * Returns every engine, keyed by name.
+	 * @return the engines.
+	 */
+	public static Map<String, Function<SudokuBoard, SudokuEngine>> all()
+	{
+		return Collections.unmodifiableMap(ENGINES);
+	}
+}
@@ -1,55 +1,165 @@
 package sudoku;
 
+import sudoku.metrics.Counter;
+import sudoku.metrics.Histogram;
+import sudoku.metrics.MetricsRegistry;
+
+import java.util.Random;
+
 /**
  * Object to find a solution to a incomplete SudokuBoard
  */
-public class SudokuSolver {
+public class SudokuSolver implements SudokuEngine {
+	// Recorded once at the end of each solve, so the search itself only counts nodes in a field.
+	private static final Counter SOLVED = MetricsRegistry.getDefault().counter("solver.solved");
+	private static final Counter UNSOLVABLE = MetricsRegistry.getDefault().counter("solver.unsolvable");
+	private static final Counter CANCELLED = MetricsRegistry.getDefault().counter("solver.cancelled");
+	private static final Histogram NODES = MetricsRegistry.getDefault().histogram("solver.nodes");
+	private static final Histogram NANOSECONDS = MetricsRegistry.getDefault().histogram("solver.nanoseconds");
+
 	private SudokuBoard board;
+	private final CellOrder cellOrder;
+	private final ValueOrder valueOrder;
+	private final Random random;
+	private final int[] candidates = new int[81];
+	private final int[] occupancy = new int[27];
+	// A row of values per depth, since a random order is shuffled afresh at every node.
+	private final int[][] valuesToTry = new int[82][9];
+	private boolean cancelled;
+	private long nodes;
+	private PlacementListener placementListener;
 
 	public SudokuSolver(SudokuBoard board)
+	{
+		this(board, CellOrder.FIRST_EMPTY, ValueOrder.ASCENDING, 0);
+	}
+
+	/**
+	 * Creates a solver which searches in the given order.
+	 * @param board the board to solve.
+	 * @param cellOrder the order to fill in the empty squares.
+	 * @param valueOrder the order to try values in each square.
+	 * @param seed the seed used when the value order is random.
+	 */
+	public SudokuSolver(SudokuBoard board, CellOrder cellOrder, ValueOrder valueOrder, long seed)
 	{
 		this.board = new SudokuBoard(board);
+		this.cellOrder = cellOrder;
+		this.valueOrder = valueOrder;
+		this.random = new Random(seed);
+	}
+
+	/**
+	 * Sets something to be told about every value the search puts in or takes out of a square, e.g. to show the search
+	 * as it goes. It's called on the solving thread at every step, so it must be quick.
+	 * @param placementListener the listener, or null for none.
+	 */
+	public void setPlacementListener(PlacementListener placementListener)
+	{
+		this.placementListener = placementListener;
+	}
+
+	/**
+	 * Replaces the board to solve, so that one solver can be reused for many boards without allocating a new one.
+	 * @param board the board to solve next; it's copied, so it isn't changed.
+	 */
+	public void load(SudokuBoard board)
+	{
+		for(int square = 0; square < 81; square++)
+		{
+			this.board.setValueAt(square, board.getValueAt(square));
+		}
+
+		cancelled = false;
 	}
 
 	/**
-	 * Solves the board.
+	 * Solves the board. The search stops early if the thread is interrupted, in which case no solution is reported.
+	 * @return whether or not a solution was found.
 	 */
-	public void solve()
+	@Override
+	public boolean solve()
 	{
-		recursiveSolve(0);
+		long start = System.nanoTime();
+		nodes = 0;
+
+		boolean solved = recursiveSolve(0, 0);
+
+		(solved ? SOLVED : cancelled ? CANCELLED : UNSOLVABLE).increment();
+		NODES.record(nodes);
+		NANOSECONDS.record(System.nanoTime() - start);
+
+		return solved;
 	}
 
 	/**
 	 * Solves the sudoku board recursively.
 	 * @param startPoint the square we've solved up to.
+	 * @param depth the number of values the search has put in so far.
 	 * @return boolean to allow backtracking.
 	 */
-	private boolean recursiveSolve(int startPoint)
+	private boolean recursiveSolve(int startPoint, int depth)
 	{
-		int square = getIndexOfNextFreeSquare(startPoint);
+		nodes++;
+
+		if(Thread.currentThread().isInterrupted())
+		{
+			cancelled = true;
+			return false;
+		}
+
+		// The search only ever puts in values that are candidates, so this can only fail on a board loaded invalid.
+		if(!board.getCandidateMasks(candidates, occupancy))
+		{
+			return false;
+		}
 
-		// If we're at the final square and the board is valid then we're done.
-		if(square == 81 && board.isValid())
+		int square = chooseSquare(startPoint);
+
+		// If we're at the final square then we're done.
+		if(square == 81)
 		{
 			return true;
 		}
 
-		for(int numberToTry = 1; numberToTry <= 9; numberToTry++)
+		// There's an empty square with nothing that can go in it, so there's no point trying anything else.
+		if(square == -1)
 		{
-			board.setValueAt(square, numberToTry);
+			return false;
+		}
+
+		int squareCandidates = candidates[square];
 
-			if(!board.isValid())
+		for(int numberToTry : getValuesToTry(depth))
+		{
+			if((squareCandidates & (1 << (numberToTry - 1))) == 0)
 			{
 				continue;
 			}
 
-			if(recursiveSolve(square))
+			board.setValueAt(square, numberToTry);
+			if(placementListener != null)
+			{
+				placementListener.placed(square, numberToTry);
+			}
+
+			if(recursiveSolve(square, depth + 1))
 			{
 				return true;
 			}
+
+			if(cancelled)
+			{
+				break;
+			}
 		}
 
 		board.setValueAt(square, 0);
+		if(placementListener != null)
+		{
+			placementListener.placed(square, 0);
+		}
+
 		return false;
 	}
 
@@ -57,10 +167,55 @@ public class SudokuSolver {
 	 * Returns the board.
 	 * @return sudoku.SudokuBoard.
 	 */
+	@Override
 	public SudokuBoard getBoard() {
 		return board;
 	}
 
+	/**
+	 * Indicates whether or not the last solve was stopped by the thread being interrupted.
+	 * @return boolean indicating whether or not the solve was cancelled.
+	 */
+	public boolean wasCancelled()
+	{
+		return cancelled;
+	}
+
+	/**
+	 * Returns the number of times the last solve tried to fill in a square.
+	 * @return the number of nodes searched.
+	 */
+	public long getNodes()
+	{
+		return nodes;
+	}
+
+	/**
+	 * Picks the next square to fill in, according to the cell order.
+	 * @param startPoint the square we've solved up to.
+	 * @return the square to fill in, 81 if the board is full, or -1 if there's a square which can't be filled.
+	 */
+	private int chooseSquare(int startPoint)
+	{
+		switch(cellOrder)
+		{
+			case LAST_EMPTY:
+				for(int square = 80; square >= 0; square--)
+				{
+					if(board.isSquareEmpty(square))
+					{
+						return square;
+					}
+				}
+
+				return 81;
+			case FEWEST_CANDIDATES:
+				return getIndexOfMostConstrainedSquare();
+			default:
+				return getIndexOfNextFreeSquare(startPoint);
+		}
+	}
+
 	/**
 	 * Finds the closest free square at or after the given square.
 	 * @param square the square to look at.
@@ -74,4 +229,100 @@ public class SudokuSolver {
 
 		return square;
 	}
+
+	/**
+	 * Finds the free square with the fewest values that could go in it.
+	 * @return the square, 81 if there are no free squares, or -1 if a free square has no possible values.
+	 */
+	private int getIndexOfMostConstrainedSquare()
+	{
+		int best = 81;
+		int fewest = 10;
+
+		for(int square = 0; square < 81; square++)
+		{
+			if(!board.isSquareEmpty(square))
+			{
+				continue;
+			}
+
+			int count = Integer.bitCount(candidates[square]);
+
+			if(count == 0)
+			{
+				return -1;
+			}
+			if(count < fewest)
+			{
+				best = square;
+				fewest = count;
+			}
+		}
+
+		return best;
+	}
+
+	/**
+	 * Returns the values to try in a square, according to the value order.
+	 * @param depth the depth of the node the values are for; each depth has its own array, which is reused.
+	 * @return the values.
+	 */
+	private int[] getValuesToTry(int depth)
+	{
+		int[] values = valuesToTry[depth];
+
+		for(int value = 1; value <= 9; value++)
+		{
+			values[value - 1] = valueOrder == ValueOrder.DESCENDING ? 10 - value : value;
+		}
+
+		if(valueOrder == ValueOrder.RANDOM)
+		{
+			for(int index = values.length - 1; index > 0; index--)
+			{
+				int swapWith = random.nextInt(index + 1);
+				int swap = values[index];
+				values[index] = values[swapWith];
+				values[swapWith] = swap;
+			}
+		}
+
+		return values;
+	}
+
+	/**
+	 * The order in which the solver fills in the empty squares.
+	 */
+	public enum CellOrder
+	{
+		/** Left to right, top to bottom. */
+		FIRST_EMPTY,
+		/** Right to left, bottom to top. */
+		LAST_EMPTY,
+		/** The square with the fewest possible values first. */
+		FEWEST_CANDIDATES
+	}
+
+	/**
+	 * The order in which the solver tries values in a square.
+	 */
+	public enum ValueOrder
+	{
+		ASCENDING,
+		DESCENDING,
+		RANDOM
+	}
+
+	/**
+	 * Told about each change the search makes to the board.
+	 */
+	public interface PlacementListener
+	{
+		/**
+		 * Called when a square is filled in or emptied.
+		 * @param square the square.
+		 * @param value the value put in the square, or 0 if it was emptied.
+		 */
+		void placed(int square, int value);
+	}
 }
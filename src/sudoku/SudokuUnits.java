@@ -0,0 +1,84 @@
+package sudoku;
+
+/**
+ * Lookup tables describing the shape of the board: which squares make up each row, column and sub-board, and which
+ * other squares each square shares a unit with. Squares are numbered as in SudokuBoard, 0 top left to 80 bottom right.
+ *
+ * The arrays are shared, so they must not be modified.
+ */
+public final class SudokuUnits {
+	/** The squares in each unit: rows are units 0-8, columns 9-17 and sub-boards 18-26. */
+	public static final int[][] UNITS = new int[27][9];
+
+	/** The row, column and sub-board units each square belongs to. */
+	public static final int[][] UNITS_OF_SQUARE = new int[81][3];
+
+	/** The 20 other squares that share a row, column or sub-board with each square. */
+	public static final int[][] PEERS = new int[81][20];
+
+	/** The row, column and sub-board number of each square. */
+	public static final int[] ROW = new int[81];
+	public static final int[] COLUMN = new int[81];
+	public static final int[] SUB_BOARD = new int[81];
+
+	private static final boolean[][] SEES = new boolean[81][81];
+
+	static
+	{
+		for(int square = 0; square < 81; square++)
+		{
+			ROW[square] = square / 9;
+			COLUMN[square] = square % 9;
+			SUB_BOARD[square] = (square / 27) * 3 + (square % 9) / 3;
+
+			UNITS_OF_SQUARE[square][0] = ROW[square];
+			UNITS_OF_SQUARE[square][1] = 9 + COLUMN[square];
+			UNITS_OF_SQUARE[square][2] = 18 + SUB_BOARD[square];
+		}
+
+		for(int unit = 0; unit < 9; unit++)
+		{
+			// Maps the numbers 0-8 onto the top left square of each sub-board, the inverse of SUB_BOARD above.
+			int subBoardStart = (unit / 3) * 27 + (unit % 3) * 3;
+
+			for(int item = 0; item < 9; item++)
+			{
+				UNITS[unit][item] = unit * 9 + item;
+				UNITS[9 + unit][item] = unit + item * 9;
+				UNITS[18 + unit][item] = subBoardStart + (item / 3) * 9 + item % 3;
+			}
+		}
+
+		for(int square = 0; square < 81; square++)
+		{
+			int peers = 0;
+
+			for(int other = 0; other < 81; other++)
+			{
+				boolean shareUnit = ROW[square] == ROW[other] || COLUMN[square] == COLUMN[other]
+						|| SUB_BOARD[square] == SUB_BOARD[other];
+
+				if(other != square && shareUnit)
+				{
+					SEES[square][other] = true;
+					PEERS[square][peers++] = other;
+				}
+			}
+		}
+	}
+
+	private SudokuUnits()
+	{
+	}
+
+	/**
+	 * Indicates whether two different squares share a row, column or sub-board.
+	 * @param square the first square.
+	 * @param other the second square.
+	 * @return boolean indicating whether or not the squares are peers.
+	 */
+	public static boolean sees(int square, int other)
+	{
+		return SEES[square][other];
+	}
+}
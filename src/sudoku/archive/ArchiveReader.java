@@ -0,0 +1,142 @@
+package sudoku.archive;
+
+import sudoku.SudokuBoard;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Reads back the records written by ArchiveWriter, one at a time.
+ */
+public class ArchiveReader implements Closeable {
+	private final DataInputStream in;
+	private final GridCodec codec = new GridCodec();
+	private final byte[] record = new byte[ArchiveWriter.MAXIMUM_RECORD_BYTES];
+	private final int[] puzzleValues = new int[81];
+	private final int[] solutionValues = new int[81];
+	private boolean hasSolution;
+
+	/**
+	 * @param in the stream to read from, which is buffered here.
+	 * @throws IOException if the stream can't be read or isn't an archive.
+	 */
+	public ArchiveReader(InputStream in) throws IOException
+	{
+		this.in = new DataInputStream(new BufferedInputStream(in, 1 << 16));
+
+		byte[] magic = new byte[ArchiveWriter.MAGIC.length];
+		this.in.readFully(magic);
+
+		if(!Arrays.equals(magic, ArchiveWriter.MAGIC))
+		{
+			throw new IOException("The stream isn't a puzzle archive.");
+		}
+	}
+
+	/**
+	 * Reads the next record.
+	 * @return false at the end of the archive.
+	 * @throws IOException if the stream can't be read or the record is corrupt.
+	 */
+	public boolean next() throws IOException
+	{
+		int type = in.read();
+
+		if(type == -1)
+		{
+			return false;
+		}
+
+		try
+		{
+			in.readFully(record, 0, GridCodec.CLUE_MAP_BYTES);
+
+			if(type == ArchiveWriter.PUZZLE)
+			{
+				int clueBytes = (GridCodec.countClues(record, 0) + 1) >> 1;
+
+				in.readFully(record, GridCodec.CLUE_MAP_BYTES, clueBytes);
+				GridCodec.readClues(record, 0, record, GridCodec.CLUE_MAP_BYTES, puzzleValues);
+				hasSolution = false;
+			}
+			else if(type == ArchiveWriter.SOLVED || type == ArchiveWriter.SOLVED_WIDE)
+			{
+				int rankBytes = type == ArchiveWriter.SOLVED ? GridCodec.RANK_BYTES : GridCodec.WIDE_RANK_BYTES;
+
+				in.readFully(record, GridCodec.CLUE_MAP_BYTES, rankBytes);
+				codec.readRank(record, GridCodec.CLUE_MAP_BYTES, rankBytes, solutionValues);
+
+				for(int square = 0; square < 81; square++)
+				{
+					puzzleValues[square] = GridCodec.isClue(record, 0, square) ? solutionValues[square] : 0;
+				}
+
+				hasSolution = true;
+			}
+			else
+			{
+				throw new IOException("Unknown record type " + type + ".");
+			}
+		}
+		catch(EOFException e)
+		{
+			throw new IOException("The archive ends part way through a record.", e);
+		}
+		catch(IllegalArgumentException e)
+		{
+			throw new IOException("The archive holds a corrupt record.", e);
+		}
+
+		return true;
+	}
+
+	/**
+	 * Returns the puzzle of the record last read.
+	 * @return the puzzle.
+	 */
+	public SudokuBoard getPuzzle()
+	{
+		return toBoard(puzzleValues);
+	}
+
+	/**
+	 * Returns the solution of the record last read.
+	 * @return the solution, or null if the record is a puzzle on its own.
+	 */
+	public SudokuBoard getSolution()
+	{
+		return hasSolution ? toBoard(solutionValues) : null;
+	}
+
+	/**
+	 * Indicates whether the record last read holds a solution.
+	 * @return boolean indicating whether or not there's a solution.
+	 */
+	public boolean hasSolution()
+	{
+		return hasSolution;
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		in.close();
+	}
+
+	private static SudokuBoard toBoard(int[] values)
+	{
+		SudokuBoard board = new SudokuBoard();
+
+		for(int square = 0; square < 81; square++)
+		{
+			board.setValueAt(square, values[square]);
+		}
+
+		return board;
+	}
+}
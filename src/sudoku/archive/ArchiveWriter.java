@@ -0,0 +1,121 @@
+package sudoku.archive;
+
+import sudoku.SudokuBoard;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes puzzles, with or without their solutions, as a stream of compact records read back by ArchiveReader.
+ *
+ * The stream starts with MAGIC. Each record then starts with a byte saying what it holds, followed by the map of which
+ * squares are clues. A puzzle on its own follows that with its clues at four bits each, e.g. 25 bytes for a typical 25
+ * clue puzzle rather than 162 as a layout string. A puzzle with its solution follows it with the solution's rank
+ * instead, as the clues can be read off the solution, which comes to 22 bytes for the pair.
+ */
+public class ArchiveWriter implements Closeable {
+	/** The bytes every archive starts with. */
+	public static final byte[] MAGIC = {'S', 'D', 'K', 1};
+
+	static final int PUZZLE = 1;
+	static final int SOLVED = 2;
+	static final int SOLVED_WIDE = 3;
+	// A full board has the most clues, at two to a byte.
+	static final int MAXIMUM_RECORD_BYTES = 1 + GridCodec.CLUE_MAP_BYTES + 41;
+
+	private final OutputStream out;
+	private final GridCodec codec = new GridCodec();
+	private final byte[] record = new byte[MAXIMUM_RECORD_BYTES];
+	private final int[] puzzleValues = new int[81];
+	private final int[] solutionValues = new int[81];
+	private long records;
+
+	/**
+	 * @param out the stream to write to, which is buffered here.
+	 * @throws IOException if the stream can't be written to.
+	 */
+	public ArchiveWriter(OutputStream out) throws IOException
+	{
+		this.out = new BufferedOutputStream(out, 1 << 16);
+		this.out.write(MAGIC);
+	}
+
+	/**
+	 * Writes a puzzle on its own.
+	 * @param puzzle the puzzle.
+	 * @throws IOException if the stream can't be written to.
+	 */
+	public void writePuzzle(SudokuBoard puzzle) throws IOException
+	{
+		readValues(puzzle, puzzleValues);
+
+		record[0] = PUZZLE;
+		GridCodec.writeClueMap(puzzleValues, record, 1);
+		int length = 1 + GridCodec.CLUE_MAP_BYTES;
+		length += GridCodec.writeClues(puzzleValues, record, length);
+
+		out.write(record, 0, length);
+		records++;
+	}
+
+	/**
+	 * Writes a puzzle along with its solution.
+	 * @param puzzle the puzzle.
+	 * @param solution the solution, which must be complete, valid and agree with the puzzle's clues.
+	 * @throws IOException if the stream can't be written to.
+	 */
+	public void writeSolved(SudokuBoard puzzle, SudokuBoard solution) throws IOException
+	{
+		readValues(puzzle, puzzleValues);
+		readValues(solution, solutionValues);
+
+		for(int square = 0; square < 81; square++)
+		{
+			if(puzzleValues[square] != 0 && puzzleValues[square] != solutionValues[square])
+			{
+				throw new IllegalArgumentException("The solution must agree with the puzzle's clues.");
+			}
+		}
+
+		GridCodec.writeClueMap(puzzleValues, record, 1);
+		int rankBytes = codec.writeRank(solutionValues, record, 1 + GridCodec.CLUE_MAP_BYTES);
+		record[0] = (byte) (rankBytes == GridCodec.RANK_BYTES ? SOLVED : SOLVED_WIDE);
+
+		out.write(record, 0, 1 + GridCodec.CLUE_MAP_BYTES + rankBytes);
+		records++;
+	}
+
+	/**
+	 * Returns the number of records written.
+	 * @return the number of records.
+	 */
+	public long getRecordCount()
+	{
+		return records;
+	}
+
+	/**
+	 * Writes out anything still buffered.
+	 * @throws IOException if the stream can't be written to.
+	 */
+	public void flush() throws IOException
+	{
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		out.close();
+	}
+
+	private static void readValues(SudokuBoard board, int[] values)
+	{
+		for(int square = 0; square < 81; square++)
+		{
+			values[square] = board.getValueAt(square);
+		}
+	}
+}
@@ -0,0 +1,429 @@
+package sudoku.archive;
+
+/**
+ * Turns boards into compact bytes and back.
+ *
+ * A puzzle is a map of which of the 81 squares are clues, one bit a square, followed by the clues at four bits each.
+ * A solution is stored as its rank: filling the grid in a row at a time, each row can only be one of the orderings of
+ * 1-9 that fit the columns and sub-boards above it, so the row is stored as its position in the sorted list of those
+ * orderings. The positions of all nine rows combine into a single number, in which each row is a digit whose base is
+ * the number of orderings it could have been. The numbers of orderings are counted exactly, square by square, over the
+ * sets of values already used in the row.
+ *
+ * Real grids have ranks of up to about 76 bits, so a rank usually fits in RANK_BYTES. No grid needs more than 89 bits,
+ * so the odd one that doesn't fit takes WIDE_RANK_BYTES.
+ *
+ * A codec keeps its working state between calls, so it isn't thread safe, but doesn't allocate either.
+ */
+public class GridCodec {
+	/** The number of bytes the map of clues takes up. */
+	public static final int CLUE_MAP_BYTES = 11;
+	/** The number of bytes a solution's rank usually takes up. */
+	public static final int RANK_BYTES = 10;
+	/** The number of bytes any solution's rank fits in. */
+	public static final int WIDE_RANK_BYTES = 12;
+
+	private static final int ALL_VALUES = 0x1FF;
+	private static final int[] FACTORIALS = {1, 1, 2, 6, 24, 120, 720, 5040, 40320, 362880};
+
+	private final int[] columnUsed = new int[9];
+	private final int[] subBoardUsed = new int[9];
+	private final int[] candidates = new int[9];
+	// The number of ways to finish a row from each set of values used in its first few squares.
+	private final int[] ways = new int[512];
+	// The sets of values reachable in the row being counted, in the order found, and the stamp of the row they were
+	// last reached in.
+	private final int[] reachable = new int[512];
+	private final int[] reached = new int[512];
+	private int stamp;
+	private final int[] positions = new int[9];
+	private final int[] counts = new int[9];
+	// The rank as 32-bit words, least significant first.
+	private final int[] rank = new int[3];
+
+	/**
+	 * Writes the map of which squares are filled in.
+	 * @param values the 81 values of the board, 0 for an empty square.
+	 * @param out the array to write to.
+	 * @param offset where in the array to start.
+	 * @return the number of squares filled in.
+	 */
+	public static int writeClueMap(int[] values, byte[] out, int offset)
+	{
+		int clues = 0;
+
+		for(int index = 0; index < CLUE_MAP_BYTES; index++)
+		{
+			out[offset + index] = 0;
+		}
+
+		for(int square = 0; square < 81; square++)
+		{
+			if(values[square] != 0)
+			{
+				out[offset + (square >> 3)] |= 1 << (square & 7);
+				clues++;
+			}
+		}
+
+		return clues;
+	}
+
+	/**
+	 * Indicates whether a square is marked as filled in by a map written by writeClueMap().
+	 * @param in the array holding the map.
+	 * @param offset where the map starts.
+	 * @param square the square.
+	 * @return boolean indicating whether or not the square is a clue.
+	 */
+	public static boolean isClue(byte[] in, int offset, int square)
+	{
+		return (in[offset + (square >> 3)] >> (square & 7) & 1) != 0;
+	}
+
+	/**
+	 * Returns the number of squares marked as filled in by a map written by writeClueMap().
+	 * @param in the array holding the map.
+	 * @param offset where the map starts.
+	 * @return the number of clues.
+	 */
+	public static int countClues(byte[] in, int offset)
+	{
+		int clues = 0;
+
+		for(int index = 0; index < CLUE_MAP_BYTES; index++)
+		{
+			clues += Integer.bitCount(in[offset + index] & 0xFF);
+		}
+
+		return clues;
+	}
+
+	/**
+	 * Writes the values of the filled in squares at four bits each, two to a byte.
+	 * @param values the 81 values of the board.
+	 * @param out the array to write to, which needs room for half the number of clues, rounded up.
+	 * @param offset where in the array to start.
+	 * @return the number of bytes written.
+	 */
+	public static int writeClues(int[] values, byte[] out, int offset)
+	{
+		int written = 0;
+
+		for(int square = 0; square < 81; square++)
+		{
+			if(values[square] == 0)
+			{
+				continue;
+			}
+
+			if((written & 1) == 0)
+			{
+				out[offset + (written >> 1)] = (byte) values[square];
+			}
+			else
+			{
+				out[offset + (written >> 1)] |= values[square] << 4;
+			}
+
+			written++;
+		}
+
+		return (written + 1) >> 1;
+	}
+
+	/**
+	 * Reads clues written by writeClues() into the squares marked in a clue map, and empties the rest.
+	 * @param map the array holding the clue map.
+	 * @param mapOffset where the map starts.
+	 * @param in the array holding the clues.
+	 * @param offset where the clues start.
+	 * @param values the array of 81 values to fill in.
+	 */
+	public static void readClues(byte[] map, int mapOffset, byte[] in, int offset, int[] values)
+	{
+		int read = 0;
+
+		for(int square = 0; square < 81; square++)
+		{
+			if(!isClue(map, mapOffset, square))
+			{
+				values[square] = 0;
+				continue;
+			}
+
+			int value = in[offset + (read >> 1)] >> ((read & 1) << 2) & 0xF;
+
+			if(value < 1 || value > 9)
+			{
+				throw new IllegalArgumentException("A packed clue must be from 1-9.");
+			}
+
+			values[square] = value;
+			read++;
+		}
+	}
+
+	/**
+	 * Writes the rank of a solution.
+	 * @param solution the 81 values of a complete, valid grid.
+	 * @param out the array to write to, which needs room for WIDE_RANK_BYTES.
+	 * @param offset where in the array to start.
+	 * @return the number of bytes written, RANK_BYTES or WIDE_RANK_BYTES.
+	 */
+	public int writeRank(int[] solution, byte[] out, int offset)
+	{
+		startGrid();
+
+		for(int row = 0; row < 9; row++)
+		{
+			countOrderings(row);
+
+			int used = 0;
+			int position = 0;
+
+			for(int column = 0; column < 9; column++)
+			{
+				int value = solution[row * 9 + column];
+				int bit = value >= 1 && value <= 9 ? 1 << (value - 1) : 0;
+
+				if((candidates[column] & ~used & bit) == 0)
+				{
+					throw new IllegalArgumentException("The solution must be a complete, valid grid.");
+				}
+
+				// Count the orderings which put a smaller value here.
+				int smaller = candidates[column] & ~used & (bit - 1);
+
+				while(smaller != 0)
+				{
+					int other = smaller & -smaller;
+					smaller ^= other;
+					position += ways[used | other];
+				}
+
+				used |= bit;
+				place(row, column, value);
+			}
+
+			positions[row] = position;
+			counts[row] = ways[0];
+		}
+
+		rank[0] = 0;
+		rank[1] = 0;
+		rank[2] = 0;
+
+		for(int row = 8; row >= 0; row--)
+		{
+			multiplyAdd(counts[row], positions[row]);
+		}
+
+		int bytes = rank[2] >>> 16 == 0 ? RANK_BYTES : WIDE_RANK_BYTES;
+
+		for(int index = 0; index < bytes; index++)
+		{
+			out[offset + index] = (byte) (rank[index >> 2] >>> ((index & 3) << 3));
+		}
+
+		return bytes;
+	}
+
+	/**
+	 * Reads a solution from its rank.
+	 * @param in the array holding the rank.
+	 * @param offset where the rank starts.
+	 * @param bytes the number of bytes in the rank, RANK_BYTES or WIDE_RANK_BYTES.
+	 * @param solution the array of 81 values to fill in.
+	 */
+	public void readRank(byte[] in, int offset, int bytes, int[] solution)
+	{
+		rank[0] = 0;
+		rank[1] = 0;
+		rank[2] = 0;
+
+		for(int index = 0; index < bytes; index++)
+		{
+			rank[index >> 2] |= (in[offset + index] & 0xFF) << ((index & 3) << 3);
+		}
+
+		startGrid();
+
+		for(int row = 0; row < 9; row++)
+		{
+			countOrderings(row);
+
+			int position = divide(ways[0]);
+			int used = 0;
+
+			for(int column = 0; column < 9; column++)
+			{
+				int remaining = candidates[column] & ~used;
+				int bit = 0;
+
+				// Skip past the orderings which put each smaller value here.
+				while(remaining != 0)
+				{
+					bit = remaining & -remaining;
+					remaining ^= bit;
+
+					if(position < ways[used | bit])
+					{
+						break;
+					}
+
+					position -= ways[used | bit];
+				}
+
+				used |= bit;
+				place(row, column, Integer.numberOfTrailingZeros(bit) + 1);
+				solution[row * 9 + column] = Integer.numberOfTrailingZeros(bit) + 1;
+			}
+		}
+
+		if((rank[0] | rank[1] | rank[2]) != 0)
+		{
+			throw new IllegalArgumentException("The rank is bigger than the number of grids.");
+		}
+	}
+
+	private void startGrid()
+	{
+		for(int unit = 0; unit < 9; unit++)
+		{
+			columnUsed[unit] = 0;
+			subBoardUsed[unit] = 0;
+		}
+	}
+
+	private void place(int row, int column, int value)
+	{
+		int bit = 1 << (value - 1);
+
+		columnUsed[column] |= bit;
+		subBoardUsed[(row / 3) * 3 + column / 3] |= bit;
+	}
+
+	/**
+	 * Fills in the candidates of each square of a row, and the number of ways to finish the row from each set of values
+	 * that can be used in its first few squares. The sets that can be reached are found first, a square at a time, and
+	 * then counted in reverse, so each set is counted after the bigger sets it leads to. Most rows have few candidates
+	 * to a square, so this visits far fewer than all 512 sets. The first row has no constraints at all, so the number
+	 * of ways to finish it is just the factorial of the number of squares left.
+	 */
+	private void countOrderings(int row)
+	{
+		if(row == 0)
+		{
+			for(int used = 0; used <= ALL_VALUES; used++)
+			{
+				ways[used] = FACTORIALS[9 - Integer.bitCount(used)];
+			}
+
+			for(int column = 0; column < 9; column++)
+			{
+				candidates[column] = ALL_VALUES;
+			}
+
+			return;
+		}
+
+		for(int column = 0; column < 9; column++)
+		{
+			candidates[column] = ~(columnUsed[column] | subBoardUsed[(row / 3) * 3 + column / 3]) & ALL_VALUES;
+		}
+
+		stamp++;
+		reachable[0] = 0;
+		reached[0] = stamp;
+		int found = 1;
+
+		for(int index = 0; index < found; index++)
+		{
+			int used = reachable[index];
+
+			// The full set has no further squares to fill.
+			if(used == ALL_VALUES)
+			{
+				continue;
+			}
+
+			int next = candidates[Integer.bitCount(used)] & ~used;
+
+			while(next != 0)
+			{
+				int bit = next & -next;
+				next ^= bit;
+
+				if(reached[used | bit] != stamp)
+				{
+					reached[used | bit] = stamp;
+					reachable[found++] = used | bit;
+				}
+			}
+		}
+
+		// Only sets that can be reached are ever looked up, so the rest of the table is left as it was.
+		ways[ALL_VALUES] = 1;
+
+		for(int index = found - 1; index >= 0; index--)
+		{
+			int used = reachable[index];
+
+			if(used == ALL_VALUES)
+			{
+				continue;
+			}
+
+			int next = candidates[Integer.bitCount(used)] & ~used;
+			int total = 0;
+
+			while(next != 0)
+			{
+				int bit = next & -next;
+				next ^= bit;
+				total += ways[used | bit];
+			}
+
+			ways[used] = total;
+		}
+	}
+
+	/**
+	 * Sets the rank to rank * base + digit.
+	 */
+	private void multiplyAdd(int base, int digit)
+	{
+		long carry = digit;
+
+		for(int word = 0; word < 3; word++)
+		{
+			long product = (rank[word] & 0xFFFFFFFFL) * base + carry;
+			rank[word] = (int) product;
+			carry = product >>> 32;
+		}
+	}
+
+	/**
+	 * Divides the rank by a base.
+	 * @return the remainder.
+	 */
+	private int divide(int base)
+	{
+		if(base == 0)
+		{
+			throw new IllegalArgumentException("The rank doesn't describe a valid grid.");
+		}
+
+		long remainder = 0;
+
+		for(int word = 2; word >= 0; word--)
+		{
+			long dividend = remainder << 32 | (rank[word] & 0xFFFFFFFFL);
+			rank[word] = (int) (dividend / base);
+			remainder = dividend % base;
+		}
+
+		return (int) remainder;
+	}
+}
@@ -0,0 +1,137 @@
+package sudoku.batch;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The progress of a batch solve. Records how far through the input file every puzzle has been solved and written,
+ * and how long the output file was at that point, so that a run can be resumed without losing or duplicating output.
+ */
+public class BatchCheckpoint {
+	private final long inputOffset;
+	private final long puzzlesCompleted;
+	private final long outputLength;
+
+	/**
+	 * @param inputOffset the byte offset in the input file just after the last contiguously completed puzzle.
+	 * @param puzzlesCompleted the number of puzzles completed before that offset.
+	 * @param outputLength the length of the output file once those puzzles were written.
+	 */
+	public BatchCheckpoint(long inputOffset, long puzzlesCompleted, long outputLength)
+	{
+		if(inputOffset < 0 || puzzlesCompleted < 0 || outputLength < 0)
+		{
+			throw new IllegalArgumentException("Checkpoint values cannot be negative.");
+		}
+
+		this.inputOffset = inputOffset;
+		this.puzzlesCompleted = puzzlesCompleted;
+		this.outputLength = outputLength;
+	}
+
+	/**
+	 * Returns the checkpoint of a batch that hasn't started yet.
+	 * @return the empty checkpoint.
+	 */
+	public static BatchCheckpoint start()
+	{
+		return new BatchCheckpoint(0, 0, 0);
+	}
+
+	/**
+	 * Reads the checkpoint stored at the given path, or returns the starting checkpoint if there isn't one.
+	 * @param path the checkpoint file.
+	 * @return the checkpoint.
+	 * @throws IOException if the file exists but can't be read.
+	 */
+	public static BatchCheckpoint read(Path path) throws IOException
+	{
+		if(!Files.exists(path))
+		{
+			return start();
+		}
+
+		String[] values = new String(Files.readAllBytes(path), StandardCharsets.US_ASCII).trim().split(" ");
+
+		if(values.length != 3)
+		{
+			throw new IOException("Malformed checkpoint file: " + path);
+		}
+
+		try
+		{
+			return new BatchCheckpoint(Long.parseLong(values[0]), Long.parseLong(values[1]), Long.parseLong(values[2]));
+		}
+		catch(IllegalArgumentException e)
+		{
+			throw new IOException("Malformed checkpoint file: " + path, e);
+		}
+	}
+
+	/**
+	 * Writes the checkpoint to the given path. The checkpoint is written to a temporary file which is then moved over
+	 * the old one, so a crash part way through leaves the previous checkpoint intact.
+	 * @param path the checkpoint file.
+	 * @throws IOException if the checkpoint can't be written.
+	 */
+	public void write(Path path) throws IOException
+	{
+		Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+		byte[] contents = (inputOffset + " " + puzzlesCompleted + " " + outputLength + "\n")
+				.getBytes(StandardCharsets.US_ASCII);
+
+		try(FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING))
+		{
+			ByteBuffer buffer = ByteBuffer.wrap(contents);
+			while(buffer.hasRemaining())
+			{
+				channel.write(buffer);
+			}
+			channel.force(true);
+		}
+
+		try
+		{
+			Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		}
+		catch(AtomicMoveNotSupportedException e)
+		{
+			Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	/**
+	 * Returns the byte offset in the input file to resume reading from.
+	 * @return the input offset.
+	 */
+	public long getInputOffset()
+	{
+		return inputOffset;
+	}
+
+	/**
+	 * Returns the number of puzzles that have been completed.
+	 * @return the number of puzzles.
+	 */
+	public long getPuzzlesCompleted()
+	{
+		return puzzlesCompleted;
+	}
+
+	/**
+	 * Returns the length the output file should be truncated to when resuming.
+	 * @return the output length.
+	 */
+	public long getOutputLength()
+	{
+		return outputLength;
+	}
+}
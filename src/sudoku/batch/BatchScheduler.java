@@ -0,0 +1,676 @@
+package sudoku.batch;
+
+import sudoku.PortfolioSolver;
+import sudoku.SudokuBoard;
+import sudoku.SudokuEngine;
+import sudoku.SudokuUnits;
+import sudoku.metrics.Counter;
+import sudoku.metrics.MetricsRegistry;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Solves a stream of puzzles across several threads so that no thread is left with a few hard puzzles at the end
+ * while the others sit idle.
+ *
+ * Puzzles are submitted one at a time and the worker threads parse them and estimate their cost, then share them out
+ * onto a queue per thread, ordered by cost. A thread takes the most expensive puzzle on its own queue, and once that
+ * is empty steals the cheapest puzzle on another, so the small puzzles fill the gaps. Since new puzzles can be
+ * submitted while the last ones are being solved, the queues are kept topped up rather than run dry. A thread waiting
+ * for a result that no worker has started yet solves that puzzle itself, so a cheap puzzle can't be held up behind a
+ * stream of expensive ones.
+ *
+ * A puzzle that is still being solved after the escalation threshold is interrupted and solved again with a parallel
+ * search, which can use the threads that have run out of work.
+ */
+public class BatchScheduler implements AutoCloseable {
+	private static final Counter ESCALATIONS = MetricsRegistry.getDefault().counter("batch.escalations");
+	// How many new puzzles a worker estimates before it solves another one, so estimates keep ahead of the solving.
+	private static final int ESTIMATE_BATCH = 8;
+	private static final long CHECK_MILLIS = 10;
+
+	private final Function<SudokuBoard, SudokuEngine> engine;
+	private final ConcurrentLinkedQueue<Submission> incoming = new ConcurrentLinkedQueue<>();
+	private final List<ConcurrentSkipListSet<Submission>> queues;
+	private final List<Thread> workers;
+	private final Set<Slot> slots = ConcurrentHashMap.newKeySet();
+	private final ScheduledExecutorService watchdog;
+	private final AtomicLong submitted = new AtomicLong();
+	private final AtomicInteger nextQueue = new AtomicInteger();
+	private final AtomicInteger unclaimed = new AtomicInteger();
+	private final AtomicInteger idle = new AtomicInteger();
+	private final Object workAvailable = new Object();
+	private volatile Function<SudokuBoard, SudokuEngine> escalationEngine = PortfolioSolver::new;
+	private volatile long escalationThreshold = 1000;
+	private final AtomicInteger escalations = new AtomicInteger();
+	private volatile boolean closed;
+
+	/**
+	 * @param threads the number of threads to solve puzzles on.
+	 * @param engine creates the engine to solve each puzzle with; it should give up when its thread is interrupted,
+	 *               otherwise puzzles can't be escalated.
+	 */
+	public BatchScheduler(int threads, Function<SudokuBoard, SudokuEngine> engine)
+	{
+		if(threads < 1)
+		{
+			throw new IllegalArgumentException("At least one thread is needed to solve a batch.");
+		}
+
+		this.engine = engine;
+
+		// Most expensive first, and in the order submitted when the estimates are the same.
+		Comparator<Submission> byCost = (first, second) -> Double.compare(second.cost, first.cost);
+		Comparator<Submission> order = byCost.thenComparingLong(job -> job.sequence);
+		queues = new ArrayList<>(threads);
+		workers = new ArrayList<>(threads);
+		for(int queue = 0; queue < threads; queue++)
+		{
+			queues.add(new ConcurrentSkipListSet<>(order));
+		}
+		for(int queue = 0; queue < threads; queue++)
+		{
+			int own = queue;
+			Thread worker = new Thread(() -> work(own), "sudoku-batch-" + (queue + 1));
+			worker.setDaemon(true);
+			workers.add(worker);
+			worker.start();
+		}
+
+		watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "sudoku-batch-watchdog");
+			thread.setDaemon(true);
+			return thread;
+		});
+		watchdog.scheduleAtFixedRate(() -> {
+			for(Slot slot : slots)
+			{
+				slot.escalateIfOverdue();
+			}
+		}, CHECK_MILLIS, CHECK_MILLIS, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Sets how long a puzzle can take before it is escalated to the escalation engine.
+	 * @param milliseconds the threshold in milliseconds.
+	 */
+	public void setEscalationThreshold(long milliseconds)
+	{
+		if(milliseconds < 1)
+		{
+			throw new IllegalArgumentException("The escalation threshold must be at least a millisecond.");
+		}
+
+		this.escalationThreshold = milliseconds;
+	}
+
+	/**
+	 * Sets the engine that puzzles over the escalation threshold are solved again with.
+	 * @param escalationEngine creates the engine for a board; by default a {@link PortfolioSolver}.
+	 */
+	public void setEscalationEngine(Function<SudokuBoard, SudokuEngine> escalationEngine)
+	{
+		this.escalationEngine = escalationEngine;
+	}
+
+	/**
+	 * Returns the number of puzzles which have been escalated so far.
+	 * @return the number of puzzles.
+	 */
+	public int getEscalations()
+	{
+		return escalations.get();
+	}
+
+	/**
+	 * Submits a puzzle to be solved. This doesn't wait for anything, as the puzzle is parsed by the workers.
+	 * @param line the layout string of the puzzle.
+	 * @return the submitted puzzle, to wait for the result of.
+	 */
+	public Submission submit(String line)
+	{
+		if(closed)
+		{
+			throw new IllegalStateException("The scheduler has been closed.");
+		}
+
+		Submission job = new Submission(submitted.getAndIncrement(), line);
+		unclaimed.incrementAndGet();
+		incoming.add(job);
+		wakeWorkers();
+
+		return job;
+	}
+
+	/**
+	 * Solves every puzzle in a list.
+	 * @param lines the layout string of each puzzle.
+	 * @return the line of output for each puzzle, in the same order as the input.
+	 * @throws InterruptedException if the thread is interrupted while waiting for the puzzles to be solved.
+	 */
+	public String[] solveAll(List<String> lines) throws InterruptedException
+	{
+		List<Submission> jobs = new ArrayList<>(lines.size());
+		for(String line : lines)
+		{
+			jobs.add(submit(line));
+		}
+
+		String[] results = new String[jobs.size()];
+		for(int index = 0; index < results.length; index++)
+		{
+			results[index] = jobs.get(index).awaitResult();
+		}
+
+		return results;
+	}
+
+	/**
+	 * Estimates how long a puzzle will take to solve. Squares with a single candidate are filled in first, as any
+	 * solver would, and the estimate is then the number of squares left plus the log of the number of ways they
+	 * could be filled in, so puzzles with fewer clues and more candidates left over cost more.
+	 * @param board the puzzle.
+	 * @return the estimate; 0 if the puzzle is already solved or is found to have no solution.
+	 */
+	public static double estimateCost(SudokuBoard board)
+	{
+		int[] candidates = new int[81];
+
+		if(!board.getCandidateMasks(candidates))
+		{
+			return 0;
+		}
+
+		boolean[] filled = new boolean[81];
+		for(int square = 0; square < 81; square++)
+		{
+			filled[square] = !board.isSquareEmpty(square);
+		}
+
+		boolean placed = true;
+		while(placed)
+		{
+			placed = false;
+
+			for(int square = 0; square < 81; square++)
+			{
+				if(filled[square])
+				{
+					continue;
+				}
+
+				int mask = candidates[square];
+
+				if(mask == 0)
+				{
+					return 0;
+				}
+				if(Integer.bitCount(mask) == 1)
+				{
+					filled[square] = true;
+					placed = true;
+
+					for(int peer : SudokuUnits.PEERS[square])
+					{
+						candidates[peer] &= ~mask;
+					}
+				}
+			}
+		}
+
+		double cost = 0;
+		for(int square = 0; square < 81; square++)
+		{
+			if(!filled[square])
+			{
+				cost += 1 + Math.log(Integer.bitCount(candidates[square])) / Math.log(2);
+			}
+		}
+
+		return cost;
+	}
+
+	/**
+	 * Stops the workers and waits for them to finish. Puzzles which haven't been solved are cancelled.
+	 */
+	@Override
+	public void close()
+	{
+		closed = true;
+		watchdog.shutdownNow();
+		for(Thread worker : workers)
+		{
+			worker.interrupt();
+		}
+
+		try
+		{
+			for(Thread worker : workers)
+			{
+				worker.join();
+			}
+		}
+		catch(InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+
+		for(Submission job : incoming)
+		{
+			job.cancel();
+		}
+		for(ConcurrentSkipListSet<Submission> queue : queues)
+		{
+			for(Submission job : queue)
+			{
+				job.cancel();
+			}
+		}
+	}
+
+	/**
+	 * Estimates puzzles from the incoming queue, solves puzzles from the queues, and otherwise waits for more puzzles.
+	 * @param own the index of the worker's own queue.
+	 */
+	private void work(int own)
+	{
+		Slot slot = new Slot(Thread.currentThread());
+		slots.add(slot);
+
+		try
+		{
+			while(!closed)
+			{
+				estimateIncoming();
+				Submission job = take(own);
+
+				if(job != null && !slot.solve(job))
+				{
+					// Only closing interrupts a worker, so the puzzle is left for close to cancel.
+					job.release();
+					Thread.interrupted();
+				}
+				else if(incoming.isEmpty())
+				{
+					awaitWork();
+				}
+			}
+		}
+		catch(InterruptedException e)
+		{
+			// Closed.
+		}
+		finally
+		{
+			slots.remove(slot);
+		}
+	}
+
+	/**
+	 * Estimates a few of the incoming puzzles and shares them out between the queues.
+	 */
+	private void estimateIncoming()
+	{
+		Submission job;
+
+		for(int estimated = 0; estimated < ESTIMATE_BATCH && (job = incoming.poll()) != null; estimated++)
+		{
+			if(job.estimate())
+			{
+				queues.get(Math.floorMod(nextQueue.getAndIncrement(), queues.size())).add(job);
+			}
+		}
+	}
+
+	/**
+	 * Takes the most expensive puzzle on the worker's own queue, or failing that the cheapest on another queue.
+	 * @param own the index of the worker's own queue.
+	 * @return the puzzle, which the worker has claimed; null if every queue is empty.
+	 */
+	private Submission take(int own)
+	{
+		Submission job;
+
+		while((job = queues.get(own).pollFirst()) != null)
+		{
+			if(job.claim())
+			{
+				return job;
+			}
+		}
+
+		for(int offset = 1; offset < queues.size(); offset++)
+		{
+			ConcurrentSkipListSet<Submission> queue = queues.get((own + offset) % queues.size());
+
+			while((job = queue.pollLast()) != null)
+			{
+				if(job.claim())
+				{
+					return job;
+				}
+			}
+		}
+
+		return null;
+	}
+
+	private void wakeWorkers()
+	{
+		if(idle.get() > 0)
+		{
+			synchronized(workAvailable)
+			{
+				workAvailable.notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Waits until there is a puzzle that nobody has claimed.
+	 * @throws InterruptedException if the worker is interrupted, i.e. the scheduler is being closed.
+	 */
+	private void awaitWork() throws InterruptedException
+	{
+		synchronized(workAvailable)
+		{
+			idle.incrementAndGet();
+
+			try
+			{
+				while(!closed && unclaimed.get() == 0)
+				{
+					workAvailable.wait();
+				}
+			}
+			finally
+			{
+				idle.decrementAndGet();
+			}
+		}
+
+		// The only unclaimed puzzles may be part way through being estimated by another worker.
+		Thread.yield();
+	}
+
+	private static SudokuBoard parse(String line)
+	{
+		try
+		{
+			return new SudokuBoard(line.trim());
+		}
+		catch(IllegalArgumentException e)
+		{
+			return null;
+		}
+	}
+
+	/**
+	 * A puzzle that has been submitted to be solved.
+	 */
+	public class Submission
+	{
+		private final long sequence;
+		private final String line;
+		private final CompletableFuture<String> result = new CompletableFuture<>();
+		private final AtomicBoolean claimed = new AtomicBoolean();
+		private SudokuBoard board;
+		private double cost;
+		private volatile boolean estimated;
+
+		Submission(long sequence, String line)
+		{
+			this.sequence = sequence;
+			this.line = line;
+		}
+
+		/**
+		 * Waits for the puzzle to be solved. If no worker has started on it yet, it is solved on this thread instead.
+		 * @return the line of output for the puzzle.
+		 * @throws InterruptedException if the thread is interrupted while waiting or solving; a puzzle this thread was
+		 *                              solving is handed back to the workers.
+		 */
+		public String awaitResult() throws InterruptedException
+		{
+			if(Thread.interrupted())
+			{
+				throw new InterruptedException();
+			}
+
+			if(claim())
+			{
+				Slot slot = new Slot(Thread.currentThread());
+				slots.add(slot);
+				boolean finished;
+
+				try
+				{
+					finished = slot.solve(this);
+				}
+				finally
+				{
+					slots.remove(slot);
+				}
+
+				if(!finished)
+				{
+					release();
+					Thread.interrupted();
+					throw new InterruptedException();
+				}
+			}
+
+			try
+			{
+				return result.get();
+			}
+			catch(ExecutionException e)
+			{
+				throw new IllegalStateException("Solving a puzzle failed unexpectedly.", e.getCause());
+			}
+		}
+
+		/**
+		 * Parses the puzzle and estimates its cost. A puzzle that can't be parsed is finished straight away.
+		 * @return whether the puzzle needs to be queued.
+		 */
+		boolean estimate()
+		{
+			// A puzzle handed back after being interrupted has already been estimated, and may still be in a queue.
+			if(!estimated)
+			{
+				board = parse(line);
+
+				if(board == null)
+				{
+					if(claim())
+					{
+						result.complete(BatchSolver.INVALID);
+					}
+
+					return false;
+				}
+
+				cost = estimateCost(board);
+				estimated = true;
+			}
+
+			return !claimed.get();
+		}
+
+		/**
+		 * Claims the puzzle for the calling thread to solve. Only the first caller succeeds.
+		 * @return whether the puzzle was claimed.
+		 */
+		boolean claim()
+		{
+			if(claimed.compareAndSet(false, true))
+			{
+				unclaimed.decrementAndGet();
+				return true;
+			}
+
+			return false;
+		}
+
+		/**
+		 * Hands back a puzzle whose solve was interrupted, so that it will be solved again.
+		 */
+		void release()
+		{
+			claimed.set(false);
+			unclaimed.incrementAndGet();
+			incoming.add(this);
+			wakeWorkers();
+		}
+
+		void cancel()
+		{
+			if(claim())
+			{
+				result.cancel(false);
+			}
+		}
+
+		/**
+		 * Returns the parsed puzzle, parsing it here if it was claimed before a worker estimated it.
+		 */
+		SudokuBoard getBoard()
+		{
+			return estimated ? board : parse(line);
+		}
+	}
+
+	/**
+	 * A thread solving puzzles, which the watchdog keeps an eye on.
+	 */
+	private class Slot
+	{
+		private final Thread thread;
+		private Submission current;
+		private long started;
+		private boolean overdue;
+
+		Slot(Thread thread)
+		{
+			this.thread = thread;
+		}
+
+		/**
+		 * Solves a puzzle that has been claimed, and completes its result.
+		 * @return false if the thread was interrupted before the puzzle was solved, in which case its result is left
+		 *         alone, as it isn't known whether the puzzle has a solution; the thread is still interrupted.
+		 */
+		boolean solve(Submission job)
+		{
+			String output;
+
+			try
+			{
+				output = solveClaimed(job);
+			}
+			catch(RuntimeException e)
+			{
+				job.result.completeExceptionally(e);
+				return true;
+			}
+
+			if(output == null)
+			{
+				return false;
+			}
+
+			job.result.complete(output);
+			return true;
+		}
+
+		/**
+		 * Solves a puzzle, escalating it if the watchdog interrupts it.
+		 * @return the line of output for the puzzle, or null if the thread was interrupted by anything else.
+		 */
+		private String solveClaimed(Submission job)
+		{
+			SudokuBoard board = job.getBoard();
+
+			if(board == null)
+			{
+				return BatchSolver.INVALID;
+			}
+
+			synchronized(this)
+			{
+				current = job;
+				started = System.nanoTime();
+			}
+
+			SudokuEngine solver;
+			boolean solved;
+			boolean escalate;
+
+			try
+			{
+				solver = engine.apply(board);
+				solved = solver.solve();
+			}
+			finally
+			{
+				synchronized(this)
+				{
+					current = null;
+					escalate = overdue;
+					overdue = false;
+				}
+			}
+
+			if(escalate)
+			{
+				// Clear the interrupt that stopped the search, unless the search had already finished by itself.
+				Thread.interrupted();
+
+				if(!solved)
+				{
+					escalations.incrementAndGet();
+					ESCALATIONS.increment();
+					solver = escalationEngine.apply(new SudokuBoard(job.line.trim()));
+					solved = solver.solve();
+				}
+			}
+
+			if(solved)
+			{
+				return solver.getBoard().getLayoutString().trim();
+			}
+
+			// An interrupt from anything but the watchdog means the search was stopped, not that it found no solution.
+			return Thread.currentThread().isInterrupted() ? null : BatchSolver.UNSOLVABLE;
+		}
+
+		/**
+		 * Interrupts the puzzle being solved if it has gone over the escalation threshold. Called by the watchdog.
+		 */
+		synchronized void escalateIfOverdue()
+		{
+			if(current != null && !overdue
+					&& System.nanoTime() - started > TimeUnit.MILLISECONDS.toNanos(escalationThreshold))
+			{
+				overdue = true;
+				thread.interrupt();
+			}
+		}
+	}
+}
@@ -0,0 +1,365 @@
+package sudoku.batch;
+
+import sudoku.SudokuBoard;
+import sudoku.SudokuEngine;
+import sudoku.SudokuEngines;
+import sudoku.SudokuSolver;
+import sudoku.metrics.MetricsRegistry;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * Solves a file of puzzles, one layout string per line, writing one line of output per puzzle in the same order.
+ * Progress is periodically saved to a checkpoint file, and a run that is interrupted can be started again with the
+ * same files to carry on from the last checkpoint.
+ *
+ * Output is only ever appended up to a checkpoint: on resume, the output file is truncated back to the length
+ * recorded in the checkpoint and reading continues from the recorded input offset, so no puzzle is lost or written
+ * twice. Puzzles that were being solved when the run stopped are simply solved again. A run with no checkpoint to
+ * resume from won't replace an output file that already has something in it, unless told to overwrite it.
+ *
+ * Puzzles are solved by a {@link BatchScheduler}, which starts the hardest of the puzzles in flight first so that no
+ * thread is left finishing them alone. A new puzzle is read as soon as the oldest one is written, so the scheduler
+ * always has plenty to choose from.
+ */
+public class BatchSolver {
+	public static final String UNSOLVABLE = "unsolvable";
+	public static final String INVALID = "invalid";
+	private static final int IN_FLIGHT_PER_THREAD = 64;
+
+	private final Path input;
+	private final Path output;
+	private final Path checkpoint;
+	private int threads = Runtime.getRuntime().availableProcessors();
+	private int checkpointInterval = 10000;
+	private Function<SudokuBoard, SudokuEngine> engine = SudokuSolver::new;
+	private long escalationThreshold = 1000;
+	private boolean overwrite;
+
+	/**
+	 * @param input the file of puzzles to solve.
+	 * @param output the file to append the solutions to.
+	 * @param checkpoint the file to keep the progress of the batch in.
+	 */
+	public BatchSolver(Path input, Path output, Path checkpoint)
+	{
+		this.input = input;
+		this.output = output;
+		this.checkpoint = checkpoint;
+	}
+
+	/**
+	 * Sets the number of threads used to solve puzzles.
+	 * @param threads the number of threads.
+	 */
+	public void setThreads(int threads)
+	{
+		if(threads < 1)
+		{
+			throw new IllegalArgumentException("At least one thread is needed to solve a batch.");
+		}
+
+		this.threads = threads;
+	}
+
+	/**
+	 * Sets how many puzzles are completed between each checkpoint.
+	 * @param checkpointInterval the number of puzzles.
+	 */
+	public void setCheckpointInterval(int checkpointInterval)
+	{
+		if(checkpointInterval < 1)
+		{
+			throw new IllegalArgumentException("The checkpoint interval must be at least one puzzle.");
+		}
+
+		this.checkpointInterval = checkpointInterval;
+	}
+
+	/**
+	 * Sets the engine used to solve each puzzle.
+	 * @param engine creates an engine for a board, e.g. {@code SudokuSolver::new}.
+	 */
+	public void setEngine(Function<SudokuBoard, SudokuEngine> engine)
+	{
+		this.engine = engine;
+	}
+
+	/**
+	 * Sets how long a puzzle can take on one thread before it is solved again with a parallel search.
+	 * @param milliseconds the threshold in milliseconds.
+	 * @see BatchScheduler#setEscalationThreshold(long)
+	 */
+	public void setEscalationThreshold(long milliseconds)
+	{
+		if(milliseconds < 1)
+		{
+			throw new IllegalArgumentException("The escalation threshold must be at least a millisecond.");
+		}
+
+		this.escalationThreshold = milliseconds;
+	}
+
+	/**
+	 * Sets whether a run with no checkpoint may replace an output file that isn't empty. Runs resuming from a
+	 * checkpoint always replace the output after it, as that was written by the run that stopped.
+	 * @param overwrite whether or not to replace the output.
+	 */
+	public void setOverwrite(boolean overwrite)
+	{
+		this.overwrite = overwrite;
+	}
+
+	/**
+	 * Solves every puzzle in the input that hasn't already been completed according to the checkpoint.
+	 * @return the final checkpoint, once the whole input has been solved.
+	 * @throws FileAlreadyExistsException if there's no checkpoint, the output isn't empty and overwriting is off.
+	 * @throws IOException if any of the files can't be read or written.
+	 * @throws InterruptedException if the thread is interrupted while waiting for a puzzle to be solved.
+	 */
+	public BatchCheckpoint run() throws IOException, InterruptedException
+	{
+		if(!overwrite && !Files.exists(checkpoint) && Files.exists(output) && Files.size(output) > 0)
+		{
+			throw new FileAlreadyExistsException(output.toString(), null,
+					"there is no checkpoint to resume from, and the output would be replaced");
+		}
+
+		BatchCheckpoint progress = BatchCheckpoint.read(checkpoint);
+
+		try(FileChannel inputChannel = FileChannel.open(input, StandardOpenOption.READ);
+			FileChannel outputChannel = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+			BatchScheduler scheduler = new BatchScheduler(threads, engine))
+		{
+			// Anything after the checkpoint was written by a run that didn't finish, so it will be written again.
+			outputChannel.truncate(progress.getOutputLength());
+			outputChannel.position(progress.getOutputLength());
+			inputChannel.position(progress.getInputOffset());
+			scheduler.setEscalationThreshold(escalationThreshold);
+
+			LineReader reader = new LineReader(Channels.newInputStream(inputChannel), progress.getInputOffset());
+			ArrayDeque<PendingPuzzle> inFlight = new ArrayDeque<>();
+			int maximumInFlight = threads * IN_FLIGHT_PER_THREAD;
+			StringBuilder unwritten = new StringBuilder();
+			long completed = progress.getPuzzlesCompleted();
+			long completedOffset = progress.getInputOffset();
+			int sinceCheckpoint = 0;
+
+			String line;
+			while(true)
+			{
+				// Keep plenty of puzzles in flight for the scheduler to choose from, topping up after each one written.
+				while(inFlight.size() < maximumInFlight && (line = reader.readLine()) != null)
+				{
+					inFlight.add(new PendingPuzzle(scheduler.submit(line), reader.getOffset()));
+				}
+
+				if(inFlight.isEmpty())
+				{
+					break;
+				}
+
+				// Results are written strictly in input order, so the completed input is always a contiguous prefix.
+				PendingPuzzle next = inFlight.poll();
+				unwritten.append(next.submission.awaitResult()).append('\n');
+				completed++;
+				completedOffset = next.endOffset;
+				sinceCheckpoint++;
+
+				if(sinceCheckpoint >= checkpointInterval)
+				{
+					saveProgress(outputChannel, unwritten, completedOffset, completed);
+					sinceCheckpoint = 0;
+				}
+			}
+
+			return saveProgress(outputChannel, unwritten, completedOffset, completed);
+		}
+	}
+
+	/**
+	 * Solves the puzzle on a single line of input.
+	 * @param line the layout string of the puzzle.
+	 * @param engine creates the engine to solve the puzzle with.
+	 * @return the line of output for the puzzle.
+	 */
+	public static String solveLine(String line, Function<SudokuBoard, SudokuEngine> engine)
+	{
+		SudokuBoard board;
+
+		try
+		{
+			board = new SudokuBoard(line.trim());
+		}
+		catch(IllegalArgumentException e)
+		{
+			return INVALID;
+		}
+
+		SudokuEngine solver = engine.apply(board);
+
+		if(!solver.solve())
+		{
+			return UNSOLVABLE;
+		}
+
+		return solver.getBoard().getLayoutString().trim();
+	}
+
+	/**
+	 * Appends the unwritten output to the output file, makes sure it's on disk, and then records the new checkpoint.
+	 * @param outputChannel the output file.
+	 * @param unwritten the output that hasn't been written yet; this is cleared.
+	 * @param inputOffset the offset in the input file up to which everything has been completed.
+	 * @param completed the number of puzzles completed.
+	 * @return the new checkpoint.
+	 * @throws IOException if the output or checkpoint can't be written.
+	 */
+	private BatchCheckpoint saveProgress(FileChannel outputChannel, StringBuilder unwritten, long inputOffset,
+										 long completed) throws IOException
+	{
+		ByteBuffer buffer = ByteBuffer.wrap(unwritten.toString().getBytes(StandardCharsets.US_ASCII));
+		while(buffer.hasRemaining())
+		{
+			outputChannel.write(buffer);
+		}
+		outputChannel.force(false);
+		unwritten.setLength(0);
+
+		BatchCheckpoint progress = new BatchCheckpoint(inputOffset, completed, outputChannel.position());
+		progress.write(checkpoint);
+
+		return progress;
+	}
+
+	/**
+	 * Runs a batch from the command line.
+	 * Usage: BatchSolver [--overwrite] input output [checkpoint] [threads] [engine]
+	 * @param args the command line arguments.
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException
+	{
+		boolean overwrite = args.length > 0 && args[0].equals("--overwrite");
+		if(overwrite)
+		{
+			args = Arrays.copyOfRange(args, 1, args.length);
+		}
+
+		if(args.length < 2)
+		{
+			System.err.println("Usage: BatchSolver [--overwrite] input output [checkpoint] [threads] [engine]");
+			System.exit(2);
+		}
+
+		MetricsRegistry.getDefault().registerPlatformMBeans();
+		Path output = Paths.get(args[1]);
+		Path checkpoint = args.length > 2 ? Paths.get(args[2]) : output.resolveSibling(output.getFileName() + ".checkpoint");
+
+		BatchSolver batch = new BatchSolver(Paths.get(args[0]), output, checkpoint);
+		batch.setOverwrite(overwrite);
+
+		if(args.length > 3)
+		{
+			batch.setThreads(Integer.parseInt(args[3]));
+		}
+		if(args.length > 4)
+		{
+			batch.setEngine(SudokuEngines.get(args[4]));
+		}
+
+		BatchCheckpoint result = batch.run();
+		System.out.println("Solved " + result.getPuzzlesCompleted() + " puzzles.");
+	}
+
+	/**
+	 * A puzzle that has been submitted to be solved, along with where its line ends in the input.
+	 */
+	private static class PendingPuzzle
+	{
+		final BatchScheduler.Submission submission;
+		final long endOffset;
+
+		PendingPuzzle(BatchScheduler.Submission submission, long endOffset)
+		{
+			this.submission = submission;
+			this.endOffset = endOffset;
+		}
+	}
+
+	/**
+	 * Reads lines of ASCII text while keeping track of the byte offset reached in the underlying file, which a
+	 * BufferedReader can't do.
+	 */
+	public static class LineReader
+	{
+		private final InputStream in;
+		private final ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+		private long offset;
+
+		/**
+		 * @param in the input, positioned at the start offset.
+		 * @param startOffset the offset in the file that the input starts at.
+		 */
+		public LineReader(InputStream in, long startOffset)
+		{
+			this.in = new BufferedInputStream(in, 1 << 16);
+			this.offset = startOffset;
+		}
+
+		/**
+		 * Reads the next line, without its line terminator.
+		 * @return the line, or null at the end of the input.
+		 * @throws IOException if the input can't be read.
+		 */
+		public String readLine() throws IOException
+		{
+			line.reset();
+			int next;
+
+			while((next = in.read()) != -1)
+			{
+				offset++;
+
+				if(next == '\n')
+				{
+					return lineString();
+				}
+
+				line.write(next);
+			}
+
+			return line.size() > 0 ? lineString() : null;
+		}
+
+		/**
+		 * Returns the offset just after the last line read.
+		 * @return the offset.
+		 */
+		public long getOffset()
+		{
+			return offset;
+		}
+
+		private String lineString()
+		{
+			String text = new String(line.toByteArray(), StandardCharsets.US_ASCII);
+
+			return text.endsWith("\r") ? text.substring(0, text.length() - 1) : text;
+		}
+	}
+}
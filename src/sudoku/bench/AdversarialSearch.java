@@ -0,0 +1,598 @@
+package sudoku.bench;
+
+import sudoku.SolutionCounter;
+import sudoku.SudokuBoard;
+import sudoku.SudokuEngine;
+import sudoku.SudokuEngines;
+import sudoku.SudokuSolver;
+import sudoku.generator.PuzzleGenerator;
+import sudoku.sat.SatSudokuSolver;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Searches for puzzles that an engine takes a long time over, to keep as a regression corpus for CorpusBenchmark.
+ *
+ * Several walkers climb in parallel, each starting from a random minimal puzzle. At every step a walker makes a small
+ * change to its puzzle that keeps it valid with exactly one solution, and moves to the changed puzzle if the engine
+ * takes at least as much effort over it. The changes are swapping two values everywhere, swapping two rows or columns
+ * within a band or stack, swapping two bands or stacks, and moving or removing a clue. The first two don't change how
+ * hard a puzzle is for a person, but do change where the search happens to look first, e.g. the backtracking engine
+ * tries values in ascending order from the top left, so it's slow on puzzles whose top row is 9 8 7 6 5 4 3 2 1.
+ *
+ * Effort is counted in nodes for SudokuSolver and in decisions for SatSudokuSolver, which don't depend on what else
+ * the machine is doing, and in nanoseconds for any other engine. A solve that runs over the time limit is stopped by
+ * interrupting it, and counts as more effort than any that finished; an engine which ignores the interrupt is left
+ * to finish on its own thread.
+ */
+public class AdversarialSearch {
+	private static final String USAGE = "Usage: AdversarialSearch output [--engine name] [--threads n] "
+			+ "[--iterations n] [--size n] [--time-limit ms] [--seed n]";
+
+	private final Function<SudokuBoard, SudokuEngine> engine;
+	private int threads = Runtime.getRuntime().availableProcessors();
+	private int iterations = 1000;
+	private int corpusSize = 20;
+	private long timeLimit = 10_000;
+	private long seed = System.nanoTime();
+
+	/**
+	 * @param engine creates the engine to search against for a board.
+	 */
+	public AdversarialSearch(Function<SudokuBoard, SudokuEngine> engine)
+	{
+		this.engine = engine;
+	}
+
+	/**
+	 * Sets the number of walkers, each of which gets its own thread to solve on.
+	 * @param threads the number of walkers.
+	 */
+	public void setThreads(int threads)
+	{
+		if(threads < 1)
+		{
+			throw new IllegalArgumentException("A search needs at least one thread.");
+		}
+
+		this.threads = threads;
+	}
+
+	/**
+	 * Sets the number of changes each walker tries.
+	 * @param iterations the number of changes.
+	 */
+	public void setIterations(int iterations)
+	{
+		if(iterations < 0)
+		{
+			throw new IllegalArgumentException("The number of iterations can't be negative.");
+		}
+
+		this.iterations = iterations;
+	}
+
+	/**
+	 * Sets the number of puzzles to keep, from all the walkers together.
+	 * @param corpusSize the number of puzzles.
+	 */
+	public void setCorpusSize(int corpusSize)
+	{
+		if(corpusSize < 1)
+		{
+			throw new IllegalArgumentException("The corpus must hold at least one puzzle.");
+		}
+
+		this.corpusSize = corpusSize;
+	}
+
+	/**
+	 * Sets how long a single solve may take before it's stopped.
+	 * @param timeLimit the limit in milliseconds.
+	 */
+	public void setTimeLimit(long timeLimit)
+	{
+		if(timeLimit < 1)
+		{
+			throw new IllegalArgumentException("The time limit must be at least a millisecond.");
+		}
+
+		this.timeLimit = timeLimit;
+	}
+
+	/**
+	 * Sets the seed the walkers start from. By default it's taken from the clock.
+	 * @param seed the seed.
+	 */
+	public void setSeed(long seed)
+	{
+		this.seed = seed;
+	}
+
+	/**
+	 * Runs the search.
+	 * @return the puzzles that took the most effort, most first.
+	 * @throws InterruptedException if the thread is interrupted while waiting for the walkers.
+	 */
+	public List<Finding> run() throws InterruptedException
+	{
+		ExecutorService walkers = Executors.newFixedThreadPool(threads, daemonThreads("sudoku-adversary"));
+		// Solving happens on threads of its own, so that a solve over the time limit can be interrupted. An engine that
+		// ignores the interrupt keeps its thread until it finishes, so later solves are given a fresh thread rather
+		// than queueing behind it and running out of time before they start.
+		ExecutorService solvers = Executors.newCachedThreadPool(daemonThreads("sudoku-adversary-solver"));
+		Worst worst = new Worst(corpusSize);
+
+		try
+		{
+			List<Future<?>> running = new ArrayList<>();
+
+			for(int walker = 0; walker < threads; walker++)
+			{
+				long walkerSeed = seed + walker;
+				running.add(walkers.submit(() -> {
+					walk(walkerSeed, solvers, worst);
+					return null;
+				}));
+			}
+
+			for(Future<?> walker : running)
+			{
+				walker.get();
+			}
+		}
+		catch(ExecutionException e)
+		{
+			throw new IllegalStateException("A walker failed.", e.getCause());
+		}
+		finally
+		{
+			walkers.shutdownNow();
+			solvers.shutdownNow();
+		}
+
+		return worst.getFindings();
+	}
+
+	/**
+	 * Works out the effort an engine took over its last solve.
+	 * @param solver the engine.
+	 * @param nanoseconds how long the solve took.
+	 * @return the nodes searched by a SudokuSolver, the decisions made by a SatSudokuSolver, or otherwise the time.
+	 */
+	public static long effortOf(SudokuEngine solver, long nanoseconds)
+	{
+		if(solver instanceof SudokuSolver)
+		{
+			return ((SudokuSolver) solver).getNodes();
+		}
+		if(solver instanceof SatSudokuSolver)
+		{
+			return ((SatSudokuSolver) solver).getDecisions();
+		}
+
+		return nanoseconds;
+	}
+
+	/**
+	 * Writes the puzzles found as a corpus, one layout string per line, in the form CorpusBenchmark reads.
+	 * @param path the file to write.
+	 * @param findings the puzzles.
+	 * @throws IOException if the file can't be written.
+	 */
+	public static void writeCorpus(Path path, List<Finding> findings) throws IOException
+	{
+		try(Writer writer = Files.newBufferedWriter(path, StandardCharsets.US_ASCII))
+		{
+			for(Finding finding : findings)
+			{
+				writer.write(finding.getPuzzle().getLayoutString().trim());
+				writer.write('\n');
+			}
+		}
+	}
+
+	private void walk(long walkerSeed, ExecutorService solvers, Worst worst)
+			throws InterruptedException, ExecutionException
+	{
+		Random random = new Random(walkerSeed);
+		SolutionCounter counter = new SolutionCounter();
+		SudokuBoard start = new PuzzleGenerator(random.nextLong()).generate();
+
+		SudokuSolver solver = new SudokuSolver(start, SudokuSolver.CellOrder.FEWEST_CANDIDATES,
+				SudokuSolver.ValueOrder.ASCENDING, 0);
+		solver.solve();
+
+		int[] puzzle = toValues(start);
+		int[] solution = toValues(solver.getBoard());
+		long effort = measure(puzzle, solvers);
+		worst.offer(puzzle, effort);
+
+		for(int iteration = 0; iteration < iterations; iteration++)
+		{
+			int[] changedPuzzle = puzzle.clone();
+			int[] changedSolution = solution.clone();
+
+			if(!change(changedPuzzle, changedSolution, random, counter))
+			{
+				continue;
+			}
+
+			long changedEffort = measure(changedPuzzle, solvers);
+
+			// Moving to puzzles that are just as hard lets a walker cross plateaus rather than getting stuck on them.
+			if(changedEffort >= effort)
+			{
+				puzzle = changedPuzzle;
+				solution = changedSolution;
+				effort = changedEffort;
+				worst.offer(puzzle, effort);
+			}
+		}
+	}
+
+	/**
+	 * Makes a random change to a puzzle and its solution.
+	 * @return false if the change would have given the puzzle more than one solution, in which case the arrays are
+	 *         left in a mess and should be thrown away.
+	 */
+	private static boolean change(int[] puzzle, int[] solution, Random random, SolutionCounter counter)
+	{
+		switch(random.nextInt(4))
+		{
+			case 0:
+			{
+				int value = 1 + random.nextInt(9);
+				int other = 1 + (value + random.nextInt(8)) % 9;
+
+				relabel(puzzle, value, other);
+				relabel(solution, value, other);
+
+				return true;
+			}
+			case 1:
+			{
+				// Two rows of a band, or with transposed set, two columns of a stack.
+				boolean transposed = random.nextBoolean();
+				int band = random.nextInt(3);
+				int line = random.nextInt(3);
+				int other = (line + 1 + random.nextInt(2)) % 3;
+
+				swapLines(puzzle, band * 3 + line, band * 3 + other, transposed);
+				swapLines(solution, band * 3 + line, band * 3 + other, transposed);
+
+				return true;
+			}
+			case 2:
+			{
+				boolean transposed = random.nextBoolean();
+				int band = random.nextInt(3);
+				int other = (band + 1 + random.nextInt(2)) % 3;
+
+				for(int line = 0; line < 3; line++)
+				{
+					swapLines(puzzle, band * 3 + line, other * 3 + line, transposed);
+					swapLines(solution, band * 3 + line, other * 3 + line, transposed);
+				}
+
+				return true;
+			}
+			default:
+			{
+				// Removing a clue, or moving it to an empty square, can let in other solutions, so it has to be checked.
+				puzzle[randomSquare(puzzle, random, true)] = 0;
+
+				if(random.nextBoolean())
+				{
+					int square = randomSquare(puzzle, random, false);
+					puzzle[square] = solution[square];
+				}
+
+				return counter.hasUniqueSolution(toBoard(puzzle));
+			}
+		}
+	}
+
+	private long measure(int[] puzzle, ExecutorService solvers) throws InterruptedException, ExecutionException
+	{
+		SudokuBoard board = toBoard(puzzle);
+		Future<Long> solve = solvers.submit(() -> {
+			SudokuEngine solver = engine.apply(board);
+
+			long start = System.nanoTime();
+			solver.solve();
+
+			return effortOf(solver, System.nanoTime() - start);
+		});
+
+		try
+		{
+			return solve.get(timeLimit, TimeUnit.MILLISECONDS);
+		}
+		catch(TimeoutException e)
+		{
+			solve.cancel(true);
+			return Long.MAX_VALUE;
+		}
+	}
+
+	private static void relabel(int[] values, int value, int other)
+	{
+		for(int square = 0; square < 81; square++)
+		{
+			if(values[square] == value)
+			{
+				values[square] = other;
+			}
+			else if(values[square] == other)
+			{
+				values[square] = value;
+			}
+		}
+	}
+
+	private static void swapLines(int[] values, int line, int other, boolean transposed)
+	{
+		for(int position = 0; position < 9; position++)
+		{
+			int square = transposed ? position * 9 + line : line * 9 + position;
+			int otherSquare = transposed ? position * 9 + other : other * 9 + position;
+
+			int swap = values[square];
+			values[square] = values[otherSquare];
+			values[otherSquare] = swap;
+		}
+	}
+
+	/**
+	 * Picks a random square which is either filled or empty. There's always at least one of each, as a puzzle with a
+	 * unique solution has at least 17 clues, and the full grid is never reached.
+	 */
+	private static int randomSquare(int[] puzzle, Random random, boolean filled)
+	{
+		int square;
+
+		do
+		{
+			square = random.nextInt(81);
+		}
+		while((puzzle[square] != 0) != filled);
+
+		return square;
+	}
+
+	private static int[] toValues(SudokuBoard board)
+	{
+		int[] values = new int[81];
+
+		for(int square = 0; square < 81; square++)
+		{
+			values[square] = board.getValueAt(square);
+		}
+
+		return values;
+	}
+
+	private static SudokuBoard toBoard(int[] values)
+	{
+		SudokuBoard board = new SudokuBoard();
+
+		for(int square = 0; square < 81; square++)
+		{
+			board.setValueAt(square, values[square]);
+		}
+
+		return board;
+	}
+
+	private static ThreadFactory daemonThreads(String name)
+	{
+		return runnable -> {
+			Thread thread = new Thread(runnable, name);
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	/**
+	 * Runs a search from the command line, writing the corpus found to a file and the effort of each puzzle in it to
+	 * standard output.
+	 * Usage: AdversarialSearch output [--engine name] [--threads n] [--iterations n] [--size n] [--time-limit ms]
+	 * [--seed n]
+	 * @param args the command line arguments.
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException
+	{
+		if(args.length < 1)
+		{
+			System.err.println(USAGE);
+			System.exit(2);
+		}
+
+		// The engine is needed to create the search, so it's picked out before the other options are applied.
+		String engine = "backtracking";
+		List<String[]> options = new ArrayList<>();
+
+		for(int arg = 1; arg < args.length; arg += 2)
+		{
+			if(arg + 1 == args.length)
+			{
+				exitWithUsage("Missing value for " + args[arg]);
+			}
+
+			if(args[arg].equals("--engine"))
+			{
+				engine = args[arg + 1];
+			}
+			else
+			{
+				options.add(new String[] {args[arg], args[arg + 1]});
+			}
+		}
+
+		AdversarialSearch search = null;
+		try
+		{
+			search = new AdversarialSearch(SudokuEngines.get(engine));
+		}
+		catch(IllegalArgumentException e)
+		{
+			exitWithUsage(e.getMessage());
+		}
+
+		for(String[] option : options)
+		{
+			try
+			{
+				switch(option[0])
+				{
+					case "--threads":
+						search.setThreads(Integer.parseInt(option[1]));
+						break;
+					case "--iterations":
+						search.setIterations(Integer.parseInt(option[1]));
+						break;
+					case "--size":
+						search.setCorpusSize(Integer.parseInt(option[1]));
+						break;
+					case "--time-limit":
+						search.setTimeLimit(Long.parseLong(option[1]));
+						break;
+					case "--seed":
+						search.setSeed(Long.parseLong(option[1]));
+						break;
+					default:
+						exitWithUsage("Unknown option " + option[0]);
+				}
+			}
+			catch(IllegalArgumentException e)
+			{
+				exitWithUsage("Bad value " + option[1] + " for " + option[0] + ": " + e.getMessage());
+			}
+		}
+
+		List<Finding> findings = search.run();
+		writeCorpus(Paths.get(args[0]), findings);
+
+		for(int rank = 0; rank < findings.size(); rank++)
+		{
+			Finding finding = findings.get(rank);
+			System.out.println((rank + 1) + " " + (finding.isTimedOut() ? "timed out" : finding.getEffort()));
+		}
+	}
+
+	private static void exitWithUsage(String problem)
+	{
+		System.err.println(problem);
+		System.err.println(USAGE);
+		System.exit(2);
+	}
+
+	/**
+	 * A puzzle found by the search, with the effort the engine took over it.
+	 */
+	public static class Finding
+	{
+		private final SudokuBoard puzzle;
+		private final long effort;
+
+		Finding(SudokuBoard puzzle, long effort)
+		{
+			this.puzzle = puzzle;
+			this.effort = effort;
+		}
+
+		/**
+		 * Returns the puzzle, which has exactly one solution.
+		 * @return the puzzle.
+		 */
+		public SudokuBoard getPuzzle()
+		{
+			return puzzle;
+		}
+
+		/**
+		 * Returns the effort the engine took over the puzzle, as worked out by effortOf().
+		 * @return the effort, or Long.MAX_VALUE if the solve was stopped at the time limit.
+		 */
+		public long getEffort()
+		{
+			return effort;
+		}
+
+		/**
+		 * Indicates whether the solve was stopped at the time limit.
+		 * @return boolean indicating whether or not the solve timed out.
+		 */
+		public boolean isTimedOut()
+		{
+			return effort == Long.MAX_VALUE;
+		}
+	}
+
+	/**
+	 * The distinct puzzles that took the most effort so far, shared between the walkers.
+	 */
+	private static class Worst
+	{
+		private final int size;
+		// The least effort is at the head, so it's the one to drop.
+		private final PriorityQueue<Finding> findings = new PriorityQueue<>((a, b) -> Long.compare(a.effort, b.effort));
+		private final Set<String> layouts = new HashSet<>();
+
+		Worst(int size)
+		{
+			this.size = size;
+		}
+
+		synchronized void offer(int[] puzzle, long effort)
+		{
+			if(findings.size() == size && findings.peek().effort >= effort)
+			{
+				return;
+			}
+
+			SudokuBoard board = toBoard(puzzle);
+			String layout = board.getLayoutString();
+
+			if(!layouts.add(layout))
+			{
+				return;
+			}
+
+			findings.add(new Finding(board, effort));
+
+			if(findings.size() > size)
+			{
+				layouts.remove(findings.poll().puzzle.getLayoutString());
+			}
+		}
+
+		synchronized List<Finding> getFindings()
+		{
+			List<Finding> sorted = new ArrayList<>(findings);
+			sorted.sort((a, b) -> Long.compare(b.effort, a.effort));
+
+			return sorted;
+		}
+	}
+}
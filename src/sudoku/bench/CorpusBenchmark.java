@@ -0,0 +1,394 @@
+package sudoku.bench;
+
+import sudoku.SudokuBoard;
+import sudoku.SudokuEngine;
+import sudoku.SudokuEngines;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Measures how long each engine takes on every puzzle of a corpus. After warming up, each puzzle is solved once and
+ * its latency recorded, and the results are reported as percentiles along with the slowest puzzles.
+ *
+ * Results are written as sorted {@code key=value} lines, e.g. {@code sat.p99_ns=123456}, so runs can be diffed, and
+ * a run can be compared against a stored baseline, failing if any percentile has got too much slower.
+ */
+public class CorpusBenchmark {
+	static final double[] PERCENTILES = {50, 90, 99, 99.9};
+	private static final int SLOWEST_KEPT = 10;
+	private static final String USAGE = "Usage: CorpusBenchmark corpus [--engine name]... [--warmup n] "
+			+ "[--output file] [--baseline file] [--tolerance fraction]";
+
+	private final List<SudokuBoard> corpus;
+	private final int warmupPuzzles;
+
+	/**
+	 * @param corpus the puzzles to solve.
+	 * @param warmupPuzzles the number of puzzles to solve, cycling through the corpus, before measuring.
+	 */
+	public CorpusBenchmark(List<SudokuBoard> corpus, int warmupPuzzles)
+	{
+		if(corpus.isEmpty())
+		{
+			throw new IllegalArgumentException("The corpus must contain at least one puzzle.");
+		}
+
+		this.corpus = corpus;
+		this.warmupPuzzles = warmupPuzzles;
+	}
+
+	/**
+	 * Reads a corpus of layout strings, one per line. Blank lines aren't allowed, so that the index of each puzzle
+	 * matches its line in the file.
+	 * @param path the corpus file.
+	 * @return the puzzles.
+	 * @throws IOException if the file can't be read.
+	 * @throws IllegalArgumentException if a line is blank or isn't a valid puzzle.
+	 */
+	public static List<SudokuBoard> readCorpus(Path path) throws IOException
+	{
+		List<String> lines = Files.readAllLines(path, StandardCharsets.US_ASCII);
+		List<SudokuBoard> corpus = new ArrayList<>(lines.size());
+
+		for(int line = 0; line < lines.size(); line++)
+		{
+			String layout = lines.get(line).trim();
+
+			if(layout.isEmpty())
+			{
+				throw new IllegalArgumentException("Line " + (line + 1) + " of the corpus is blank.");
+			}
+
+			try
+			{
+				corpus.add(new SudokuBoard(layout));
+			}
+			catch(IllegalArgumentException e)
+			{
+				throw new IllegalArgumentException("Line " + (line + 1) + " of the corpus isn't a valid puzzle.", e);
+			}
+		}
+
+		return corpus;
+	}
+
+	/**
+	 * Warms up and then measures an engine over the whole corpus.
+	 * @param name the name to report the engine under.
+	 * @param engine creates the engine for a board.
+	 * @return the measurements.
+	 */
+	public Result run(String name, Function<SudokuBoard, SudokuEngine> engine)
+	{
+		for(int puzzle = 0; puzzle < warmupPuzzles; puzzle++)
+		{
+			engine.apply(corpus.get(puzzle % corpus.size())).solve();
+		}
+
+		Result result = new Result(name);
+
+		for(int puzzle = 0; puzzle < corpus.size(); puzzle++)
+		{
+			SudokuEngine solver = engine.apply(corpus.get(puzzle));
+
+			long start = System.nanoTime();
+			boolean solved = solver.solve();
+			long elapsed = System.nanoTime() - start;
+
+			result.record(puzzle, elapsed, solved);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Converts results into the key value pairs that are written out.
+	 * @param results the results of each engine.
+	 * @return the values, sorted by key.
+	 */
+	public static Map<String, String> toValues(List<Result> results)
+	{
+		Map<String, String> values = new TreeMap<>();
+
+		for(Result result : results)
+		{
+			String prefix = result.name + ".";
+			LatencyHistogram histogram = result.histogram;
+
+			values.put(prefix + "count", Long.toString(histogram.getCount()));
+			values.put(prefix + "unsolved", Long.toString(result.unsolved));
+			values.put(prefix + "mean_ns", Long.toString(Math.round(histogram.getMean())));
+			values.put(prefix + "max_ns", Long.toString(histogram.getMax()));
+
+			for(double percentile : PERCENTILES)
+			{
+				values.put(prefix + percentileKey(percentile), Long.toString(histogram.getValueAtPercentile(percentile)));
+			}
+
+			List<long[]> slowest = result.getSlowest();
+			for(int rank = 0; rank < slowest.size(); rank++)
+			{
+				// The puzzle is given by its line number in the corpus, counting from 1.
+				values.put(prefix + "slowest." + rank, (slowest.get(rank)[0] + 1) + " " + slowest.get(rank)[1]);
+			}
+		}
+
+		return values;
+	}
+
+	/**
+	 * Compares the percentiles of a run with a baseline.
+	 * @param current the values of this run.
+	 * @param baseline the values of the baseline run.
+	 * @param tolerance how much slower each percentile may be, e.g. 0.1 for 10%.
+	 * @return a description of each regression; empty if there are none.
+	 */
+	public static List<String> findRegressions(Map<String, String> current, Properties baseline, double tolerance)
+	{
+		List<String> regressions = new ArrayList<>();
+
+		for(Map.Entry<String, String> entry : current.entrySet())
+		{
+			String key = entry.getKey();
+			String expected = baseline.getProperty(key);
+
+			if(expected == null || !isPercentileKey(key))
+			{
+				continue;
+			}
+
+			long was = Long.parseLong(expected);
+			long now = Long.parseLong(entry.getValue());
+
+			if(now > was * (1 + tolerance))
+			{
+				regressions.add(key + " regressed from " + was + " to " + now);
+			}
+		}
+
+		return regressions;
+	}
+
+	/**
+	 * Runs the benchmark from the command line.
+	 * Usage: CorpusBenchmark corpus [--engine name]... [--warmup n] [--output file] [--baseline file]
+	 * [--tolerance fraction]
+	 * Exits with status 1 if any percentile regressed against the baseline.
+	 * @param args the command line arguments.
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		if(args.length < 1)
+		{
+			System.err.println(USAGE);
+			System.exit(2);
+		}
+
+		List<String> engines = new ArrayList<>();
+		int warmup = 1000;
+		Path output = null;
+		Path baseline = null;
+		double tolerance = 0.1;
+
+		for(int arg = 1; arg < args.length; arg += 2)
+		{
+			if(arg + 1 == args.length)
+			{
+				exitWithUsage("Missing value for " + args[arg]);
+			}
+
+			String value = args[arg + 1];
+
+			try
+			{
+				switch(args[arg])
+				{
+					case "--engine":
+						SudokuEngines.get(value);
+						engines.add(value);
+						break;
+					case "--warmup":
+						warmup = Integer.parseInt(value);
+						break;
+					case "--output":
+						output = Paths.get(value);
+						break;
+					case "--baseline":
+						baseline = Paths.get(value);
+						break;
+					case "--tolerance":
+						tolerance = Double.parseDouble(value);
+						break;
+					default:
+						exitWithUsage("Unknown option " + args[arg]);
+				}
+			}
+			catch(IllegalArgumentException e)
+			{
+				exitWithUsage("Bad value " + value + " for " + args[arg] + ": " + e.getMessage());
+			}
+		}
+
+		if(engines.isEmpty())
+		{
+			engines.addAll(SudokuEngines.all().keySet());
+		}
+
+		List<SudokuBoard> corpus = null;
+		try
+		{
+			corpus = readCorpus(Paths.get(args[0]));
+		}
+		catch(IllegalArgumentException e)
+		{
+			System.err.println(e.getMessage());
+			System.exit(2);
+		}
+
+		CorpusBenchmark benchmark = new CorpusBenchmark(corpus, warmup);
+		List<Result> results = new ArrayList<>();
+
+		for(String engine : engines)
+		{
+			results.add(benchmark.run(engine, SudokuEngines.get(engine)));
+		}
+
+		Map<String, String> values = toValues(results);
+		StringBuilder report = new StringBuilder();
+		for(Map.Entry<String, String> entry : values.entrySet())
+		{
+			report.append(entry.getKey()).append('=').append(entry.getValue()).append('\n');
+		}
+
+		if(output == null)
+		{
+			System.out.print(report);
+		}
+		else
+		{
+			try(Writer writer = Files.newBufferedWriter(output, StandardCharsets.US_ASCII))
+			{
+				writer.write(report.toString());
+			}
+		}
+
+		if(baseline != null)
+		{
+			Properties expected = new Properties();
+			try(Reader reader = Files.newBufferedReader(baseline, StandardCharsets.US_ASCII))
+			{
+				expected.load(reader);
+			}
+
+			List<String> regressions = findRegressions(values, expected, tolerance);
+			regressions.forEach(System.err::println);
+
+			if(!regressions.isEmpty())
+			{
+				System.exit(1);
+			}
+		}
+	}
+
+	private static void exitWithUsage(String problem)
+	{
+		System.err.println(problem);
+		System.err.println(USAGE);
+		System.exit(2);
+	}
+
+	static String percentileKey(double percentile)
+	{
+		String number = percentile == Math.rint(percentile)
+				? Long.toString((long) percentile) : Double.toString(percentile).replace('.', '_');
+
+		return "p" + number + "_ns";
+	}
+
+	private static boolean isPercentileKey(String key)
+	{
+		String metric = key.substring(key.lastIndexOf('.') + 1);
+
+		return metric.startsWith("p") || metric.equals("max_ns");
+	}
+
+	/**
+	 * The measurements of one engine over the corpus.
+	 */
+	public static class Result
+	{
+		private final String name;
+		private final LatencyHistogram histogram = new LatencyHistogram();
+		// The slowest puzzles so far as {puzzle, latency}, with the fastest of them at the head.
+		private final PriorityQueue<long[]> slowest = new PriorityQueue<>((a, b) -> Long.compare(a[1], b[1]));
+		private long unsolved;
+
+		Result(String name)
+		{
+			this.name = name;
+		}
+
+		void record(int puzzle, long latency, boolean solved)
+		{
+			histogram.record(latency);
+
+			if(!solved)
+			{
+				unsolved++;
+			}
+
+			if(slowest.size() < SLOWEST_KEPT)
+			{
+				slowest.add(new long[] {puzzle, latency});
+			}
+			else if(slowest.peek()[1] < latency)
+			{
+				slowest.poll();
+				slowest.add(new long[] {puzzle, latency});
+			}
+		}
+
+		/**
+		 * Returns the name of the engine.
+		 * @return the name.
+		 */
+		public String getName()
+		{
+			return name;
+		}
+
+		/**
+		 * Returns the histogram of latencies, in nanoseconds.
+		 * @return the histogram.
+		 */
+		public LatencyHistogram getHistogram()
+		{
+			return histogram;
+		}
+
+		/**
+		 * Returns the slowest puzzles, slowest first.
+		 * @return {puzzle index, latency in nanoseconds} for each puzzle.
+		 */
+		public List<long[]> getSlowest()
+		{
+			List<long[]> sorted = new ArrayList<>(slowest);
+			sorted.sort((a, b) -> Long.compare(b[1], a[1]));
+
+			return sorted;
+		}
+	}
+}
@@ -0,0 +1,177 @@
+package sudoku.bench;
+
+import java.util.Arrays;
+
+/**
+ * Histogram of latencies with a fixed amount of memory and constant time recording. Values below 128 get a bucket
+ * each; above that, every power of two is split into 64 buckets, so any value is reported to within about 1.6%.
+ * Recording isn't thread safe; give each thread its own histogram and merge them. For values recorded from many
+ * threads while the program runs, see the coarser {@link sudoku.metrics.Histogram}.
+ */
+public class LatencyHistogram {
+	private static final int EXACT_BITS = 7;
+	private static final int EXACT_VALUES = 1 << EXACT_BITS;
+	private static final int SUB_BUCKET_BITS = EXACT_BITS - 1;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKETS = EXACT_VALUES + (63 - EXACT_BITS) * SUB_BUCKETS;
+
+	private final long[] counts = new long[BUCKETS];
+	private long count;
+	private long min = Long.MAX_VALUE;
+	private long max;
+	private double sum;
+
+	/**
+	 * Records a value.
+	 * @param value the value, which can't be negative.
+	 */
+	public void record(long value)
+	{
+		if(value < 0)
+		{
+			throw new IllegalArgumentException("Latencies can't be negative.");
+		}
+
+		counts[bucketOf(value)]++;
+		count++;
+		sum += value;
+		min = Math.min(min, value);
+		max = Math.max(max, value);
+	}
+
+	/**
+	 * Adds every value recorded in another histogram to this one.
+	 * @param other the other histogram.
+	 */
+	public void merge(LatencyHistogram other)
+	{
+		for(int bucket = 0; bucket < BUCKETS; bucket++)
+		{
+			counts[bucket] += other.counts[bucket];
+		}
+
+		count += other.count;
+		sum += other.sum;
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+	}
+
+	/**
+	 * Removes every recorded value.
+	 */
+	public void reset()
+	{
+		Arrays.fill(counts, 0);
+		count = 0;
+		sum = 0;
+		min = Long.MAX_VALUE;
+		max = 0;
+	}
+
+	/**
+	 * Returns the value that the given percentage of recorded values are at or below.
+	 * @param percentile the percentile, from 0-100.
+	 * @return the value, or 0 if nothing has been recorded.
+	 */
+	public long getValueAtPercentile(double percentile)
+	{
+		if(percentile < 0 || percentile > 100)
+		{
+			throw new IllegalArgumentException("Percentiles must be between 0 and 100.");
+		}
+		if(count == 0)
+		{
+			return 0;
+		}
+
+		long target = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+		long seen = 0;
+
+		for(int bucket = 0; bucket < BUCKETS; bucket++)
+		{
+			seen += counts[bucket];
+
+			if(seen >= target)
+			{
+				return Math.max(min, Math.min(max, highestValueIn(bucket)));
+			}
+		}
+
+		return max;
+	}
+
+	/**
+	 * Returns the number of values recorded.
+	 * @return the number of values.
+	 */
+	public long getCount()
+	{
+		return count;
+	}
+
+	/**
+	 * Returns the smallest value recorded.
+	 * @return the value, or 0 if nothing has been recorded.
+	 */
+	public long getMin()
+	{
+		return count == 0 ? 0 : min;
+	}
+
+	/**
+	 * Returns the largest value recorded.
+	 * @return the value, or 0 if nothing has been recorded.
+	 */
+	public long getMax()
+	{
+		return max;
+	}
+
+	/**
+	 * Returns the mean of the values recorded.
+	 * @return the mean, or 0 if nothing has been recorded.
+	 */
+	public double getMean()
+	{
+		return count == 0 ? 0 : sum / count;
+	}
+
+	/**
+	 * Works out which bucket a value goes in.
+	 * @param value the value.
+	 * @return the bucket.
+	 */
+	static int bucketOf(long value)
+	{
+		if(value < EXACT_VALUES)
+		{
+			return (int) value;
+		}
+
+		int highestBit = 63 - Long.numberOfLeadingZeros(value);
+		int shift = highestBit - SUB_BUCKET_BITS;
+		int subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+
+		return EXACT_VALUES + (highestBit - EXACT_BITS) * SUB_BUCKETS + subBucket;
+	}
+
+	/**
+	 * Returns the largest value which goes in the given bucket.
+	 * @param bucket the bucket.
+	 * @return the value.
+	 */
+	static long highestValueIn(int bucket)
+	{
+		if(bucket < EXACT_VALUES)
+		{
+			return bucket;
+		}
+
+		int offset = bucket - EXACT_VALUES;
+		int highestBit = EXACT_BITS + offset / SUB_BUCKETS;
+		long subBucket = SUB_BUCKETS + offset % SUB_BUCKETS;
+		int shift = highestBit - SUB_BUCKET_BITS;
+
+		return ((subBucket + 1) << shift) - 1;
+	}
+}
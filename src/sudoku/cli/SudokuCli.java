@@ -0,0 +1,224 @@
+package sudoku.cli;
+
+import sudoku.SolutionCounter;
+import sudoku.SudokuBoard;
+import sudoku.SudokuEngine;
+import sudoku.SudokuEngines;
+import sudoku.batch.BatchSolver;
+import sudoku.counting.CompletionCounter;
+import sudoku.generator.PuzzleGenerator;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Command line entry point for scripted use. Nothing reachable from here touches java.awt or javax.swing, so it starts
+ * quickly and runs without a display; see sudoku.sh for running it with a class data sharing archive.
+ *
+ * Puzzles are layout strings, either given as arguments or read from standard input one per line, and each command
+ * writes one line of output per puzzle in the same order.
+ */
+public class SudokuCli {
+	static final String USAGE = "Usage: sudoku solve [--engine name] [puzzle...]\n"
+			+ "       sudoku validate [puzzle...]\n"
+			+ "       sudoku generate [--count n] [--seed n]\n"
+			+ "       sudoku count [puzzle...]";
+
+	static final String VALID = "valid";
+	static final String MULTIPLE_SOLUTIONS = "multiple";
+
+	public static void main(String[] args) throws InterruptedException
+	{
+		BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.US_ASCII));
+
+		System.exit(run(args, in, System.out, System.err));
+	}
+
+	/**
+	 * Runs a command.
+	 * @param args the command and its arguments.
+	 * @param in where to read puzzles from if none are given as arguments.
+	 * @param out where to write the results.
+	 * @param err where to write usage errors.
+	 * @return the exit status: 0 if every puzzle was solved or valid, 1 if not, or 2 for bad arguments.
+	 * @throws InterruptedException if the thread is interrupted while generating puzzles or counting completions.
+	 */
+	static int run(String[] args, BufferedReader in, PrintStream out, PrintStream err) throws InterruptedException
+	{
+		if(args.length == 0)
+		{
+			err.println(USAGE);
+			return 2;
+		}
+
+		List<String> rest = new ArrayList<>(Arrays.asList(args).subList(1, args.length));
+
+		try
+		{
+			switch(args[0])
+			{
+				case "solve":
+					return solve(rest, in, out);
+				case "validate":
+					return validate(rest, in, out);
+				case "generate":
+					return generate(rest, out);
+				case "count":
+					return count(rest, in, out);
+				default:
+					err.println("Unknown command " + args[0]);
+					err.println(USAGE);
+					return 2;
+			}
+		}
+		catch(IllegalArgumentException e)
+		{
+			err.println(e.getMessage());
+			err.println(USAGE);
+			return 2;
+		}
+	}
+
+	private static int solve(List<String> args, BufferedReader in, PrintStream out)
+	{
+		Function<SudokuBoard, SudokuEngine> engine = SudokuEngines.get(option(args, "--engine", "backtracking"));
+		int status = 0;
+
+		for(String puzzle : puzzles(args, in))
+		{
+			String result = BatchSolver.solveLine(puzzle, engine);
+
+			if(result.equals(BatchSolver.INVALID) || result.equals(BatchSolver.UNSOLVABLE))
+			{
+				status = 1;
+			}
+
+			out.println(result);
+		}
+
+		return status;
+	}
+
+	/**
+	 * Checks each puzzle is well formed, has no conflicts and has exactly one solution.
+	 */
+	private static int validate(List<String> args, BufferedReader in, PrintStream out)
+	{
+		SolutionCounter counter = new SolutionCounter();
+		int status = 0;
+
+		for(String puzzle : puzzles(args, in))
+		{
+			String result;
+
+			try
+			{
+				int solutions = counter.count(new SudokuBoard(puzzle.trim()), 2);
+				result = solutions == 1 ? VALID : solutions == 0 ? BatchSolver.UNSOLVABLE : MULTIPLE_SOLUTIONS;
+			}
+			catch(IllegalArgumentException e)
+			{
+				result = BatchSolver.INVALID;
+			}
+
+			if(!result.equals(VALID))
+			{
+				status = 1;
+			}
+
+			out.println(result);
+		}
+
+		return status;
+	}
+
+	private static int generate(List<String> args, PrintStream out) throws InterruptedException
+	{
+		int count = Integer.parseInt(option(args, "--count", "1"));
+		String seed = option(args, "--seed", null);
+
+		if(!args.isEmpty())
+		{
+			throw new IllegalArgumentException("Unexpected argument " + args.get(0));
+		}
+
+		PuzzleGenerator generator = new PuzzleGenerator(seed == null ? System.nanoTime() : Long.parseLong(seed));
+
+		for(int puzzle = 0; puzzle < count; puzzle++)
+		{
+			out.println(generator.generate().getLayoutString().trim());
+		}
+
+		return 0;
+	}
+
+	/**
+	 * Writes the number of ways to complete each puzzle, which needn't have a unique solution or many clues.
+	 */
+	private static int count(List<String> args, BufferedReader in, PrintStream out) throws InterruptedException
+	{
+		CompletionCounter counter = new CompletionCounter();
+		int status = 0;
+
+		for(String puzzle : puzzles(args, in))
+		{
+			try
+			{
+				out.println(counter.count(new SudokuBoard(puzzle.trim())));
+			}
+			catch(IllegalArgumentException e)
+			{
+				out.println(BatchSolver.INVALID);
+				status = 1;
+			}
+		}
+
+		return status;
+	}
+
+	/**
+	 * Removes an option and its value from the arguments.
+	 * @param args the arguments.
+	 * @param name the option.
+	 * @param fallback the value to use if the option isn't given.
+	 * @return the option's value.
+	 */
+	private static String option(List<String> args, String name, String fallback)
+	{
+		int index = args.indexOf(name);
+
+		if(index == -1)
+		{
+			return fallback;
+		}
+		if(index + 1 == args.size())
+		{
+			throw new IllegalArgumentException("Missing value for " + name);
+		}
+
+		String value = args.get(index + 1);
+		args.subList(index, index + 2).clear();
+
+		return value;
+	}
+
+	/**
+	 * Returns the puzzles given as arguments, or if there are none, the non-blank lines of the input. Lines are read
+	 * as they're needed, so results come out while the input is still being written.
+	 */
+	private static Iterable<String> puzzles(List<String> args, BufferedReader in)
+	{
+		if(!args.isEmpty())
+		{
+			return args;
+		}
+
+		return () -> in.lines().filter(line -> !line.trim().isEmpty()).iterator();
+	}
+}
@@ -0,0 +1,558 @@
+package sudoku.counting;
+
+import sudoku.SolutionCounter;
+import sudoku.SudokuBoard;
+import sudoku.SudokuUnits;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Counts every completion of a board, however many there are, without visiting them one at a time.
+ *
+ * The grid is filled in a row at a time, and after each row all that matters for the rows below is the set of values
+ * used in each column so far and, within the current band, in each sub-board. Partial grids which agree on those sets
+ * can be finished in exactly the same ways, so each row produces a layer of distinct states, each with the number of
+ * ways of reaching it, and the next row is only tried once from each state.
+ *
+ * States are merged further using the symmetries of the bands and stacks. Swapping two columns of a stack, or two
+ * whole stacks, turns the completions of one state into those of the other, so long as no clues below the current row
+ * tell the columns apart. Such columns are put in a standard order within their stack, and such stacks in a standard
+ * order, before a state is added to its layer. Once there are no clues left below, the values can be renumbered too.
+ * For a board with only its top band filled in, this counts its seven billion or so completions from layers of at most
+ * a million states.
+ *
+ * Each square is only ever given values which don't clash with a clue in its row, or below it in its column or
+ * sub-board, so partial grids which can't be finished are dropped as early as possible.
+ *
+ * Each layer is split into chunks which are expanded on separate threads and then merged. If a layer still grows past
+ * a limit, which happens when clues are scattered too thinly for states to merge but too thickly for the grid to be
+ * open, the completions are enumerated one at a time instead, which is quick for exactly those boards.
+ */
+public class CompletionCounter {
+	private static final int ALL_VALUES = 0x1FF;
+	// Each layer is split into this many chunks per thread, so that threads finishing early can take another.
+	private static final int CHUNKS_PER_THREAD = 4;
+	private static final int ENUMERATION_LIMIT = 50_000_000;
+
+	private final int threads;
+	// Enough for a board with only its top band filled in, at about 24 bytes a state.
+	private int maxLayer = 1 << 21;
+	private int largestLayer;
+
+	/**
+	 * Creates a counter using every core.
+	 */
+	public CompletionCounter()
+	{
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * @param threads the number of threads to expand each layer on.
+	 */
+	public CompletionCounter(int threads)
+	{
+		if(threads < 1)
+		{
+			throw new IllegalArgumentException("A counter needs at least one thread.");
+		}
+
+		this.threads = threads;
+	}
+
+	/**
+	 * Sets the most states a layer can hold before the completions are enumerated one at a time instead.
+	 * @param maxLayer the number of states.
+	 */
+	public void setMaxLayer(int maxLayer)
+	{
+		if(maxLayer < 1)
+		{
+			throw new IllegalArgumentException("A layer must be able to hold at least one state.");
+		}
+
+		this.maxLayer = maxLayer;
+	}
+
+	/**
+	 * Counts the completions of a board.
+	 * @param board the board.
+	 * @return the number of ways to fill in the empty squares; 0 if the board is invalid.
+	 * @throws InterruptedException if the thread is interrupted while counting.
+	 * @throws ArithmeticException if more than Long.MAX_VALUE partial grids lead to a single state, which can only
+	 *                             happen for boards with almost no clues.
+	 * @throws IllegalStateException if the layers grow too large and there are too many completions to enumerate.
+	 */
+	public BigInteger count(SudokuBoard board) throws InterruptedException
+	{
+		if(!board.isValid())
+		{
+			return BigInteger.ZERO;
+		}
+
+		int[] clues = new int[81];
+		for(int square = 0; square < 81; square++)
+		{
+			clues[square] = board.getValueAt(square);
+		}
+
+		// The values each square can take without clashing with a clue in its row or below. Clues above are already in
+		// the states, where their values may since have been swapped or renumbered.
+		int[] allowed = new int[81];
+		for(int square = 0; square < 81; square++)
+		{
+			if(clues[square] != 0)
+			{
+				allowed[square] = 1 << (clues[square] - 1);
+				continue;
+			}
+
+			allowed[square] = ALL_VALUES;
+			for(int peer : SudokuUnits.PEERS[square])
+			{
+				if(clues[peer] != 0 && peer / 9 >= square / 9)
+				{
+					allowed[square] &= ~(1 << (clues[peer] - 1));
+				}
+			}
+		}
+
+		// The columns with no clues below each row.
+		int[] freeBelow = new int[9];
+		int free = ALL_VALUES;
+		for(int row = 8; row >= 0; row--)
+		{
+			freeBelow[row] = free;
+
+			for(int column = 0; column < 9; column++)
+			{
+				if(clues[row * 9 + column] != 0)
+				{
+					free &= ~(1 << column);
+				}
+			}
+		}
+
+		StateTable layer = new StateTable(1);
+		layer.add(0, 0, 1);
+		largestLayer = 1;
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "sudoku-completion-counter");
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		try
+		{
+			for(int row = 0; row < 8; row++)
+			{
+				List<Expander> chunks = expandLayer(executor, layer, row, allowed, freeBelow);
+
+				layer = new StateTable(layer.size());
+				for(Expander chunk : chunks)
+				{
+					if(chunk.overflowed || layer.size() + chunk.next.size() > maxLayer)
+					{
+						return enumerate(board);
+					}
+
+					layer.addAll(chunk.next);
+				}
+
+				largestLayer = Math.max(largestLayer, layer.size());
+
+				if(layer.size() == 0)
+				{
+					return BigInteger.ZERO;
+				}
+			}
+
+			// The last row only has to be counted, not turned into states.
+			BigInteger total = BigInteger.ZERO;
+			for(Expander chunk : expandLayer(executor, layer, 8, allowed, freeBelow))
+			{
+				total = total.add(chunk.completions);
+			}
+
+			return total;
+		}
+		catch(ExecutionException e)
+		{
+			if(e.getCause() instanceof ArithmeticException)
+			{
+				throw (ArithmeticException) e.getCause();
+			}
+
+			throw new IllegalStateException("Counting failed.", e.getCause());
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Returns the most states any layer held during the last count, which shows how much merging states saved.
+	 * @return the number of states.
+	 */
+	public int getLargestLayer()
+	{
+		return largestLayer;
+	}
+
+	/**
+	 * Counts the completions of a board one at a time, for when the layers grow too large.
+	 */
+	private static BigInteger enumerate(SudokuBoard board)
+	{
+		int completions = new SolutionCounter().count(board, ENUMERATION_LIMIT);
+
+		if(completions == ENUMERATION_LIMIT)
+		{
+			throw new IllegalStateException("The board has too many completions to count.");
+		}
+
+		return BigInteger.valueOf(completions);
+	}
+
+	private List<Expander> expandLayer(ExecutorService executor, StateTable layer, int row, int[] allowed,
+									   int[] freeBelow) throws InterruptedException, ExecutionException
+	{
+		int chunkCount = Math.min(threads * CHUNKS_PER_THREAD, layer.capacity());
+		int chunkSize = (layer.capacity() + chunkCount - 1) / chunkCount;
+		List<Expander> chunks = new ArrayList<>();
+		List<Future<?>> futures = new ArrayList<>();
+
+		for(int start = 0; start < layer.capacity(); start += chunkSize)
+		{
+			Expander chunk = new Expander(layer, start, Math.min(layer.capacity(), start + chunkSize), row, allowed,
+					freeBelow[row], maxLayer);
+
+			chunks.add(chunk);
+			futures.add(executor.submit(chunk));
+		}
+
+		for(Future<?> future : futures)
+		{
+			future.get();
+		}
+
+		return chunks;
+	}
+
+	/**
+	 * Fills in one row from each state in a range of slots of a layer.
+	 */
+	private static class Expander implements Runnable
+	{
+		private final StateTable layer;
+		private final int start;
+		private final int end;
+		private final int row;
+		private final int[] allowed;
+		private final int freeColumns;
+		private final int maxLayer;
+		private final boolean lastRow;
+		private final boolean endOfBand;
+
+		private final int[] columnUsed = new int[9];
+		private final int[] subBoardUsed = new int[3];
+		private final int[] columns = new int[9];
+		private final int[] subBoards = new int[3];
+		private final int[] freeValues = new int[3];
+		private final long[] stackKeys = new long[3];
+		private final int[] valueKeys = new int[9];
+		private final int[] relabelled = new int[9];
+		private long ways;
+		private long leaves;
+
+		StateTable next;
+		BigInteger completions = BigInteger.ZERO;
+		boolean overflowed;
+
+		Expander(StateTable layer, int start, int end, int row, int[] allowed, int freeColumns, int maxLayer)
+		{
+			this.layer = layer;
+			this.start = start;
+			this.end = end;
+			this.row = row;
+			this.allowed = allowed;
+			this.freeColumns = freeColumns;
+			this.maxLayer = maxLayer;
+			this.lastRow = row == 8;
+			this.endOfBand = row % 3 == 2;
+		}
+
+		@Override
+		public void run()
+		{
+			next = new StateTable(lastRow ? 1 : (end - start) / 2);
+
+			for(int slot = start; slot < end && !overflowed; slot++)
+			{
+				if(!layer.isUsed(slot))
+				{
+					continue;
+				}
+
+				unpack(layer.getHigh(slot), layer.getLow(slot));
+				ways = layer.getCount(slot);
+				leaves = 0;
+				fill(0, 0);
+
+				if(lastRow && leaves > 0)
+				{
+					completions = completions.add(BigInteger.valueOf(ways).multiply(BigInteger.valueOf(leaves)));
+				}
+			}
+		}
+
+		/**
+		 * Tries every value that can go in each square of the row from the given column on.
+		 */
+		private void fill(int column, int rowUsed)
+		{
+			if(column == 9)
+			{
+				if(lastRow)
+				{
+					leaves++;
+				}
+				else
+				{
+					addState();
+				}
+
+				return;
+			}
+
+			int stack = column / 3;
+			int candidates = ~(columnUsed[column] | subBoardUsed[stack] | rowUsed) & allowed[row * 9 + column];
+
+			while(candidates != 0 && !overflowed)
+			{
+				int bit = candidates & -candidates;
+				candidates ^= bit;
+
+				columnUsed[column] ^= bit;
+				subBoardUsed[stack] ^= bit;
+				fill(column + 1, rowUsed | bit);
+				columnUsed[column] ^= bit;
+				subBoardUsed[stack] ^= bit;
+			}
+		}
+
+		/**
+		 * Puts the state reached by the row just filled in into a standard order and adds it to the next layer.
+		 */
+		private void addState()
+		{
+			System.arraycopy(columnUsed, 0, columns, 0, 9);
+
+			for(int stack = 0; stack < 3; stack++)
+			{
+				subBoards[stack] = endOfBand ? 0 : subBoardUsed[stack];
+				sortFreeColumns(stack);
+			}
+
+			sortFreeStacks();
+
+			if(freeColumns == ALL_VALUES)
+			{
+				relabelValues();
+
+				for(int stack = 0; stack < 3; stack++)
+				{
+					sortFreeColumns(stack);
+				}
+
+				sortFreeStacks();
+			}
+
+			long high = 0;
+			for(int column = 0; column < 7; column++)
+			{
+				high |= (long) columns[column] << (9 * column);
+			}
+
+			long low = columns[7] | (long) columns[8] << 9 | (long) subBoards[0] << 18 | (long) subBoards[1] << 27
+					| (long) subBoards[2] << 36;
+
+			next.add(high, low, ways);
+			overflowed = next.size() > maxLayer;
+		}
+
+		/**
+		 * Sorts the columns of a stack which have no clues below, leaving those which do where they are.
+		 */
+		private void sortFreeColumns(int stack)
+		{
+			int count = 0;
+
+			for(int column = stack * 3; column < stack * 3 + 3; column++)
+			{
+				if((freeColumns >> column & 1) != 0)
+				{
+					freeValues[count++] = columns[column];
+				}
+			}
+
+			for(int index = 1; index < count; index++)
+			{
+				int value = freeValues[index];
+				int other = index - 1;
+
+				for(; other >= 0 && freeValues[other] > value; other--)
+				{
+					freeValues[other + 1] = freeValues[other];
+				}
+				freeValues[other + 1] = value;
+			}
+
+			count = 0;
+			for(int column = stack * 3; column < stack * 3 + 3; column++)
+			{
+				if((freeColumns >> column & 1) != 0)
+				{
+					columns[column] = freeValues[count++];
+				}
+			}
+		}
+
+		/**
+		 * Sorts the stacks with no clues below at all, by their columns and then their sub-board.
+		 */
+		private void sortFreeStacks()
+		{
+			int count = 0;
+
+			for(int stack = 0; stack < 3; stack++)
+			{
+				if((freeColumns >> (stack * 3) & 7) == 7)
+				{
+					stackKeys[count++] = (long) columns[stack * 3] << 27 | (long) columns[stack * 3 + 1] << 18
+							| (long) columns[stack * 3 + 2] << 9 | subBoards[stack];
+				}
+			}
+
+			if(count < 2)
+			{
+				return;
+			}
+
+			for(int index = 1; index < count; index++)
+			{
+				long key = stackKeys[index];
+				int other = index - 1;
+
+				for(; other >= 0 && stackKeys[other] > key; other--)
+				{
+					stackKeys[other + 1] = stackKeys[other];
+				}
+				stackKeys[other + 1] = key;
+			}
+
+			count = 0;
+			for(int stack = 0; stack < 3; stack++)
+			{
+				if((freeColumns >> (stack * 3) & 7) == 7)
+				{
+					long key = stackKeys[count++];
+
+					columns[stack * 3] = (int) (key >>> 27) & ALL_VALUES;
+					columns[stack * 3 + 1] = (int) (key >>> 18) & ALL_VALUES;
+					columns[stack * 3 + 2] = (int) (key >>> 9) & ALL_VALUES;
+					subBoards[stack] = (int) key & ALL_VALUES;
+				}
+			}
+		}
+
+		/**
+		 * Renumbers the values in order of where they've been used: first by the columns they're in, then by the
+		 * sub-boards. Values used in exactly the same places are interchangeable, so it doesn't matter which of them
+		 * comes first.
+		 */
+		private void relabelValues()
+		{
+			for(int value = 0; value < 9; value++)
+			{
+				int signature = 0;
+
+				for(int column = 0; column < 9; column++)
+				{
+					signature = signature << 1 | (columns[column] >> value & 1);
+				}
+				for(int stack = 0; stack < 3; stack++)
+				{
+					signature = signature << 1 | (subBoards[stack] >> value & 1);
+				}
+
+				// The value goes in the low bits, so that sorting the keys sorts by signature.
+				valueKeys[value] = signature << 4 | value;
+			}
+
+			for(int index = 1; index < 9; index++)
+			{
+				int key = valueKeys[index];
+				int other = index - 1;
+
+				for(; other >= 0 && valueKeys[other] > key; other--)
+				{
+					valueKeys[other + 1] = valueKeys[other];
+				}
+				valueKeys[other + 1] = key;
+			}
+
+			for(int label = 0; label < 9; label++)
+			{
+				relabelled[valueKeys[label] & 0xF] = label;
+			}
+
+			for(int column = 0; column < 9; column++)
+			{
+				columns[column] = relabel(columns[column]);
+			}
+			for(int stack = 0; stack < 3; stack++)
+			{
+				subBoards[stack] = relabel(subBoards[stack]);
+			}
+		}
+
+		private int relabel(int mask)
+		{
+			int result = 0;
+
+			while(mask != 0)
+			{
+				int value = Integer.numberOfTrailingZeros(mask);
+				mask &= mask - 1;
+				result |= 1 << relabelled[value];
+			}
+
+			return result;
+		}
+
+		private void unpack(long high, long low)
+		{
+			for(int column = 0; column < 7; column++)
+			{
+				columnUsed[column] = (int) (high >>> (9 * column)) & ALL_VALUES;
+			}
+
+			columnUsed[7] = (int) low & ALL_VALUES;
+			columnUsed[8] = (int) (low >>> 9) & ALL_VALUES;
+
+			for(int stack = 0; stack < 3; stack++)
+			{
+				subBoardUsed[stack] = (int) (low >>> (18 + 9 * stack)) & ALL_VALUES;
+			}
+		}
+	}
+}
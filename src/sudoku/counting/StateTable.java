@@ -0,0 +1,137 @@
+package sudoku.counting;
+
+import java.util.Arrays;
+
+/**
+ * A hash table from a state, packed into two longs, to the number of ways of reaching it. Keys are stored in flat
+ * arrays with open addressing rather than as objects, as a layer can hold millions of states.
+ */
+class StateTable {
+	// The high half of a key never has its top bit set, so this can't be a key.
+	private static final long EMPTY = -1;
+
+	private long[] highs;
+	private long[] lows;
+	private long[] counts;
+	private int size;
+
+	StateTable(int expected)
+	{
+		int capacity = Integer.highestOneBit(Math.max(16, expected * 2 - 1)) << 1;
+
+		allocate(capacity);
+	}
+
+	/**
+	 * Adds to the number of ways of reaching a state.
+	 * @throws ArithmeticException if the number no longer fits in a long.
+	 */
+	void add(long high, long low, long count)
+	{
+		if(size * 2 >= highs.length)
+		{
+			grow();
+		}
+
+		int slot = slotOf(high, low);
+
+		if(highs[slot] == EMPTY)
+		{
+			highs[slot] = high;
+			lows[slot] = low;
+			counts[slot] = count;
+			size++;
+		}
+		else
+		{
+			counts[slot] = Math.addExact(counts[slot], count);
+		}
+	}
+
+	/**
+	 * Adds every state of another table to this one.
+	 */
+	void addAll(StateTable other)
+	{
+		for(int slot = 0; slot < other.highs.length; slot++)
+		{
+			if(other.highs[slot] != EMPTY)
+			{
+				add(other.highs[slot], other.lows[slot], other.counts[slot]);
+			}
+		}
+	}
+
+	int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Returns the number of slots, some of which are empty, for iterating over the states with the methods below.
+	 */
+	int capacity()
+	{
+		return highs.length;
+	}
+
+	boolean isUsed(int slot)
+	{
+		return highs[slot] != EMPTY;
+	}
+
+	long getHigh(int slot)
+	{
+		return highs[slot];
+	}
+
+	long getLow(int slot)
+	{
+		return lows[slot];
+	}
+
+	long getCount(int slot)
+	{
+		return counts[slot];
+	}
+
+	private int slotOf(long high, long low)
+	{
+		long hash = (high * 0x9E3779B97F4A7C15L) ^ (low * 0xC2B2AE3D27D4EB4FL);
+		int mask = highs.length - 1;
+		int slot = (int) (hash ^ (hash >>> 29)) & mask;
+
+		while(highs[slot] != EMPTY && (highs[slot] != high || lows[slot] != low))
+		{
+			slot = (slot + 1) & mask;
+		}
+
+		return slot;
+	}
+
+	private void grow()
+	{
+		long[] oldHighs = highs;
+		long[] oldLows = lows;
+		long[] oldCounts = counts;
+
+		allocate(oldHighs.length * 2);
+		size = 0;
+
+		for(int slot = 0; slot < oldHighs.length; slot++)
+		{
+			if(oldHighs[slot] != EMPTY)
+			{
+				add(oldHighs[slot], oldLows[slot], oldCounts[slot]);
+			}
+		}
+	}
+
+	private void allocate(int capacity)
+	{
+		highs = new long[capacity];
+		lows = new long[capacity];
+		counts = new long[capacity];
+		Arrays.fill(highs, EMPTY);
+	}
+}
@@ -0,0 +1,83 @@
+package sudoku.distributed;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The messages passed between a ShardCoordinator and its workers. Every message starts with an int saying what kind
+ * it is. An assignment or result is then followed by the shard number, the number of lines, and each line as its
+ * length in bytes followed by the bytes in UTF-8. Unlike writeUTF, this puts no limit on how long a line can be.
+ */
+final class Protocol {
+	/** Coordinator to worker: solve the puzzles on these lines. */
+	static final int ASSIGN = 1;
+	/** Coordinator to worker: there's no more work, so disconnect. */
+	static final int DONE = 2;
+	/** Worker to coordinator: the output lines for an assigned shard. */
+	static final int RESULT = 3;
+
+	private Protocol()
+	{
+	}
+
+	/**
+	 * Writes a message carrying lines of text.
+	 * @param out the stream to write to.
+	 * @param type ASSIGN or RESULT.
+	 * @param shard the shard the lines belong to.
+	 * @param lines the lines.
+	 * @throws IOException if the stream can't be written to.
+	 */
+	static void writeLines(DataOutputStream out, int type, int shard, List<String> lines) throws IOException
+	{
+		out.writeInt(type);
+		out.writeInt(shard);
+		out.writeInt(lines.size());
+
+		for(String line : lines)
+		{
+			byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+
+		out.flush();
+	}
+
+	/**
+	 * Reads the lines of a message, after its type and shard number have been read.
+	 * @param in the stream to read from.
+	 * @return the lines.
+	 * @throws IOException if the stream can't be read or ends early.
+	 */
+	static List<String> readLines(DataInputStream in) throws IOException
+	{
+		int count = in.readInt();
+
+		if(count < 0)
+		{
+			throw new IOException("Received a negative line count.");
+		}
+
+		List<String> lines = new ArrayList<>(count);
+		for(int line = 0; line < count; line++)
+		{
+			int length = in.readInt();
+
+			if(length < 0)
+			{
+				throw new IOException("Received a negative line length.");
+			}
+
+			byte[] bytes = new byte[length];
+			in.readFully(bytes);
+			lines.add(new String(bytes, StandardCharsets.UTF_8));
+		}
+
+		return lines;
+	}
+}
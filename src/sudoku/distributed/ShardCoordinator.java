@@ -0,0 +1,443 @@
+package sudoku.distributed;
+
+import sudoku.batch.BatchSolver;
+import sudoku.metrics.MetricsRegistry;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Splits a file of puzzles into shards of consecutive lines and hands them out to ShardWorkers over TCP, writing the
+ * results to the output file in input order, one line per puzzle, just as a BatchSolver would.
+ *
+ * Each connected worker is sent one shard at a time. If a worker disconnects, or doesn't answer within the worker
+ * timeout, its shard is put back at the front of the queue for the next free worker. A shard that has failed on too
+ * many workers is given up on, and every line of it is written as {@link #FAILED}, so that a shard which breaks every
+ * worker can't hold up the rest of the batch. Shards that finish out of order are held until every shard before them
+ * has been written.
+ */
+public class ShardCoordinator {
+	public static final String FAILED = "failed";
+	private static final long POLL_MILLIS = 100;
+	// How long to wait for a worker's handler to finish before its connection is dropped.
+	private static final long STOP_MILLIS = 10 * POLL_MILLIS;
+
+	private final Path input;
+	private final Path output;
+	private final int shardSize;
+	private final ServerSocket server;
+	private int workerTimeout = 60000;
+	private int maxAttempts = 3;
+
+	private final BlockingDeque<Shard> pending = new LinkedBlockingDeque<>();
+	private final Map<Integer, List<String>> finished = new ConcurrentHashMap<>();
+	private final BlockingQueue<Integer> finishedOrder = new LinkedBlockingQueue<>();
+	private final Map<Thread, Socket> handlers = new ConcurrentHashMap<>();
+	private final AtomicInteger failedShards = new AtomicInteger();
+	private volatile boolean done;
+
+	/**
+	 * Creates a coordinator and starts listening for workers.
+	 * @param input the file of puzzles to solve.
+	 * @param output the file to write the solutions to.
+	 * @param shardSize the number of puzzles handed to a worker at a time.
+	 * @param port the port to listen on, or 0 for any free port.
+	 * @throws IOException if the port can't be listened on.
+	 */
+	public ShardCoordinator(Path input, Path output, int shardSize, int port) throws IOException
+	{
+		if(shardSize < 1)
+		{
+			throw new IllegalArgumentException("Shards must contain at least one puzzle.");
+		}
+
+		this.input = input;
+		this.output = output;
+		this.shardSize = shardSize;
+		this.server = new ServerSocket();
+		server.bind(new InetSocketAddress(port));
+	}
+
+	/**
+	 * Returns the port that workers should connect to.
+	 * @return the port.
+	 */
+	public int getPort()
+	{
+		return server.getLocalPort();
+	}
+
+	/**
+	 * Sets how long a worker may take to return a shard before it's treated as dead and the shard is handed out again.
+	 * @param workerTimeout the timeout in milliseconds.
+	 */
+	public void setWorkerTimeout(int workerTimeout)
+	{
+		if(workerTimeout < 1)
+		{
+			throw new IllegalArgumentException("The worker timeout must be positive.");
+		}
+
+		this.workerTimeout = workerTimeout;
+	}
+
+	/**
+	 * Sets how many workers a shard is handed to before it's given up on.
+	 * @param maxAttempts the number of workers.
+	 */
+	public void setMaxAttempts(int maxAttempts)
+	{
+		if(maxAttempts < 1)
+		{
+			throw new IllegalArgumentException("Each shard must be attempted at least once.");
+		}
+
+		this.maxAttempts = maxAttempts;
+	}
+
+	/**
+	 * Returns the number of shards which were given up on, whose lines were written as {@link #FAILED}.
+	 * @return the number of shards.
+	 */
+	public int getFailedShards()
+	{
+		return failedShards.get();
+	}
+
+	/**
+	 * Hands out every shard of the input and writes the results, returning once the whole output has been written and
+	 * every connected worker has been told there is nothing left. Waits for as long as it takes for workers to connect.
+	 * @return the number of lines written, including those of any shards that were given up on.
+	 * @throws IOException if the input can't be read or the output can't be written.
+	 * @throws InterruptedException if the thread is interrupted while waiting for results.
+	 */
+	public long run() throws IOException, InterruptedException
+	{
+		List<Shard> shards = split();
+		pending.addAll(shards);
+
+		Thread acceptor = new Thread(this::acceptWorkers, "shard-coordinator-accept");
+		acceptor.setDaemon(true);
+		acceptor.start();
+
+		long puzzles = 0;
+
+		try(Writer writer = Files.newBufferedWriter(output, StandardCharsets.US_ASCII))
+		{
+			int nextToWrite = 0;
+
+			while(nextToWrite < shards.size())
+			{
+				finishedOrder.take();
+
+				// Write every shard that's now contiguous with what's been written so far.
+				List<String> lines;
+				while(nextToWrite < shards.size() && (lines = finished.remove(nextToWrite)) != null)
+				{
+					for(String line : lines)
+					{
+						writer.write(line);
+						writer.write('\n');
+					}
+
+					puzzles += lines.size();
+					nextToWrite++;
+				}
+			}
+		}
+		finally
+		{
+			done = true;
+			server.close();
+			stopHandlers(acceptor);
+		}
+
+		return puzzles;
+	}
+
+	/**
+	 * Waits for each worker's handler to send it DONE and hang up, so that nothing is still owed to a worker when
+	 * run returns and the JVM is free to exit. A handler still waiting on a worker after a while has its connection
+	 * dropped instead.
+	 * @param acceptor the thread accepting workers, which has to stop first so no more handlers are started.
+	 */
+	private void stopHandlers(Thread acceptor)
+	{
+		try
+		{
+			acceptor.join();
+
+			long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(STOP_MILLIS);
+			for(Thread handler : handlers.keySet())
+			{
+				handler.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+			}
+		}
+		catch(InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+
+		for(Map.Entry<Thread, Socket> handler : handlers.entrySet())
+		{
+			try
+			{
+				handler.getValue().close();
+			}
+			catch(IOException e)
+			{
+				// The worker is being dropped anyway.
+			}
+
+			handler.getKey().interrupt();
+		}
+	}
+
+	/**
+	 * Scans the input once to find where each shard starts and ends.
+	 * @return the shards, in input order.
+	 * @throws IOException if the input can't be read.
+	 */
+	private List<Shard> split() throws IOException
+	{
+		List<Shard> shards = new ArrayList<>();
+
+		try(FileChannel channel = FileChannel.open(input, StandardOpenOption.READ))
+		{
+			BatchSolver.LineReader reader = new BatchSolver.LineReader(Channels.newInputStream(channel), 0);
+			long start = 0;
+			int lines = 0;
+
+			while(reader.readLine() != null)
+			{
+				lines++;
+
+				if(lines == shardSize)
+				{
+					shards.add(new Shard(shards.size(), start, lines));
+					start = reader.getOffset();
+					lines = 0;
+				}
+			}
+
+			if(lines > 0)
+			{
+				shards.add(new Shard(shards.size(), start, lines));
+			}
+		}
+
+		return shards;
+	}
+
+	/**
+	 * Reads the puzzles in a shard from the input.
+	 * @param shard the shard.
+	 * @return the lines of the shard.
+	 * @throws IOException if the input can't be read.
+	 */
+	private List<String> read(Shard shard) throws IOException
+	{
+		List<String> lines = new ArrayList<>(shard.lines);
+
+		try(FileChannel channel = FileChannel.open(input, StandardOpenOption.READ))
+		{
+			channel.position(shard.startOffset);
+			BatchSolver.LineReader reader = new BatchSolver.LineReader(Channels.newInputStream(channel), shard.startOffset);
+
+			for(int line = 0; line < shard.lines; line++)
+			{
+				lines.add(reader.readLine());
+			}
+		}
+
+		return lines;
+	}
+
+	private void acceptWorkers()
+	{
+		while(!done)
+		{
+			try
+			{
+				Socket socket = server.accept();
+				Thread handler = new Thread(() -> serve(socket), "shard-coordinator-" + socket.getRemoteSocketAddress());
+				handler.setDaemon(true);
+				handlers.put(handler, socket);
+				handler.start();
+			}
+			catch(SocketException e)
+			{
+				// The server socket was closed because every shard has been written.
+				return;
+			}
+			catch(IOException e)
+			{
+				// A failed connection only affects that worker; keep accepting others.
+			}
+		}
+	}
+
+	/**
+	 * Hands shards to one worker until there are none left or the worker fails.
+	 * @param socket the worker's connection.
+	 */
+	private void serve(Socket socket)
+	{
+		try(Socket connection = socket)
+		{
+			connection.setSoTimeout(workerTimeout);
+			DataInputStream in = new DataInputStream(new BufferedInputStream(connection.getInputStream()));
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()));
+
+			while(true)
+			{
+				Shard shard = pending.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+
+				if(shard == null)
+				{
+					if(done)
+					{
+						out.writeInt(Protocol.DONE);
+						out.flush();
+						return;
+					}
+
+					// Every shard is out, but one could still come back if its worker dies.
+					continue;
+				}
+
+				try
+				{
+					Protocol.writeLines(out, Protocol.ASSIGN, shard.id, read(shard));
+
+					if(in.readInt() != Protocol.RESULT || in.readInt() != shard.id)
+					{
+						throw new IOException("Worker answered with the wrong message.");
+					}
+
+					List<String> results = Protocol.readLines(in);
+					if(results.size() != shard.lines)
+					{
+						throw new IOException("Worker returned " + results.size() + " lines for a shard of " + shard.lines);
+					}
+
+					finish(shard, results);
+				}
+				catch(IOException e)
+				{
+					// The worker is dead, hung or broken, so give its shard to someone else and drop the connection.
+					if(++shard.attempts < maxAttempts)
+					{
+						pending.addFirst(shard);
+					}
+					else
+					{
+						failedShards.incrementAndGet();
+						finish(shard, Collections.nCopies(shard.lines, FAILED));
+					}
+
+					return;
+				}
+			}
+		}
+		catch(IOException e)
+		{
+			// Nothing was assigned, so there's nothing to hand back.
+		}
+		catch(InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		finally
+		{
+			handlers.remove(Thread.currentThread());
+		}
+	}
+
+	private void finish(Shard shard, List<String> results)
+	{
+		if(finished.putIfAbsent(shard.id, results) == null)
+		{
+			finishedOrder.add(shard.id);
+		}
+	}
+
+	/**
+	 * Runs a coordinator from the command line.
+	 * Usage: ShardCoordinator input output port [shard size] [worker timeout ms]
+	 * Exits with status 1 if any shard was given up on.
+	 * @param args the command line arguments.
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException
+	{
+		if(args.length < 3)
+		{
+			System.err.println("Usage: ShardCoordinator input output port [shard size] [worker timeout ms]");
+			System.exit(2);
+		}
+
+		MetricsRegistry.getDefault().registerPlatformMBeans();
+		int shardSize = args.length > 3 ? Integer.parseInt(args[3]) : 1000;
+		ShardCoordinator coordinator = new ShardCoordinator(Paths.get(args[0]), Paths.get(args[1]), shardSize,
+				Integer.parseInt(args[2]));
+
+		if(args.length > 4)
+		{
+			coordinator.setWorkerTimeout(Integer.parseInt(args[4]));
+		}
+
+		System.out.println("Waiting for workers on port " + coordinator.getPort() + ".");
+		System.out.println("Solved " + coordinator.run() + " puzzles.");
+
+		if(coordinator.getFailedShards() > 0)
+		{
+			System.err.println(coordinator.getFailedShards() + " shards failed on every worker they were given to.");
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * A range of consecutive lines of the input.
+	 */
+	private static class Shard
+	{
+		final int id;
+		final long startOffset;
+		final int lines;
+		// Only touched by the handler holding the shard, and handed between handlers through the pending queue.
+		int attempts;
+
+		Shard(int id, long startOffset, int lines)
+		{
+			this.id = id;
+			this.startOffset = startOffset;
+			this.lines = lines;
+		}
+	}
+}
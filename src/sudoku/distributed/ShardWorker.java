@@ -0,0 +1,122 @@
+package sudoku.distributed;
+
+import sudoku.SudokuBoard;
+import sudoku.SudokuEngine;
+import sudoku.SudokuEngines;
+import sudoku.SudokuSolver;
+import sudoku.batch.BatchSolver;
+import sudoku.metrics.MetricsRegistry;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Connects to a ShardCoordinator and solves the shards it's given until the coordinator says there's no more work.
+ * The puzzles in a shard are solved in parallel across the machine's cores. A puzzle the engine fails on is answered
+ * as invalid, so that one bad line can't lose the rest of its shard.
+ */
+public class ShardWorker {
+	private final String host;
+	private final int port;
+	private Function<SudokuBoard, SudokuEngine> engine = SudokuSolver::new;
+
+	/**
+	 * @param host the coordinator's host.
+	 * @param port the coordinator's port.
+	 */
+	public ShardWorker(String host, int port)
+	{
+		this.host = host;
+		this.port = port;
+	}
+
+	/**
+	 * Sets the engine used to solve each puzzle.
+	 * @param engine creates the engine for a board.
+	 */
+	public void setEngine(Function<SudokuBoard, SudokuEngine> engine)
+	{
+		this.engine = engine;
+	}
+
+	/**
+	 * Solves shards until the coordinator has none left.
+	 * @return the number of shards solved.
+	 * @throws IOException if the connection to the coordinator fails.
+	 */
+	public int run() throws IOException
+	{
+		int shards = 0;
+
+		try(Socket socket = new Socket(host, port))
+		{
+			DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+			while(true)
+			{
+				int type = in.readInt();
+
+				if(type == Protocol.DONE)
+				{
+					return shards;
+				}
+				if(type != Protocol.ASSIGN)
+				{
+					throw new IOException("Unexpected message " + type + " from the coordinator.");
+				}
+
+				int shard = in.readInt();
+				List<String> results = Protocol.readLines(in).parallelStream()
+						.map(this::solveLine)
+						.collect(Collectors.toList());
+
+				Protocol.writeLines(out, Protocol.RESULT, shard, results);
+				shards++;
+			}
+		}
+	}
+
+	private String solveLine(String line)
+	{
+		try
+		{
+			return BatchSolver.solveLine(line, engine);
+		}
+		catch(RuntimeException e)
+		{
+			return BatchSolver.INVALID;
+		}
+	}
+
+	/**
+	 * Runs a worker from the command line.
+	 * Usage: ShardWorker host port [engine]
+	 * @param args the command line arguments.
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		if(args.length < 2)
+		{
+			System.err.println("Usage: ShardWorker host port [engine]");
+			System.exit(2);
+		}
+
+		MetricsRegistry.getDefault().registerPlatformMBeans();
+		ShardWorker worker = new ShardWorker(args[0], Integer.parseInt(args[1]));
+
+		if(args.length > 2)
+		{
+			worker.setEngine(SudokuEngines.get(args[2]));
+		}
+
+		System.out.println("Solved " + worker.run() + " shards.");
+	}
+}
@@ -0,0 +1,53 @@
+package sudoku.generator;
+
+import sudoku.SudokuBoard;
+import sudoku.SudokuSolver;
+
+import java.util.Random;
+
+/**
+ * Generates random minimal puzzles. A random full grid is found by solving an empty board with the values tried in a
+ * random order, and then clues are removed from it in a random order until no more can be removed.
+ */
+public class PuzzleGenerator {
+	private final Random random;
+	private final PuzzleReducer reducer;
+
+	/**
+	 * Creates a generator that reduces on a single thread, so the same seed always gives the same puzzles.
+	 * @param seed the seed for the random choices.
+	 */
+	public PuzzleGenerator(long seed)
+	{
+		this(seed, new PuzzleReducer(1));
+	}
+
+	/**
+	 * @param seed the seed for the random choices.
+	 * @param reducer the reducer used to remove clues. If it uses several threads, the puzzles found for a seed can
+	 * differ between runs.
+	 */
+	public PuzzleGenerator(long seed, PuzzleReducer reducer)
+	{
+		this.random = new Random(seed);
+		this.reducer = reducer;
+	}
+
+	/**
+	 * Generates a puzzle.
+	 * @return a minimal puzzle with a unique solution.
+	 * @throws InterruptedException if the thread is interrupted while reducing the puzzle.
+	 */
+	public SudokuBoard generate() throws InterruptedException
+	{
+		SudokuSolver solver = new SudokuSolver(new SudokuBoard(), SudokuSolver.CellOrder.FIRST_EMPTY,
+				SudokuSolver.ValueOrder.RANDOM, random.nextLong());
+
+		if(!solver.solve())
+		{
+			throw new InterruptedException("Interrupted while filling in a grid.");
+		}
+
+		return reducer.reduce(solver.getBoard(), random.nextLong()).getPuzzle();
+	}
+}
@@ -0,0 +1,359 @@
+package sudoku.generator;
+
+import sudoku.SolutionCounter;
+import sudoku.SudokuBoard;
+import sudoku.logic.Difficulty;
+import sudoku.logic.DifficultyGrader;
+import sudoku.metrics.Counter;
+import sudoku.metrics.MetricsRegistry;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps puzzles ready for each difficulty tier, so a new game can be handed out straight away rather than generated
+ * while the user waits.
+ *
+ * Each tier holds up to its high watermark of puzzles. Once taking puzzles brings a tier down to its low watermark,
+ * background threads generate puzzles, check they have a unique solution, grade them, and add them to whichever tier
+ * they belong to until every tier being refilled is back up to its high watermark. The threads run at the lowest
+ * priority, so they only use time the rest of the program doesn't need. Harder tiers take longer to refill, as most
+ * random puzzles are easy, so while one tier is being refilled, puzzles that come out in another are kept if it has
+ * room.
+ *
+ * A tier the generator hardly ever produces could keep every thread busy forever, so a tier that goes a set number of
+ * puzzles without getting one is given up on for a while. It's only refilled again once a puzzle is taken from it
+ * after that, and each time it's given up on again it waits twice as long, up to a few minutes. Waiting for a puzzle
+ * with take always refills the tier.
+ *
+ * Taking a puzzle is a single queue operation, and counts as a hit if a puzzle was ready or a starvation if not.
+ */
+public class PuzzlePool implements AutoCloseable {
+	private static final Counter HITS = MetricsRegistry.getDefault().counter("pool.hits");
+	private static final Counter STARVATIONS = MetricsRegistry.getDefault().counter("pool.starvations");
+	private static final long INITIAL_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(1);
+	private static final long MAX_BACKOFF_NANOS = TimeUnit.MINUTES.toNanos(5);
+	private static final long TAKE_RETRY_MILLIS = 100;
+
+	private final Map<Difficulty, Tier> tiers = new EnumMap<>(Difficulty.class);
+	private final int lowWatermark;
+	private final int highWatermark;
+	private final Object refillLock = new Object();
+	private final List<Thread> workers = new ArrayList<>();
+	private long seed = System.nanoTime();
+	private int giveUpAfter = 10000;
+	private volatile boolean closed;
+
+	/**
+	 * @param lowWatermark the number of puzzles a tier drops to before it's refilled.
+	 * @param highWatermark the number of puzzles a tier is refilled to, and the most it holds.
+	 * @param difficulties the tiers to keep puzzles for; puzzles of other tiers are thrown away.
+	 */
+	public PuzzlePool(int lowWatermark, int highWatermark, Difficulty... difficulties)
+	{
+		if(lowWatermark < 0 || highWatermark <= lowWatermark)
+		{
+			throw new IllegalArgumentException("The high watermark must be above the low watermark.");
+		}
+		if(difficulties.length == 0)
+		{
+			throw new IllegalArgumentException("A pool needs at least one difficulty tier.");
+		}
+
+		this.lowWatermark = lowWatermark;
+		this.highWatermark = highWatermark;
+
+		for(Difficulty difficulty : difficulties)
+		{
+			tiers.put(difficulty, new Tier(highWatermark));
+		}
+	}
+
+	/**
+	 * Sets the seed the refill threads generate puzzles from. By default it's taken from the clock.
+	 * @param seed the seed.
+	 */
+	public void setSeed(long seed)
+	{
+		this.seed = seed;
+	}
+
+	/**
+	 * Sets how many puzzles in a row can be generated without one for a tier before that tier is given up on for a
+	 * while.
+	 * @param giveUpAfter the number of puzzles.
+	 */
+	public void setGiveUpAfter(int giveUpAfter)
+	{
+		if(giveUpAfter < 1)
+		{
+			throw new IllegalArgumentException("A tier must be given at least one puzzle before it's given up on.");
+		}
+
+		this.giveUpAfter = giveUpAfter;
+	}
+
+	/**
+	 * Starts the refill threads, which begin by filling every tier.
+	 * @param threads the number of threads.
+	 */
+	public synchronized void start(int threads)
+	{
+		if(threads < 1)
+		{
+			throw new IllegalArgumentException("A pool needs at least one refill thread.");
+		}
+		if(!workers.isEmpty() || closed)
+		{
+			throw new IllegalStateException("The pool has already been started.");
+		}
+
+		for(int worker = 0; worker < threads; worker++)
+		{
+			long workerSeed = seed + worker;
+			Thread thread = new Thread(() -> refill(workerSeed), "sudoku-pool-refill-" + worker);
+
+			thread.setDaemon(true);
+			thread.setPriority(Thread.MIN_PRIORITY);
+			workers.add(thread);
+			thread.start();
+		}
+	}
+
+	/**
+	 * Takes a puzzle if one is ready.
+	 * @param difficulty the tier to take it from.
+	 * @return the puzzle, or null if the tier is empty.
+	 */
+	public SudokuBoard poll(Difficulty difficulty)
+	{
+		Tier tier = tierOf(difficulty);
+		SudokuBoard puzzle = tier.puzzles.poll();
+
+		(puzzle != null ? tier.hits : tier.starvations).increment();
+		(puzzle != null ? HITS : STARVATIONS).increment();
+		checkLowWatermark(tier);
+
+		return puzzle;
+	}
+
+	/**
+	 * Takes a puzzle, waiting for one to be generated if the tier is empty.
+	 * @param difficulty the tier to take it from.
+	 * @return the puzzle.
+	 * @throws InterruptedException if the thread is interrupted while waiting.
+	 */
+	public SudokuBoard take(Difficulty difficulty) throws InterruptedException
+	{
+		Tier tier = tierOf(difficulty);
+		SudokuBoard puzzle = poll(difficulty);
+
+		while(puzzle == null)
+		{
+			// Someone is waiting, so keep refilling even if the tier has been given up on.
+			startRefilling(tier);
+			puzzle = tier.puzzles.poll(TAKE_RETRY_MILLIS, TimeUnit.MILLISECONDS);
+		}
+
+		return puzzle;
+	}
+
+	/**
+	 * Returns the number of puzzles ready in a tier.
+	 * @param difficulty the tier.
+	 * @return the number of puzzles.
+	 */
+	public int size(Difficulty difficulty)
+	{
+		return tierOf(difficulty).puzzles.size();
+	}
+
+	/**
+	 * Indicates whether a tier is being refilled, i.e. is below its high watermark and hasn't been given up on.
+	 * @param difficulty the tier.
+	 * @return boolean indicating whether or not the tier is being refilled.
+	 */
+	public boolean isRefilling(Difficulty difficulty)
+	{
+		return tierOf(difficulty).refilling;
+	}
+
+	/**
+	 * Returns the number of times a puzzle was ready when one was asked for.
+	 * @param difficulty the tier.
+	 * @return the number of hits.
+	 */
+	public long getHits(Difficulty difficulty)
+	{
+		return tierOf(difficulty).hits.sum();
+	}
+
+	/**
+	 * Returns the number of times a tier was empty when a puzzle was asked for.
+	 * @param difficulty the tier.
+	 * @return the number of starvations.
+	 */
+	public long getStarvations(Difficulty difficulty)
+	{
+		return tierOf(difficulty).starvations.sum();
+	}
+
+	/**
+	 * Stops the refill threads. Puzzles already in the pool can still be taken.
+	 */
+	@Override
+	public synchronized void close()
+	{
+		closed = true;
+
+		for(Thread worker : workers)
+		{
+			worker.interrupt();
+		}
+	}
+
+	private Tier tierOf(Difficulty difficulty)
+	{
+		Tier tier = tiers.get(difficulty);
+
+		if(tier == null)
+		{
+			throw new IllegalArgumentException("The pool doesn't keep " + difficulty + " puzzles.");
+		}
+
+		return tier;
+	}
+
+	private void checkLowWatermark(Tier tier)
+	{
+		if(!tier.refilling && tier.puzzles.size() <= lowWatermark && System.nanoTime() - tier.retryAt >= 0)
+		{
+			startRefilling(tier);
+		}
+	}
+
+	private void startRefilling(Tier tier)
+	{
+		if(!tier.refilling)
+		{
+			tier.refilling = true;
+
+			synchronized(refillLock)
+			{
+				refillLock.notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Counts a generated puzzle against every tier being refilled that didn't get it, giving up on those that have
+	 * gone too long without one.
+	 * @param filled the tier the puzzle was added to, or null if it wasn't kept.
+	 */
+	private void countMisses(Tier filled)
+	{
+		for(Tier tier : tiers.values())
+		{
+			if(tier != filled && tier.refilling && tier.misses.incrementAndGet() >= giveUpAfter)
+			{
+				tier.refilling = false;
+				tier.misses.set(0);
+				tier.retryAt = System.nanoTime() + tier.backoff;
+				tier.backoff = Math.min(MAX_BACKOFF_NANOS, tier.backoff * 2);
+			}
+		}
+	}
+
+	private void refill(long workerSeed)
+	{
+		PuzzleGenerator generator = new PuzzleGenerator(workerSeed);
+		DifficultyGrader grader = new DifficultyGrader();
+		SolutionCounter counter = new SolutionCounter();
+
+		try
+		{
+			while(awaitRefill())
+			{
+				SudokuBoard puzzle = generator.generate();
+				Tier tier = tiers.get(grader.grade(puzzle).getDifficulty());
+
+				if(tier == null || !counter.hasUniqueSolution(puzzle) || !tier.puzzles.offer(puzzle))
+				{
+					countMisses(null);
+					continue;
+				}
+
+				tier.misses.set(0);
+				tier.backoff = INITIAL_BACKOFF_NANOS;
+				countMisses(tier);
+
+				if(tier.puzzles.size() >= highWatermark)
+				{
+					tier.refilling = false;
+				}
+			}
+		}
+		catch(InterruptedException e)
+		{
+			// The pool is closing.
+		}
+	}
+
+	/**
+	 * Waits until some tier needs refilling.
+	 * @return false if the pool has been closed.
+	 */
+	private boolean awaitRefill() throws InterruptedException
+	{
+		synchronized(refillLock)
+		{
+			while(!closed && !anyRefilling())
+			{
+				refillLock.wait();
+			}
+		}
+
+		return !closed;
+	}
+
+	private boolean anyRefilling()
+	{
+		for(Tier tier : tiers.values())
+		{
+			if(tier.refilling)
+			{
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * The puzzles ready for one difficulty tier.
+	 */
+	private static class Tier
+	{
+		final ArrayBlockingQueue<SudokuBoard> puzzles;
+		final LongAdder hits = new LongAdder();
+		final LongAdder starvations = new LongAdder();
+		// Starts true, so that every tier is filled to begin with.
+		volatile boolean refilling = true;
+		// The puzzles generated in a row without one for this tier, while it's being refilled.
+		final AtomicInteger misses = new AtomicInteger();
+		// When a tier that's been given up on can be refilled again, and how long to wait the next time.
+		volatile long retryAt = System.nanoTime();
+		volatile long backoff = INITIAL_BACKOFF_NANOS;
+
+		Tier(int capacity)
+		{
+			puzzles = new ArrayBlockingQueue<>(capacity);
+		}
+	}
+}
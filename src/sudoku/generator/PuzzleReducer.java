@@ -0,0 +1,302 @@
+package sudoku.generator;
+
+import sudoku.SolutionCounter;
+import sudoku.SudokuBoard;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Removes clues from a puzzle until it's minimal: it still has exactly one solution, but removing any remaining clue
+ * would give it more than one.
+ *
+ * Each clue only needs testing once. If removing a clue gives more than one solution, removing it from any puzzle
+ * with fewer clues will too, so once a clue is known to be required it stays required. The clues are shared out
+ * between threads, each of which tests removing its clue from a snapshot of the current puzzle. A clue that turns out
+ * to be required is recorded straight away; a removal is only kept if nothing else was removed since the snapshot was
+ * taken, and is otherwise tested again against the new puzzle, as two removals that are each fine alone may not be
+ * together. The calling thread is always one of the threads, so a reducer with a single thread starts none. Any
+ * others take the calling thread's priority and daemon status, so a reduction started in the background stays there.
+ */
+public class PuzzleReducer {
+	private final int threads;
+
+	public PuzzleReducer()
+	{
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * @param threads the number of threads to test removals on.
+	 */
+	public PuzzleReducer(int threads)
+	{
+		if(threads < 1)
+		{
+			throw new IllegalArgumentException("At least one thread is needed to reduce a puzzle.");
+		}
+
+		this.threads = threads;
+	}
+
+	/**
+	 * Reduces a puzzle, trying to remove clues from the top left to the bottom right.
+	 * @param puzzle the puzzle, which must have exactly one solution.
+	 * @return the minimal puzzle.
+	 * @throws InterruptedException if the thread is interrupted while waiting for the threads testing removals.
+	 */
+	public Result reduce(SudokuBoard puzzle) throws InterruptedException
+	{
+		return reduce(puzzle, null);
+	}
+
+	/**
+	 * Reduces a puzzle, trying to remove clues in a random order. Different orders give different minimal puzzles.
+	 * @param puzzle the puzzle, which must have exactly one solution.
+	 * @param seed the seed for the order the clues are tried in.
+	 * @return the minimal puzzle.
+	 * @throws InterruptedException if the thread is interrupted while waiting for the threads testing removals.
+	 */
+	public Result reduce(SudokuBoard puzzle, long seed) throws InterruptedException
+	{
+		return reduce(puzzle, new Random(seed));
+	}
+
+	private Result reduce(SudokuBoard puzzle, Random order) throws InterruptedException
+	{
+		if(!new SolutionCounter().hasUniqueSolution(puzzle))
+		{
+			throw new IllegalArgumentException("Only a puzzle with exactly one solution can be reduced.");
+		}
+
+		List<Integer> clues = new ArrayList<>();
+		for(int square = 0; square < 81; square++)
+		{
+			if(!puzzle.isSquareEmpty(square))
+			{
+				clues.add(square);
+			}
+		}
+		if(order != null)
+		{
+			Collections.shuffle(clues, order);
+		}
+
+		Reduction reduction = new Reduction(puzzle, clues);
+
+		if(threads == 1)
+		{
+			reduction.work();
+		}
+		else
+		{
+			ExecutorService executor = Executors.newFixedThreadPool(threads - 1, threadsLike(Thread.currentThread()));
+
+			try
+			{
+				List<Future<?>> workers = new ArrayList<>();
+				for(int thread = 1; thread < threads; thread++)
+				{
+					workers.add(executor.submit(reduction::work));
+				}
+
+				reduction.work();
+
+				for(Future<?> worker : workers)
+				{
+					worker.get();
+				}
+			}
+			catch(ExecutionException e)
+			{
+				throw new IllegalStateException("Reducing the puzzle failed unexpectedly.", e.getCause());
+			}
+			finally
+			{
+				executor.shutdownNow();
+			}
+		}
+
+		// The calling thread stops testing clues when it's interrupted, so the puzzle may not be minimal.
+		if(Thread.interrupted())
+		{
+			throw new InterruptedException();
+		}
+
+		return new Result(reduction.toBoard(), reduction.checks.get());
+	}
+
+	/**
+	 * Creates threads with the same priority and daemon status as the given thread.
+	 * @param caller the thread to copy.
+	 * @return the thread factory.
+	 */
+	static ThreadFactory threadsLike(Thread caller)
+	{
+		AtomicInteger created = new AtomicInteger();
+
+		return runnable -> {
+			Thread thread = new Thread(runnable, "sudoku-reducer-" + created.incrementAndGet());
+			thread.setDaemon(caller.isDaemon());
+			thread.setPriority(caller.getPriority());
+			return thread;
+		};
+	}
+
+	/**
+	 * The state of one reduction, shared between the threads working on it.
+	 */
+	private static class Reduction
+	{
+		private final ConcurrentLinkedQueue<Integer> untested;
+		// The current puzzle and the number of clues removed from it so far, guarded by this.
+		private final int[] values = new int[81];
+		private int removed;
+		final AtomicInteger checks = new AtomicInteger();
+
+		Reduction(SudokuBoard puzzle, List<Integer> clues)
+		{
+			for(int square = 0; square < 81; square++)
+			{
+				values[square] = puzzle.getValueAt(square);
+			}
+
+			untested = new ConcurrentLinkedQueue<>(clues);
+		}
+
+		/**
+		 * Tests clues until there are none left untested.
+		 */
+		void work()
+		{
+			SolutionCounter counter = new SolutionCounter();
+			SudokuBoard attempt = new SudokuBoard();
+			Integer clue;
+
+			while((clue = untested.poll()) != null && !Thread.currentThread().isInterrupted())
+			{
+				while(true)
+				{
+					int snapshot = copyPuzzle(attempt);
+					attempt.setValueAt(clue, 0);
+					checks.incrementAndGet();
+
+					if(!counter.hasUniqueSolution(attempt))
+					{
+						// Required now, so required in every puzzle with fewer clues; it never needs testing again.
+						break;
+					}
+					if(tryRemove(clue, snapshot))
+					{
+						break;
+					}
+				}
+			}
+		}
+
+		/**
+		 * Copies the current puzzle onto a board.
+		 * @param board the board to copy onto.
+		 * @return the number of clues removed when the copy was made.
+		 */
+		private synchronized int copyPuzzle(SudokuBoard board)
+		{
+			for(int square = 0; square < 81; square++)
+			{
+				board.setValueAt(square, values[square]);
+			}
+
+			return removed;
+		}
+
+		/**
+		 * Removes a clue, as long as no other clue has been removed since the puzzle was copied.
+		 * @param clue the clue's square.
+		 * @param snapshot the number of clues removed when the puzzle was copied.
+		 * @return boolean indicating whether or not the clue was removed.
+		 */
+		private synchronized boolean tryRemove(int clue, int snapshot)
+		{
+			if(removed != snapshot)
+			{
+				return false;
+			}
+
+			values[clue] = 0;
+			removed++;
+
+			return true;
+		}
+
+		synchronized SudokuBoard toBoard()
+		{
+			SudokuBoard board = new SudokuBoard();
+			copyPuzzle(board);
+
+			return board;
+		}
+	}
+
+	/**
+	 * A minimal puzzle and what it took to find it.
+	 */
+	public static class Result
+	{
+		private final SudokuBoard puzzle;
+		private final int clueCount;
+		private final int checks;
+
+		Result(SudokuBoard puzzle, int checks)
+		{
+			this.puzzle = puzzle;
+			this.checks = checks;
+
+			int clues = 0;
+			for(int square = 0; square < 81; square++)
+			{
+				if(!puzzle.isSquareEmpty(square))
+				{
+					clues++;
+				}
+			}
+			this.clueCount = clues;
+		}
+
+		/**
+		 * Returns the minimal puzzle.
+		 * @return the puzzle.
+		 */
+		public SudokuBoard getPuzzle()
+		{
+			return puzzle;
+		}
+
+		/**
+		 * Returns the number of clues in the minimal puzzle.
+		 * @return the number of clues.
+		 */
+		public int getClueCount()
+		{
+			return clueCount;
+		}
+
+		/**
+		 * Returns the number of uniqueness checks made, including those repeated because another clue was removed
+		 * while checking.
+		 * @return the number of checks.
+		 */
+		public int getChecks()
+		{
+			return checks;
+		}
+	}
+}
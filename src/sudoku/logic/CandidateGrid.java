@@ -0,0 +1,178 @@
+package sudoku.logic;
+
+import sudoku.SudokuBoard;
+import sudoku.SudokuUnits;
+
+import java.util.Arrays;
+
+/**
+ * A board where every empty square also keeps track of the values that could still go in it. Candidates are stored
+ * as a bitmask per square, with bit (value - 1) set when the value is still possible.
+ */
+public class CandidateGrid {
+	public static final int ALL_CANDIDATES = 0x1FF;
+
+	private final int[] values = new int[81];
+	private final int[] candidates = new int[81];
+	private int emptySquares;
+	private boolean contradiction;
+
+	public CandidateGrid()
+	{
+		clear();
+	}
+
+	/**
+	 * Creates a grid holding the values on the given board.
+	 * @param board the board.
+	 */
+	public CandidateGrid(SudokuBoard board)
+	{
+		load(board);
+	}
+
+	/**
+	 * Empties the grid, so every value is possible in every square.
+	 */
+	public void clear()
+	{
+		Arrays.fill(values, 0);
+		Arrays.fill(candidates, ALL_CANDIDATES);
+		emptySquares = 81;
+		contradiction = false;
+	}
+
+	/**
+	 * Replaces the contents of the grid with the values on the given board.
+	 * @param board the board.
+	 * @return false if the values on the board contradict each other.
+	 */
+	public boolean load(SudokuBoard board)
+	{
+		clear();
+
+		for(int square = 0; square < 81; square++)
+		{
+			if(!board.isSquareEmpty(square))
+			{
+				place(square, board.getValueAt(square));
+			}
+		}
+
+		return !contradiction;
+	}
+
+	/**
+	 * Puts a value in a square and removes it from the candidates of the square's peers.
+	 * @param square the square.
+	 * @param value the value, from 1-9.
+	 * @return false if this leaves the grid in a contradiction.
+	 */
+	public boolean place(int square, int value)
+	{
+		int bit = 1 << (value - 1);
+
+		if(values[square] != 0 || (candidates[square] & bit) == 0)
+		{
+			contradiction = true;
+			return false;
+		}
+
+		values[square] = value;
+		candidates[square] = 0;
+		emptySquares--;
+
+		for(int peer : SudokuUnits.PEERS[square])
+		{
+			eliminate(peer, bit);
+		}
+
+		return !contradiction;
+	}
+
+	/**
+	 * Removes values from the candidates of a square.
+	 * @param square the square.
+	 * @param mask the values to remove.
+	 * @return whether or not any candidates were removed.
+	 */
+	public boolean eliminate(int square, int mask)
+	{
+		if((candidates[square] & mask) == 0)
+		{
+			return false;
+		}
+
+		candidates[square] &= ~mask;
+
+		if(candidates[square] == 0)
+		{
+			contradiction = true;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Gets the value in the given square.
+	 * @param square the square.
+	 * @return the value, or 0 if the square is empty.
+	 */
+	public int getValue(int square)
+	{
+		return values[square];
+	}
+
+	/**
+	 * Gets the values which could still go in the given square.
+	 * @param square the square.
+	 * @return the candidate mask, which is 0 for filled squares.
+	 */
+	public int getCandidates(int square)
+	{
+		return candidates[square];
+	}
+
+	/**
+	 * Indicates whether or not every square has been filled.
+	 * @return boolean indicating whether or not the grid is solved.
+	 */
+	public boolean isSolved()
+	{
+		return emptySquares == 0 && !contradiction;
+	}
+
+	/**
+	 * Indicates whether or not an empty square has run out of candidates, or a value was placed where it couldn't go.
+	 * @return boolean indicating whether or not there is a contradiction.
+	 */
+	public boolean hasContradiction()
+	{
+		return contradiction;
+	}
+
+	/**
+	 * Returns the number of empty squares.
+	 * @return the number of empty squares.
+	 */
+	public int getEmptySquares()
+	{
+		return emptySquares;
+	}
+
+	/**
+	 * Copies the values in the grid onto a new board.
+	 * @return the board.
+	 */
+	public SudokuBoard toBoard()
+	{
+		SudokuBoard board = new SudokuBoard();
+
+		for(int square = 0; square < 81; square++)
+		{
+			board.setValueAt(square, values[square]);
+		}
+
+		return board;
+	}
+}
@@ -0,0 +1,13 @@
+package sudoku.logic;
+
+/**
+ * The difficulty tiers puzzles are sorted into, based on the hardest technique needed to solve them.
+ */
+public enum Difficulty {
+	EASY,
+	MEDIUM,
+	HARD,
+	EXPERT,
+	/** The puzzle can't be finished with any of the techniques the grader knows, so guessing is needed. */
+	BEYOND_TECHNIQUES
+}
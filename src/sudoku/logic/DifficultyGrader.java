@@ -0,0 +1,855 @@
+package sudoku.logic;
+
+import sudoku.SudokuBoard;
+import sudoku.SudokuUnits;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Grades puzzles by solving them the way a person would. Techniques are tried cheapest first, and after every step
+ * that makes progress the grader goes back to the cheapest technique, so the hardest technique used is the hardest
+ * one the puzzle actually needs.
+ *
+ * A grader keeps its working state between puzzles to avoid allocating, so each thread needs its own; gradeAll()
+ * takes care of that when grading many puzzles at once.
+ */
+public class DifficultyGrader {
+	private static final Technique[] TECHNIQUES = Technique.values();
+
+	// Masks of the positions 0-8 within a unit that fall in each third of it.
+	private static final int[] THIRDS = {0x007, 0x038, 0x1C0};
+	// Masks of the positions 0-8 within a sub-board that fall in each of its columns.
+	private static final int[] SUB_BOARD_COLUMNS = {0x049, 0x092, 0x124};
+
+	private static final ThreadLocal<DifficultyGrader> PER_THREAD = ThreadLocal.withInitial(DifficultyGrader::new);
+
+	private final CandidateGrid grid = new CandidateGrid();
+	private final int[] positions = new int[9];
+	private final int[] scratch = new int[9];
+	private final int[] colour = new int[81];
+	private final int[] queue = new int[81];
+	private final int[][] links = new int[81][3];
+	private final int[] linkCount = new int[81];
+	private int singleValue;
+
+	/**
+	 * Grades a puzzle.
+	 * @param board the puzzle.
+	 * @return the grade.
+	 */
+	public Grade grade(SudokuBoard board)
+	{
+		int[] uses = new int[TECHNIQUES.length];
+		Technique hardest = null;
+
+		grid.load(board);
+
+		while(!grid.isSolved() && !grid.hasContradiction())
+		{
+			Technique applied = applyCheapestTechnique();
+
+			if(applied == null)
+			{
+				break;
+			}
+
+			uses[applied.ordinal()]++;
+
+			if(hardest == null || applied.compareTo(hardest) > 0)
+			{
+				hardest = applied;
+			}
+		}
+
+		return new Grade(hardest, grid.isSolved(), uses);
+	}
+
+	/**
+	 * Finds the cheapest way to fill in one more square of a board. Techniques are applied cheapest first, as when
+	 * grading, but only until some square has a single candidate or a value has a single place in a unit.
+	 * @param board the board.
+	 * @return the hint, or null if the board is contradictory or the known techniques can't fill in any square.
+	 */
+	public Hint hint(SudokuBoard board)
+	{
+		Technique hardest = null;
+
+		if(!grid.load(board))
+		{
+			return null;
+		}
+
+		while(!grid.hasContradiction())
+		{
+			int square = findSingle();
+
+			if(square != -1)
+			{
+				Technique single = Integer.bitCount(grid.getCandidates(square)) == 1
+						? Technique.NAKED_SINGLE : Technique.HIDDEN_SINGLE;
+				Technique needed = hardest == null || single.compareTo(hardest) > 0 ? single : hardest;
+
+				return new Hint(square, singleValue, needed);
+			}
+
+			Technique applied = null;
+
+			// Singles have been ruled out, so only the techniques that remove candidates are left to try.
+			for(int technique = Technique.POINTING.ordinal(); technique < TECHNIQUES.length; technique++)
+			{
+				if(apply(TECHNIQUES[technique]))
+				{
+					applied = TECHNIQUES[technique];
+					break;
+				}
+			}
+
+			if(applied == null)
+			{
+				return null;
+			}
+			if(hardest == null || applied.compareTo(hardest) > 0)
+			{
+				hardest = applied;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Grades many puzzles, spread across all the available cores.
+	 * @param puzzles the puzzles.
+	 * @return the grade of each puzzle, in the same order.
+	 */
+	public static Grade[] gradeAll(List<SudokuBoard> puzzles)
+	{
+		return puzzles.parallelStream()
+				.map(puzzle -> PER_THREAD.get().grade(puzzle))
+				.toArray(Grade[]::new);
+	}
+
+	/**
+	 * Returns the grid as it was left by the last call to grade().
+	 * @return the grid.
+	 */
+	public CandidateGrid getGrid()
+	{
+		return grid;
+	}
+
+	/**
+	 * Applies the cheapest technique that makes any progress.
+	 * @return the technique, or null if none of them make progress.
+	 */
+	private Technique applyCheapestTechnique()
+	{
+		for(Technique technique : TECHNIQUES)
+		{
+			if(apply(technique))
+			{
+				return technique;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Applies a technique everywhere it can be used on the grid.
+	 * @param technique the technique.
+	 * @return whether or not any values were placed or candidates removed.
+	 */
+	boolean apply(Technique technique)
+	{
+		switch(technique)
+		{
+			case NAKED_SINGLE:
+				return nakedSingles();
+			case HIDDEN_SINGLE:
+				return hiddenSingles();
+			case POINTING:
+				return pointing();
+			case BOX_LINE_REDUCTION:
+				return boxLineReduction();
+			case NAKED_PAIR:
+				return nakedSubsets(2);
+			case HIDDEN_PAIR:
+				return hiddenSubsets(2);
+			case NAKED_TRIPLE:
+				return nakedSubsets(3);
+			case HIDDEN_TRIPLE:
+				return hiddenSubsets(3);
+			case X_WING:
+				return fish(2);
+			case XY_WING:
+				return xyWing();
+			case SWORDFISH:
+				return fish(3);
+			case SIMPLE_COLOURING:
+				return simpleColouring();
+			default:
+				throw new IllegalArgumentException("Unknown technique " + technique);
+		}
+	}
+
+	/**
+	 * Finds a square that could be filled in with a naked or hidden single, without filling it in. The value is left
+	 * in singleValue.
+	 * @return the square, or -1 if there aren't any singles.
+	 */
+	private int findSingle()
+	{
+		for(int square = 0; square < 81; square++)
+		{
+			int candidates = grid.getCandidates(square);
+
+			if(Integer.bitCount(candidates) == 1)
+			{
+				singleValue = Integer.numberOfTrailingZeros(candidates) + 1;
+				return square;
+			}
+		}
+
+		for(int[] unit : SudokuUnits.UNITS)
+		{
+			int atLeastOnce = 0;
+			int moreThanOnce = 0;
+
+			for(int square : unit)
+			{
+				int candidates = grid.getCandidates(square);
+				moreThanOnce |= atLeastOnce & candidates;
+				atLeastOnce |= candidates;
+			}
+
+			int singles = atLeastOnce & ~moreThanOnce;
+
+			if(singles != 0)
+			{
+				int bit = Integer.lowestOneBit(singles);
+
+				for(int square : unit)
+				{
+					if((grid.getCandidates(square) & bit) != 0)
+					{
+						singleValue = Integer.numberOfTrailingZeros(bit) + 1;
+						return square;
+					}
+				}
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Fills in every square which only has one candidate left.
+	 */
+	private boolean nakedSingles()
+	{
+		boolean progress = false;
+
+		for(int square = 0; square < 81; square++)
+		{
+			int candidates = grid.getCandidates(square);
+
+			if(Integer.bitCount(candidates) == 1)
+			{
+				grid.place(square, Integer.numberOfTrailingZeros(candidates) + 1);
+				progress = true;
+			}
+		}
+
+		return progress;
+	}
+
+	/**
+	 * Fills in every value which can only go in one square of a unit.
+	 */
+	private boolean hiddenSingles()
+	{
+		boolean progress = false;
+
+		for(int[] unit : SudokuUnits.UNITS)
+		{
+			int atLeastOnce = 0;
+			int moreThanOnce = 0;
+
+			for(int square : unit)
+			{
+				int candidates = grid.getCandidates(square);
+				moreThanOnce |= atLeastOnce & candidates;
+				atLeastOnce |= candidates;
+			}
+
+			for(int singles = atLeastOnce & ~moreThanOnce; singles != 0; singles &= singles - 1)
+			{
+				int bit = Integer.lowestOneBit(singles);
+
+				for(int square : unit)
+				{
+					if((grid.getCandidates(square) & bit) != 0)
+					{
+						grid.place(square, Integer.numberOfTrailingZeros(bit) + 1);
+						progress = true;
+						break;
+					}
+				}
+			}
+		}
+
+		return progress;
+	}
+
+	/**
+	 * When a value can only go in one row or column of a sub-board, it can't go anywhere else in that row or column.
+	 */
+	private boolean pointing()
+	{
+		boolean progress = false;
+
+		for(int subBoard = 0; subBoard < 9; subBoard++)
+		{
+			int[] unit = SudokuUnits.UNITS[18 + subBoard];
+
+			for(int value = 1; value <= 9; value++)
+			{
+				int bit = 1 << (value - 1);
+				int found = positionsOf(unit, bit);
+
+				if(found == 0)
+				{
+					continue;
+				}
+
+				int first = unit[Integer.numberOfTrailingZeros(found)];
+
+				for(int third = 0; third < 3; third++)
+				{
+					if((found & ~THIRDS[third]) == 0)
+					{
+						progress |= eliminateOutside(SudokuUnits.UNITS[SudokuUnits.ROW[first]], unit, bit);
+					}
+					if((found & ~SUB_BOARD_COLUMNS[third]) == 0)
+					{
+						progress |= eliminateOutside(SudokuUnits.UNITS[9 + SudokuUnits.COLUMN[first]], unit, bit);
+					}
+				}
+			}
+		}
+
+		return progress;
+	}
+
+	/**
+	 * When a value can only go in one sub-board of a row or column, it can't go anywhere else in that sub-board.
+	 */
+	private boolean boxLineReduction()
+	{
+		boolean progress = false;
+
+		for(int line = 0; line < 18; line++)
+		{
+			int[] unit = SudokuUnits.UNITS[line];
+
+			for(int value = 1; value <= 9; value++)
+			{
+				int bit = 1 << (value - 1);
+				int found = positionsOf(unit, bit);
+
+				if(found == 0)
+				{
+					continue;
+				}
+
+				for(int third = 0; third < 3; third++)
+				{
+					if((found & ~THIRDS[third]) == 0)
+					{
+						int subBoard = SudokuUnits.SUB_BOARD[unit[Integer.numberOfTrailingZeros(found)]];
+						progress |= eliminateOutside(SudokuUnits.UNITS[18 + subBoard], unit, bit);
+					}
+				}
+			}
+		}
+
+		return progress;
+	}
+
+	/**
+	 * When n squares in a unit only have n candidates between them, those values can't go anywhere else in the unit.
+	 * @param size the number of squares, n.
+	 */
+	private boolean nakedSubsets(int size)
+	{
+		boolean progress = false;
+
+		for(int[] unit : SudokuUnits.UNITS)
+		{
+			int count = 0;
+
+			for(int item = 0; item < 9; item++)
+			{
+				int candidates = grid.getCandidates(unit[item]);
+
+				if(candidates != 0 && Integer.bitCount(candidates) <= size)
+				{
+					scratch[count++] = item;
+				}
+			}
+
+			for(int first = 0; first < count; first++)
+			{
+				for(int second = first + 1; second < count; second++)
+				{
+					int union = grid.getCandidates(unit[scratch[first]]) | grid.getCandidates(unit[scratch[second]]);
+
+					if(size == 2)
+					{
+						if(Integer.bitCount(union) == 2)
+						{
+							int members = (1 << scratch[first]) | (1 << scratch[second]);
+							progress |= eliminateFromUnit(unit, members, union);
+						}
+						continue;
+					}
+
+					for(int third = second + 1; third < count; third++)
+					{
+						int tripleUnion = union | grid.getCandidates(unit[scratch[third]]);
+
+						if(Integer.bitCount(tripleUnion) == 3)
+						{
+							int members = (1 << scratch[first]) | (1 << scratch[second]) | (1 << scratch[third]);
+							progress |= eliminateFromUnit(unit, members, tripleUnion);
+						}
+					}
+				}
+			}
+		}
+
+		return progress;
+	}
+
+	/**
+	 * When n values in a unit can only go in the same n squares, no other values can go in those squares.
+	 * @param size the number of values, n.
+	 */
+	private boolean hiddenSubsets(int size)
+	{
+		boolean progress = false;
+
+		for(int[] unit : SudokuUnits.UNITS)
+		{
+			int count = 0;
+
+			for(int value = 1; value <= 9; value++)
+			{
+				int found = positionsOf(unit, 1 << (value - 1));
+				positions[value - 1] = found;
+
+				if(found != 0 && Integer.bitCount(found) <= size)
+				{
+					scratch[count++] = value - 1;
+				}
+			}
+
+			for(int first = 0; first < count; first++)
+			{
+				for(int second = first + 1; second < count; second++)
+				{
+					int union = positions[scratch[first]] | positions[scratch[second]];
+					int values = (1 << scratch[first]) | (1 << scratch[second]);
+
+					if(size == 2)
+					{
+						if(Integer.bitCount(union) == 2)
+						{
+							progress |= restrictSquares(unit, union, values);
+						}
+						continue;
+					}
+
+					for(int third = second + 1; third < count; third++)
+					{
+						int tripleUnion = union | positions[scratch[third]];
+
+						if(Integer.bitCount(tripleUnion) == 3)
+						{
+							progress |= restrictSquares(unit, tripleUnion, values | (1 << scratch[third]));
+						}
+					}
+				}
+			}
+		}
+
+		return progress;
+	}
+
+	/**
+	 * X-Wing (size 2) and Swordfish (size 3): when a value is confined to the same n columns in n rows, it can't go
+	 * anywhere else in those columns, and the same with rows and columns swapped.
+	 * @param size the number of rows or columns, n.
+	 */
+	private boolean fish(int size)
+	{
+		boolean progress = false;
+
+		for(int value = 1; value <= 9; value++)
+		{
+			int bit = 1 << (value - 1);
+
+			// Base lines are rows (units 0-8), then columns (units 9-17).
+			for(int baseStart = 0; baseStart <= 9; baseStart += 9)
+			{
+				int coverStart = 9 - baseStart;
+				int count = 0;
+
+				for(int line = 0; line < 9; line++)
+				{
+					int found = positionsOf(SudokuUnits.UNITS[baseStart + line], bit);
+					positions[line] = found;
+
+					if(Integer.bitCount(found) >= 2 && Integer.bitCount(found) <= size)
+					{
+						scratch[count++] = line;
+					}
+				}
+
+				for(int first = 0; first < count; first++)
+				{
+					for(int second = first + 1; second < count; second++)
+					{
+						int union = positions[scratch[first]] | positions[scratch[second]];
+						int bases = (1 << scratch[first]) | (1 << scratch[second]);
+
+						if(size == 2)
+						{
+							if(Integer.bitCount(union) == 2)
+							{
+								progress |= eliminateFromCoverLines(coverStart, union, bases, bit);
+							}
+							continue;
+						}
+
+						for(int third = second + 1; third < count; third++)
+						{
+							int tripleUnion = union | positions[scratch[third]];
+
+							if(Integer.bitCount(tripleUnion) == 3)
+							{
+								progress |= eliminateFromCoverLines(coverStart, tripleUnion,
+										bases | (1 << scratch[third]), bit);
+							}
+						}
+					}
+				}
+			}
+		}
+
+		return progress;
+	}
+
+	/**
+	 * A pivot square with candidates {x, y} sees one square with {x, z} and another with {y, z}. Whichever value the
+	 * pivot takes, one of those squares must be z, so z can't go in any square that sees both of them.
+	 */
+	private boolean xyWing()
+	{
+		boolean progress = false;
+
+		for(int pivot = 0; pivot < 81; pivot++)
+		{
+			int pivotCandidates = grid.getCandidates(pivot);
+
+			if(Integer.bitCount(pivotCandidates) != 2)
+			{
+				continue;
+			}
+
+			for(int first : SudokuUnits.PEERS[pivot])
+			{
+				int firstCandidates = grid.getCandidates(first);
+				int shared = firstCandidates & pivotCandidates;
+
+				if(Integer.bitCount(firstCandidates) != 2 || Integer.bitCount(shared) != 1)
+				{
+					continue;
+				}
+
+				int z = firstCandidates & ~pivotCandidates;
+				int secondCandidates = (pivotCandidates & ~shared) | z;
+
+				for(int second : SudokuUnits.PEERS[pivot])
+				{
+					if(second == first || grid.getCandidates(second) != secondCandidates)
+					{
+						continue;
+					}
+
+					for(int square : SudokuUnits.PEERS[first])
+					{
+						if(square != second && SudokuUnits.sees(square, second))
+						{
+							progress |= grid.eliminate(square, z);
+						}
+					}
+				}
+			}
+		}
+
+		return progress;
+	}
+
+	/**
+	 * Simple colouring, a single value chain. Squares which are the only two places for a value in some unit are
+	 * linked, and the chains that makes are coloured alternately, so exactly one colour of each chain holds the value.
+	 * If two squares of the same colour see each other, that colour is false; and any square that sees both colours
+	 * of a chain can't hold the value.
+	 */
+	private boolean simpleColouring()
+	{
+		boolean progress = false;
+
+		for(int value = 1; value <= 9; value++)
+		{
+			int bit = 1 << (value - 1);
+
+			Arrays.fill(linkCount, 0);
+			Arrays.fill(colour, -1);
+
+			for(int[] unit : SudokuUnits.UNITS)
+			{
+				int found = positionsOf(unit, bit);
+
+				if(Integer.bitCount(found) == 2)
+				{
+					int first = unit[Integer.numberOfTrailingZeros(found)];
+					int second = unit[31 - Integer.numberOfLeadingZeros(found)];
+					links[first][linkCount[first]++] = second;
+					links[second][linkCount[second]++] = first;
+				}
+			}
+
+			for(int start = 0; start < 81; start++)
+			{
+				if(linkCount[start] == 0 || colour[start] != -1)
+				{
+					continue;
+				}
+
+				// Colour the chain through a breadth first search. Colours are start * 2 and start * 2 + 1, so every
+				// chain has its own pair of colours.
+				int size = 0;
+				queue[size++] = start;
+				colour[start] = start * 2;
+
+				for(int head = 0; head < size; head++)
+				{
+					int square = queue[head];
+
+					for(int link = 0; link < linkCount[square]; link++)
+					{
+						int other = links[square][link];
+
+						if(colour[other] == -1)
+						{
+							colour[other] = colour[square] ^ 1;
+							queue[size++] = other;
+						}
+					}
+				}
+
+				progress |= applyColourRules(bit, size);
+
+				if(progress)
+				{
+					return true;
+				}
+			}
+		}
+
+		return progress;
+	}
+
+	/**
+	 * Applies the colouring rules to the chain held in the queue.
+	 * @param bit the value the chain is for.
+	 * @param size the number of squares in the chain.
+	 */
+	private boolean applyColourRules(int bit, int size)
+	{
+		for(int first = 0; first < size; first++)
+		{
+			for(int second = first + 1; second < size; second++)
+			{
+				int a = queue[first];
+				int b = queue[second];
+
+				if(colour[a] == colour[b] && SudokuUnits.sees(a, b))
+				{
+					boolean progress = false;
+
+					for(int index = 0; index < size; index++)
+					{
+						if(colour[queue[index]] == colour[a])
+						{
+							progress |= grid.eliminate(queue[index], bit);
+						}
+					}
+
+					return progress;
+				}
+			}
+		}
+
+		int chainColour = colour[queue[0]] & ~1;
+		boolean progress = false;
+
+		for(int square = 0; square < 81; square++)
+		{
+			if((grid.getCandidates(square) & bit) == 0 || (colour[square] & ~1) == chainColour)
+			{
+				continue;
+			}
+
+			boolean seesEven = false;
+			boolean seesOdd = false;
+
+			for(int index = 0; index < size; index++)
+			{
+				if(SudokuUnits.sees(square, queue[index]))
+				{
+					if(colour[queue[index]] == chainColour)
+					{
+						seesEven = true;
+					}
+					else
+					{
+						seesOdd = true;
+					}
+				}
+			}
+
+			if(seesEven && seesOdd)
+			{
+				progress |= grid.eliminate(square, bit);
+			}
+		}
+
+		return progress;
+	}
+
+	/**
+	 * Finds where a value could go within a unit.
+	 * @param unit the squares of the unit.
+	 * @param bit the value's candidate bit.
+	 * @return a mask with bit i set when the value could go in the ith square of the unit.
+	 */
+	private int positionsOf(int[] unit, int bit)
+	{
+		int found = 0;
+
+		for(int item = 0; item < 9; item++)
+		{
+			if((grid.getCandidates(unit[item]) & bit) != 0)
+			{
+				found |= 1 << item;
+			}
+		}
+
+		return found;
+	}
+
+	/**
+	 * Removes values from every square of a unit that isn't also in another unit.
+	 */
+	private boolean eliminateOutside(int[] unit, int[] keep, int mask)
+	{
+		boolean progress = false;
+
+		for(int square : unit)
+		{
+			if(!contains(keep, square))
+			{
+				progress |= grid.eliminate(square, mask);
+			}
+		}
+
+		return progress;
+	}
+
+	/**
+	 * Removes values from the squares of a unit, other than the given members.
+	 * @param members a mask of the positions in the unit to leave alone.
+	 */
+	private boolean eliminateFromUnit(int[] unit, int members, int mask)
+	{
+		boolean progress = false;
+
+		for(int item = 0; item < 9; item++)
+		{
+			if((members & (1 << item)) == 0)
+			{
+				progress |= grid.eliminate(unit[item], mask);
+			}
+		}
+
+		return progress;
+	}
+
+	/**
+	 * Removes every value other than the given ones from some squares of a unit.
+	 * @param members a mask of the positions in the unit to restrict.
+	 */
+	private boolean restrictSquares(int[] unit, int members, int values)
+	{
+		boolean progress = false;
+
+		for(int item = 0; item < 9; item++)
+		{
+			if((members & (1 << item)) != 0)
+			{
+				progress |= grid.eliminate(unit[item], ~values & CandidateGrid.ALL_CANDIDATES);
+			}
+		}
+
+		return progress;
+	}
+
+	/**
+	 * Removes a value from the cover lines of a fish, apart from where they cross the base lines.
+	 * @param coverStart the first unit of the cover lines' kind; 0 for rows or 9 for columns.
+	 * @param covers a mask of the cover lines.
+	 * @param bases a mask of the base lines, i.e. the positions within each cover line to leave alone.
+	 */
+	private boolean eliminateFromCoverLines(int coverStart, int covers, int bases, int bit)
+	{
+		boolean progress = false;
+
+		for(int line = 0; line < 9; line++)
+		{
+			if((covers & (1 << line)) != 0)
+			{
+				progress |= eliminateFromUnit(SudokuUnits.UNITS[coverStart + line], bases, bit);
+			}
+		}
+
+		return progress;
+	}
+
+	private static boolean contains(int[] unit, int square)
+	{
+		for(int item : unit)
+		{
+			if(item == square)
+			{
+				return true;
+			}
+		}
+
+		return false;
+	}
+}
@@ -0,0 +1,66 @@
+package sudoku.logic;
+
+/**
+ * The result of grading a puzzle: the hardest technique that was needed, whether the techniques were enough to
+ * finish the puzzle, and how many times each technique was used.
+ */
+public class Grade {
+	private final Technique hardest;
+	private final boolean solved;
+	private final int[] uses;
+
+	Grade(Technique hardest, boolean solved, int[] uses)
+	{
+		this.hardest = hardest;
+		this.solved = solved;
+		this.uses = uses;
+	}
+
+	/**
+	 * Returns the hardest technique that was used.
+	 * @return the technique, or null if the board was already complete.
+	 */
+	public Technique getHardestTechnique()
+	{
+		return hardest;
+	}
+
+	/**
+	 * Indicates whether or not the puzzle could be finished using the known techniques.
+	 * @return boolean indicating whether or not the puzzle was solved.
+	 */
+	public boolean isSolved()
+	{
+		return solved;
+	}
+
+	/**
+	 * Returns the difficulty tier of the puzzle.
+	 * @return the difficulty.
+	 */
+	public Difficulty getDifficulty()
+	{
+		if(!solved)
+		{
+			return Difficulty.BEYOND_TECHNIQUES;
+		}
+
+		return hardest == null ? Difficulty.EASY : hardest.getDifficulty();
+	}
+
+	/**
+	 * Returns how many times the given technique made progress while grading.
+	 * @param technique the technique.
+	 * @return the number of uses.
+	 */
+	public int getUses(Technique technique)
+	{
+		return uses[technique.ordinal()];
+	}
+
+	@Override
+	public String toString()
+	{
+		return getDifficulty() + (hardest == null ? "" : " (" + hardest + ")");
+	}
+}
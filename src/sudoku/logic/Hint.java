@@ -0,0 +1,50 @@
+package sudoku.logic;
+
+/**
+ * A value that can be filled in on the board, and the hardest technique needed to work it out.
+ */
+public class Hint {
+	private final int square;
+	private final int value;
+	private final Technique technique;
+
+	public Hint(int square, int value, Technique technique)
+	{
+		this.square = square;
+		this.value = value;
+		this.technique = technique;
+	}
+
+	/**
+	 * Returns the square to fill in.
+	 * @return the square's position in the board array.
+	 */
+	public int getSquare()
+	{
+		return square;
+	}
+
+	/**
+	 * Returns the value that goes in the square.
+	 * @return the value.
+	 */
+	public int getValue()
+	{
+		return value;
+	}
+
+	/**
+	 * Returns the hardest technique needed to find the value.
+	 * @return the technique.
+	 */
+	public Technique getTechnique()
+	{
+		return technique;
+	}
+
+	@Override
+	public String toString()
+	{
+		return value + " in row " + (square / 9 + 1) + ", column " + (square % 9 + 1) + " (" + technique + ")";
+	}
+}
@@ -0,0 +1,179 @@
+package sudoku.logic;
+
+import sudoku.SudokuBoard;
+import sudoku.SudokuUnits;
+
+/**
+ * Keeps track of conflicts and candidates while a board is being edited one square at a time. Every unit keeps a
+ * count of each value in it, so changing a square only touches its three units, and checking a square for a conflict
+ * or asking for its candidates only looks at its three units, rather than re-validating the whole board.
+ */
+public class IncrementalCandidateModel {
+	private final int[] values = new int[81];
+	// How many times each value (0-8) appears in each unit.
+	private final int[][] counts = new int[27][9];
+	// A mask of the values that appear at least once in each unit.
+	private final int[] present = new int[27];
+	// The number of values in each unit that appear more than once.
+	private final int[] duplicates = new int[27];
+	private int conflictingUnits;
+	private final DifficultyGrader grader = new DifficultyGrader();
+
+	/**
+	 * Sets the value of a square.
+	 * @param square the square's position in the board array.
+	 * @param value the value, from 1-9, or 0 to empty the square.
+	 */
+	public void setValue(int square, int value)
+	{
+		if(value < 0 || value > 9)
+		{
+			throw new IllegalArgumentException("Sudoku board can only contain values from 0-9.");
+		}
+
+		int old = values[square];
+
+		if(old == value)
+		{
+			return;
+		}
+
+		for(int unit : SudokuUnits.UNITS_OF_SQUARE[square])
+		{
+			if(old != 0)
+			{
+				remove(unit, old - 1);
+			}
+			if(value != 0)
+			{
+				add(unit, value - 1);
+			}
+		}
+
+		values[square] = value;
+	}
+
+	/**
+	 * Gets the value of a square.
+	 * @param square the square.
+	 * @return the value, or 0 if the square is empty.
+	 */
+	public int getValue(int square)
+	{
+		return values[square];
+	}
+
+	/**
+	 * Indicates whether the value in a square also appears elsewhere in its row, column or sub-board.
+	 * @param square the square.
+	 * @return boolean indicating whether or not the square is in conflict.
+	 */
+	public boolean isConflicting(int square)
+	{
+		int value = values[square];
+
+		if(value == 0)
+		{
+			return false;
+		}
+
+		for(int unit : SudokuUnits.UNITS_OF_SQUARE[square])
+		{
+			if(counts[unit][value - 1] > 1)
+			{
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Indicates whether any square on the board is in conflict.
+	 * @return boolean indicating whether or not there are any conflicts.
+	 */
+	public boolean hasConflicts()
+	{
+		return conflictingUnits > 0;
+	}
+
+	/**
+	 * Gets the values that aren't already in an empty square's row, column or sub-board; i.e. its pencil marks.
+	 * @param square the square.
+	 * @return a mask with bit (value - 1) set for each candidate, or 0 if the square isn't empty.
+	 */
+	public int getCandidates(int square)
+	{
+		if(values[square] != 0)
+		{
+			return 0;
+		}
+
+		int[] units = SudokuUnits.UNITS_OF_SQUARE[square];
+
+		return ~(present[units[0]] | present[units[1]] | present[units[2]]) & CandidateGrid.ALL_CANDIDATES;
+	}
+
+	/**
+	 * Finds the cheapest deduction that fills in a square, without solving the rest of the board. Only this is done
+	 * from scratch, as it's asked for far less often than the board is edited.
+	 * @return the hint, or null if the board has conflicts or the known techniques can't fill in any square.
+	 */
+	public Hint nextHint()
+	{
+		if(hasConflicts())
+		{
+			return null;
+		}
+
+		return grader.hint(toBoard());
+	}
+
+	/**
+	 * Copies the values in the model onto a new board.
+	 * @return the board.
+	 */
+	public SudokuBoard toBoard()
+	{
+		SudokuBoard board = new SudokuBoard();
+
+		for(int square = 0; square < 81; square++)
+		{
+			board.setValueAt(square, values[square]);
+		}
+
+		return board;
+	}
+
+	private void add(int unit, int value)
+	{
+		int count = ++counts[unit][value];
+
+		present[unit] |= 1 << value;
+
+		if(count == 2)
+		{
+			if(duplicates[unit]++ == 0)
+			{
+				conflictingUnits++;
+			}
+		}
+	}
+
+	private void remove(int unit, int value)
+	{
+		int count = --counts[unit][value];
+
+		if(count == 0)
+		{
+			present[unit] &= ~(1 << value);
+		}
+		else if(count == 1)
+		{
+			if(--duplicates[unit] == 0)
+			{
+				conflictingUnits--;
+			}
+		}
+	}
+}
@@ -0,0 +1,36 @@
+package sudoku.logic;
+
+/**
+ * The solving techniques the grader knows, in the order they are tried, which is roughly how hard each one is for a
+ * person to spot.
+ */
+public enum Technique {
+	NAKED_SINGLE(Difficulty.EASY),
+	HIDDEN_SINGLE(Difficulty.EASY),
+	POINTING(Difficulty.MEDIUM),
+	BOX_LINE_REDUCTION(Difficulty.MEDIUM),
+	NAKED_PAIR(Difficulty.MEDIUM),
+	HIDDEN_PAIR(Difficulty.MEDIUM),
+	NAKED_TRIPLE(Difficulty.HARD),
+	HIDDEN_TRIPLE(Difficulty.HARD),
+	X_WING(Difficulty.HARD),
+	XY_WING(Difficulty.EXPERT),
+	SWORDFISH(Difficulty.EXPERT),
+	SIMPLE_COLOURING(Difficulty.EXPERT);
+
+	private final Difficulty difficulty;
+
+	Technique(Difficulty difficulty)
+	{
+		this.difficulty = difficulty;
+	}
+
+	/**
+	 * Returns the difficulty tier of a puzzle whose hardest technique is this one.
+	 * @return the difficulty.
+	 */
+	public Difficulty getDifficulty()
+	{
+		return difficulty;
+	}
+}
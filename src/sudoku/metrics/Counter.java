@@ -0,0 +1,39 @@
+package sudoku.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A count that many threads can add to at once without contending, as each thread mostly adds to its own cell and
+ * the cells are only summed when the count is read. Adding a negative amount makes it a running total, such as the
+ * number of items waiting in a queue.
+ */
+public class Counter implements CounterMBean {
+	private final LongAdder count = new LongAdder();
+
+	Counter()
+	{
+	}
+
+	/**
+	 * Adds one.
+	 */
+	public void increment()
+	{
+		count.increment();
+	}
+
+	/**
+	 * Adds an amount, which may be negative.
+	 * @param amount the amount.
+	 */
+	public void add(long amount)
+	{
+		count.add(amount);
+	}
+
+	@Override
+	public long getCount()
+	{
+		return count.sum();
+	}
+}
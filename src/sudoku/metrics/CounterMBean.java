@@ -0,0 +1,11 @@
+package sudoku.metrics;
+
+/**
+ * The view of a Counter published over JMX.
+ */
+public interface CounterMBean {
+	/**
+	 * @return the current value.
+	 */
+	long getCount();
+}
@@ -0,0 +1,158 @@
+package sudoku.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records the spread of values such as latencies in nanoseconds or nodes searched per solve, in fixed buckets whose
+ * bounds double each time: bucket 0 holds values of 0 or less, and bucket n holds values from 2^(n-1) up to 2^n - 1.
+ * Recording is a count of the leading zeros to find the bucket and two LongAdder additions, so it never takes a lock
+ * and threads recording at once rarely touch the same memory. Percentiles are only known to within their bucket, so
+ * they're reported as the bucket's upper bound.
+ *
+ * This is deliberately coarser than {@link sudoku.bench.LatencyHistogram}, which the benchmarks use. That one splits
+ * every power of two into 64 buckets, giving percentiles to within about 1.6%, but it has over 3,700 buckets and
+ * isn't thread safe, so each benchmark thread keeps its own and they're merged at the end. These histograms are
+ * recorded into by every solver thread at once for the life of the program and read over JMX while it runs. A
+ * LongAdder for each of LatencyHistogram's buckets would cost far more memory per metric than the extra precision is
+ * worth for watching a running program, and 64 bucket counts can still be read at a glance in a JMX console. The
+ * percentiles of the two agree to within this histogram's factor of two.
+ */
+public class Histogram implements HistogramMBean {
+	private static final int BUCKETS = 64;
+
+	private final LongAdder[] buckets = new LongAdder[BUCKETS];
+	private final LongAdder sum = new LongAdder();
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+	Histogram()
+	{
+		for(int bucket = 0; bucket < BUCKETS; bucket++)
+		{
+			buckets[bucket] = new LongAdder();
+		}
+	}
+
+	/**
+	 * Records a value.
+	 * @param value the value.
+	 */
+	public void record(long value)
+	{
+		buckets[bucketOf(value)].increment();
+		sum.add(value);
+		max.accumulate(value);
+	}
+
+	@Override
+	public long getCount()
+	{
+		long count = 0;
+
+		for(LongAdder bucket : buckets)
+		{
+			count += bucket.sum();
+		}
+
+		return count;
+	}
+
+	@Override
+	public long getSum()
+	{
+		return sum.sum();
+	}
+
+	@Override
+	public double getMean()
+	{
+		long count = getCount();
+
+		return count == 0 ? 0 : (double) getSum() / count;
+	}
+
+	@Override
+	public long getMax()
+	{
+		return max.get();
+	}
+
+	/**
+	 * Returns an upper bound on a percentile of the values recorded.
+	 * @param percentile the percentile, from 0 to 100.
+	 * @return the upper bound of the bucket the percentile falls in, but no more than the largest value recorded, or
+	 *         0 if nothing has been recorded.
+	 */
+	public long getPercentile(double percentile)
+	{
+		if(percentile < 0 || percentile > 100)
+		{
+			throw new IllegalArgumentException("A percentile must be from 0 to 100.");
+		}
+
+		long[] counts = getBucketCounts();
+		long total = 0;
+
+		for(long count : counts)
+		{
+			total += count;
+		}
+
+		// The rank of the value at the percentile, counting from 1.
+		long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+		long seen = 0;
+
+		for(int bucket = 0; bucket < BUCKETS && total > 0; bucket++)
+		{
+			seen += counts[bucket];
+
+			if(seen >= rank)
+			{
+				return Math.min(upperBound(bucket), getMax());
+			}
+		}
+
+		return 0;
+	}
+
+	@Override
+	public long getPercentile50()
+	{
+		return getPercentile(50);
+	}
+
+	@Override
+	public long getPercentile90()
+	{
+		return getPercentile(90);
+	}
+
+	@Override
+	public long getPercentile99()
+	{
+		return getPercentile(99);
+	}
+
+	@Override
+	public long[] getBucketCounts()
+	{
+		long[] counts = new long[BUCKETS];
+
+		for(int bucket = 0; bucket < BUCKETS; bucket++)
+		{
+			counts[bucket] = buckets[bucket].sum();
+		}
+
+		return counts;
+	}
+
+	static int bucketOf(long value)
+	{
+		return value <= 0 ? 0 : BUCKETS - Long.numberOfLeadingZeros(value);
+	}
+
+	private static long upperBound(int bucket)
+	{
+		return bucket == BUCKETS - 1 ? Long.MAX_VALUE : (1L << bucket) - 1;
+	}
+}
@@ -0,0 +1,46 @@
+package sudoku.metrics;
+
+/**
+ * The view of a Histogram published over JMX.
+ */
+public interface HistogramMBean {
+	/**
+	 * @return the number of values recorded.
+	 */
+	long getCount();
+
+	/**
+	 * @return the total of the values recorded.
+	 */
+	long getSum();
+
+	/**
+	 * @return the mean of the values recorded, or 0 if there are none.
+	 */
+	double getMean();
+
+	/**
+	 * @return the largest value recorded, or 0 if there are none.
+	 */
+	long getMax();
+
+	/**
+	 * @return an upper bound on the median.
+	 */
+	long getPercentile50();
+
+	/**
+	 * @return an upper bound on the 90th percentile.
+	 */
+	long getPercentile90();
+
+	/**
+	 * @return an upper bound on the 99th percentile.
+	 */
+	long getPercentile99();
+
+	/**
+	 * @return the number of values in each bucket; see Histogram.
+	 */
+	long[] getBucketCounts();
+}
@@ -0,0 +1,160 @@
+package sudoku.metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+/**
+ * Holds the counters and histograms recorded by the solver and the code around it, by name. Code that records a
+ * metric looks it up once, typically into a static field, and then only touches the metric itself, so recording never
+ * goes through the registry.
+ *
+ * Once registerMBeans() has been called, every metric, including those created later, is published over JMX as
+ * {@code <domain>:type=Counter,name=<name>} or {@code <domain>:type=Histogram,name=<name>}, where jconsole or any JMX
+ * scraper can read it. Registration is left to long running programs, as starting JMX slows down short ones.
+ */
+public class MetricsRegistry {
+	private static final Pattern NAME = Pattern.compile("[A-Za-z0-9._-]+");
+	private static final MetricsRegistry DEFAULT = new MetricsRegistry("sudoku");
+
+	private final String domain;
+	private final ConcurrentMap<String, Object> metrics = new ConcurrentHashMap<>();
+	private MBeanServer server;
+
+	/**
+	 * @param domain the JMX domain to publish the metrics under.
+	 */
+	public MetricsRegistry(String domain)
+	{
+		this.domain = domain;
+	}
+
+	/**
+	 * Returns the registry everything in this project records to.
+	 * @return the registry.
+	 */
+	public static MetricsRegistry getDefault()
+	{
+		return DEFAULT;
+	}
+
+	/**
+	 * Returns the counter with the given name, creating it if need be.
+	 * @param name the name, made up of letters, digits, dots, dashes and underscores.
+	 * @return the counter.
+	 */
+	public Counter counter(String name)
+	{
+		return get(name, Counter.class);
+	}
+
+	/**
+	 * Returns the histogram with the given name, creating it if need be.
+	 * @param name the name, made up of letters, digits, dots, dashes and underscores.
+	 * @return the histogram.
+	 */
+	public Histogram histogram(String name)
+	{
+		return get(name, Histogram.class);
+	}
+
+	/**
+	 * Returns every metric, by name.
+	 * @return a copy of the metrics, sorted by name.
+	 */
+	public Map<String, Object> getMetrics()
+	{
+		return new TreeMap<>(metrics);
+	}
+
+	/**
+	 * Publishes every metric over JMX, now and as they're created.
+	 * @param server the server to register the metrics with.
+	 */
+	public synchronized void registerMBeans(MBeanServer server)
+	{
+		if(this.server != null)
+		{
+			throw new IllegalStateException("The metrics have already been registered.");
+		}
+
+		this.server = server;
+
+		for(Map.Entry<String, Object> metric : metrics.entrySet())
+		{
+			register(metric.getKey(), metric.getValue());
+		}
+	}
+
+	/**
+	 * Publishes every metric with the platform MBean server, unless that has already been done.
+	 */
+	public synchronized void registerPlatformMBeans()
+	{
+		if(server == null)
+		{
+			registerMBeans(ManagementFactory.getPlatformMBeanServer());
+		}
+	}
+
+	private <T> T get(String name, Class<T> type)
+	{
+		Object metric = metrics.get(name);
+
+		if(metric == null)
+		{
+			if(!NAME.matcher(name).matches())
+			{
+				throw new IllegalArgumentException("Bad metric name " + name);
+			}
+
+			metric = create(name, type);
+		}
+
+		if(!type.isInstance(metric))
+		{
+			throw new IllegalArgumentException("The metric " + name + " isn't a " + type.getSimpleName());
+		}
+
+		return type.cast(metric);
+	}
+
+	private synchronized Object create(String name, Class<?> type)
+	{
+		Object existing = metrics.get(name);
+
+		if(existing != null)
+		{
+			return existing;
+		}
+
+		Object metric = type == Counter.class ? new Counter() : new Histogram();
+		metrics.put(name, metric);
+
+		if(server != null)
+		{
+			register(name, metric);
+		}
+
+		return metric;
+	}
+
+	private void register(String name, Object metric)
+	{
+		try
+		{
+			server.registerMBean(metric, new ObjectName(domain + ":type=" + metric.getClass().getSimpleName()
+					+ ",name=" + name));
+		}
+		catch(JMException e)
+		{
+			throw new IllegalStateException("Couldn't register the metric " + name + " with JMX.", e);
+		}
+	}
+}
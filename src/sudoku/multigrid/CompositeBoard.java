@@ -0,0 +1,345 @@
+package sudoku.multigrid;
+
+import sudoku.SudokuBoard;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A board made of several 9x9 grids laid out on a larger canvas, where grids that overlap share the squares they
+ * overlap on. A Samurai puzzle, for example, is five grids with the four outer ones each sharing a sub-board with the
+ * one in the middle.
+ *
+ * Squares are numbered in order across the canvas, skipping positions that aren't in any grid, and every row, column
+ * and sub-board of every grid is a unit. A sub-board shared by two grids is only one unit.
+ */
+public class CompositeBoard {
+	private final int height;
+	private final int width;
+	private final int[][] gridOffsets;
+	// The square at each canvas position, or -1 if the position isn't in any grid.
+	private final int[] squareAt;
+	private final int[] rowOf;
+	private final int[] columnOf;
+	private final int[][] gridSquares;
+	private final int[][] units;
+	private final int[] values;
+
+	/**
+	 * @param height the number of rows of the canvas.
+	 * @param width the number of columns of the canvas.
+	 * @param gridOffsets the {row, column} of the top left square of each grid on the canvas. Grids may only overlap
+	 *                    on whole sub-boards.
+	 */
+	public CompositeBoard(int height, int width, int[][] gridOffsets)
+	{
+		this.height = height;
+		this.width = width;
+		this.gridOffsets = new int[gridOffsets.length][];
+		this.squareAt = new int[height * width];
+		Arrays.fill(squareAt, -1);
+
+		for(int grid = 0; grid < gridOffsets.length; grid++)
+		{
+			int top = gridOffsets[grid][0];
+			int left = gridOffsets[grid][1];
+
+			if(top < 0 || left < 0 || top + 9 > height || left + 9 > width || top % 3 != 0 || left % 3 != 0)
+			{
+				throw new IllegalArgumentException("Grid " + grid + " must fit on the canvas, aligned to sub-boards.");
+			}
+
+			this.gridOffsets[grid] = new int[] {top, left};
+
+			for(int row = top; row < top + 9; row++)
+			{
+				for(int column = left; column < left + 9; column++)
+				{
+					squareAt[row * width + column] = 0;
+				}
+			}
+		}
+
+		int squares = 0;
+		for(int position = 0; position < squareAt.length; position++)
+		{
+			if(squareAt[position] == 0)
+			{
+				squareAt[position] = squares++;
+			}
+		}
+
+		rowOf = new int[squares];
+		columnOf = new int[squares];
+		for(int position = 0; position < squareAt.length; position++)
+		{
+			if(squareAt[position] != -1)
+			{
+				rowOf[squareAt[position]] = position / width;
+				columnOf[squareAt[position]] = position % width;
+			}
+		}
+
+		gridSquares = new int[gridOffsets.length][81];
+		// Units are keyed by their squares, so a sub-board shared by two grids is only added once.
+		Map<String, int[]> uniqueUnits = new LinkedHashMap<>();
+
+		for(int grid = 0; grid < gridOffsets.length; grid++)
+		{
+			int[][] gridUnits = new int[27][9];
+			int[] filled = new int[27];
+
+			for(int cell = 0; cell < 81; cell++)
+			{
+				int row = cell / 9;
+				int column = cell % 9;
+				int square = squareAt(this.gridOffsets[grid][0] + row, this.gridOffsets[grid][1] + column);
+
+				gridSquares[grid][cell] = square;
+				gridUnits[row][filled[row]++] = square;
+				gridUnits[9 + column][filled[9 + column]++] = square;
+				int subBoard = 18 + (row / 3) * 3 + column / 3;
+				gridUnits[subBoard][filled[subBoard]++] = square;
+			}
+
+			for(int[] unit : gridUnits)
+			{
+				uniqueUnits.putIfAbsent(Arrays.toString(unit), unit);
+			}
+		}
+
+		units = uniqueUnits.values().toArray(new int[0][]);
+		values = new int[squares];
+	}
+
+	/**
+	 * Creates an empty Samurai board: five grids on a 21x21 canvas, one in each corner and one in the middle.
+	 * @return the board.
+	 */
+	public static CompositeBoard samurai()
+	{
+		return new CompositeBoard(21, 21, new int[][] {{0, 0}, {0, 12}, {6, 6}, {12, 0}, {12, 12}});
+	}
+
+	/**
+	 * Copies another board.
+	 * @param other the board to copy.
+	 */
+	public CompositeBoard(CompositeBoard other)
+	{
+		this.height = other.height;
+		this.width = other.width;
+		this.gridOffsets = other.gridOffsets;
+		this.squareAt = other.squareAt;
+		this.rowOf = other.rowOf;
+		this.columnOf = other.columnOf;
+		this.gridSquares = other.gridSquares;
+		this.units = other.units;
+		this.values = other.values.clone();
+	}
+
+	/**
+	 * Fills in the board from the rows of the canvas. Each row has a character for each column: a digit for a clue,
+	 * '0' or '.' for an empty square, and anything else for a position that isn't in any grid.
+	 * @param rows the rows.
+	 */
+	public void setLayout(String... rows)
+	{
+		if(rows.length != height)
+		{
+			throw new IllegalArgumentException("The layout must have " + height + " rows.");
+		}
+
+		for(int row = 0; row < height; row++)
+		{
+			if(rows[row].length() > width)
+			{
+				throw new IllegalArgumentException("Row " + row + " of the layout is longer than the canvas.");
+			}
+
+			for(int column = 0; column < width; column++)
+			{
+				char symbol = column < rows[row].length() ? rows[row].charAt(column) : ' ';
+				int square = squareAt(row, column);
+
+				if(square != -1)
+				{
+					setValue(square, symbol >= '1' && symbol <= '9' ? symbol - '0' : 0);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Writes the board out in the form setLayout() reads, with spaces for positions outside every grid.
+	 * @return the rows of the canvas.
+	 */
+	public String[] getLayout()
+	{
+		String[] rows = new String[height];
+
+		for(int row = 0; row < height; row++)
+		{
+			StringBuilder line = new StringBuilder(width);
+
+			for(int column = 0; column < width; column++)
+			{
+				int square = squareAt(row, column);
+				line.append(square == -1 ? ' ' : values[square] == 0 ? '.' : (char) ('0' + values[square]));
+			}
+
+			rows[row] = line.toString();
+		}
+
+		return rows;
+	}
+
+	/**
+	 * Returns the square at a position of the canvas.
+	 * @param row the row.
+	 * @param column the column.
+	 * @return the square, or -1 if the position isn't in any grid.
+	 */
+	public int squareAt(int row, int column)
+	{
+		if(row < 0 || row >= height || column < 0 || column >= width)
+		{
+			throw new IllegalArgumentException("The position is outside the canvas.");
+		}
+
+		return squareAt[row * width + column];
+	}
+
+	/**
+	 * Gets the value of a square.
+	 * @param square the square.
+	 * @return the value, or 0 if the square is empty.
+	 */
+	public int getValue(int square)
+	{
+		return values[square];
+	}
+
+	/**
+	 * Sets the value of a square.
+	 * @param square the square.
+	 * @param value the value, from 1-9, or 0 to empty the square.
+	 */
+	public void setValue(int square, int value)
+	{
+		if(value < 0 || value > 9)
+		{
+			throw new IllegalArgumentException("Sudoku board can only contain values from 0-9.");
+		}
+
+		values[square] = value;
+	}
+
+	/**
+	 * Returns the number of squares across all the grids, counting shared squares once.
+	 * @return the number of squares.
+	 */
+	public int getSquareCount()
+	{
+		return values.length;
+	}
+
+	/**
+	 * Returns the number of grids.
+	 * @return the number of grids.
+	 */
+	public int getGridCount()
+	{
+		return gridSquares.length;
+	}
+
+	/**
+	 * Returns the units of the board: the squares of every distinct row, column and sub-board of every grid.
+	 * @return the units, which mustn't be modified.
+	 */
+	int[][] getUnits()
+	{
+		return units;
+	}
+
+	/**
+	 * Copies one of the grids onto a standalone board.
+	 * @param grid the grid.
+	 * @return the board.
+	 */
+	public SudokuBoard getGrid(int grid)
+	{
+		SudokuBoard board = new SudokuBoard();
+
+		for(int cell = 0; cell < 81; cell++)
+		{
+			board.setValueAt(cell, values[gridSquares[grid][cell]]);
+		}
+
+		return board;
+	}
+
+	/**
+	 * Returns the canvas row of a square.
+	 * @param square the square.
+	 * @return the row.
+	 */
+	public int getRow(int square)
+	{
+		return rowOf[square];
+	}
+
+	/**
+	 * Returns the canvas column of a square.
+	 * @param square the square.
+	 * @return the column.
+	 */
+	public int getColumn(int square)
+	{
+		return columnOf[square];
+	}
+
+	/**
+	 * Indicates whether no value is repeated in any unit.
+	 * @return boolean indicating whether or not the board is valid.
+	 */
+	public boolean isValid()
+	{
+		for(int[] unit : units)
+		{
+			int seen = 0;
+
+			for(int square : unit)
+			{
+				int bit = 1 << values[square] >> 1;
+
+				if((seen & bit) != 0)
+				{
+					return false;
+				}
+
+				seen |= bit;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Indicates whether the board is valid and every square is filled in.
+	 * @return boolean indicating whether or not the board is solved.
+	 */
+	public boolean isValidAndComplete()
+	{
+		for(int value : values)
+		{
+			if(value == 0)
+			{
+				return false;
+			}
+		}
+
+		return isValid();
+	}
+}
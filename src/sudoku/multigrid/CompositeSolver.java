@@ -0,0 +1,252 @@
+package sudoku.multigrid;
+
+/**
+ * Solves all the grids of a CompositeBoard together. Every square keeps a mask of the values that could still go in
+ * it, and placing a value removes it from every square that shares a unit with it, in whichever grid that is. So a
+ * value placed in the middle grid of a Samurai immediately narrows down the squares of the corner grid it overlaps,
+ * and vice versa, rather than each grid being solved on its own and the results reconciled afterwards.
+ *
+ * After placing values, naked and hidden singles are filled in across every unit until nothing changes, and only then
+ * does the search guess, in the square with the fewest candidates.
+ */
+public class CompositeSolver {
+	private static final int ALL_VALUES = 0x1FF;
+
+	private final CompositeBoard board;
+	private final int[][] units;
+	private final int[][] peers;
+	private long guesses;
+
+	/**
+	 * @param board the board to solve; it's copied, so it isn't changed.
+	 */
+	public CompositeSolver(CompositeBoard board)
+	{
+		this.board = new CompositeBoard(board);
+		this.units = board.getUnits();
+		this.peers = findPeers(board.getSquareCount(), units);
+	}
+
+	/**
+	 * Solves the board.
+	 * @return whether or not a solution was found.
+	 */
+	public boolean solve()
+	{
+		int squares = board.getSquareCount();
+		int[] candidates = new int[squares];
+		boolean[] placed = new boolean[squares];
+
+		for(int square = 0; square < squares; square++)
+		{
+			int value = board.getValue(square);
+			candidates[square] = value == 0 ? ALL_VALUES : 1 << (value - 1);
+		}
+
+		return propagate(candidates, placed) && search(candidates, placed);
+	}
+
+	/**
+	 * Returns the board, which holds the solution if one was found.
+	 * @return the board.
+	 */
+	public CompositeBoard getBoard()
+	{
+		return board;
+	}
+
+	/**
+	 * Returns the number of times the search had to guess a value.
+	 * @return the number of guesses.
+	 */
+	public long getGuesses()
+	{
+		return guesses;
+	}
+
+	private boolean search(int[] candidates, boolean[] placed)
+	{
+		int best = -1;
+		int fewest = 10;
+
+		for(int square = 0; square < candidates.length; square++)
+		{
+			int count = Integer.bitCount(candidates[square]);
+
+			if(!placed[square] && count < fewest)
+			{
+				best = square;
+				fewest = count;
+			}
+		}
+
+		// Everything has been placed, so this is a solution.
+		if(best == -1)
+		{
+			for(int square = 0; square < candidates.length; square++)
+			{
+				board.setValue(square, Integer.numberOfTrailingZeros(candidates[square]) + 1);
+			}
+
+			return true;
+		}
+
+		int remaining = candidates[best];
+
+		while(remaining != 0)
+		{
+			int bit = remaining & -remaining;
+			remaining ^= bit;
+			guesses++;
+
+			int[] tryCandidates = candidates.clone();
+			boolean[] tryPlaced = placed.clone();
+			tryCandidates[best] = bit;
+
+			if(propagate(tryCandidates, tryPlaced) && search(tryCandidates, tryPlaced))
+			{
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Places every square that has a single candidate, removing its value from its peers, and every value that has a
+	 * single place in a unit, until neither finds anything new.
+	 * @return false if some square or unit is left with no way to be filled.
+	 */
+	private boolean propagate(int[] candidates, boolean[] placed)
+	{
+		boolean changed = true;
+
+		while(changed)
+		{
+			changed = false;
+
+			for(int square = 0; square < candidates.length; square++)
+			{
+				int mask = candidates[square];
+
+				if(mask == 0)
+				{
+					return false;
+				}
+				if(placed[square] || (mask & (mask - 1)) != 0)
+				{
+					continue;
+				}
+
+				placed[square] = true;
+				changed = true;
+
+				for(int peer : peers[square])
+				{
+					if((candidates[peer] & mask) != 0)
+					{
+						candidates[peer] &= ~mask;
+
+						if(candidates[peer] == 0)
+						{
+							return false;
+						}
+					}
+				}
+			}
+
+			for(int[] unit : units)
+			{
+				// Values seen at least once, and values seen more than once.
+				int once = 0;
+				int twice = 0;
+
+				for(int square : unit)
+				{
+					twice |= once & candidates[square];
+					once |= candidates[square];
+				}
+
+				if(once != ALL_VALUES)
+				{
+					return false;
+				}
+
+				int single = once & ~twice;
+
+				for(int square : unit)
+				{
+					int hidden = candidates[square] & single;
+
+					if(hidden != 0 && candidates[square] != hidden)
+					{
+						if((hidden & (hidden - 1)) != 0)
+						{
+							// A square can't be the only place for two values.
+							return false;
+						}
+
+						candidates[square] = hidden;
+						changed = true;
+					}
+				}
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Works out the other squares that share a unit with each square.
+	 */
+	private static int[][] findPeers(int squares, int[][] units)
+	{
+		int[][] peers = new int[squares][];
+		boolean[] seen = new boolean[squares];
+		int[] found = new int[squares];
+
+		for(int square = 0; square < squares; square++)
+		{
+			int count = 0;
+
+			for(int[] unit : units)
+			{
+				if(!contains(unit, square))
+				{
+					continue;
+				}
+
+				for(int peer : unit)
+				{
+					if(peer != square && !seen[peer])
+					{
+						seen[peer] = true;
+						found[count++] = peer;
+					}
+				}
+			}
+
+			peers[square] = new int[count];
+			for(int peer = 0; peer < count; peer++)
+			{
+				peers[square][peer] = found[peer];
+				seen[found[peer]] = false;
+			}
+		}
+
+		return peers;
+	}
+
+	private static boolean contains(int[] unit, int square)
+	{
+		for(int member : unit)
+		{
+			if(member == square)
+			{
+				return true;
+			}
+		}
+
+		return false;
+	}
+}
@@ -0,0 +1,185 @@
+package sudoku.pipeline;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The source of a pipeline, which producers submit items to. Items wait in a bounded buffer until the subscriber asks
+ * for them, and once the buffer is full, submitting blocks until there's room, so a producer can never get further
+ * ahead of the pipeline than the buffer allows.
+ * @param <T> the type of the items.
+ */
+public class BoundedPublisher<T> implements Flow.Publisher<T> {
+	private static final long CANCEL_CHECK_MILLIS = 100;
+
+	private final ArrayBlockingQueue<T> buffer;
+	private final AtomicInteger drainers = new AtomicInteger();
+	private final AtomicLong demand = new AtomicLong();
+
+	private volatile Flow.Subscriber<? super T> subscriber;
+	private volatile boolean closed;
+	private volatile Throwable error;
+	private volatile boolean finished;
+
+	/**
+	 * @param capacity the most items that can be waiting for the subscriber.
+	 */
+	public BoundedPublisher(int capacity)
+	{
+		this.buffer = new ArrayBlockingQueue<>(capacity);
+	}
+
+	/**
+	 * Submits an item, waiting for room in the buffer if it's full.
+	 * @param item the item.
+	 * @return true if the item was accepted, or false if the subscriber has cancelled.
+	 * @throws InterruptedException if the thread is interrupted while waiting for room.
+	 */
+	public boolean submit(T item) throws InterruptedException
+	{
+		if(closed)
+		{
+			throw new IllegalStateException("Items can't be submitted once the publisher has been closed.");
+		}
+
+		while(!buffer.offer(item, CANCEL_CHECK_MILLIS, TimeUnit.MILLISECONDS))
+		{
+			if(finished)
+			{
+				return false;
+			}
+		}
+
+		drain();
+
+		return !finished;
+	}
+
+	/**
+	 * Completes the subscriber once it's received every submitted item.
+	 */
+	public void close()
+	{
+		closed = true;
+		drain();
+	}
+
+	/**
+	 * Fails the subscriber once it's received every submitted item.
+	 * @param failure the reason for the failure.
+	 */
+	public void closeExceptionally(Throwable failure)
+	{
+		error = failure;
+		close();
+	}
+
+	/**
+	 * Returns the number of items waiting for the subscriber to ask for them.
+	 * @return the number of items.
+	 */
+	public int getBuffered()
+	{
+		return buffer.size();
+	}
+
+	@Override
+	public void subscribe(Flow.Subscriber<? super T> subscriber)
+	{
+		synchronized(this)
+		{
+			if(this.subscriber != null)
+			{
+				subscriber.onSubscribe(new Flow.Subscription()
+				{
+					@Override
+					public void request(long n)
+					{
+					}
+
+					@Override
+					public void cancel()
+					{
+					}
+				});
+				subscriber.onError(new IllegalStateException("A publisher can only have one subscriber."));
+				return;
+			}
+
+			this.subscriber = subscriber;
+		}
+
+		subscriber.onSubscribe(new Flow.Subscription()
+		{
+			@Override
+			public void request(long n)
+			{
+				if(n <= 0)
+				{
+					error = new IllegalArgumentException("Subscribers must request a positive number of items.");
+					buffer.clear();
+					closed = true;
+				}
+				else
+				{
+					demand.getAndAccumulate(n, ProcessorStage::addDemand);
+				}
+
+				drain();
+			}
+
+			@Override
+			public void cancel()
+			{
+				finished = true;
+				buffer.clear();
+			}
+		});
+
+		drain();
+	}
+
+	private void drain()
+	{
+		if(drainers.getAndIncrement() != 0)
+		{
+			return;
+		}
+
+		int missed = 1;
+
+		do
+		{
+			Flow.Subscriber<? super T> receiver = subscriber;
+
+			if(receiver != null && !finished)
+			{
+				T item;
+				while(demand.get() > 0 && (item = buffer.poll()) != null)
+				{
+					demand.decrementAndGet();
+					receiver.onNext(item);
+				}
+
+				if(closed && buffer.isEmpty() && !finished)
+				{
+					finished = true;
+
+					if(error != null)
+					{
+						receiver.onError(error);
+					}
+					else
+					{
+						receiver.onComplete();
+					}
+				}
+			}
+
+			missed = drainers.addAndGet(-missed);
+		}
+		while(missed != 0);
+	}
+}
@@ -0,0 +1,68 @@
+package sudoku.pipeline;
+
+/**
+ * The reactive streams interfaces, with the same names and contracts as java.util.concurrent.Flow, which only
+ * exists from Java 9. Once the project moves past Java 8 these can be replaced by an import.
+ *
+ * A subscriber only ever receives as many items as it has requested, so a slow subscriber holds back its publisher
+ * rather than letting items pile up between them.
+ */
+public final class Flow {
+	private Flow()
+	{
+	}
+
+	/**
+	 * A producer of items that subscribers receive as they ask for them.
+	 * @param <T> the type of the items.
+	 */
+	public interface Publisher<T>
+	{
+		/**
+		 * Adds a subscriber, which is sent onSubscribe before anything else.
+		 * @param subscriber the subscriber.
+		 */
+		void subscribe(Subscriber<? super T> subscriber);
+	}
+
+	/**
+	 * A receiver of items. Calls to a subscriber are never made concurrently.
+	 * @param <T> the type of the items.
+	 */
+	public interface Subscriber<T>
+	{
+		void onSubscribe(Subscription subscription);
+
+		void onNext(T item);
+
+		void onError(Throwable throwable);
+
+		void onComplete();
+	}
+
+	/**
+	 * The link between a publisher and one subscriber, through which the subscriber asks for items.
+	 */
+	public interface Subscription
+	{
+		/**
+		 * Asks for more items.
+		 * @param n the number of items, which must be positive.
+		 */
+		void request(long n);
+
+		/**
+		 * Stops sending items; some may still arrive if they were already on their way.
+		 */
+		void cancel();
+	}
+
+	/**
+	 * A stage that is a subscriber to one publisher and a publisher to the next subscriber.
+	 * @param <T> the type of the items received.
+	 * @param <R> the type of the items published.
+	 */
+	public interface Processor<T, R> extends Subscriber<T>, Publisher<R>
+	{
+	}
+}
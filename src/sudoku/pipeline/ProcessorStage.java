@@ -0,0 +1,326 @@
+package sudoku.pipeline;
+
+import sudoku.metrics.Counter;
+import sudoku.metrics.Histogram;
+import sudoku.metrics.MetricsRegistry;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * A pipeline stage that applies a function to each item on a pool of threads, publishing the results in the order
+ * the items arrived.
+ *
+ * The stage never holds more than its buffer size of items: it asks upstream for that many to begin with, and then
+ * for one more each time a result is passed downstream. So if downstream stops asking for results, this stage stops
+ * asking for items, and the hold up travels back to the source instead of queues growing.
+ *
+ * @param <T> the type of the items received.
+ * @param <R> the type of the results published.
+ */
+public class ProcessorStage<T, R> implements Flow.Processor<T, R> {
+	private final Function<? super T, ? extends R> function;
+	private final int bufferSize;
+	private final ExecutorService executor;
+	private final Counter items;
+	private final Counter queued;
+	private final Histogram nanoseconds;
+
+	// The items being worked on or waiting to be published, oldest first; guarded by itself.
+	private final ArrayDeque<Slot<R>> slots = new ArrayDeque<>();
+	// Makes sure only one thread at a time publishes, as subscribers mustn't be called concurrently.
+	private final AtomicInteger drainers = new AtomicInteger();
+	private final AtomicLong demand = new AtomicLong();
+
+	private volatile Flow.Subscription upstream;
+	private volatile Flow.Subscriber<? super R> downstream;
+	private volatile boolean upstreamDone;
+	private volatile Throwable error;
+	private volatile boolean finished;
+
+	/**
+	 * @param name the name of the stage, used to name its threads and its metrics.
+	 * @param function the function to apply to each item; it must not return null.
+	 * @param parallelism the number of threads to apply the function on.
+	 * @param bufferSize the most items the stage holds at once.
+	 */
+	public ProcessorStage(String name, Function<? super T, ? extends R> function, int parallelism, int bufferSize)
+	{
+		if(parallelism < 1 || bufferSize < 1)
+		{
+			throw new IllegalArgumentException("A stage needs at least one thread and room for at least one item.");
+		}
+
+		this.function = function;
+		this.bufferSize = bufferSize;
+		this.executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+			Thread thread = new Thread(runnable, "sudoku-pipeline-" + name);
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		// Stages with the same name, e.g. in several pipelines, add up to the same metrics.
+		MetricsRegistry metrics = MetricsRegistry.getDefault();
+		this.items = metrics.counter("pipeline." + name + ".items");
+		this.queued = metrics.counter("pipeline." + name + ".queued");
+		this.nanoseconds = metrics.histogram("pipeline." + name + ".nanoseconds");
+	}
+
+	@Override
+	public void onSubscribe(Flow.Subscription subscription)
+	{
+		if(upstream != null)
+		{
+			subscription.cancel();
+			return;
+		}
+
+		upstream = subscription;
+		subscription.request(bufferSize);
+	}
+
+	@Override
+	public void onNext(T item)
+	{
+		if(finished)
+		{
+			return;
+		}
+
+		Slot<R> slot = new Slot<>();
+
+		synchronized(slots)
+		{
+			slots.add(slot);
+		}
+
+		queued.increment();
+
+		executor.execute(() -> {
+			try
+			{
+				long start = System.nanoTime();
+				R result = function.apply(item);
+				nanoseconds.record(System.nanoTime() - start);
+				items.increment();
+
+				if(result == null)
+				{
+					throw new NullPointerException("A pipeline stage produced null.");
+				}
+
+				slot.result = result;
+			}
+			catch(Throwable e)
+			{
+				slot.failure = e;
+			}
+
+			slot.done = true;
+			drain();
+		});
+	}
+
+	@Override
+	public void onError(Throwable throwable)
+	{
+		error = throwable;
+		upstreamDone = true;
+		drain();
+	}
+
+	@Override
+	public void onComplete()
+	{
+		upstreamDone = true;
+		drain();
+	}
+
+	@Override
+	public void subscribe(Flow.Subscriber<? super R> subscriber)
+	{
+		if(downstream != null)
+		{
+			subscriber.onSubscribe(new Flow.Subscription()
+			{
+				@Override
+				public void request(long n)
+				{
+				}
+
+				@Override
+				public void cancel()
+				{
+				}
+			});
+			subscriber.onError(new IllegalStateException("A stage can only have one subscriber."));
+			return;
+		}
+
+		downstream = subscriber;
+		subscriber.onSubscribe(new Flow.Subscription()
+		{
+			@Override
+			public void request(long n)
+			{
+				if(n <= 0)
+				{
+					fail(new IllegalArgumentException("Subscribers must request a positive number of items."));
+				}
+				else
+				{
+					demand.getAndAccumulate(n, ProcessorStage::addDemand);
+				}
+
+				drain();
+			}
+
+			@Override
+			public void cancel()
+			{
+				finish();
+			}
+		});
+
+		drain();
+	}
+
+	/**
+	 * Publishes every finished result that downstream has asked for, oldest first, and passes on completion or an
+	 * error once everything before it has been published. Whichever thread gets here first does the publishing, and
+	 * other threads that arrive meanwhile just make it go round again.
+	 */
+	private void drain()
+	{
+		if(drainers.getAndIncrement() != 0)
+		{
+			return;
+		}
+
+		int missed = 1;
+
+		do
+		{
+			Flow.Subscriber<? super R> subscriber = downstream;
+
+			if(subscriber != null && !finished)
+			{
+				publish(subscriber);
+			}
+
+			missed = drainers.addAndGet(-missed);
+		}
+		while(missed != 0);
+	}
+
+	private void publish(Flow.Subscriber<? super R> subscriber)
+	{
+		if(error != null)
+		{
+			finish();
+			subscriber.onError(error);
+			return;
+		}
+
+		while(demand.get() > 0)
+		{
+			Slot<R> next;
+
+			synchronized(slots)
+			{
+				next = slots.peek();
+
+				if(next == null || !next.done)
+				{
+					break;
+				}
+
+				slots.poll();
+			}
+
+			queued.add(-1);
+
+			if(next.failure != null)
+			{
+				fail(next.failure);
+				finish();
+				subscriber.onError(next.failure);
+				return;
+			}
+
+			demand.decrementAndGet();
+			subscriber.onNext(next.result);
+			upstream.request(1);
+		}
+
+		boolean empty;
+		synchronized(slots)
+		{
+			empty = slots.isEmpty();
+		}
+
+		if(upstreamDone && empty)
+		{
+			finish();
+			subscriber.onComplete();
+		}
+	}
+
+	/**
+	 * Adds to an outstanding demand, which stays at Long.MAX_VALUE, meaning unbounded, once it gets there.
+	 */
+	static long addDemand(long current, long added)
+	{
+		long sum = current + added;
+
+		return sum < 0 ? Long.MAX_VALUE : sum;
+	}
+
+	/**
+	 * Stops taking items from upstream and fails downstream.
+	 */
+	private void fail(Throwable failure)
+	{
+		if(error == null)
+		{
+			error = failure;
+		}
+
+		Flow.Subscription subscription = upstream;
+		if(subscription != null)
+		{
+			subscription.cancel();
+		}
+	}
+
+	private void finish()
+	{
+		if(finished)
+		{
+			return;
+		}
+
+		finished = true;
+		executor.shutdownNow();
+
+		Flow.Subscription subscription = upstream;
+		if(subscription != null && !upstreamDone)
+		{
+			subscription.cancel();
+		}
+	}
+
+	/**
+	 * The place in the output of one item, filled in once the item has been processed.
+	 */
+	private static class Slot<R>
+	{
+		R result;
+		Throwable failure;
+		volatile boolean done;
+	}
+}
@@ -0,0 +1,264 @@
+package sudoku.pipeline;
+
+import sudoku.SudokuBoard;
+import sudoku.SudokuEngine;
+import sudoku.SudokuEngines;
+import sudoku.SudokuSolver;
+import sudoku.batch.BatchSolver;
+import sudoku.metrics.Counter;
+import sudoku.metrics.MetricsRegistry;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Function;
+
+/**
+ * Solves a stream of puzzles in four stages (parse, normalize, solve and serialize), each with its own threads and
+ * bounded buffer. Every stage only takes on work as the stage after it asks for results, so when solving falls behind,
+ * the stages before it stop asking, and eventually whoever is submitting puzzles to the source blocks, rather than
+ * puzzles queueing up without limit.
+ *
+ * Each line of input produces one line of output in the same order, as with BatchSolver, and a blank line is
+ * answered as invalid just as it is there. The pipeline accepts more than BatchSolver does, though: the values of a
+ * layout string may be separated by any whitespace rather than single spaces, and puzzles can also be given as 81
+ * characters with a digit or '.' for each square. Lines in those forms are invalid to BatchSolver.
+ */
+public class SolvePipeline {
+	/**
+	 * The stages of the pipeline, in order.
+	 */
+	public enum Step
+	{
+		/** Reads the values of the squares from a line. */
+		PARSE,
+		/** Turns the values into a board, checking it has no conflicts. */
+		NORMALIZE,
+		/** Solves the board. */
+		SOLVE,
+		/** Turns the result into a line of output. */
+		SERIALIZE
+	}
+
+	private static final Counter INVALID = MetricsRegistry.getDefault().counter("pipeline.invalid");
+
+	private final int[] parallelism = new int[Step.values().length];
+	private final int[] bufferSizes = new int[Step.values().length];
+	private Function<SudokuBoard, SudokuEngine> engine = SudokuSolver::new;
+
+	public SolvePipeline()
+	{
+		for(Step step : Step.values())
+		{
+			parallelism[step.ordinal()] = 1;
+		}
+
+		parallelism[Step.SOLVE.ordinal()] = Runtime.getRuntime().availableProcessors();
+	}
+
+	/**
+	 * Sets the number of threads a stage runs on. Only solving is slow enough to be worth more than one by default.
+	 * @param step the stage.
+	 * @param threads the number of threads.
+	 */
+	public void setParallelism(Step step, int threads)
+	{
+		if(threads < 1)
+		{
+			throw new IllegalArgumentException("Each stage needs at least one thread.");
+		}
+
+		parallelism[step.ordinal()] = threads;
+	}
+
+	/**
+	 * Sets the most puzzles a stage holds at once, whether waiting, being worked on, or waiting to be passed on. By
+	 * default this is four times the stage's parallelism.
+	 * @param step the stage.
+	 * @param bufferSize the number of puzzles.
+	 */
+	public void setBufferSize(Step step, int bufferSize)
+	{
+		if(bufferSize < 1)
+		{
+			throw new IllegalArgumentException("Each stage needs room for at least one puzzle.");
+		}
+
+		bufferSizes[step.ordinal()] = bufferSize;
+	}
+
+	/**
+	 * Sets the engine used to solve each puzzle.
+	 * @param engine creates the engine for a board.
+	 */
+	public void setEngine(Function<SudokuBoard, SudokuEngine> engine)
+	{
+		this.engine = engine;
+	}
+
+	/**
+	 * Builds the stages and subscribes them to a source of lines.
+	 * @param lines the source of puzzles, one per line.
+	 * @return the publisher of output lines, to subscribe the end of the pipeline to.
+	 */
+	public Flow.Publisher<String> connect(Flow.Publisher<String> lines)
+	{
+		Function<SudokuBoard, SudokuEngine> solveWith = engine;
+
+		ProcessorStage<String, Task> parse = stage(Step.PARSE, SolvePipeline::parse);
+		ProcessorStage<Task, Task> normalize = stage(Step.NORMALIZE, SolvePipeline::normalize);
+		ProcessorStage<Task, Task> solve = stage(Step.SOLVE, task -> solve(task, solveWith));
+		ProcessorStage<Task, String> serialize = stage(Step.SERIALIZE, task -> task.output);
+
+		lines.subscribe(parse);
+		parse.subscribe(normalize);
+		normalize.subscribe(solve);
+		solve.subscribe(serialize);
+
+		return serialize;
+	}
+
+	private <T, R> ProcessorStage<T, R> stage(Step step, Function<T, R> function)
+	{
+		int threads = parallelism[step.ordinal()];
+		int bufferSize = bufferSizes[step.ordinal()] > 0 ? bufferSizes[step.ordinal()] : threads * 4;
+
+		return new ProcessorStage<>(step.name().toLowerCase(), function, threads, bufferSize);
+	}
+
+	/**
+	 * Reads the values of the squares from a layout string, with the values separated by any whitespace, or from 81
+	 * characters of digits and dots. This is more lenient than {@link SudokuBoard#SudokuBoard(String)}, which is what
+	 * BatchSolver parses lines with.
+	 */
+	static Task parse(String line)
+	{
+		Task task = new Task();
+		String trimmed = line.trim();
+		String[] tokens = trimmed.split("\\s+");
+
+		if(tokens.length == 1 && trimmed.length() == 81)
+		{
+			tokens = trimmed.replace('.', '0').split("");
+		}
+
+		if(tokens.length != 81)
+		{
+			task.output = BatchSolver.INVALID;
+			return task;
+		}
+
+		task.values = new int[81];
+		for(int square = 0; square < 81; square++)
+		{
+			String token = tokens[square];
+
+			if(token.length() != 1 || token.charAt(0) < '0' || token.charAt(0) > '9')
+			{
+				task.output = BatchSolver.INVALID;
+				return task;
+			}
+
+			task.values[square] = token.charAt(0) - '0';
+		}
+
+		return task;
+	}
+
+	static Task normalize(Task task)
+	{
+		if(task.output != null)
+		{
+			return task;
+		}
+
+		SudokuBoard board = new SudokuBoard();
+		for(int square = 0; square < 81; square++)
+		{
+			board.setValueAt(square, task.values[square]);
+		}
+
+		if(board.isValid())
+		{
+			task.board = board;
+		}
+		else
+		{
+			task.output = BatchSolver.INVALID;
+		}
+
+		return task;
+	}
+
+	static Task solve(Task task, Function<SudokuBoard, SudokuEngine> engine)
+	{
+		if(task.output != null)
+		{
+			// Lines that couldn't be parsed or had conflicts never reach a solver, so they're counted here instead.
+			INVALID.increment();
+			return task;
+		}
+
+		SudokuEngine solver = engine.apply(task.board);
+		task.output = solver.solve() ? solver.getBoard().getLayoutString().trim() : BatchSolver.UNSOLVABLE;
+
+		return task;
+	}
+
+	/**
+	 * Solves the puzzles on standard input, writing the results to standard output. The pipeline's metrics can be
+	 * watched over JMX while it runs.
+	 * Usage: SolvePipeline [solve threads] [engine]
+	 * @param args the command line arguments.
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException
+	{
+		MetricsRegistry.getDefault().registerPlatformMBeans();
+		SolvePipeline pipeline = new SolvePipeline();
+
+		if(args.length > 0)
+		{
+			pipeline.setParallelism(Step.SOLVE, Integer.parseInt(args[0]));
+		}
+		if(args.length > 1)
+		{
+			pipeline.setEngine(SudokuEngines.get(args[1]));
+		}
+
+		BoundedPublisher<String> source = new BoundedPublisher<>(256);
+		WriterSubscriber sink = new WriterSubscriber(
+				new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.US_ASCII)), 256);
+		pipeline.connect(source).subscribe(sink);
+
+		try(BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.US_ASCII)))
+		{
+			String line;
+			while((line = in.readLine()) != null)
+			{
+				if(!source.submit(line))
+				{
+					break;
+				}
+			}
+		}
+		finally
+		{
+			source.close();
+		}
+
+		sink.await();
+	}
+
+	/**
+	 * A puzzle on its way through the pipeline. Once the output is set, the remaining stages pass it straight on.
+	 */
+	static class Task
+	{
+		int[] values;
+		SudokuBoard board;
+		String output;
+	}
+}
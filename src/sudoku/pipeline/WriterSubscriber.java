@@ -0,0 +1,112 @@
+package sudoku.pipeline;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * The end of a pipeline, which writes each item it receives on its own line. Items are asked for a batch at a time,
+ * so the pipeline can only run ahead of the writer by a batch.
+ */
+public class WriterSubscriber implements Flow.Subscriber<String> {
+	private final Writer writer;
+	private final int batchSize;
+	private final CountDownLatch done = new CountDownLatch(1);
+	private Flow.Subscription subscription;
+	private int receivedInBatch;
+	private long written;
+	private volatile Throwable error;
+
+	/**
+	 * @param writer where to write the items.
+	 * @param batchSize how many items to ask for at a time.
+	 */
+	public WriterSubscriber(Writer writer, int batchSize)
+	{
+		if(batchSize < 1)
+		{
+			throw new IllegalArgumentException("The batch size must be at least one item.");
+		}
+
+		this.writer = writer;
+		this.batchSize = batchSize;
+	}
+
+	@Override
+	public void onSubscribe(Flow.Subscription subscription)
+	{
+		this.subscription = subscription;
+		subscription.request(batchSize);
+	}
+
+	@Override
+	public void onNext(String item)
+	{
+		try
+		{
+			writer.write(item);
+			writer.write('\n');
+			written++;
+		}
+		catch(IOException e)
+		{
+			subscription.cancel();
+			onError(e);
+			return;
+		}
+
+		if(++receivedInBatch == batchSize)
+		{
+			receivedInBatch = 0;
+			subscription.request(batchSize);
+		}
+	}
+
+	@Override
+	public void onError(Throwable throwable)
+	{
+		if(error == null)
+		{
+			error = throwable;
+		}
+
+		done.countDown();
+	}
+
+	@Override
+	public void onComplete()
+	{
+		try
+		{
+			writer.flush();
+		}
+		catch(IOException e)
+		{
+			error = e;
+		}
+
+		done.countDown();
+	}
+
+	/**
+	 * Waits for the pipeline to finish.
+	 * @return the number of lines written.
+	 * @throws IOException if writing failed, or with the pipeline's error as its cause if the pipeline failed.
+	 * @throws InterruptedException if the thread is interrupted while waiting.
+	 */
+	public long await() throws IOException, InterruptedException
+	{
+		done.await();
+
+		if(error instanceof IOException)
+		{
+			throw (IOException) error;
+		}
+		if(error != null)
+		{
+			throw new IOException("The pipeline failed.", error);
+		}
+
+		return written;
+	}
+}
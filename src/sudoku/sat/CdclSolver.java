@@ -0,0 +1,704 @@
+package sudoku.sat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A small conflict-driven clause learning SAT solver. Clauses are added using DIMACS style literals, i.e. variable
+ * {@code v} (numbered from 1) is written {@code v} and its negation {@code -v}.
+ *
+ * The solver uses two watched literals per clause for unit propagation, learns a first unique implication point
+ * clause from every conflict, picks decisions by variable activity (VSIDS) with phase saving, and restarts on the
+ * Luby sequence. The search gives up if the thread is interrupted, which is checked at every decision and conflict.
+ */
+public class CdclSolver {
+	private static final int RESTART_BASE = 100;
+	private static final double ACTIVITY_DECAY = 0.95;
+	private static final double ACTIVITY_LIMIT = 1e100;
+
+	private final int variables;
+	private final List<int[]> clauses = new ArrayList<>();
+	private final IntList[] watches;
+
+	// Assignment state, indexed by variable. assigns is 0 for unassigned, 1 for true and -1 for false.
+	private final byte[] assigns;
+	private final int[] level;
+	private final int[] reason;
+	private final boolean[] savedPhase;
+	private final boolean[] seen;
+
+	private final int[] trail;
+	private int trailSize;
+	private int propagateHead;
+	private final IntList trailLimits = new IntList();
+
+	private final double[] activity;
+	private double activityIncrement = 1;
+	private final VariableHeap heap;
+
+	private boolean unsatisfiable;
+	private boolean cancelled;
+	private long conflicts;
+	private long decisions;
+	private long propagations;
+
+	/**
+	 * @param variables the number of variables; variables are numbered from 1 to this value.
+	 */
+	public CdclSolver(int variables)
+	{
+		if(variables < 1)
+		{
+			throw new IllegalArgumentException("A SAT problem needs at least one variable.");
+		}
+
+		this.variables = variables;
+		watches = new IntList[variables * 2];
+		for(int literal = 0; literal < watches.length; literal++)
+		{
+			watches[literal] = new IntList();
+		}
+
+		assigns = new byte[variables];
+		level = new int[variables];
+		reason = new int[variables];
+		savedPhase = new boolean[variables];
+		seen = new boolean[variables];
+		trail = new int[variables];
+		activity = new double[variables];
+		Arrays.fill(reason, -1);
+		// Default every variable to false first; most variables in a typical encoding are false in any model.
+		Arrays.fill(savedPhase, true);
+
+		heap = new VariableHeap();
+		for(int variable = 0; variable < variables; variable++)
+		{
+			heap.insert(variable);
+		}
+	}
+
+	/**
+	 * Adds a clause, i.e. a disjunction of literals, to the problem. Clauses can only be added before solve() is
+	 * called.
+	 * @param literals the literals of the clause.
+	 */
+	public void addClause(int... literals)
+	{
+		if(trailLimits.size() > 0)
+		{
+			throw new IllegalStateException("Clauses can't be added while the solver is searching.");
+		}
+		if(unsatisfiable)
+		{
+			return;
+		}
+
+		IntList clause = new IntList();
+
+		for(int dimacs : literals)
+		{
+			int literal = toLiteral(dimacs);
+			int value = value(literal);
+
+			// A clause containing a literal that's already true (or both a literal and its negation) is always
+			// satisfied, and literals that are already false can never help satisfy it.
+			if(value == 1 || clause.contains(literal ^ 1))
+			{
+				return;
+			}
+			if(value == 0 && !clause.contains(literal))
+			{
+				clause.add(literal);
+			}
+		}
+
+		if(clause.size() == 0)
+		{
+			unsatisfiable = true;
+		}
+		else if(clause.size() == 1)
+		{
+			assign(clause.get(0), -1);
+		}
+		else
+		{
+			attach(clause.toArray());
+		}
+	}
+
+	/**
+	 * Searches for an assignment that satisfies every clause. The search stops early if the thread is interrupted, in
+	 * which case it reports no model.
+	 * @return whether or not a model was found.
+	 */
+	public boolean solve()
+	{
+		cancelled = false;
+
+		if(unsatisfiable)
+		{
+			return false;
+		}
+
+		for(int restarts = 0; ; restarts++)
+		{
+			switch(search(luby(restarts) * RESTART_BASE))
+			{
+				case 1:
+					return true;
+				case -1:
+					unsatisfiable = true;
+					return false;
+				case 2:
+					cancelled = true;
+					cancelUntil(0);
+					return false;
+				default:
+					cancelUntil(0);
+			}
+		}
+	}
+
+	/**
+	 * Indicates whether or not the last solve was stopped by the thread being interrupted.
+	 * @return boolean indicating whether or not the solve was cancelled.
+	 */
+	public boolean wasCancelled()
+	{
+		return cancelled;
+	}
+
+	/**
+	 * Returns the value of the given variable in the model found by solve().
+	 * @param variable the variable, numbered from 1.
+	 * @return the value of the variable.
+	 */
+	public boolean getValue(int variable)
+	{
+		if(variable < 1 || variable > variables)
+		{
+			throw new IllegalArgumentException("There is no variable " + variable + ".");
+		}
+
+		return assigns[variable - 1] == 1;
+	}
+
+	/**
+	 * Returns the number of conflicts found so far.
+	 * @return the number of conflicts.
+	 */
+	public long getConflicts()
+	{
+		return conflicts;
+	}
+
+	/**
+	 * Returns the number of decisions made so far.
+	 * @return the number of decisions.
+	 */
+	public long getDecisions()
+	{
+		return decisions;
+	}
+
+	/**
+	 * Returns the number of literals assigned by unit propagation so far.
+	 * @return the number of propagations.
+	 */
+	public long getPropagations()
+	{
+		return propagations;
+	}
+
+	/**
+	 * Returns the number of clauses learnt so far, plus the original clauses longer than a single literal.
+	 * @return the number of clauses.
+	 */
+	public int getClauseCount()
+	{
+		return clauses.size();
+	}
+
+	/**
+	 * Searches until a model is found, the problem is shown to be unsatisfiable, or the conflict limit is reached.
+	 * @param conflictLimit the number of conflicts to allow before giving up for a restart.
+	 * @return 1 if a model was found, -1 if the problem is unsatisfiable, 0 if a restart is due, and 2 if the thread
+	 *         was interrupted.
+	 */
+	private int search(long conflictLimit)
+	{
+		long conflictsThisRestart = 0;
+		IntList learnt = new IntList();
+
+		while(true)
+		{
+			int conflict = propagate();
+
+			// Once per decision or conflict, which is cheap next to the propagation that comes before either.
+			if(Thread.currentThread().isInterrupted())
+			{
+				return 2;
+			}
+
+			if(conflict != -1)
+			{
+				conflicts++;
+				conflictsThisRestart++;
+
+				if(decisionLevel() == 0)
+				{
+					return -1;
+				}
+
+				int backtrackLevel = analyze(conflict, learnt);
+				cancelUntil(backtrackLevel);
+
+				if(learnt.size() == 1)
+				{
+					assign(learnt.get(0), -1);
+				}
+				else
+				{
+					int[] clause = learnt.toArray();
+					assign(clause[0], attach(clause));
+				}
+
+				activityIncrement /= ACTIVITY_DECAY;
+			}
+			else
+			{
+				if(conflictsThisRestart >= conflictLimit)
+				{
+					return 0;
+				}
+
+				int decision = pickBranchLiteral();
+
+				if(decision == -1)
+				{
+					return 1;
+				}
+
+				decisions++;
+				trailLimits.add(trailSize);
+				assign(decision, -1);
+			}
+		}
+	}
+
+	/**
+	 * Propagates every assignment on the trail that hasn't been propagated yet.
+	 * @return the index of a clause with every literal false, or -1 if there's no conflict.
+	 */
+	private int propagate()
+	{
+		while(propagateHead < trailSize)
+		{
+			int falseLiteral = trail[propagateHead++] ^ 1;
+			IntList watchers = watches[falseLiteral];
+			int[] data = watchers.data;
+			int size = watchers.size();
+			int keep = 0;
+			int next = 0;
+
+			while(next < size)
+			{
+				int clauseIndex = data[next++];
+				int[] clause = clauses.get(clauseIndex);
+
+				// Keep the literal that just became false in the second position.
+				if(clause[0] == falseLiteral)
+				{
+					clause[0] = clause[1];
+					clause[1] = falseLiteral;
+				}
+
+				if(value(clause[0]) == 1)
+				{
+					data[keep++] = clauseIndex;
+					continue;
+				}
+
+				// Look for another literal that isn't false to watch instead.
+				boolean moved = false;
+				for(int position = 2; position < clause.length; position++)
+				{
+					if(value(clause[position]) != -1)
+					{
+						clause[1] = clause[position];
+						clause[position] = falseLiteral;
+						watches[clause[1]].add(clauseIndex);
+						moved = true;
+						break;
+					}
+				}
+
+				if(moved)
+				{
+					continue;
+				}
+
+				data[keep++] = clauseIndex;
+
+				if(value(clause[0]) == -1)
+				{
+					while(next < size)
+					{
+						data[keep++] = data[next++];
+					}
+					watchers.setSize(keep);
+					propagateHead = trailSize;
+
+					return clauseIndex;
+				}
+
+				propagations++;
+				assign(clause[0], clauseIndex);
+			}
+
+			watchers.setSize(keep);
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Works out the first unique implication point clause for a conflict.
+	 * @param conflict the index of the conflicting clause.
+	 * @param learnt the list to put the learnt clause in; the asserting literal is put first, and the literal with the
+	 *               highest decision level after it second.
+	 * @return the decision level to backtrack to.
+	 */
+	private int analyze(int conflict, IntList learnt)
+	{
+		learnt.clear();
+		// Leave room for the asserting literal.
+		learnt.add(-1);
+
+		int pathCount = 0;
+		int literal = -1;
+		int index = trailSize - 1;
+		int clauseIndex = conflict;
+
+		do
+		{
+			int[] clause = clauses.get(clauseIndex);
+
+			// The first literal of a reason clause is the literal it implied, which is already being resolved on.
+			for(int position = literal == -1 ? 0 : 1; position < clause.length; position++)
+			{
+				int other = clause[position];
+				int variable = other >> 1;
+
+				if(!seen[variable] && level[variable] > 0)
+				{
+					seen[variable] = true;
+					bumpActivity(variable);
+
+					if(level[variable] >= decisionLevel())
+					{
+						pathCount++;
+					}
+					else
+					{
+						learnt.add(other);
+					}
+				}
+			}
+
+			while(!seen[trail[index] >> 1])
+			{
+				index--;
+			}
+
+			literal = trail[index--];
+			clauseIndex = reason[literal >> 1];
+			seen[literal >> 1] = false;
+			pathCount--;
+		}
+		while(pathCount > 0);
+
+		learnt.set(0, literal ^ 1);
+
+		int backtrackLevel = 0;
+		for(int position = 1; position < learnt.size(); position++)
+		{
+			int variable = learnt.get(position) >> 1;
+			seen[variable] = false;
+
+			if(level[variable] > backtrackLevel)
+			{
+				backtrackLevel = level[variable];
+				int swap = learnt.get(1);
+				learnt.set(1, learnt.get(position));
+				learnt.set(position, swap);
+			}
+		}
+
+		return backtrackLevel;
+	}
+
+	/**
+	 * Undoes every assignment made above the given decision level.
+	 * @param targetLevel the decision level to go back to.
+	 */
+	private void cancelUntil(int targetLevel)
+	{
+		if(decisionLevel() <= targetLevel)
+		{
+			return;
+		}
+
+		int limit = trailLimits.get(targetLevel);
+
+		for(int position = trailSize - 1; position >= limit; position--)
+		{
+			int variable = trail[position] >> 1;
+
+			savedPhase[variable] = (trail[position] & 1) == 1;
+			assigns[variable] = 0;
+			reason[variable] = -1;
+			heap.insert(variable);
+		}
+
+		trailSize = limit;
+		propagateHead = limit;
+		trailLimits.setSize(targetLevel);
+	}
+
+	/**
+	 * Picks the unassigned variable with the highest activity, using the phase it last had.
+	 * @return the literal to assign, or -1 if every variable is assigned.
+	 */
+	private int pickBranchLiteral()
+	{
+		while(!heap.isEmpty())
+		{
+			int variable = heap.removeMax();
+
+			if(assigns[variable] == 0)
+			{
+				return variable * 2 + (savedPhase[variable] ? 1 : 0);
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Adds a clause of at least two literals to the clause database and watches its first two literals.
+	 * @param clause the clause.
+	 * @return the index of the clause.
+	 */
+	private int attach(int[] clause)
+	{
+		int index = clauses.size();
+
+		clauses.add(clause);
+		watches[clause[0]].add(index);
+		watches[clause[1]].add(index);
+
+		return index;
+	}
+
+	/**
+	 * Makes the given literal true.
+	 * @param literal the literal.
+	 * @param reasonClause the clause which implied the literal, or -1 for decisions and facts.
+	 */
+	private void assign(int literal, int reasonClause)
+	{
+		int variable = literal >> 1;
+
+		assigns[variable] = (byte) ((literal & 1) == 0 ? 1 : -1);
+		level[variable] = decisionLevel();
+		reason[variable] = reasonClause;
+		trail[trailSize++] = literal;
+	}
+
+	/**
+	 * Returns the value of a literal under the current assignment.
+	 * @param literal the literal.
+	 * @return 1 if the literal is true, -1 if it is false and 0 if it is unassigned.
+	 */
+	private int value(int literal)
+	{
+		int assigned = assigns[literal >> 1];
+
+		return (literal & 1) == 0 ? assigned : -assigned;
+	}
+
+	private int decisionLevel()
+	{
+		return trailLimits.size();
+	}
+
+	private void bumpActivity(int variable)
+	{
+		activity[variable] += activityIncrement;
+
+		if(activity[variable] > ACTIVITY_LIMIT)
+		{
+			for(int other = 0; other < variables; other++)
+			{
+				activity[other] /= ACTIVITY_LIMIT;
+			}
+			activityIncrement /= ACTIVITY_LIMIT;
+		}
+
+		heap.increased(variable);
+	}
+
+	/**
+	 * Converts a DIMACS style literal into the internal form, where variable v is 2v and its negation is 2v + 1.
+	 * @param dimacs the DIMACS literal.
+	 * @return the internal literal.
+	 */
+	private int toLiteral(int dimacs)
+	{
+		int variable = Math.abs(dimacs) - 1;
+
+		if(dimacs == 0 || variable >= variables)
+		{
+			throw new IllegalArgumentException("There is no variable " + Math.abs(dimacs) + ".");
+		}
+
+		return variable * 2 + (dimacs < 0 ? 1 : 0);
+	}
+
+	/**
+	 * Returns the ith value of the Luby sequence: 1, 1, 2, 1, 1, 2, 4, 1, 1, 2, ...
+	 * @param i the index into the sequence, starting at 0.
+	 * @return the value.
+	 */
+	static long luby(int i)
+	{
+		int size = 1;
+		int sequence = 0;
+
+		while(size < i + 1)
+		{
+			sequence++;
+			size = 2 * size + 1;
+		}
+
+		while(size - 1 != i)
+		{
+			size = (size - 1) >> 1;
+			sequence--;
+			i = i % size;
+		}
+
+		return 1L << sequence;
+	}
+
+	/**
+	 * Binary max-heap of variables ordered by activity.
+	 */
+	private class VariableHeap
+	{
+		private final int[] heap = new int[variables];
+		private final int[] positions = new int[variables];
+		private int size;
+
+		VariableHeap()
+		{
+			Arrays.fill(positions, -1);
+		}
+
+		boolean isEmpty()
+		{
+			return size == 0;
+		}
+
+		void insert(int variable)
+		{
+			if(positions[variable] != -1)
+			{
+				return;
+			}
+
+			heap[size] = variable;
+			positions[variable] = size;
+			siftUp(size++);
+		}
+
+		int removeMax()
+		{
+			int top = heap[0];
+
+			positions[top] = -1;
+			size--;
+
+			if(size > 0)
+			{
+				heap[0] = heap[size];
+				positions[heap[0]] = 0;
+				siftDown(0);
+			}
+
+			return top;
+		}
+
+		void increased(int variable)
+		{
+			if(positions[variable] != -1)
+			{
+				siftUp(positions[variable]);
+			}
+		}
+
+		private void siftUp(int position)
+		{
+			int variable = heap[position];
+
+			while(position > 0)
+			{
+				int parent = (position - 1) >> 1;
+
+				if(activity[heap[parent]] >= activity[variable])
+				{
+					break;
+				}
+
+				heap[position] = heap[parent];
+				positions[heap[position]] = position;
+				position = parent;
+			}
+
+			heap[position] = variable;
+			positions[variable] = position;
+		}
+
+		private void siftDown(int position)
+		{
+			int variable = heap[position];
+
+			while(true)
+			{
+				int child = 2 * position + 1;
+
+				if(child >= size)
+				{
+					break;
+				}
+				if(child + 1 < size && activity[heap[child + 1]] > activity[heap[child]])
+				{
+					child++;
+				}
+				if(activity[heap[child]] <= activity[variable])
+				{
+					break;
+				}
+
+				heap[position] = heap[child];
+				positions[heap[position]] = position;
+				position = child;
+			}
+
+			heap[position] = variable;
+			positions[variable] = position;
+		}
+	}
+}
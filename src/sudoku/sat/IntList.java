@@ -0,0 +1,68 @@
+package sudoku.sat;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of ints, used instead of a List&lt;Integer&gt; to keep boxing out of the solver's inner loops.
+ */
+class IntList {
+	int[] data = new int[4];
+	private int size;
+
+	void add(int value)
+	{
+		if(size == data.length)
+		{
+			data = Arrays.copyOf(data, size * 2);
+		}
+
+		data[size++] = value;
+	}
+
+	int get(int index)
+	{
+		return data[index];
+	}
+
+	void set(int index, int value)
+	{
+		data[index] = value;
+	}
+
+	int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Shrinks the list to the given size.
+	 * @param size the new size, which must not be more than the current size.
+	 */
+	void setSize(int size)
+	{
+		this.size = size;
+	}
+
+	void clear()
+	{
+		size = 0;
+	}
+
+	boolean contains(int value)
+	{
+		for(int index = 0; index < size; index++)
+		{
+			if(data[index] == value)
+			{
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	int[] toArray()
+	{
+		return Arrays.copyOf(data, size);
+	}
+}
@@ -0,0 +1,75 @@
+package sudoku.sat;
+
+import sudoku.SudokuBoard;
+import sudoku.SudokuEngine;
+
+/**
+ * Solves a SudokuBoard by encoding it as a SAT problem and handing it to a CdclSolver. Unlike the backtracking
+ * SudokuSolver, this learns from each dead end, so it doesn't keep running into the same conflict in different
+ * parts of the search.
+ */
+public class SatSudokuSolver implements SudokuEngine {
+	private SudokuBoard board;
+	private CdclSolver solver;
+
+	public SatSudokuSolver(SudokuBoard board)
+	{
+		this.board = new SudokuBoard(board);
+	}
+
+	/**
+	 * Solves the board. The search stops early if the thread is interrupted, in which case no solution is reported.
+	 * @return whether or not a solution was found.
+	 */
+	@Override
+	public boolean solve()
+	{
+		solver = SudokuCnfEncoder.encode(board);
+
+		if(!solver.solve())
+		{
+			return false;
+		}
+
+		SudokuCnfEncoder.decode(solver, board);
+
+		return true;
+	}
+
+	/**
+	 * Returns the board.
+	 * @return sudoku.SudokuBoard.
+	 */
+	@Override
+	public SudokuBoard getBoard()
+	{
+		return board;
+	}
+
+	/**
+	 * Indicates whether or not the last solve was stopped by the thread being interrupted.
+	 * @return boolean indicating whether or not the solve was cancelled.
+	 */
+	public boolean wasCancelled()
+	{
+		return solver != null && solver.wasCancelled();
+	}
+
+	/**
+	 * Returns the number of conflicts the SAT solver ran into, for comparing against other engines.
+	 * @return the number of conflicts, or 0 if solve() hasn't been called.
+	 */
+	public long getConflicts()
+	{
+		return solver == null ? 0 : solver.getConflicts();
+	}
+
+	/**
+	 * Returns the number of decisions the SAT solver made.
+	 * @return the number of decisions, or 0 if solve() hasn't been called.
+	 */
+	public long getDecisions()
+	{
+		return solver == null ? 0 : solver.getDecisions();
+	}
+}
@@ -0,0 +1,105 @@
+package sudoku.sat;
+
+import sudoku.SudokuBoard;
+import sudoku.SudokuUnits;
+
+/**
+ * Encodes a SudokuBoard as a SAT problem. There is one variable for every pairing of a square and a value, which is
+ * true when the square holds that value. Every square holds exactly one value, every row, column and sub-board holds
+ * each value exactly once, and the squares already filled in on the board are added as single literal clauses.
+ */
+public class SudokuCnfEncoder {
+	public static final int VARIABLES = 81 * 9;
+
+	private SudokuCnfEncoder()
+	{
+	}
+
+	/**
+	 * Returns the variable which is true when the given square holds the given value.
+	 * @param square the square's position in the board array.
+	 * @param value the value, from 1-9.
+	 * @return the variable, numbered from 1.
+	 */
+	public static int variable(int square, int value)
+	{
+		return square * 9 + value;
+	}
+
+	/**
+	 * Creates a solver loaded with the clauses for the given board.
+	 * @param board the board to encode.
+	 * @return the solver.
+	 */
+	public static CdclSolver encode(SudokuBoard board)
+	{
+		CdclSolver solver = new CdclSolver(VARIABLES);
+
+		for(int square = 0; square < 81; square++)
+		{
+			if(!board.isSquareEmpty(square))
+			{
+				solver.addClause(variable(square, board.getValueAt(square)));
+			}
+		}
+
+		int[] atLeastOne = new int[9];
+
+		// Each square holds at least one value, and no more than one.
+		for(int square = 0; square < 81; square++)
+		{
+			for(int value = 1; value <= 9; value++)
+			{
+				atLeastOne[value - 1] = variable(square, value);
+
+				for(int other = value + 1; other <= 9; other++)
+				{
+					solver.addClause(-variable(square, value), -variable(square, other));
+				}
+			}
+
+			solver.addClause(atLeastOne);
+		}
+
+		// Each unit holds each value at least once, and no more than once.
+		for(int[] unit : SudokuUnits.UNITS)
+		{
+			for(int value = 1; value <= 9; value++)
+			{
+				for(int first = 0; first < 9; first++)
+				{
+					atLeastOne[first] = variable(unit[first], value);
+
+					for(int second = first + 1; second < 9; second++)
+					{
+						solver.addClause(-variable(unit[first], value), -variable(unit[second], value));
+					}
+				}
+
+				solver.addClause(atLeastOne);
+			}
+		}
+
+		return solver;
+	}
+
+	/**
+	 * Copies the values in a model found by the solver onto the board.
+	 * @param solver the solver, after solve() has returned true.
+	 * @param board the board to fill in.
+	 */
+	public static void decode(CdclSolver solver, SudokuBoard board)
+	{
+		for(int square = 0; square < 81; square++)
+		{
+			for(int value = 1; value <= 9; value++)
+			{
+				if(solver.getValue(variable(square, value)))
+				{
+					board.setValueAt(square, value);
+					break;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,350 @@
+package sudoku.store;
+
+import sudoku.SudokuBoard;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.function.IntConsumer;
+
+/**
+ * A store of puzzles and their solutions kept off the Java heap, so that a reference database of tens of millions of
+ * puzzles is invisible to the garbage collector. Each record packs the puzzle and the solution at four bits a square,
+ * along with the solution's fingerprint and the links used by the two indexes.
+ *
+ * Both indexes are chained hash tables whose bucket heads live in direct buffers and whose chains run through the
+ * records themselves. The solution index is keyed on a 64-bit fingerprint of the solution, and the clue index on the
+ * pattern of squares that are filled in. Looking up a board reads it square by square rather than packing it, so
+ * lookups don't allocate.
+ *
+ * Records are only ever added. Adding isn't thread safe, but once adding has finished any number of threads may look
+ * puzzles up.
+ */
+public class PuzzleStore {
+	// Keeps each index table within the 2GB a buffer can hold.
+	public static final int MAXIMUM_CAPACITY = 1 << 27;
+
+	private static final int PACKED_BYTES = 41;
+	private static final int PUZZLE_OFFSET = 0;
+	private static final int SOLUTION_OFFSET = PUZZLE_OFFSET + PACKED_BYTES;
+	private static final int FINGERPRINT_OFFSET = SOLUTION_OFFSET + PACKED_BYTES;
+	private static final int NEXT_BY_SOLUTION_OFFSET = FINGERPRINT_OFFSET + 8;
+	private static final int NEXT_BY_CLUES_OFFSET = NEXT_BY_SOLUTION_OFFSET + 4;
+	static final int RECORD_BYTES = NEXT_BY_CLUES_OFFSET + 4;
+
+	// Records are kept in chunks, as a single buffer can't be bigger than 2GB.
+	private static final int CHUNK_BITS = 20;
+	private static final int CHUNK_MASK = (1 << CHUNK_BITS) - 1;
+
+	private static final int NONE = -1;
+
+	private final int capacity;
+	private final ByteBuffer[] chunks;
+	private final IntBuffer solutionHeads;
+	private final IntBuffer clueHeads;
+	private final int tableMask;
+	private int size;
+
+	/**
+	 * @param capacity the most records the store can hold.
+	 */
+	public PuzzleStore(int capacity)
+	{
+		if(capacity < 1 || capacity > MAXIMUM_CAPACITY)
+		{
+			throw new IllegalArgumentException("The capacity must be from 1 to " + MAXIMUM_CAPACITY + " records.");
+		}
+
+		this.capacity = capacity;
+		this.chunks = new ByteBuffer[((capacity - 1) >>> CHUNK_BITS) + 1];
+
+		// Twice as many buckets as records keeps the chains short.
+		int tableSize = Integer.highestOneBit(capacity) << 1;
+		this.tableMask = tableSize - 1;
+		this.solutionHeads = newTable(tableSize);
+		this.clueHeads = newTable(tableSize);
+	}
+
+	/**
+	 * Adds a puzzle and its solution.
+	 * @param puzzle the puzzle.
+	 * @param solution the puzzle's solution.
+	 * @return the number of the new record.
+	 */
+	public int add(SudokuBoard puzzle, SudokuBoard solution)
+	{
+		if(size == capacity)
+		{
+			throw new IllegalStateException("The store is full.");
+		}
+
+		int record = size;
+		ByteBuffer chunk = chunkFor(record);
+		int base = baseOf(record);
+
+		pack(puzzle, chunk, base + PUZZLE_OFFSET);
+		pack(solution, chunk, base + SOLUTION_OFFSET);
+
+		long fingerprint = fingerprint(solution);
+		chunk.putLong(base + FINGERPRINT_OFFSET, fingerprint);
+
+		int solutionBucket = (int) fingerprint & tableMask;
+		chunk.putInt(base + NEXT_BY_SOLUTION_OFFSET, solutionHeads.get(solutionBucket));
+		solutionHeads.put(solutionBucket, record);
+
+		int clueBucket = (int) cluePatternHash(puzzle) & tableMask;
+		chunk.putInt(base + NEXT_BY_CLUES_OFFSET, clueHeads.get(clueBucket));
+		clueHeads.put(clueBucket, record);
+
+		size++;
+
+		return record;
+	}
+
+	/**
+	 * Finds a record holding exactly this puzzle.
+	 * @param puzzle the puzzle.
+	 * @return the record, or -1 if the puzzle isn't in the store.
+	 */
+	public int findPuzzle(SudokuBoard puzzle)
+	{
+		long pattern = cluePatternHash(puzzle);
+
+		for(int record = clueHeads.get((int) pattern & tableMask); record != NONE; record = nextByClues(record))
+		{
+			if(matches(puzzle, record, PUZZLE_OFFSET))
+			{
+				return record;
+			}
+		}
+
+		return NONE;
+	}
+
+	/**
+	 * Finds the most recently added record with this solution.
+	 * @param solution the solution.
+	 * @return the record, or -1 if no puzzle in the store has this solution.
+	 */
+	public int findSolution(SudokuBoard solution)
+	{
+		long fingerprint = fingerprint(solution);
+
+		int record = solutionHeads.get((int) fingerprint & tableMask);
+
+		while(record != NONE)
+		{
+			if(chunkFor(record).getLong(baseOf(record) + FINGERPRINT_OFFSET) == fingerprint
+					&& matches(solution, record, SOLUTION_OFFSET))
+			{
+				return record;
+			}
+
+			record = nextBySolution(record);
+		}
+
+		return NONE;
+	}
+
+	/**
+	 * Visits every record whose puzzle has its clues in the same squares as the given board, whatever their values.
+	 * @param pattern a board with values in the squares of the clue pattern.
+	 * @param visitor called with each matching record, most recently added first.
+	 */
+	public void forEachWithCluePattern(SudokuBoard pattern, IntConsumer visitor)
+	{
+		long hash = cluePatternHash(pattern);
+
+		for(int record = clueHeads.get((int) hash & tableMask); record != NONE; record = nextByClues(record))
+		{
+			if(hasCluePattern(pattern, record))
+			{
+				visitor.accept(record);
+			}
+		}
+	}
+
+	/**
+	 * Copies the puzzle of a record onto a board.
+	 * @param record the record.
+	 * @param board the board to copy onto.
+	 */
+	public void getPuzzle(int record, SudokuBoard board)
+	{
+		unpack(record, PUZZLE_OFFSET, board);
+	}
+
+	/**
+	 * Copies the solution of a record onto a board.
+	 * @param record the record.
+	 * @param board the board to copy onto.
+	 */
+	public void getSolution(int record, SudokuBoard board)
+	{
+		unpack(record, SOLUTION_OFFSET, board);
+	}
+
+	/**
+	 * Returns the number of records in the store.
+	 * @return the number of records.
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Works out the fingerprint of a solution: a 64-bit hash of its values.
+	 * @param solution the solution.
+	 * @return the fingerprint.
+	 */
+	static long fingerprint(SudokuBoard solution)
+	{
+		long hash = 0xCBF29CE484222325L;
+
+		for(int square = 0; square < 81; square++)
+		{
+			hash = (hash ^ solution.getValueAt(square)) * 0x100000001B3L;
+		}
+
+		return mix(hash);
+	}
+
+	/**
+	 * Works out a hash of which squares of a board are filled in, ignoring their values.
+	 * @param board the board.
+	 * @return the hash.
+	 */
+	static long cluePatternHash(SudokuBoard board)
+	{
+		long low = 0;
+		long high = 0;
+
+		for(int square = 0; square < 64; square++)
+		{
+			low |= (board.isSquareEmpty(square) ? 0L : 1L) << square;
+		}
+		for(int square = 64; square < 81; square++)
+		{
+			high |= (board.isSquareEmpty(square) ? 0L : 1L) << (square - 64);
+		}
+
+		return mix(low ^ mix(high));
+	}
+
+	/**
+	 * Spreads the bits of a hash so the low bits used to pick a bucket depend on all of them.
+	 */
+	private static long mix(long hash)
+	{
+		hash = (hash ^ (hash >>> 33)) * 0xFF51AFD7ED558CCDL;
+		hash = (hash ^ (hash >>> 33)) * 0xC4CEB9FE1A85EC53L;
+
+		return hash ^ (hash >>> 33);
+	}
+
+	private static IntBuffer newTable(int size)
+	{
+		IntBuffer table = ByteBuffer.allocateDirect(size * 4).asIntBuffer();
+
+		for(int bucket = 0; bucket < size; bucket++)
+		{
+			table.put(bucket, NONE);
+		}
+
+		return table;
+	}
+
+	private ByteBuffer chunkFor(int record)
+	{
+		int chunk = record >>> CHUNK_BITS;
+
+		if(chunks[chunk] == null)
+		{
+			// Only the last chunk can be partly used, so it's only made as big as it needs to be.
+			int records = Math.min(CHUNK_MASK + 1, capacity - (chunk << CHUNK_BITS));
+			chunks[chunk] = ByteBuffer.allocateDirect(records * RECORD_BYTES);
+		}
+
+		return chunks[chunk];
+	}
+
+	private static int baseOf(int record)
+	{
+		return (record & CHUNK_MASK) * RECORD_BYTES;
+	}
+
+	private int nextBySolution(int record)
+	{
+		return chunkFor(record).getInt(baseOf(record) + NEXT_BY_SOLUTION_OFFSET);
+	}
+
+	private int nextByClues(int record)
+	{
+		return chunkFor(record).getInt(baseOf(record) + NEXT_BY_CLUES_OFFSET);
+	}
+
+	/**
+	 * Packs a board at four bits a square: the low half of each byte holds the even square, the high half the odd.
+	 */
+	private static void pack(SudokuBoard board, ByteBuffer chunk, int offset)
+	{
+		for(int square = 0; square < 81; square += 2)
+		{
+			int high = square == 80 ? 0 : board.getValueAt(square + 1);
+			chunk.put(offset + (square >> 1), (byte) (board.getValueAt(square) | high << 4));
+		}
+	}
+
+	private static int valueAt(ByteBuffer chunk, int offset, int square)
+	{
+		return (chunk.get(offset + (square >> 1)) >> ((square & 1) << 2)) & 0xF;
+	}
+
+	private boolean matches(SudokuBoard board, int record, int field)
+	{
+		ByteBuffer chunk = chunkFor(record);
+		int offset = baseOf(record) + field;
+
+		for(int square = 0; square < 81; square++)
+		{
+			if(valueAt(chunk, offset, square) != board.getValueAt(square))
+			{
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private boolean hasCluePattern(SudokuBoard pattern, int record)
+	{
+		ByteBuffer chunk = chunkFor(record);
+		int offset = baseOf(record) + PUZZLE_OFFSET;
+
+		for(int square = 0; square < 81; square++)
+		{
+			if((valueAt(chunk, offset, square) == 0) != pattern.isSquareEmpty(square))
+			{
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private void unpack(int record, int field, SudokuBoard board)
+	{
+		if(record < 0 || record >= size)
+		{
+			throw new IndexOutOfBoundsException("There is no record " + record);
+		}
+
+		ByteBuffer chunk = chunkFor(record);
+		int offset = baseOf(record) + field;
+
+		for(int square = 0; square < 81; square++)
+		{
+			board.setValueAt(square, valueAt(chunk, offset, square));
+		}
+	}
+}
@@ -0,0 +1,23 @@
+package sudoku.variant;
+
+/**
+ * A rule a filled in board has to follow, such as the values in a region all being different, or a Killer cage adding
+ * up to its sum. Constraints work on the board's values and candidate masks directly, with bit (value - 1) set for
+ * each value that could still go in a square, and mustn't allocate anything, as they're run at every step of a search.
+ */
+public interface Constraint {
+	/**
+	 * Indicates whether the values placed so far break this constraint, or leave it no way to be met.
+	 * @param values the value of each of the 81 squares, or 0 for an empty square.
+	 * @return boolean indicating whether or not the values are valid.
+	 */
+	boolean isValid(int[] values);
+
+	/**
+	 * Removes the candidates of empty squares which this constraint rules out, given the values placed so far.
+	 * @param values the value of each of the 81 squares, or 0 for an empty square.
+	 * @param candidates the candidate mask of each square, which is just the value's bit for a filled in square.
+	 * @return false if the constraint can no longer be met.
+	 */
+	boolean propagate(int[] values, int[] candidates);
+}
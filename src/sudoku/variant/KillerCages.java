@@ -0,0 +1,222 @@
+package sudoku.variant;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The cages of a Killer Sudoku: groups of squares whose values must all be different and add up to the cage's sum.
+ *
+ * Which values can still go in a cage is looked up rather than worked out. Every set of different values is a 9 bit
+ * mask, and the table lists, for each number of squares and sum, the masks of the sets that fit, e.g. two squares
+ * adding up to 4 can only be {1, 3}. Once some of a cage is filled in, its empty squares can only take values from a
+ * set that fits what's left of the sum, avoids the values already placed, and can be spread over the squares'
+ * candidates.
+ */
+public class KillerCages implements Constraint {
+	private static final int ALL_VALUES = 0x1FF;
+	// The most any cage can add up to, 1 + 2 + ... + 9.
+	private static final int MAXIMUM_SUM = 45;
+
+	// The masks of the sets of different values with each size and sum.
+	private static final int[][][] COMBINATIONS = new int[10][MAXIMUM_SUM + 1][];
+
+	static
+	{
+		int[][] counts = new int[10][MAXIMUM_SUM + 1];
+
+		for(int mask = 0; mask <= ALL_VALUES; mask++)
+		{
+			counts[Integer.bitCount(mask)][sumOf(mask)]++;
+		}
+
+		for(int size = 0; size < 10; size++)
+		{
+			for(int sum = 0; sum <= MAXIMUM_SUM; sum++)
+			{
+				COMBINATIONS[size][sum] = new int[counts[size][sum]];
+				counts[size][sum] = 0;
+			}
+		}
+
+		for(int mask = 0; mask <= ALL_VALUES; mask++)
+		{
+			int size = Integer.bitCount(mask);
+			int sum = sumOf(mask);
+
+			COMBINATIONS[size][sum][counts[size][sum]++] = mask;
+		}
+	}
+
+	private final List<int[]> cages = new ArrayList<>();
+	private final List<Integer> sums = new ArrayList<>();
+	private final int[] cageOfSquare = new int[81];
+
+	public KillerCages()
+	{
+		for(int square = 0; square < 81; square++)
+		{
+			cageOfSquare[square] = -1;
+		}
+	}
+
+	/**
+	 * Adds a cage.
+	 * @param sum what the values in the cage add up to.
+	 * @param squares the squares in the cage, none of which may already be in a cage.
+	 */
+	public void addCage(int sum, int... squares)
+	{
+		if(squares.length == 0 || squares.length > 9)
+		{
+			throw new IllegalArgumentException("A cage must have from one to nine squares.");
+		}
+		if(sum < 1 || sum > MAXIMUM_SUM || COMBINATIONS[squares.length][sum].length == 0)
+		{
+			throw new IllegalArgumentException("No " + squares.length + " different values add up to " + sum + ".");
+		}
+
+		for(int square : squares)
+		{
+			if(square < 0 || square >= 81 || cageOfSquare[square] != -1)
+			{
+				throw new IllegalArgumentException("Square " + square + " is outside the board or already in a cage.");
+			}
+
+			cageOfSquare[square] = cages.size();
+		}
+
+		cages.add(squares.clone());
+		sums.add(sum);
+	}
+
+	/**
+	 * Returns the cage a square is in.
+	 * @param square the square.
+	 * @return the number of the cage, in the order they were added, or -1 if the square isn't in one.
+	 */
+	public int getCageOf(int square)
+	{
+		return cageOfSquare[square];
+	}
+
+	/**
+	 * Returns the number of cages.
+	 * @return the number of cages.
+	 */
+	public int getCageCount()
+	{
+		return cages.size();
+	}
+
+	@Override
+	public boolean isValid(int[] values)
+	{
+		for(int cage = 0; cage < cages.size(); cage++)
+		{
+			if(fittingValues(cage, values, null) == -1)
+			{
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	@Override
+	public boolean propagate(int[] values, int[] candidates)
+	{
+		for(int cage = 0; cage < cages.size(); cage++)
+		{
+			int fitting = fittingValues(cage, values, candidates);
+
+			if(fitting == -1)
+			{
+				return false;
+			}
+
+			for(int square : cages.get(cage))
+			{
+				if(values[square] == 0)
+				{
+					candidates[square] &= fitting;
+
+					if(candidates[square] == 0)
+					{
+						return false;
+					}
+				}
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Works out the values which could still go in the empty squares of a cage.
+	 * @param candidates the candidate masks, or null to consider every value not yet in the cage.
+	 * @return the mask of the values, or -1 if a value is repeated or nothing fits what's left of the sum.
+	 */
+	private int fittingValues(int cage, int[] values, int[] candidates)
+	{
+		int used = 0;
+		int usedSum = 0;
+		int empty = 0;
+		int available = 0;
+
+		for(int square : cages.get(cage))
+		{
+			int value = values[square];
+
+			if(value == 0)
+			{
+				empty++;
+				available |= candidates == null ? ALL_VALUES : candidates[square];
+				continue;
+			}
+
+			int bit = 1 << (value - 1);
+
+			if((used & bit) != 0)
+			{
+				return -1;
+			}
+
+			used |= bit;
+			usedSum += value;
+		}
+
+		int remaining = sums.get(cage) - usedSum;
+
+		if(remaining < 0)
+		{
+			return -1;
+		}
+
+		available &= ~used;
+		int fitting = 0;
+		boolean fits = false;
+
+		for(int combination : COMBINATIONS[empty][remaining])
+		{
+			if((combination & ~available) == 0)
+			{
+				fitting |= combination;
+				fits = true;
+			}
+		}
+
+		return fits ? fitting : -1;
+	}
+
+	private static int sumOf(int mask)
+	{
+		int sum = 0;
+
+		for(int value = 1; value <= 9; value++)
+		{
+			sum += (mask >> (value - 1) & 1) * value;
+		}
+
+		return sum;
+	}
+}
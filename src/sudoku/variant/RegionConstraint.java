@@ -0,0 +1,213 @@
+package sudoku.variant;
+
+import sudoku.SudokuUnits;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Requires the values in each of a set of regions to be different. Regions of nine squares must hold every value, so
+ * a value that can only go in one square of the region is placed there.
+ *
+ * Classic Sudoku is standard(), X-Sudoku adds diagonals() to it, and Jigsaw Sudoku is rowsAndColumns() with jigsaw()
+ * regions in place of the sub-boards.
+ */
+public class RegionConstraint implements Constraint {
+	private static final int ALL_VALUES = 0x1FF;
+
+	private final int[][] regions;
+
+	/**
+	 * @param regions the squares in each region, at most nine to a region.
+	 */
+	public RegionConstraint(int[][] regions)
+	{
+		this.regions = new int[regions.length][];
+
+		for(int region = 0; region < regions.length; region++)
+		{
+			if(regions[region].length > 9)
+			{
+				throw new IllegalArgumentException("A region can't have more than nine squares.");
+			}
+
+			for(int square : regions[region])
+			{
+				if(square < 0 || square >= 81)
+				{
+					throw new IllegalArgumentException("Square " + square + " is outside the board.");
+				}
+			}
+
+			this.regions[region] = regions[region].clone();
+		}
+	}
+
+	/**
+	 * Creates the rows, columns and sub-boards of classic Sudoku.
+	 * @return the constraint.
+	 */
+	public static RegionConstraint standard()
+	{
+		return new RegionConstraint(SudokuUnits.UNITS);
+	}
+
+	/**
+	 * Creates the rows and columns alone, for variants which replace the sub-boards.
+	 * @return the constraint.
+	 */
+	public static RegionConstraint rowsAndColumns()
+	{
+		return new RegionConstraint(Arrays.copyOf(SudokuUnits.UNITS, 18));
+	}
+
+	/**
+	 * Creates the two long diagonals of X-Sudoku.
+	 * @return the constraint.
+	 */
+	public static RegionConstraint diagonals()
+	{
+		int[][] diagonals = new int[2][9];
+
+		for(int item = 0; item < 9; item++)
+		{
+			diagonals[0][item] = item * 10;
+			diagonals[1][item] = (item + 1) * 8;
+		}
+
+		return new RegionConstraint(diagonals);
+	}
+
+	/**
+	 * Creates irregular regions from a layout of 81 characters, top left to bottom right, where the squares marked with
+	 * the same character make up a region. Whitespace is ignored.
+	 * @param layout the layout.
+	 * @return the constraint.
+	 */
+	public static RegionConstraint jigsaw(String layout)
+	{
+		String marks = layout.replaceAll("\\s+", "");
+
+		if(marks.length() != 81)
+		{
+			throw new IllegalArgumentException("A jigsaw layout must mark all 81 squares.");
+		}
+
+		Map<Character, int[]> regions = new LinkedHashMap<>();
+		Map<Character, Integer> sizes = new LinkedHashMap<>();
+
+		for(int square = 0; square < 81; square++)
+		{
+			char mark = marks.charAt(square);
+			int[] region = regions.computeIfAbsent(mark, key -> new int[9]);
+			int size = sizes.getOrDefault(mark, 0);
+
+			if(size == 9)
+			{
+				throw new IllegalArgumentException("Region " + mark + " has more than nine squares.");
+			}
+
+			region[size] = square;
+			sizes.put(mark, size + 1);
+		}
+
+		if(regions.size() != 9)
+		{
+			throw new IllegalArgumentException("A jigsaw layout must have nine regions of nine squares.");
+		}
+
+		return new RegionConstraint(regions.values().toArray(new int[0][]));
+	}
+
+	@Override
+	public boolean isValid(int[] values)
+	{
+		for(int[] region : regions)
+		{
+			int seen = 0;
+
+			for(int square : region)
+			{
+				// 1 << value >> 1 is the value's bit, or nothing for an empty square.
+				int bit = 1 << values[square] >> 1;
+
+				if((seen & bit) != 0)
+				{
+					return false;
+				}
+
+				seen |= bit;
+			}
+		}
+
+		return true;
+	}
+
+	@Override
+	public boolean propagate(int[] values, int[] candidates)
+	{
+		for(int[] region : regions)
+		{
+			int used = 0;
+
+			for(int square : region)
+			{
+				int bit = 1 << values[square] >> 1;
+
+				if((used & bit) != 0)
+				{
+					return false;
+				}
+
+				used |= bit;
+			}
+
+			// Values which could go in at least one empty square, and in more than one.
+			int once = 0;
+			int twice = 0;
+
+			for(int square : region)
+			{
+				if(values[square] == 0)
+				{
+					int mask = candidates[square] & ~used;
+
+					candidates[square] = mask;
+					twice |= once & mask;
+					once |= mask;
+				}
+			}
+
+			if(region.length < 9)
+			{
+				continue;
+			}
+
+			if((once | used) != ALL_VALUES)
+			{
+				return false;
+			}
+
+			int single = once & ~twice;
+
+			for(int square : region)
+			{
+				int hidden = candidates[square] & single;
+
+				if(values[square] == 0 && hidden != 0)
+				{
+					if((hidden & (hidden - 1)) != 0)
+					{
+						// A square can't be the only place for two values.
+						return false;
+					}
+
+					candidates[square] = hidden;
+				}
+			}
+		}
+
+		return true;
+	}
+}
@@ -0,0 +1,183 @@
+package sudoku.variant;
+
+import sudoku.SudokuBoard;
+import sudoku.SudokuEngine;
+
+/**
+ * Solves Sudoku variants described by a list of constraints, e.g. standard() regions plus KillerCages for Killer
+ * Sudoku. Each step of the search has every constraint remove the candidates it rules out, places any square left
+ * with one candidate, and repeats until nothing more is placed, before guessing in the square with the fewest
+ * candidates. The state for every level of the search is allocated up front, so solving allocates nothing.
+ */
+public class VariantSolver implements SudokuEngine {
+	private static final int ALL_VALUES = 0x1FF;
+
+	private final SudokuBoard board;
+	private final Constraint[] constraints;
+	// The values and candidate masks at each level of the search; each level fills in at least one square.
+	private final int[][] values = new int[82][81];
+	private final int[][] candidates = new int[82][81];
+
+	/**
+	 * @param board the board to solve.
+	 * @param constraints the rules the solution has to follow, which for most variants include standard() or
+	 *                    rowsAndColumns() regions.
+	 */
+	public VariantSolver(SudokuBoard board, Constraint... constraints)
+	{
+		this.board = board;
+		this.constraints = constraints.clone();
+	}
+
+	/**
+	 * Indicates whether a board follows every constraint as far as it's filled in.
+	 * @param board the board.
+	 * @param constraints the constraints.
+	 * @return boolean indicating whether or not the board is valid.
+	 */
+	public static boolean isValid(SudokuBoard board, Constraint... constraints)
+	{
+		int[] values = new int[81];
+
+		for(int square = 0; square < 81; square++)
+		{
+			values[square] = board.getValueAt(square);
+		}
+
+		for(Constraint constraint : constraints)
+		{
+			if(!constraint.isValid(values))
+			{
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	@Override
+	public boolean solve()
+	{
+		for(int square = 0; square < 81; square++)
+		{
+			int value = board.getValueAt(square);
+
+			values[0][square] = value;
+			candidates[0][square] = value == 0 ? ALL_VALUES : 1 << (value - 1);
+		}
+
+		for(Constraint constraint : constraints)
+		{
+			if(!constraint.isValid(values[0]))
+			{
+				return false;
+			}
+		}
+
+		return search(0);
+	}
+
+	@Override
+	public SudokuBoard getBoard()
+	{
+		return board;
+	}
+
+	private boolean search(int depth)
+	{
+		int[] levelValues = values[depth];
+		int[] levelCandidates = candidates[depth];
+
+		if(!propagate(levelValues, levelCandidates))
+		{
+			return false;
+		}
+
+		int best = -1;
+		int fewest = 10;
+
+		for(int square = 0; square < 81; square++)
+		{
+			int count = Integer.bitCount(levelCandidates[square]);
+
+			if(levelValues[square] == 0 && count < fewest)
+			{
+				best = square;
+				fewest = count;
+			}
+		}
+
+		if(best == -1)
+		{
+			for(int square = 0; square < 81; square++)
+			{
+				board.setValueAt(square, levelValues[square]);
+			}
+
+			return true;
+		}
+
+		int remaining = levelCandidates[best];
+
+		while(remaining != 0)
+		{
+			int bit = remaining & -remaining;
+			remaining ^= bit;
+
+			System.arraycopy(levelValues, 0, values[depth + 1], 0, 81);
+			System.arraycopy(levelCandidates, 0, candidates[depth + 1], 0, 81);
+			values[depth + 1][best] = Integer.numberOfTrailingZeros(bit) + 1;
+			candidates[depth + 1][best] = bit;
+
+			if(search(depth + 1))
+			{
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Runs every constraint and places the squares left with one candidate, until nothing more is placed.
+	 * @return false if a constraint can't be met or a square is left with no candidates.
+	 */
+	private boolean propagate(int[] values, int[] candidates)
+	{
+		boolean placed = true;
+
+		while(placed)
+		{
+			placed = false;
+
+			for(Constraint constraint : constraints)
+			{
+				if(!constraint.propagate(values, candidates))
+				{
+					return false;
+				}
+			}
+
+			for(int square = 0; square < 81; square++)
+			{
+				int mask = candidates[square];
+
+				if(values[square] != 0)
+				{
+					continue;
+				}
+				if(mask == 0)
+				{
+					return false;
+				}
+				if((mask & (mask - 1)) == 0)
+				{
+					values[square] = Integer.numberOfTrailingZeros(mask) + 1;
+					placed = true;
+				}
+			}
+		}
+
+		return true;
+	}
+}
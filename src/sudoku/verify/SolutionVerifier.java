@@ -0,0 +1,200 @@
+package sudoku.verify;
+
+import sudoku.SudokuBoard;
+import sudoku.SudokuUnits;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Checks grids submitted as solutions against their puzzles.
+ *
+ * Checking is done in one pass that ORs the bit of each value into the mask of its row, column and sub-board, and
+ * notes whether any clue was changed. A grid is correct exactly when no clue was changed and every unit's mask has all
+ * nine bits set, as nine squares can only cover nine values if none is repeated, and an empty square sets a bit
+ * outside the nine. Only when a grid turns out to be wrong is it scanned again to find where.
+ *
+ * Grids can also be checked in bulk in a packed form, 41 bytes to a grid at four bits a square, spread over every core.
+ */
+public final class SolutionVerifier {
+	/** The number of bytes a packed grid takes up. */
+	public static final int PACKED_BYTES = 41;
+
+	private static final int ALL_VALUES = 0x1FF;
+	// Grids are checked in chunks this size, each on one thread with one set of masks.
+	private static final int CHUNK = 1024;
+
+	private SolutionVerifier()
+	{
+	}
+
+	/**
+	 * Checks a grid against a puzzle.
+	 * @param puzzle the puzzle; its filled in squares are the clues.
+	 * @param grid the submitted solution.
+	 * @return the result, with the squares at fault if the grid isn't correct.
+	 */
+	public static Verification verify(SudokuBoard puzzle, SudokuBoard grid)
+	{
+		int[] clues = new int[81];
+		int[] values = new int[81];
+
+		for(int square = 0; square < 81; square++)
+		{
+			clues[square] = puzzle.getValueAt(square);
+			values[square] = grid.getValueAt(square);
+		}
+
+		if(isCorrect(clues, values, new int[27]))
+		{
+			return Verification.CORRECT;
+		}
+
+		return findFault(clues, values);
+	}
+
+	/**
+	 * Checks many packed grids against their packed puzzles in parallel.
+	 * @param puzzles the packed puzzles, one after another.
+	 * @param grids the packed submitted solutions, one for each puzzle in the same order.
+	 * @return the result for each grid.
+	 */
+	public static Verification.Status[] verifyAll(byte[] puzzles, byte[] grids)
+	{
+		if(puzzles.length != grids.length || grids.length % PACKED_BYTES != 0)
+		{
+			throw new IllegalArgumentException("There must be one whole packed puzzle for every packed grid.");
+		}
+
+		int count = grids.length / PACKED_BYTES;
+		Verification.Status[] results = new Verification.Status[count];
+
+		IntStream.range(0, (count + CHUNK - 1) / CHUNK).parallel().forEach(chunk -> {
+			int[] clues = new int[81];
+			int[] values = new int[81];
+			int[] masks = new int[27];
+			int end = Math.min(count, (chunk + 1) * CHUNK);
+
+			for(int index = chunk * CHUNK; index < end; index++)
+			{
+				unpack(puzzles, index * PACKED_BYTES, clues);
+				unpack(grids, index * PACKED_BYTES, values);
+
+				results[index] = isCorrect(clues, values, masks)
+						? Verification.Status.CORRECT : findFault(clues, values).getStatus();
+			}
+		});
+
+		return results;
+	}
+
+	/**
+	 * Packs a board at four bits a square: the low half of each byte holds the even square and the high half the odd.
+	 * @param board the board.
+	 * @param packed the array to pack into.
+	 * @param offset where in the array to start.
+	 */
+	public static void pack(SudokuBoard board, byte[] packed, int offset)
+	{
+		for(int square = 0; square < 81; square += 2)
+		{
+			int high = square == 80 ? 0 : board.getValueAt(square + 1);
+			packed[offset + (square >> 1)] = (byte) (board.getValueAt(square) | high << 4);
+		}
+	}
+
+	private static void unpack(byte[] packed, int offset, int[] values)
+	{
+		for(int square = 0; square < 80; square += 2)
+		{
+			int both = packed[offset + (square >> 1)];
+			values[square] = both & 0xF;
+			values[square + 1] = (both >> 4) & 0xF;
+		}
+
+		values[80] = packed[offset + 40] & 0xF;
+	}
+
+	/**
+	 * Checks a grid in one pass, without finding out what's wrong with it.
+	 * @param masks 27 ints to use for the unit masks.
+	 */
+	private static boolean isCorrect(int[] clues, int[] values, int[] masks)
+	{
+		Arrays.fill(masks, 0);
+		int changedClues = 0;
+
+		for(int square = 0; square < 81; square++)
+		{
+			int value = values[square];
+			int clue = clues[square];
+			// An empty square gives 1 << -1, i.e. the top bit, which no full unit has.
+			int bit = 1 << (value - 1);
+
+			masks[SudokuUnits.ROW[square]] |= bit;
+			masks[9 + SudokuUnits.COLUMN[square]] |= bit;
+			masks[18 + SudokuUnits.SUB_BOARD[square]] |= bit;
+
+			// Non-zero only if there's a clue and the value differs from it.
+			changedClues |= clue * (clue ^ value);
+		}
+
+		int all = ALL_VALUES;
+		for(int unit = 0; unit < 27; unit++)
+		{
+			all &= masks[unit] == ALL_VALUES ? ALL_VALUES : 0;
+		}
+
+		return changedClues == 0 && all == ALL_VALUES;
+	}
+
+	/**
+	 * Finds the first square, top left to bottom right, which is empty (or, packed, holds something other than 1-9),
+	 * changes a clue, or repeats a value already seen in one of its units.
+	 */
+	private static Verification findFault(int[] clues, int[] values)
+	{
+		int[] masks = new int[27];
+
+		for(int square = 0; square < 81; square++)
+		{
+			int value = values[square];
+
+			if(value < 1 || value > 9)
+			{
+				return new Verification(Verification.Status.INCOMPLETE, square);
+			}
+			if(clues[square] != 0 && clues[square] != value)
+			{
+				return new Verification(Verification.Status.CLUE_CHANGED, square);
+			}
+
+			int bit = 1 << (value - 1);
+
+			for(int unit : SudokuUnits.UNITS_OF_SQUARE[square])
+			{
+				if((masks[unit] & bit) != 0)
+				{
+					return new Verification(Verification.Status.CONFLICT, earlierSquare(unit, value, values), square);
+				}
+
+				masks[unit] |= bit;
+			}
+		}
+
+		throw new IllegalStateException("A grid was found to be wrong but nothing is wrong with it.");
+	}
+
+	private static int earlierSquare(int unit, int value, int[] values)
+	{
+		for(int square : SudokuUnits.UNITS[unit])
+		{
+			if(values[square] == value)
+			{
+				return square;
+			}
+		}
+
+		throw new IllegalStateException("The value isn't in the unit.");
+	}
+}
@@ -0,0 +1,61 @@
+package sudoku.verify;
+
+/**
+ * The result of checking a submitted grid, along with the squares at fault if it's wrong.
+ */
+public class Verification {
+	/** The result for a correct grid, which has no squares at fault. */
+	public static final Verification CORRECT = new Verification(Status.CORRECT);
+
+	/**
+	 * What, if anything, is wrong with a grid.
+	 */
+	public enum Status
+	{
+		/** The grid is complete, has no conflicts and keeps every clue. */
+		CORRECT,
+		/** A square is empty. */
+		INCOMPLETE,
+		/** A square holds a different value to the puzzle's clue. */
+		CLUE_CHANGED,
+		/** A value appears twice in a row, column or sub-board. */
+		CONFLICT
+	}
+
+	private final Status status;
+	private final int[] squares;
+
+	Verification(Status status, int... squares)
+	{
+		this.status = status;
+		this.squares = squares;
+	}
+
+	/**
+	 * Returns what is wrong with the grid.
+	 * @return the status.
+	 */
+	public Status getStatus()
+	{
+		return status;
+	}
+
+	/**
+	 * Indicates whether the grid is a correct solution to the puzzle.
+	 * @return boolean indicating whether or not the grid is correct.
+	 */
+	public boolean isCorrect()
+	{
+		return status == Status.CORRECT;
+	}
+
+	/**
+	 * Returns the first squares at fault: for a conflict, the two squares with the same value, where the second is the
+	 * first square that repeats a value; otherwise the single square that's empty or changes a clue.
+	 * @return the squares, empty for a correct grid.
+	 */
+	public int[] getSquares()
+	{
+		return squares.clone();
+	}
+}
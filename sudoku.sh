@@ -0,0 +1,35 @@
+#!/bin/sh
+# Runs the headless command line, e.g. "./sudoku.sh solve < puzzles.txt"; see sudoku.cli.SudokuCli for the commands.
+#
+# Short runs spend most of their time starting the JVM, so on Java 13 and later the classes loaded by the first run
+# are dumped to a class data sharing archive, and every later run maps them in from it instead of loading them again.
+# Archives can only be made from jars, so the compiled classes are packed into one, and it and the archive are made
+# again whenever the classes change. Set SUDOKU_CDS=0 to run straight from the classes without an archive.
+
+OUT="$(dirname "$0")/out"
+CLASSES="${SUDOKU_CLASSES:-$OUT/production/sudoku solver}"
+JAR="${SUDOKU_JAR:-$OUT/sudoku-cli.jar}"
+ARCHIVE="${SUDOKU_CDS_ARCHIVE:-$OUT/sudoku-cli.jsa}"
+JAVA="${JAVA_HOME:+$JAVA_HOME/bin/}java"
+JAR_TOOL="${JAVA_HOME:+$JAVA_HOME/bin/}jar"
+
+# Only the C1 compiler is worth having for runs this short.
+OPTIONS="-XX:TieredStopAtLevel=1"
+MAIN=sudoku.cli.SudokuCli
+
+if [ "${SUDOKU_CDS:-1}" = 0 ]; then
+	exec "$JAVA" $OPTIONS -cp "$CLASSES" $MAIN "$@"
+fi
+
+if [ ! -f "$JAR" ] || [ -n "$(find "$CLASSES" -name '*.class' -newer "$JAR" | head -n 1)" ]; then
+	rm -f "$ARCHIVE"
+	"$JAR_TOOL" cf "$JAR" -C "$CLASSES" . || exit 1
+fi
+
+if [ -f "$ARCHIVE" ]; then
+	exec "$JAVA" $OPTIONS -XX:SharedArchiveFile="$ARCHIVE" -Xshare:auto -cp "$JAR" $MAIN "$@"
+elif "$JAVA" -XX:+PrintFlagsFinal -version 2>/dev/null | grep -q ArchiveClassesAtExit; then
+	exec "$JAVA" $OPTIONS -XX:ArchiveClassesAtExit="$ARCHIVE" -cp "$JAR" $MAIN "$@"
+fi
+
+exec "$JAVA" $OPTIONS -cp "$JAR" $MAIN "$@"
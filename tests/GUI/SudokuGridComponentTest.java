@@ -0,0 +1,151 @@
+package GUI;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.awt.event.KeyEvent;
+import java.awt.event.KeyListener;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SudokuGridComponentTest {
+	@Test
+	void typeAndMoveWithKeys()
+	{
+		SudokuGridComponent grid = new SudokuGridComponent(3);
+		List<Integer> edited = new ArrayList<>();
+		grid.setEditListener(edited::add);
+
+		type(grid, '5');
+		press(grid, KeyEvent.VK_LEFT);
+		press(grid, KeyEvent.VK_RIGHT);
+		press(grid, KeyEvent.VK_DOWN);
+		type(grid, '7');
+		// Letters are only values on the larger grids.
+		type(grid, 'a');
+		press(grid, KeyEvent.VK_UP);
+		press(grid, KeyEvent.VK_DELETE);
+
+		assertEquals(5, grid.getValue(0));
+		assertEquals(0, grid.getValue(1));
+		assertEquals(7, grid.getValue(10));
+		assertEquals(1, grid.getSelected());
+		assertEquals(Arrays.asList(0, 10, 1), edited);
+	}
+
+	@Test
+	void typeLettersOnLargerGrids()
+	{
+		SudokuGridComponent grid = new SudokuGridComponent(4);
+		grid.select(255);
+
+		type(grid, 'g');
+		assertEquals(16, grid.getValue(255));
+
+		type(grid, 'H');
+		assertEquals(16, grid.getValue(255));
+		assertThrows(IllegalArgumentException.class, () -> grid.setValue(0, 17));
+	}
+
+	@Test
+	void findSquareUnderPoint()
+	{
+		SudokuGridComponent grid = new SudokuGridComponent(3);
+		// 9 squares of 40 pixels, centred, with 2 pixels spare on each side.
+		grid.setSize(364, 364);
+
+		assertEquals(0, grid.squareAt(2, 2));
+		assertEquals(80, grid.squareAt(361, 361));
+		assertEquals(10, grid.squareAt(50, 50));
+		assertEquals(-1, grid.squareAt(1, 100));
+	}
+
+	@Test
+	void showPublishedProgress()
+	{
+		SudokuGridComponent grid = new SudokuGridComponent(3);
+		grid.setValue(0, 4);
+		grid.setAnimating(true);
+
+		grid.publish(1, 9);
+		grid.publish(2, 8);
+		grid.publish(2, 0);
+		assertEquals(0, grid.getValue(1));
+
+		grid.setAnimating(false);
+		assertEquals(4, grid.getValue(0));
+		assertEquals(9, grid.getValue(1));
+		assertEquals(0, grid.getValue(2));
+	}
+
+	/**
+	 * Test that a full 25x25 board, with pencil marks in every empty square, draws well within a frame.
+	 */
+	@Test
+	void paintLargeBoardQuickly()
+	{
+		SudokuGridComponent grid = new SudokuGridComponent(5);
+		grid.setSize(1004, 1004);
+
+		for(int square = 0; square < 625; square++)
+		{
+			if(square % 2 == 0)
+			{
+				grid.setValue(square, 1 + square % 25);
+			}
+			else
+			{
+				grid.setPencilMarks(square, 0x1FFFFFF);
+			}
+		}
+
+		BufferedImage image = new BufferedImage(1004, 1004, BufferedImage.TYPE_INT_RGB);
+
+		for(int warmup = 0; warmup < 20; warmup++)
+		{
+			paint(grid, image);
+		}
+
+		long start = System.nanoTime();
+		for(int frame = 0; frame < 20; frame++)
+		{
+			paint(grid, image);
+		}
+		long milliseconds = (System.nanoTime() - start) / 20 / 1_000_000;
+
+		assertTrue(milliseconds < 16, "A frame took " + milliseconds + "ms");
+		// The top left square is selected and holds a 1.
+		assertNotEquals(Color.WHITE.getRGB(), image.getRGB(10, 10));
+	}
+
+	private static void paint(SudokuGridComponent grid, BufferedImage image)
+	{
+		Graphics2D g = image.createGraphics();
+		grid.paint(g);
+		g.dispose();
+	}
+
+	private static void press(SudokuGridComponent grid, int keyCode)
+	{
+		KeyEvent event = new KeyEvent(grid, KeyEvent.KEY_PRESSED, 0, 0, keyCode, KeyEvent.CHAR_UNDEFINED);
+
+		for(KeyListener listener : grid.getKeyListeners())
+		{
+			listener.keyPressed(event);
+		}
+	}
+
+	private static void type(SudokuGridComponent grid, char symbol)
+	{
+		KeyEvent event = new KeyEvent(grid, KeyEvent.KEY_TYPED, 0, 0, KeyEvent.VK_UNDEFINED, symbol);
+
+		for(KeyListener listener : grid.getKeyListeners())
+		{
+			listener.keyTyped(event);
+		}
+	}
+}
@@ -0,0 +1,159 @@
+package sudoku;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import sudoku.metrics.MetricsRegistry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncSolverTest {
+	private static final String PUZZLE = "9 1 0 7 0 0 0 0 0 " +
+										 "0 3 2 6 0 9 0 8 0 " +
+										 "0 0 7 0 8 0 9 0 0 " +
+										 "0 8 6 0 3 0 1 7 0 " +
+										 "3 0 0 0 0 0 0 0 6 " +
+										 "0 5 1 0 2 0 8 4 0 " +
+										 "0 0 9 0 5 0 3 0 0 " +
+										 "0 2 0 3 0 1 4 9 0 " +
+										 "0 0 0 0 0 2 0 6 1";
+
+	@Test
+	@Timeout(60)
+	void solveMany() throws Exception
+	{
+		SudokuBoard solution = solve(new SudokuBoard(PUZZLE));
+		Random random = new Random(5);
+		List<SudokuBoard> boards = new ArrayList<>();
+		List<CompletableFuture<SudokuBoard>> futures = new ArrayList<>();
+
+		try(AsyncSolver solver = new AsyncSolver(2))
+		{
+			for(int index = 0; index < 2000; index++)
+			{
+				SudokuBoard board = new SudokuBoard(solution);
+
+				for(int emptied = 0; emptied < 15; emptied++)
+				{
+					board.setValueAt(random.nextInt(81), 0);
+				}
+
+				boards.add(board);
+				futures.add(solver.solveAsync(board));
+			}
+
+			for(int index = 0; index < boards.size(); index++)
+			{
+				SudokuBoard result = futures.get(index).get();
+
+				assertTrue(result.isValidAndComplete());
+				for(int square = 0; square < 81; square++)
+				{
+					int clue = boards.get(index).getValueAt(square);
+					assertTrue(clue == 0 || clue == result.getValueAt(square));
+				}
+			}
+
+			// Solves this quick should have been put together in chunks, at least once the code was compiled.
+			assertTrue(MetricsRegistry.getDefault().histogram("async.chunks").getMax() > 1);
+		}
+	}
+
+	@Test
+	@Timeout(60)
+	void completeWithNullWhenUnsolvable() throws Exception
+	{
+		// The top left square can't hold 1-4 for its row, 5-8 for its column, or 9 for its sub-board.
+		SudokuBoard board = new SudokuBoard();
+		for(int value = 1; value <= 4; value++)
+		{
+			board.setValueAt(value, value);
+			board.setValueAt(9 * (value + 2), value + 4);
+		}
+		board.setValueAt(10, 9);
+
+		try(AsyncSolver solver = new AsyncSolver(1))
+		{
+			CompletableFuture<SudokuBoard> future = solver.solveAsync(board);
+			// The board is copied, so changing it now doesn't matter.
+			board.setValueAt(10, 0);
+
+			assertNull(future.get());
+		}
+	}
+
+	/**
+	 * Test that an invalid board after an unsolvable one on the same worker isn't given a "solution" left over from
+	 * the earlier search.
+	 */
+	@Test
+	@Timeout(60)
+	void completeWithNullWhenInvalidAfterUnsolvable() throws Exception
+	{
+		// 1-8 across the top row and a 9 below the top left square leave that square with nothing.
+		SudokuBoard unsolvable = new SudokuBoard();
+		for(int square = 1; square <= 8; square++)
+		{
+			unsolvable.setValueAt(square, square);
+		}
+		unsolvable.setValueAt(27, 9);
+
+		SudokuBoard invalid = new SudokuBoard();
+		for(int square = 0; square < 81; square++)
+		{
+			invalid.setValueAt(square, unsolvable.getValueAt(square));
+		}
+		invalid.setValueAt(0, 9);
+
+		try(AsyncSolver solver = new AsyncSolver(1))
+		{
+			assertNull(solver.solveAsync(unsolvable).get());
+			assertNull(solver.solveAsync(invalid).get());
+		}
+	}
+
+	@Test
+	void cancelPendingOnClose()
+	{
+		AsyncSolver solver = new AsyncSolver(1);
+		List<CompletableFuture<SudokuBoard>> futures = new ArrayList<>();
+
+		for(int index = 0; index < 100; index++)
+		{
+			futures.add(solver.solveAsync(new SudokuBoard(PUZZLE)));
+		}
+
+		solver.close();
+
+		for(CompletableFuture<SudokuBoard> future : futures)
+		{
+			try
+			{
+				assertTrue(future.get().isValidAndComplete());
+			}
+			catch(CancellationException e)
+			{
+				assertTrue(future.isCancelled());
+			}
+			catch(Exception e)
+			{
+				fail(e);
+			}
+		}
+
+		assertThrows(IllegalStateException.class, () -> solver.solveAsync(new SudokuBoard(PUZZLE)));
+	}
+
+	private static SudokuBoard solve(SudokuBoard board)
+	{
+		SudokuSolver solver = new SudokuSolver(board);
+		assertTrue(solver.solve());
+
+		return solver.getBoard();
+	}
+}
@@ -0,0 +1,115 @@
+package sudoku;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncrementalSolverTest {
+	private static final String LAYOUT = "9 1 0 7 0 0 0 0 0 " +
+										 "0 3 2 6 0 9 0 8 0 " +
+										 "0 0 7 0 8 0 9 0 0 " +
+										 "0 8 6 0 3 0 1 7 0 " +
+										 "3 0 0 0 0 0 0 0 6 " +
+										 "0 5 1 0 2 0 8 4 0 " +
+										 "0 0 9 0 5 0 3 0 0 " +
+										 "0 2 0 3 0 1 4 9 0 " +
+										 "0 0 0 0 0 2 0 6 1";
+
+	/**
+	 * Test that typing in a value from the last solution, or clearing a clue, keeps the solution without searching.
+	 */
+	@Test
+	void keepSolutionConsistentWithEdit()
+	{
+		IncrementalSolver solver = new IncrementalSolver(new SudokuBoard(LAYOUT));
+		assertTrue(solver.solve());
+		SudokuBoard solution = solver.getBoard();
+
+		solver.setValue(2, solution.getValueAt(2));
+		solver.setValue(0, 0);
+
+		assertTrue(solver.solve());
+		assertEquals(0, solver.getLastRepairSize());
+		assertEquals(solution.getLayoutString(), solver.getBoard().getLayoutString());
+	}
+
+	/**
+	 * Test that an edit which disagrees with the last solution on an empty board is repaired within its units.
+	 */
+	@Test
+	void repairAroundEdit()
+	{
+		IncrementalSolver solver = new IncrementalSolver(new SudokuBoard());
+		assertTrue(solver.solve());
+		int old = solver.getBoard().getValueAt(40);
+
+		solver.setValue(40, old % 9 + 1);
+
+		assertTrue(solver.solve());
+		assertTrue(solver.getLastRepairSize() <= 18);
+		assertEquals(old % 9 + 1, solver.getBoard().getValueAt(40));
+		assertTrue(solver.getBoard().isValidAndComplete());
+	}
+
+	@Test
+	void noSolutionWhileConflicting()
+	{
+		IncrementalSolver solver = new IncrementalSolver(new SudokuBoard(LAYOUT));
+		solver.setValue(2, 9);
+
+		assertFalse(solver.solve());
+
+		solver.setValue(2, 0);
+		assertTrue(solver.solve());
+		assertTrue(solver.getBoard().isValidAndComplete());
+	}
+
+	/**
+	 * Test a long run of random edits against counting solutions from scratch after every one.
+	 */
+	@Test
+	void agreeWithSearchFromScratch()
+	{
+		Random random = new Random(39);
+		SudokuBoard board = new SudokuBoard();
+		IncrementalSolver solver = new IncrementalSolver(board);
+		SolutionCounter counter = new SolutionCounter();
+
+		for(int edit = 0; edit < 400; edit++)
+		{
+			int square = random.nextInt(81);
+			int value = random.nextInt(3) == 0 ? 0 : random.nextInt(9) + 1;
+
+			board.setValueAt(square, value);
+			solver.setValue(square, value);
+
+			// Several edits are sometimes made before solving again.
+			if(random.nextInt(3) == 0)
+			{
+				continue;
+			}
+
+			boolean solvable = counter.count(board, 1) == 1;
+			assertEquals(solvable, solver.solve(), "edit " + edit);
+
+			if(solvable)
+			{
+				SudokuBoard solution = solver.getBoard();
+				assertTrue(solution.isValidAndComplete());
+
+				for(int check = 0; check < 81; check++)
+				{
+					assertTrue(board.isSquareEmpty(check) || board.getValueAt(check) == solution.getValueAt(check));
+				}
+			}
+			else
+			{
+				// Take the last edit back, so the board doesn't stay unsolvable for the rest of the test.
+				board.setValueAt(square, 0);
+				solver.setValue(square, 0);
+			}
+		}
+	}
+}
@@ -0,0 +1,111 @@
+package sudoku;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PortfolioSolverTest {
+	private static final String LAYOUT = "9 1 0 7 0 0 0 0 0 " +
+										 "0 3 2 6 0 9 0 8 0 " +
+										 "0 0 7 0 8 0 9 0 0 " +
+										 "0 8 6 0 3 0 1 7 0 " +
+										 "3 0 0 0 0 0 0 0 6 " +
+										 "0 5 1 0 2 0 8 4 0 " +
+										 "0 0 9 0 5 0 3 0 0 " +
+										 "0 2 0 3 0 1 4 9 0 " +
+										 "0 0 0 0 0 2 0 6 1 ";
+
+	@Test
+	void solveSolvableBoard()
+	{
+		PortfolioSolver solver = new PortfolioSolver(new SudokuBoard(LAYOUT));
+
+		assertTrue(solver.solve());
+		assertTrue(solver.getBoard().isValidAndComplete());
+		assertNotNull(solver.getWinner());
+	}
+
+	/**
+	 * Test that a strategy which is still searching is interrupted once another strategy has the answer.
+	 */
+	@Test
+	void cancelLosingStrategies() throws InterruptedException
+	{
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch interrupted = new CountDownLatch(1);
+
+		SudokuEngine neverFinishes = new SudokuEngine() {
+			@Override
+			public boolean solve()
+			{
+				started.countDown();
+
+				while(!Thread.currentThread().isInterrupted())
+				{
+					Thread.yield();
+				}
+
+				interrupted.countDown();
+				return false;
+			}
+
+			@Override
+			public SudokuBoard getBoard()
+			{
+				return null;
+			}
+		};
+
+		PortfolioSolver solver = new PortfolioSolver(new SudokuBoard(LAYOUT), executor, Arrays.asList(
+				board -> neverFinishes,
+				board -> {
+					awaitQuietly(started);
+					return new SudokuSolver(board);
+				}));
+
+		try
+		{
+			assertTrue(solver.solve());
+			assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Test that the solver gives up as soon as its thread is interrupted.
+	 */
+	@Test
+	void solverStopsWhenInterrupted()
+	{
+		SudokuSolver solver = new SudokuSolver(new SudokuBoard(LAYOUT));
+
+		Thread.currentThread().interrupt();
+		boolean solved = solver.solve();
+		Thread.interrupted();
+
+		assertFalse(solved);
+		assertTrue(solver.wasCancelled());
+	}
+
+	private static void awaitQuietly(CountDownLatch latch)
+	{
+		try
+		{
+			latch.await();
+		}
+		catch(InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+}
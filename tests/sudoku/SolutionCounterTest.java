@@ -0,0 +1,88 @@
+package sudoku;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SolutionCounterTest {
+	private static final String LAYOUT = "9 1 0 7 0 0 0 0 0 " +
+										 "0 3 2 6 0 9 0 8 0 " +
+										 "0 0 7 0 8 0 9 0 0 " +
+										 "0 8 6 0 3 0 1 7 0 " +
+										 "3 0 0 0 0 0 0 0 6 " +
+										 "0 5 1 0 2 0 8 4 0 " +
+										 "0 0 9 0 5 0 3 0 0 " +
+										 "0 2 0 3 0 1 4 9 0 " +
+										 "0 0 0 0 0 2 0 6 1";
+
+	@Test
+	void countUniqueSolution()
+	{
+		SolutionCounter counter = new SolutionCounter();
+
+		assertEquals(1, counter.count(new SudokuBoard(LAYOUT), 10));
+		assertTrue(counter.hasUniqueSolution(new SudokuBoard(LAYOUT)));
+	}
+
+	/**
+	 * Test that counting stops at the limit on a board with many solutions.
+	 */
+	@Test
+	void countStopsAtLimit()
+	{
+		SolutionCounter counter = new SolutionCounter();
+
+		assertEquals(5, counter.count(new SudokuBoard(), 5));
+		assertFalse(counter.hasUniqueSolution(new SudokuBoard()));
+	}
+
+	/**
+	 * Test that a full solution with two squares emptied in a swappable pattern has exactly two solutions.
+	 */
+	@Test
+	void countTwoSolutions()
+	{
+		SudokuSolver solver = new SudokuSolver(new SudokuBoard(LAYOUT));
+		solver.solve();
+		SudokuBoard board = solver.getBoard();
+
+		// Find a rectangle of four squares over two sub-boards holding just two values, and empty it.
+		for(int a = 0; a < 81; a++)
+		{
+			for(int b = a + 1; b < 81; b++)
+			{
+				int rowA = a / 9, columnA = a % 9, rowB = b / 9, columnB = b % 9;
+
+				if(rowA == rowB || columnA == columnB || rowA / 3 != rowB / 3 || columnA / 3 == columnB / 3)
+				{
+					continue;
+				}
+
+				int c = rowA * 9 + columnB, d = rowB * 9 + columnA;
+				if(board.getValueAt(a) == board.getValueAt(b) && board.getValueAt(c) == board.getValueAt(d))
+				{
+					SudokuBoard puzzle = new SudokuBoard(board);
+					for(int square : new int[] {a, b, c, d})
+					{
+						puzzle.setValueAt(square, 0);
+					}
+
+					assertEquals(2, new SolutionCounter().count(puzzle, 10));
+					return;
+				}
+			}
+		}
+
+		fail("The solution has no deadly pattern to test with.");
+	}
+
+	@Test
+	void noSolutionsForInvalidBoard()
+	{
+		SudokuBoard board = new SudokuBoard();
+		board.setValueAt(0, 5);
+		board.setValueAt(1, 5);
+
+		assertEquals(0, new SolutionCounter().count(board, 2));
+	}
+}
@@ -473,4 +473,68 @@ class SudokuBoardTest {
 
 		assertEquals(boardLayout, board.getLayoutString());
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Test that the candidates of each square are worked out from its row, column and sub-board.
+	 */
+	@Test
+	void computeCandidateMasks()
+	{
+		String boardLayout = "9 7 3 5 8 1 4 2 6 " +
+							 "5 2 0 4 7 3 1 9 8 " +
+							 "1 8 4 2 9 6 7 5 3 " +
+							 "2 4 7 8 6 5 3 1 9 " +
+							 "3 9 8 1 0 4 6 7 5 " +
+							 "6 5 1 7 3 9 8 4 2 " +
+							 "8 1 9 3 4 0 5 6 7 " +
+							 "7 6 5 9 1 8 2 3 4 " +
+							 "4 3 2 6 5 7 9 0 0 ";
+
+		SudokuBoard board = new SudokuBoard(boardLayout);
+		int[] candidates = new int[81];
+
+		assertTrue(board.getCandidateMasks(candidates));
+		assertEquals(0, candidates[0]);
+		assertEquals(1 << 5, candidates[11]);
+		assertEquals(1 << 1, candidates[40]);
+		assertEquals(1 << 1, candidates[59]);
+		assertEquals(1 << 7, candidates[79]);
+		assertEquals(1, candidates[80]);
+	}
+
+	/**
+	 * Test that a board with a repeated value isn't given candidates.
+	 */
+	@Test
+	void noCandidateMasksForInvalidBoard()
+	{
+		SudokuBoard board = new SudokuBoard();
+		board.setValueAt(0, 5);
+		board.setValueAt(80, 5);
+		board.setValueAt(8, 5);
+
+		assertFalse(board.isValid());
+		assertFalse(board.getCandidateMasks(new int[81]));
+	}
+
+	/**
+	 * Test that the working array can be reused between boards without anything carrying over.
+	 */
+	@Test
+	void reuseCandidateMaskWorkingArray()
+	{
+		SudokuBoard full = new SudokuBoard();
+		for(int square = 0; square < 9; square++)
+		{
+			full.setValueAt(square, square + 1);
+		}
+
+		int[] candidates = new int[81];
+		int[] occupancy = new int[27];
+
+		assertTrue(full.getCandidateMasks(candidates, occupancy));
+		assertTrue(new SudokuBoard().getCandidateMasks(candidates, occupancy));
+		assertEquals(0x1FF, candidates[0]);
+		assertThrows(IllegalArgumentException.class, () -> full.getCandidateMasks(candidates, new int[9]));
+	}
+}
@@ -27,4 +27,53 @@ class SudokuSolverTest {
 
 		assertTrue(solved.isValidAndComplete());
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Test that every combination of search orders finds a solution.
+	 */
+	@Test
+	void solveWithEachSearchOrder() {
+		String layout = "9 1 0 7 0 0 0 0 0 " +
+						"0 3 2 6 0 9 0 8 0 " +
+						"0 0 7 0 8 0 9 0 0 " +
+						"0 8 6 0 3 0 1 7 0 " +
+						"3 0 0 0 0 0 0 0 6 " +
+						"0 5 1 0 2 0 8 4 0 " +
+						"0 0 9 0 5 0 3 0 0 " +
+						"0 2 0 3 0 1 4 9 0 " +
+						"0 0 0 0 0 2 0 6 1 ";
+
+		for(SudokuSolver.CellOrder cellOrder : SudokuSolver.CellOrder.values())
+		{
+			for(SudokuSolver.ValueOrder valueOrder : SudokuSolver.ValueOrder.values())
+			{
+				SudokuSolver solver = new SudokuSolver(new SudokuBoard(layout), cellOrder, valueOrder, 42);
+
+				assertTrue(solver.solve());
+				assertTrue(solver.getBoard().isValidAndComplete());
+			}
+		}
+	}
+
+	/**
+	 * Test that a board whose clues already clash is reported as having no solution rather than being searched.
+	 */
+	@Test
+	void rejectInvalidBoard()
+	{
+		SudokuBoard board = new SudokuBoard();
+		board.setValueAt(0, 9);
+		board.setValueAt(27, 9);
+
+		for(SudokuSolver.CellOrder cellOrder : SudokuSolver.CellOrder.values())
+		{
+			// Only a loaded board can be invalid, since the constructor's copy refuses one.
+			SudokuSolver solver = new SudokuSolver(new SudokuBoard(), cellOrder, SudokuSolver.ValueOrder.ASCENDING, 0);
+			solver.load(board);
+
+			assertFalse(solver.solve());
+			assertFalse(solver.wasCancelled());
+			assertEquals(1, solver.getNodes());
+		}
+	}
+}
@@ -0,0 +1,144 @@
+package sudoku.archive;
+
+import org.junit.jupiter.api.Test;
+import sudoku.SudokuBoard;
+import sudoku.SudokuSolver;
+import sudoku.SudokuSolver.CellOrder;
+import sudoku.SudokuSolver.ValueOrder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GridCodecTest {
+	private static final String PUZZLE = "9 1 0 7 0 0 0 0 0 " +
+										 "0 3 2 6 0 9 0 8 0 " +
+										 "0 0 7 0 8 0 9 0 0 " +
+										 "0 8 6 0 3 0 1 7 0 " +
+										 "3 0 0 0 0 0 0 0 6 " +
+										 "0 5 1 0 2 0 8 4 0 " +
+										 "0 0 9 0 5 0 3 0 0 " +
+										 "0 2 0 3 0 1 4 9 0 " +
+										 "0 0 0 0 0 2 0 6 1";
+
+	@Test
+	void rankRoundTrips()
+	{
+		GridCodec codec = new GridCodec();
+		byte[] rank = new byte[GridCodec.WIDE_RANK_BYTES];
+		int[] decoded = new int[81];
+
+		for(int seed = 0; seed < 50; seed++)
+		{
+			int[] grid = values(randomGrid(seed));
+			int bytes = codec.writeRank(grid, rank, 0);
+
+			assertEquals(GridCodec.RANK_BYTES, bytes);
+			codec.readRank(rank, 0, bytes, decoded);
+			assertArrayEquals(grid, decoded);
+		}
+	}
+
+	/**
+	 * Test that the first grid in order, with every row as small as it can be, has rank 0.
+	 */
+	@Test
+	void smallestGridHasRankZero()
+	{
+		SudokuSolver solver = new SudokuSolver(new SudokuBoard());
+		assertTrue(solver.solve());
+
+		byte[] rank = new byte[GridCodec.WIDE_RANK_BYTES];
+		new GridCodec().writeRank(values(solver.getBoard()), rank, 0);
+
+		assertArrayEquals(new byte[GridCodec.WIDE_RANK_BYTES], rank);
+	}
+
+	@Test
+	void rejectInvalidSolution()
+	{
+		int[] grid = values(randomGrid(1));
+		grid[1] = grid[0];
+
+		assertThrows(IllegalArgumentException.class, () -> new GridCodec().writeRank(grid, new byte[12], 0));
+	}
+
+	@Test
+	void archiveRoundTrips() throws IOException
+	{
+		SudokuBoard puzzle = new SudokuBoard(PUZZLE);
+		SudokuSolver solver = new SudokuSolver(new SudokuBoard(puzzle));
+		assertTrue(solver.solve());
+		SudokuBoard solution = solver.getBoard();
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try(ArchiveWriter writer = new ArchiveWriter(bytes))
+		{
+			writer.writePuzzle(puzzle);
+			writer.writeSolved(puzzle, solution);
+			writer.writePuzzle(new SudokuBoard());
+		}
+
+		int clues = (int) Arrays.stream(values(puzzle)).filter(value -> value != 0).count();
+		int expected = ArchiveWriter.MAGIC.length + (1 + GridCodec.CLUE_MAP_BYTES + (clues + 1) / 2)
+				+ (1 + GridCodec.CLUE_MAP_BYTES + GridCodec.RANK_BYTES) + (1 + GridCodec.CLUE_MAP_BYTES);
+		assertEquals(expected, bytes.size());
+
+		try(ArchiveReader reader = new ArchiveReader(new ByteArrayInputStream(bytes.toByteArray())))
+		{
+			assertTrue(reader.next());
+			assertEquals(puzzle.getLayoutString(), reader.getPuzzle().getLayoutString());
+			assertNull(reader.getSolution());
+
+			assertTrue(reader.next());
+			assertEquals(puzzle.getLayoutString(), reader.getPuzzle().getLayoutString());
+			assertEquals(solution.getLayoutString(), reader.getSolution().getLayoutString());
+
+			assertTrue(reader.next());
+			assertEquals(new SudokuBoard().getLayoutString(), reader.getPuzzle().getLayoutString());
+
+			assertFalse(reader.next());
+		}
+	}
+
+	@Test
+	void rejectTruncatedArchive() throws IOException
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try(ArchiveWriter writer = new ArchiveWriter(bytes))
+		{
+			writer.writePuzzle(new SudokuBoard(PUZZLE));
+		}
+
+		byte[] truncated = Arrays.copyOf(bytes.toByteArray(), bytes.size() - 1);
+
+		try(ArchiveReader reader = new ArchiveReader(new ByteArrayInputStream(truncated)))
+		{
+			assertThrows(IOException.class, reader::next);
+		}
+	}
+
+	private static SudokuBoard randomGrid(long seed)
+	{
+		SudokuBoard board = new SudokuBoard();
+		SudokuSolver solver = new SudokuSolver(board, CellOrder.FEWEST_CANDIDATES, ValueOrder.RANDOM, seed);
+		assertTrue(solver.solve());
+
+		return solver.getBoard();
+	}
+
+	private static int[] values(SudokuBoard board)
+	{
+		int[] values = new int[81];
+
+		for(int square = 0; square < 81; square++)
+		{
+			values[square] = board.getValueAt(square);
+		}
+
+		return values;
+	}
+}
@@ -0,0 +1,279 @@
+package sudoku.batch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import sudoku.SudokuBoard;
+import sudoku.SudokuEngine;
+import sudoku.SudokuSolver;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchSchedulerTest {
+	private static final String PUZZLE = "9 1 0 7 0 0 0 0 0 " +
+										 "0 3 2 6 0 9 0 8 0 " +
+										 "0 0 7 0 8 0 9 0 0 " +
+										 "0 8 6 0 3 0 1 7 0 " +
+										 "3 0 0 0 0 0 0 0 6 " +
+										 "0 5 1 0 2 0 8 4 0 " +
+										 "0 0 9 0 5 0 3 0 0 " +
+										 "0 2 0 3 0 1 4 9 0 " +
+										 "0 0 0 0 0 2 0 6 1";
+
+	private static final String EMPTY = "0 0 0 0 0 0 0 0 0 " +
+										"0 0 0 0 0 0 0 0 0 " +
+										"0 0 0 0 0 0 0 0 0 " +
+										"0 0 0 0 0 0 0 0 0 " +
+										"0 0 0 0 0 0 0 0 0 " +
+										"0 0 0 0 0 0 0 0 0 " +
+										"0 0 0 0 0 0 0 0 0 " +
+										"0 0 0 0 0 0 0 0 0 " +
+										"0 0 0 0 0 0 0 0 0";
+
+	/**
+	 * Test that reordering the puzzles by cost still gives the results back in input order.
+	 */
+	@Test
+	@Timeout(60)
+	void solveAllInInputOrder() throws InterruptedException
+	{
+		List<String> lines = Arrays.asList(PUZZLE, "not a puzzle", EMPTY, PUZZLE.replaceFirst("9", "0"), PUZZLE);
+
+		try(BatchScheduler scheduler = new BatchScheduler(3, SudokuSolver::new))
+		{
+			String[] results = scheduler.solveAll(lines);
+
+			assertEquals(lines.size(), results.length);
+			for(int line = 0; line < lines.size(); line++)
+			{
+				assertEquals(BatchSolver.solveLine(lines.get(line), SudokuSolver::new), results[line]);
+			}
+			assertEquals(BatchSolver.INVALID, results[1]);
+			assertEquals(0, scheduler.getEscalations());
+		}
+	}
+
+	@Test
+	void estimateCostFromCluesAndCandidates()
+	{
+		SudokuBoard puzzle = new SudokuBoard(PUZZLE);
+		SudokuSolver solver = new SudokuSolver(puzzle);
+		assertTrue(solver.solve());
+
+		double solved = BatchScheduler.estimateCost(solver.getBoard());
+		double easy = BatchScheduler.estimateCost(puzzle);
+		double empty = BatchScheduler.estimateCost(new SudokuBoard(EMPTY));
+
+		assertEquals(0, solved);
+		assertTrue(easy < empty);
+		// 81 squares with 9 candidates each.
+		assertEquals(81 * (1 + Math.log(9) / Math.log(2)), empty, 1e-9);
+	}
+
+	/**
+	 * Test that a puzzle still being solved after the threshold is handed to the escalation engine.
+	 */
+	@Test
+	@Timeout(60)
+	void escalateSlowPuzzles() throws InterruptedException
+	{
+		try(BatchScheduler scheduler = new BatchScheduler(2, SleepingEngine::new))
+		{
+			scheduler.setEscalationThreshold(20);
+			scheduler.setEscalationEngine(SudokuSolver::new);
+
+			String[] results = scheduler.solveAll(Arrays.asList(PUZZLE, "not a puzzle"));
+
+			assertEquals(BatchSolver.solveLine(PUZZLE, SudokuSolver::new), results[0]);
+			assertEquals(BatchSolver.INVALID, results[1]);
+			assertEquals(1, scheduler.getEscalations());
+			assertFalse(Thread.currentThread().isInterrupted());
+		}
+	}
+
+	/**
+	 * Test that puzzles submitted while a slow one is being solved are finished without waiting for it.
+	 */
+	@Test
+	@Timeout(60)
+	void solvePastSlowPuzzle() throws InterruptedException
+	{
+		String slowLine = PUZZLE.replaceFirst("9", "0");
+		String slowLayout = new SudokuBoard(slowLine).getLayoutString();
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+
+		try(BatchScheduler scheduler = new BatchScheduler(2, board -> board.getLayoutString().equals(slowLayout)
+				? new GatedEngine(board, started, release) : new SudokuSolver(board)))
+		{
+			scheduler.setEscalationThreshold(60_000);
+			BatchScheduler.Submission slow = scheduler.submit(slowLine);
+			started.await();
+
+			for(String line : Arrays.asList(PUZZLE, EMPTY, "not a puzzle", PUZZLE))
+			{
+				assertEquals(BatchSolver.solveLine(line, SudokuSolver::new), scheduler.submit(line).awaitResult());
+			}
+			assertEquals(1, release.getCount());
+
+			release.countDown();
+			assertEquals(BatchSolver.solveLine(slowLine, SudokuSolver::new), slow.awaitResult());
+		}
+	}
+
+	/**
+	 * Test that a thread interrupted while waiting for a result, or while solving a puzzle itself, gets an
+	 * InterruptedException rather than the puzzle being answered as unsolvable, and that the puzzle is still solved.
+	 */
+	@Test
+	@Timeout(60)
+	void handBackPuzzleWhenInterrupted() throws InterruptedException
+	{
+		String slowLine = PUZZLE.replaceFirst("9", "0");
+		String slowLayout = new SudokuBoard(slowLine).getLayoutString();
+		String sleepyLayout = new SudokuBoard(PUZZLE).getLayoutString();
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger sleeps = new AtomicInteger();
+
+		// The only worker is held up by one puzzle, so this thread has to solve the other itself, and the first time
+		// it does so it's interrupted.
+		Function<SudokuBoard, SudokuEngine> engine = board -> {
+			if(board.getLayoutString().equals(slowLayout))
+			{
+				return new GatedEngine(board, started, release);
+			}
+			if(board.getLayoutString().equals(sleepyLayout) && sleeps.getAndIncrement() == 0)
+			{
+				Thread.currentThread().interrupt();
+				return new SleepingEngine(board);
+			}
+			return new SudokuSolver(board);
+		};
+
+		try(BatchScheduler scheduler = new BatchScheduler(1, engine))
+		{
+			scheduler.setEscalationThreshold(60_000);
+			BatchScheduler.Submission slow = scheduler.submit(slowLine);
+			started.await();
+
+			BatchScheduler.Submission sleepy = scheduler.submit(PUZZLE);
+			Thread.currentThread().interrupt();
+			assertThrows(InterruptedException.class, sleepy::awaitResult);
+			assertEquals(0, sleeps.get());
+
+			assertThrows(InterruptedException.class, sleepy::awaitResult);
+			assertFalse(Thread.currentThread().isInterrupted());
+			assertEquals(1, sleeps.get());
+
+			assertEquals(BatchSolver.solveLine(PUZZLE, SudokuSolver::new), sleepy.awaitResult());
+			release.countDown();
+			assertEquals(BatchSolver.solveLine(slowLine, SudokuSolver::new), slow.awaitResult());
+			assertEquals(0, scheduler.getEscalations());
+		}
+	}
+
+	/**
+	 * Test that closing waits for the workers to stop.
+	 */
+	@Test
+	@Timeout(60)
+	void joinWorkersOnClose() throws InterruptedException
+	{
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch never = new CountDownLatch(1);
+		BatchScheduler scheduler = new BatchScheduler(2, board -> new GatedEngine(board, started, never));
+		BatchScheduler.Submission stuck = scheduler.submit(PUZZLE);
+		started.await();
+
+		scheduler.close();
+
+		for(Thread thread : Thread.getAllStackTraces().keySet())
+		{
+			assertFalse(thread.isAlive() && thread.getName().startsWith("sudoku-batch-")
+					&& !thread.getName().equals("sudoku-batch-watchdog"), thread.getName());
+		}
+		assertThrows(CancellationException.class, stuck::awaitResult);
+	}
+
+	/**
+	 * An engine that waits to be let go before solving its puzzle.
+	 */
+	private static class GatedEngine implements SudokuEngine
+	{
+		private final SudokuSolver solver;
+		private final CountDownLatch started;
+		private final CountDownLatch release;
+
+		GatedEngine(SudokuBoard board, CountDownLatch started, CountDownLatch release)
+		{
+			this.solver = new SudokuSolver(board);
+			this.started = started;
+			this.release = release;
+		}
+
+		@Override
+		public boolean solve()
+		{
+			started.countDown();
+
+			try
+			{
+				release.await();
+			}
+			catch(InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				return false;
+			}
+
+			return solver.solve();
+		}
+
+		@Override
+		public SudokuBoard getBoard()
+		{
+			return solver.getBoard();
+		}
+	}
+
+	/**
+	 * An engine that takes ten seconds unless it's interrupted.
+	 */
+	private static class SleepingEngine implements SudokuEngine
+	{
+		private final SudokuBoard board;
+
+		SleepingEngine(SudokuBoard board)
+		{
+			this.board = board;
+		}
+
+		@Override
+		public boolean solve()
+		{
+			try
+			{
+				Thread.sleep(10_000);
+			}
+			catch(InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+
+			return false;
+		}
+
+		@Override
+		public SudokuBoard getBoard()
+		{
+			return board;
+		}
+	}
+}
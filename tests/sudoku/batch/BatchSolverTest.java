@@ -0,0 +1,153 @@
+package sudoku.batch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import sudoku.SudokuSolver;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchSolverTest {
+	private static final String PUZZLE = "9 1 0 7 0 0 0 0 0 " +
+										 "0 3 2 6 0 9 0 8 0 " +
+										 "0 0 7 0 8 0 9 0 0 " +
+										 "0 8 6 0 3 0 1 7 0 " +
+										 "3 0 0 0 0 0 0 0 6 " +
+										 "0 5 1 0 2 0 8 4 0 " +
+										 "0 0 9 0 5 0 3 0 0 " +
+										 "0 2 0 3 0 1 4 9 0 " +
+										 "0 0 0 0 0 2 0 6 1";
+
+	private static final String INVALID_PUZZLE = "1 1 0 0 0 0 0 0 0 " +
+												 "0 0 0 0 0 0 0 0 0 " +
+												 "0 0 0 0 0 0 0 0 0 " +
+												 "0 0 0 0 0 0 0 0 0 " +
+												 "0 0 0 0 0 0 0 0 0 " +
+												 "0 0 0 0 0 0 0 0 0 " +
+												 "0 0 0 0 0 0 0 0 0 " +
+												 "0 0 0 0 0 0 0 0 0 " +
+												 "0 0 0 0 0 0 0 0 0";
+
+	@TempDir
+	Path directory;
+
+	/**
+	 * Test that every puzzle in the input gets exactly one line of output, in the same order.
+	 */
+	@Test
+	void solveWholeBatch() throws IOException, InterruptedException
+	{
+		Path input = writeInput(PUZZLE, INVALID_PUZZLE, PUZZLE);
+		Path output = directory.resolve("output.txt");
+
+		BatchSolver batch = new BatchSolver(input, output, directory.resolve("checkpoint"));
+		batch.setThreads(2);
+		BatchCheckpoint result = batch.run();
+
+		List<String> lines = Files.readAllLines(output);
+
+		assertEquals(3, result.getPuzzlesCompleted());
+		assertEquals(Files.size(input), result.getInputOffset());
+		assertEquals(3, lines.size());
+		assertEquals(BatchSolver.INVALID, lines.get(1));
+		assertEquals(lines.get(0), lines.get(2));
+		assertFalse(lines.get(0).contains("0"));
+	}
+
+	/**
+	 * Test that resuming after a crash drops output written after the checkpoint, and doesn't solve the puzzles before
+	 * it again.
+	 */
+	@Test
+	void resumeFromCheckpointWithoutDuplicates() throws IOException, InterruptedException
+	{
+		Path input = writeInput(PUZZLE, INVALID_PUZZLE, PUZZLE, INVALID_PUZZLE);
+		Path output = directory.resolve("output.txt");
+		Path checkpoint = directory.resolve("checkpoint");
+
+		// Pretend a previous run completed the first two puzzles, then crashed part way through writing the third.
+		String solution = BatchSolver.solveLine(PUZZLE, SudokuSolver::new);
+		long secondLineEnd = (PUZZLE + "\n" + INVALID_PUZZLE + "\n").length();
+		String written = solution + "\n" + BatchSolver.INVALID + "\n";
+		Files.write(output, (written + "garbage from a crash").getBytes(StandardCharsets.US_ASCII));
+		new BatchCheckpoint(secondLineEnd, 2, written.length()).write(checkpoint);
+
+		BatchCheckpoint result = new BatchSolver(input, output, checkpoint).run();
+
+		assertEquals(4, result.getPuzzlesCompleted());
+		assertEquals(Arrays.asList(solution, BatchSolver.INVALID, solution, BatchSolver.INVALID),
+				Files.readAllLines(output));
+		assertEquals(result.getOutputLength(), Files.size(output));
+	}
+
+	/**
+	 * Test that running a batch which has already finished doesn't change the output.
+	 */
+	@Test
+	void rerunCompletedBatch() throws IOException, InterruptedException
+	{
+		Path input = writeInput(PUZZLE);
+		Path output = directory.resolve("output.txt");
+		Path checkpoint = directory.resolve("checkpoint");
+
+		new BatchSolver(input, output, checkpoint).run();
+		List<String> firstRun = Files.readAllLines(output);
+		new BatchSolver(input, output, checkpoint).run();
+
+		assertEquals(firstRun, Files.readAllLines(output));
+	}
+
+	/**
+	 * Test that a fresh run doesn't replace output that's already there unless it's told to.
+	 */
+	@Test
+	void keepExistingOutputWithoutCheckpoint() throws IOException, InterruptedException
+	{
+		Path input = writeInput(PUZZLE);
+		Path output = directory.resolve("output.txt");
+		Path checkpoint = directory.resolve("checkpoint");
+		Files.write(output, "results of another batch\n".getBytes(StandardCharsets.US_ASCII));
+
+		BatchSolver batch = new BatchSolver(input, output, checkpoint);
+
+		assertThrows(FileAlreadyExistsException.class, batch::run);
+		assertEquals(Arrays.asList("results of another batch"), Files.readAllLines(output));
+
+		batch.setOverwrite(true);
+		batch.run();
+
+		assertEquals(Arrays.asList(BatchSolver.solveLine(PUZZLE, SudokuSolver::new)), Files.readAllLines(output));
+	}
+
+	/**
+	 * Test that a checkpoint survives being written and read back.
+	 */
+	@Test
+	void checkpointRoundTrip() throws IOException
+	{
+		Path checkpoint = directory.resolve("checkpoint");
+
+		new BatchCheckpoint(1234, 5, 678).write(checkpoint);
+		BatchCheckpoint read = BatchCheckpoint.read(checkpoint);
+
+		assertEquals(1234, read.getInputOffset());
+		assertEquals(5, read.getPuzzlesCompleted());
+		assertEquals(678, read.getOutputLength());
+	}
+
+	private Path writeInput(String... puzzles) throws IOException
+	{
+		Path input = directory.resolve("input.txt");
+		Files.write(input, Arrays.asList(puzzles), StandardCharsets.US_ASCII, StandardOpenOption.CREATE);
+
+		return input;
+	}
+}
@@ -0,0 +1,211 @@
+package sudoku.bench;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+import sudoku.SolutionCounter;
+import sudoku.SudokuBoard;
+import sudoku.SudokuEngine;
+import sudoku.SudokuEngines;
+import sudoku.SudokuSolver;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdversarialSearchTest {
+	@TempDir
+	Path directory;
+
+	/**
+	 * Test that climbing finds puzzles at least as hard as the ones the walkers start from, and that every puzzle found
+	 * still has exactly one solution.
+	 */
+	@Test
+	@Timeout(120)
+	void climbFromStartingPuzzles() throws Exception
+	{
+		List<AdversarialSearch.Finding> start = search(0).run();
+		List<AdversarialSearch.Finding> found = search(20).run();
+
+		assertEquals(2, start.size());
+		assertEquals(5, found.size());
+		assertTrue(found.get(0).getEffort() >= start.get(0).getEffort());
+
+		for(int rank = 0; rank < found.size(); rank++)
+		{
+			AdversarialSearch.Finding finding = found.get(rank);
+			SudokuSolver solver = new SudokuSolver(finding.getPuzzle());
+
+			assertTrue(new SolutionCounter().hasUniqueSolution(finding.getPuzzle()));
+			assertTrue(solver.solve());
+			assertEquals(finding.getEffort(), AdversarialSearch.effortOf(solver, 0));
+			assertFalse(finding.isTimedOut());
+
+			if(rank > 0)
+			{
+				assertTrue(found.get(rank - 1).getEffort() >= finding.getEffort());
+			}
+		}
+	}
+
+	@Test
+	@Timeout(60)
+	void writeReadableCorpus() throws Exception
+	{
+		List<AdversarialSearch.Finding> found = search(5).run();
+		Path corpus = directory.resolve("adversarial.txt");
+
+		AdversarialSearch.writeCorpus(corpus, found);
+		List<SudokuBoard> read = CorpusBenchmark.readCorpus(corpus);
+
+		assertEquals(found.size(), read.size());
+		for(int puzzle = 0; puzzle < read.size(); puzzle++)
+		{
+			assertEquals(found.get(puzzle).getPuzzle().getLayoutString(), read.get(puzzle).getLayoutString());
+		}
+	}
+
+	/**
+	 * Test that a solve over the time limit counts as the most effort possible.
+	 */
+	@Test
+	@Timeout(60)
+	void stopAtTimeLimit() throws Exception
+	{
+		AdversarialSearch search = new AdversarialSearch(SleepingEngine::new);
+		search.setThreads(1);
+		search.setIterations(0);
+		search.setTimeLimit(50);
+		search.setSeed(3);
+
+		List<AdversarialSearch.Finding> found = search.run();
+
+		assertEquals(1, found.size());
+		assertTrue(found.get(0).isTimedOut());
+	}
+
+	/**
+	 * Test that an engine which ignores being interrupted only times out on the puzzle it's stuck on, rather than every
+	 * later solve waiting behind it.
+	 */
+	@Test
+	@Timeout(60)
+	void keepSolvingPastStuckEngine() throws Exception
+	{
+		StubbornEngine.solves.set(0);
+		AdversarialSearch search = new AdversarialSearch(StubbornEngine::new);
+		search.setThreads(1);
+		search.setIterations(5);
+		search.setCorpusSize(10);
+		search.setTimeLimit(200);
+		search.setSeed(3);
+
+		List<AdversarialSearch.Finding> found = search.run();
+
+		assertTrue(found.get(0).isTimedOut());
+		for(int rank = 1; rank < found.size(); rank++)
+		{
+			assertFalse(found.get(rank).isTimedOut());
+		}
+	}
+
+	private static AdversarialSearch search(int iterations)
+	{
+		AdversarialSearch search = new AdversarialSearch(SudokuEngines.get("backtracking"));
+		search.setThreads(2);
+		search.setIterations(iterations);
+		search.setCorpusSize(5);
+		search.setTimeLimit(10_000);
+		search.setSeed(1);
+
+		return search;
+	}
+
+	/**
+	 * An engine that ignores interrupts and takes two seconds over the first puzzle, and no time over the rest.
+	 */
+	private static class StubbornEngine implements SudokuEngine
+	{
+		static final AtomicInteger solves = new AtomicInteger();
+
+		private final SudokuBoard board;
+
+		StubbornEngine(SudokuBoard board)
+		{
+			this.board = board;
+		}
+
+		@Override
+		public boolean solve()
+		{
+			if(solves.getAndIncrement() == 0)
+			{
+				long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+				boolean interrupted = false;
+
+				while(System.nanoTime() < end)
+				{
+					try
+					{
+						Thread.sleep(10);
+					}
+					catch(InterruptedException e)
+					{
+						interrupted = true;
+					}
+				}
+
+				if(interrupted)
+				{
+					Thread.currentThread().interrupt();
+				}
+			}
+
+			return false;
+		}
+
+		@Override
+		public SudokuBoard getBoard()
+		{
+			return board;
+		}
+	}
+
+	/**
+	 * An engine that takes ten seconds unless it's interrupted.
+	 */
+	private static class SleepingEngine implements SudokuEngine
+	{
+		private final SudokuBoard board;
+
+		SleepingEngine(SudokuBoard board)
+		{
+			this.board = board;
+		}
+
+		@Override
+		public boolean solve()
+		{
+			try
+			{
+				Thread.sleep(10_000);
+			}
+			catch(InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+
+			return false;
+		}
+
+		@Override
+		public SudokuBoard getBoard()
+		{
+			return board;
+		}
+	}
+}
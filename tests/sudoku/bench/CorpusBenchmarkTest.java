@@ -0,0 +1,83 @@
+package sudoku.bench;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import sudoku.SudokuBoard;
+import sudoku.SudokuSolver;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CorpusBenchmarkTest {
+	private static final String LAYOUT = "9 1 0 7 0 0 0 0 0 " +
+										 "0 3 2 6 0 9 0 8 0 " +
+										 "0 0 7 0 8 0 9 0 0 " +
+										 "0 8 6 0 3 0 1 7 0 " +
+										 "3 0 0 0 0 0 0 0 6 " +
+										 "0 5 1 0 2 0 8 4 0 " +
+										 "0 0 9 0 5 0 3 0 0 " +
+										 "0 2 0 3 0 1 4 9 0 " +
+										 "0 0 0 0 0 2 0 6 1 ";
+
+	@Test
+	void reportPercentilesForEachEngine()
+	{
+		CorpusBenchmark benchmark = new CorpusBenchmark(Collections.nCopies(20, new SudokuBoard(LAYOUT)), 5);
+		CorpusBenchmark.Result result = benchmark.run("backtracking", SudokuSolver::new);
+
+		Map<String, String> values = CorpusBenchmark.toValues(Collections.singletonList(result));
+
+		assertEquals("20", values.get("backtracking.count"));
+		assertEquals("0", values.get("backtracking.unsolved"));
+		assertTrue(values.containsKey("backtracking.p50_ns"));
+		assertTrue(values.containsKey("backtracking.p99_9_ns"));
+		assertTrue(values.containsKey("backtracking.max_ns"));
+		assertTrue(values.get("backtracking.slowest.0").startsWith(result.getSlowest().get(0)[0] + 1 + " "));
+		assertEquals(10, result.getSlowest().size());
+	}
+
+	/**
+	 * Test that a blank line is rejected, as it would throw off the line numbers of the slowest puzzles.
+	 */
+	@Test
+	void rejectBlankLineInCorpus(@TempDir Path directory) throws IOException
+	{
+		Path corpus = directory.resolve("corpus.txt");
+		Files.write(corpus, Arrays.asList(LAYOUT, LAYOUT), StandardCharsets.US_ASCII);
+		assertEquals(2, CorpusBenchmark.readCorpus(corpus).size());
+
+		Files.write(corpus, Arrays.asList(LAYOUT, "", LAYOUT), StandardCharsets.US_ASCII);
+		IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+				() -> CorpusBenchmark.readCorpus(corpus));
+		assertTrue(e.getMessage().startsWith("Line 2 "));
+	}
+
+	@Test
+	void detectRegressionAgainstBaseline()
+	{
+		Properties baseline = new Properties();
+		baseline.setProperty("sat.p50_ns", "1000");
+		baseline.setProperty("sat.p99_ns", "5000");
+		baseline.setProperty("sat.count", "1");
+
+		Map<String, String> current = new TreeMap<>();
+		current.put("sat.p50_ns", "1050");
+		current.put("sat.p99_ns", "9000");
+		current.put("sat.count", "100");
+
+		List<String> regressions = CorpusBenchmark.findRegressions(current, baseline, 0.1);
+
+		assertEquals(1, regressions.size());
+		assertTrue(regressions.get(0).startsWith("sat.p99_ns"));
+	}
+}
@@ -0,0 +1,76 @@
+package sudoku.bench;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+	@Test
+	void reportExactSmallValues()
+	{
+		LatencyHistogram histogram = new LatencyHistogram();
+
+		for(int value = 1; value <= 100; value++)
+		{
+			histogram.record(value);
+		}
+
+		assertEquals(50, histogram.getValueAtPercentile(50));
+		assertEquals(99, histogram.getValueAtPercentile(99));
+		assertEquals(100, histogram.getValueAtPercentile(100));
+		assertEquals(1, histogram.getMin());
+		assertEquals(100, histogram.getMax());
+	}
+
+	/**
+	 * Test that large values are reported to within the histogram's precision.
+	 */
+	@Test
+	void reportLargeValuesWithinPrecision()
+	{
+		LatencyHistogram histogram = new LatencyHistogram();
+
+		for(long value = 1; value <= 100000; value++)
+		{
+			histogram.record(value * 1000);
+		}
+
+		assertEquals(50_000_000, histogram.getValueAtPercentile(50), 50_000_000 * 0.016);
+		assertEquals(99_900_000, histogram.getValueAtPercentile(99.9), 99_900_000 * 0.016);
+		assertEquals(100_000_000, histogram.getValueAtPercentile(100));
+	}
+
+	/**
+	 * Test that every bucket's range starts just after the previous one ends.
+	 */
+	@Test
+	void bucketsAreContiguous()
+	{
+		for(int bucket = 1; bucket < 2000; bucket++)
+		{
+			long start = LatencyHistogram.highestValueIn(bucket - 1) + 1;
+
+			assertEquals(bucket, LatencyHistogram.bucketOf(start));
+			assertEquals(bucket, LatencyHistogram.bucketOf(LatencyHistogram.highestValueIn(bucket)));
+		}
+
+		assertEquals(LatencyHistogram.bucketOf(Long.MAX_VALUE), LatencyHistogram.bucketOf(Long.MAX_VALUE - 1));
+	}
+
+	@Test
+	void mergeHistograms()
+	{
+		LatencyHistogram first = new LatencyHistogram();
+		LatencyHistogram second = new LatencyHistogram();
+
+		first.record(10);
+		second.record(20);
+		first.merge(second);
+
+		assertEquals(2, first.getCount());
+		assertEquals(10, first.getMin());
+		assertEquals(20, first.getMax());
+		assertEquals(15, first.getMean());
+	}
+}
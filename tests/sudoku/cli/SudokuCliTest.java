@@ -0,0 +1,103 @@
+package sudoku.cli;
+
+import org.junit.jupiter.api.Test;
+import sudoku.SolutionCounter;
+import sudoku.SudokuBoard;
+import sudoku.batch.BatchSolver;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SudokuCliTest {
+	private static final String PUZZLE = "9 1 0 7 0 0 0 0 0 " +
+										 "0 3 2 6 0 9 0 8 0 " +
+										 "0 0 7 0 8 0 9 0 0 " +
+										 "0 8 6 0 3 0 1 7 0 " +
+										 "3 0 0 0 0 0 0 0 6 " +
+										 "0 5 1 0 2 0 8 4 0 " +
+										 "0 0 9 0 5 0 3 0 0 " +
+										 "0 2 0 3 0 1 4 9 0 " +
+										 "0 0 0 0 0 2 0 6 1";
+
+	private static final String EMPTY = new SudokuBoard().getLayoutString().trim();
+
+	private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+	private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+	/**
+	 * Test that puzzles read from the input are solved in order, and that an invalid one makes the status 1.
+	 */
+	@Test
+	void solvePuzzlesFromInput() throws InterruptedException
+	{
+		int status = run(PUZZLE + "\n\nnot a puzzle\n", "solve", "--engine", "sat");
+		String[] lines = output();
+
+		assertEquals(1, status);
+		assertEquals(2, lines.length);
+		assertTrue(new SudokuBoard(lines[0]).isValidAndComplete());
+		assertEquals(BatchSolver.INVALID, lines[1]);
+	}
+
+	@Test
+	void validatePuzzlesFromArguments() throws InterruptedException
+	{
+		int status = run("", "validate", PUZZLE, EMPTY);
+
+		assertEquals(1, status);
+		assertArrayEquals(new String[] {SudokuCli.VALID, SudokuCli.MULTIPLE_SOLUTIONS}, output());
+	}
+
+	/**
+	 * Test that generated puzzles have unique solutions and that the same seed gives the same puzzles.
+	 */
+	@Test
+	void generateFromSeed() throws InterruptedException
+	{
+		assertEquals(0, run("", "generate", "--count", "2", "--seed", "5"));
+		String[] first = output();
+		out.reset();
+
+		assertEquals(0, run("", "generate", "--seed", "5", "--count", "2"));
+		assertArrayEquals(first, output());
+		assertEquals(2, first.length);
+
+		for(String puzzle : first)
+		{
+			assertTrue(new SolutionCounter().hasUniqueSolution(new SudokuBoard(puzzle)));
+		}
+	}
+
+	@Test
+	void countCompletions() throws InterruptedException
+	{
+		assertEquals(0, run(PUZZLE + "\n", "count"));
+		assertArrayEquals(new String[] {"1"}, output());
+	}
+
+	@Test
+	void rejectBadArguments() throws InterruptedException
+	{
+		assertEquals(2, run(""));
+		assertEquals(2, run("", "unknown"));
+		assertEquals(2, run("", "solve", "--engine"));
+		assertEquals(2, run("", "generate", "--count", "many"));
+		assertTrue(err.toString().contains("Usage"));
+	}
+
+	private int run(String input, String... args) throws InterruptedException
+	{
+		return SudokuCli.run(args, new BufferedReader(new StringReader(input)), new PrintStream(out, true),
+				new PrintStream(err, true));
+	}
+
+	private String[] output()
+	{
+		return new String(out.toByteArray(), StandardCharsets.US_ASCII).trim().split("\\R");
+	}
+}
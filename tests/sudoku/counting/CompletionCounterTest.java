@@ -0,0 +1,154 @@
+package sudoku.counting;
+
+import org.junit.jupiter.api.Test;
+import sudoku.SolutionCounter;
+import sudoku.SudokuBoard;
+import sudoku.SudokuSolver;
+import sudoku.SudokuSolver.CellOrder;
+import sudoku.SudokuSolver.ValueOrder;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompletionCounterTest {
+	private static final String PUZZLE = "9 1 0 7 0 0 0 0 0 " +
+										 "0 3 2 6 0 9 0 8 0 " +
+										 "0 0 7 0 8 0 9 0 0 " +
+										 "0 8 6 0 3 0 1 7 0 " +
+										 "3 0 0 0 0 0 0 0 6 " +
+										 "0 5 1 0 2 0 8 4 0 " +
+										 "0 0 9 0 5 0 3 0 0 " +
+										 "0 2 0 3 0 1 4 9 0 " +
+										 "0 0 0 0 0 2 0 6 1";
+
+	private static final String SCATTERED = "0 0 0 0 6 0 0 0 0 " +
+											"0 0 5 0 0 8 0 0 0 " +
+											"0 0 2 0 0 0 0 8 0 " +
+											"0 9 0 0 4 0 2 1 0 " +
+											"1 3 6 0 0 0 0 5 0 " +
+											"5 0 0 0 0 0 0 0 0 " +
+											"2 0 9 6 0 1 0 0 0 " +
+											"0 0 0 7 0 0 5 0 1 " +
+											"0 0 1 0 0 0 0 9 0";
+
+	private final SudokuBoard grid = randomGrid(7);
+
+	@Test
+	void countUniquePuzzle() throws InterruptedException
+	{
+		assertEquals(BigInteger.ONE, new CompletionCounter().count(new SudokuBoard(PUZZLE)));
+	}
+
+	/**
+	 * Test that counting matches enumerating every completion, for boards with the last few rows emptied.
+	 */
+	@Test
+	void matchEnumeration() throws InterruptedException
+	{
+		for(int kept : new int[] {54, 45, 40, 36})
+		{
+			SudokuBoard board = keepSquares(grid, kept);
+
+			assertEquals(BigInteger.valueOf(new SolutionCounter().count(board, Integer.MAX_VALUE)),
+					new CompletionCounter(2).count(board));
+		}
+	}
+
+	/**
+	 * Test that swapping two stacks of clues gives the same count, although the states are merged differently.
+	 */
+	@Test
+	void countIsSymmetric() throws InterruptedException
+	{
+		SudokuBoard board = keepSquares(grid, 33);
+		SudokuBoard swapped = new SudokuBoard();
+
+		for(int square = 0; square < 81; square++)
+		{
+			int column = square % 9;
+			int swappedColumn = column < 3 ? column + 6 : column >= 6 ? column - 6 : column;
+
+			swapped.setValueAt(square - column + swappedColumn, board.getValueAt(square));
+		}
+
+		CompletionCounter counter = new CompletionCounter(1);
+
+		assertEquals(counter.count(board), counter.count(swapped));
+		assertTrue(counter.getLargestLayer() > 0);
+	}
+
+	/**
+	 * Test boards with about 30 clues scattered over the whole grid, where clues below the current row have to be used
+	 * to keep the layers small.
+	 */
+	@Test
+	void countScatteredClues() throws InterruptedException
+	{
+		SudokuBoard scattered = new SudokuBoard(SCATTERED);
+		CompletionCounter counter = new CompletionCounter(2);
+
+		assertEquals(BigInteger.valueOf(57404), counter.count(scattered));
+		assertTrue(counter.getLargestLayer() < 200_000);
+
+		Random random = new Random(3);
+		for(int board = 0; board < 3; board++)
+		{
+			SudokuBoard clues = new SudokuBoard();
+			for(int square = 0; square < 81; square++)
+			{
+				if(random.nextInt(81) < 30)
+				{
+					clues.setValueAt(square, grid.getValueAt(square));
+				}
+			}
+
+			assertEquals(BigInteger.valueOf(new SolutionCounter().count(clues, Integer.MAX_VALUE)),
+					counter.count(clues));
+		}
+	}
+
+	/**
+	 * Test that a layer growing past the limit falls back to enumerating the completions.
+	 */
+	@Test
+	void enumerateWhenLayersGrowTooLarge() throws InterruptedException
+	{
+		CompletionCounter counter = new CompletionCounter(2);
+		counter.setMaxLayer(100);
+
+		assertEquals(BigInteger.valueOf(57404), counter.count(new SudokuBoard(SCATTERED)));
+		assertThrows(IllegalArgumentException.class, () -> counter.setMaxLayer(0));
+	}
+
+	@Test
+	void countInvalidBoard() throws InterruptedException
+	{
+		SudokuBoard board = new SudokuBoard();
+		board.setValueAt(0, 1);
+		board.setValueAt(1, 1);
+
+		assertEquals(BigInteger.ZERO, new CompletionCounter().count(board));
+	}
+
+	private static SudokuBoard keepSquares(SudokuBoard grid, int kept)
+	{
+		SudokuBoard board = new SudokuBoard(grid);
+
+		for(int square = kept; square < 81; square++)
+		{
+			board.setValueAt(square, 0);
+		}
+
+		return board;
+	}
+
+	private static SudokuBoard randomGrid(long seed)
+	{
+		SudokuSolver solver = new SudokuSolver(new SudokuBoard(), CellOrder.FEWEST_CANDIDATES, ValueOrder.RANDOM, seed);
+		assertTrue(solver.solve());
+
+		return solver.getBoard();
+	}
+}
@@ -0,0 +1,269 @@
+package sudoku.distributed;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import sudoku.SudokuSolver;
+import sudoku.batch.BatchSolver;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardCoordinatorTest {
+	private static final String PUZZLE = "9 1 0 7 0 0 0 0 0 " +
+										 "0 3 2 6 0 9 0 8 0 " +
+										 "0 0 7 0 8 0 9 0 0 " +
+										 "0 8 6 0 3 0 1 7 0 " +
+										 "3 0 0 0 0 0 0 0 6 " +
+										 "0 5 1 0 2 0 8 4 0 " +
+										 "0 0 9 0 5 0 3 0 0 " +
+										 "0 2 0 3 0 1 4 9 0 " +
+										 "0 0 0 0 0 2 0 6 1";
+
+	private static final String UNSOLVABLE_PUZZLE = "0 2 3 4 5 6 7 8 9 " +
+													"1 0 0 0 0 0 0 0 0 " +
+													"0 0 0 0 0 0 0 0 0 " +
+													"0 0 0 0 0 0 0 0 0 " +
+													"0 0 0 0 0 0 0 0 0 " +
+													"0 0 0 0 0 0 0 0 0 " +
+													"0 0 0 0 0 0 0 0 0 " +
+													"0 0 0 0 0 0 0 0 0 " +
+													"0 0 0 0 0 0 0 0 0";
+
+	@TempDir
+	Path directory;
+
+	/**
+	 * Test that several workers together produce the same output, in the same order, as solving each line locally.
+	 */
+	@Test
+	void mergeShardsInOrder() throws Exception
+	{
+		List<String> puzzles = puzzles(7);
+		Path input = write(puzzles);
+		Path output = directory.resolve("output.txt");
+
+		ShardCoordinator coordinator = new ShardCoordinator(input, output, 2, 0);
+		ExecutorService workers = Executors.newFixedThreadPool(3);
+
+		try
+		{
+			List<Future<Integer>> shardsSolved = new ArrayList<>();
+			for(int worker = 0; worker < 3; worker++)
+			{
+				shardsSolved.add(workers.submit(() -> new ShardWorker("localhost", coordinator.getPort()).run()));
+			}
+
+			assertEquals(7, coordinator.run());
+
+			int total = 0;
+			for(Future<Integer> solved : shardsSolved)
+			{
+				total += solved.get(10, TimeUnit.SECONDS);
+			}
+			assertEquals(4, total);
+		}
+		finally
+		{
+			workers.shutdownNow();
+		}
+
+		assertEquals(expected(puzzles), Files.readAllLines(output));
+	}
+
+	/**
+	 * Test that the shard of a worker which disconnects without answering is given to another worker.
+	 */
+	@Test
+	void reassignShardOfDeadWorker() throws Exception
+	{
+		List<String> puzzles = puzzles(4);
+		Path input = write(puzzles);
+		Path output = directory.resolve("output.txt");
+
+		ShardCoordinator coordinator = new ShardCoordinator(input, output, 2, 0);
+		ExecutorService threads = Executors.newCachedThreadPool();
+
+		try
+		{
+			Future<Long> solved = threads.submit(coordinator::run);
+
+			// This worker takes the first shard and then dies before answering.
+			try(Socket socket = new Socket("localhost", coordinator.getPort()))
+			{
+				DataInputStream in = new DataInputStream(socket.getInputStream());
+				assertEquals(Protocol.ASSIGN, in.readInt());
+				assertEquals(0, in.readInt());
+			}
+
+			assertEquals(2, (int) threads.submit(() -> new ShardWorker("localhost", coordinator.getPort()).run())
+					.get(10, TimeUnit.SECONDS));
+			assertEquals(4, (long) solved.get(10, TimeUnit.SECONDS));
+		}
+		finally
+		{
+			threads.shutdownNow();
+		}
+
+		assertEquals(expected(puzzles), Files.readAllLines(output));
+	}
+
+	/**
+	 * Test that every worker has been sent DONE by the time run returns, so a worker that only reads it afterwards,
+	 * when the coordinator's JVM may already have exited, still finishes cleanly.
+	 */
+	@Test
+	void tellWorkersDoneBeforeReturning() throws Exception
+	{
+		List<String> puzzles = puzzles(3);
+		Path input = write(puzzles);
+		Path output = directory.resolve("output.txt");
+
+		ShardCoordinator coordinator = new ShardCoordinator(input, output, 3, 0);
+		ExecutorService threads = Executors.newCachedThreadPool();
+
+		try(Socket socket = new Socket("localhost", coordinator.getPort()))
+		{
+			Future<Long> solved = threads.submit(coordinator::run);
+			DataInputStream in = new DataInputStream(socket.getInputStream());
+			DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+
+			assertEquals(Protocol.ASSIGN, in.readInt());
+			assertEquals(0, in.readInt());
+			assertEquals(puzzles, Protocol.readLines(in));
+			Protocol.writeLines(out, Protocol.RESULT, 0, expected(puzzles));
+
+			assertEquals(3, (long) solved.get(10, TimeUnit.SECONDS));
+
+			// Nothing of the coordinator's is left running to send it later.
+			for(Thread thread : Thread.getAllStackTraces().keySet())
+			{
+				assertFalse(thread.isAlive() && thread.getName().startsWith("shard-coordinator"), thread.getName());
+			}
+
+			assertEquals(Protocol.DONE, in.readInt());
+			assertEquals(-1, in.read());
+		}
+		finally
+		{
+			threads.shutdownNow();
+		}
+
+		assertEquals(expected(puzzles), Files.readAllLines(output));
+	}
+
+	/**
+	 * Test that a line too long for writeUTF still reaches the worker, which answers it as invalid.
+	 */
+	@Test
+	void sendLongLines() throws Exception
+	{
+		List<String> puzzles = Arrays.asList(PUZZLE, String.join("", Collections.nCopies(70_000, "0 ")), PUZZLE);
+		Path input = write(puzzles);
+		Path output = directory.resolve("output.txt");
+
+		ShardCoordinator coordinator = new ShardCoordinator(input, output, 3, 0);
+		ExecutorService threads = Executors.newCachedThreadPool();
+
+		try
+		{
+			Future<Integer> worker = threads.submit(() -> new ShardWorker("localhost", coordinator.getPort()).run());
+
+			assertEquals(3, coordinator.run());
+			assertEquals(1, (int) worker.get(10, TimeUnit.SECONDS));
+		}
+		finally
+		{
+			threads.shutdownNow();
+		}
+
+		assertEquals(expected(puzzles), Files.readAllLines(output));
+		assertEquals(BatchSolver.INVALID, Files.readAllLines(output).get(1));
+	}
+
+	/**
+	 * Test that a shard which fails on every worker is given up on rather than handed out forever.
+	 */
+	@Test
+	void giveUpOnShardAfterMaxAttempts() throws Exception
+	{
+		List<String> puzzles = puzzles(3);
+		Path input = write(puzzles);
+		Path output = directory.resolve("output.txt");
+
+		ShardCoordinator coordinator = new ShardCoordinator(input, output, 3, 0);
+		coordinator.setMaxAttempts(2);
+		ExecutorService threads = Executors.newCachedThreadPool();
+
+		try
+		{
+			Future<Long> solved = threads.submit(coordinator::run);
+
+			// Two workers in turn take the only shard and die before answering.
+			for(int attempt = 0; attempt < 2; attempt++)
+			{
+				try(Socket socket = new Socket("localhost", coordinator.getPort()))
+				{
+					DataInputStream in = new DataInputStream(socket.getInputStream());
+					assertEquals(Protocol.ASSIGN, in.readInt());
+					assertEquals(0, in.readInt());
+				}
+			}
+
+			assertEquals(3, (long) solved.get(10, TimeUnit.SECONDS));
+		}
+		finally
+		{
+			threads.shutdownNow();
+		}
+
+		assertEquals(Collections.nCopies(3, ShardCoordinator.FAILED), Files.readAllLines(output));
+		assertEquals(1, coordinator.getFailedShards());
+	}
+
+	private static List<String> puzzles(int count)
+	{
+		List<String> puzzles = new ArrayList<>();
+
+		for(int puzzle = 0; puzzle < count; puzzle++)
+		{
+			puzzles.add(puzzle % 3 == 1 ? UNSOLVABLE_PUZZLE : PUZZLE);
+		}
+
+		return puzzles;
+	}
+
+	private static List<String> expected(List<String> puzzles)
+	{
+		List<String> expected = new ArrayList<>();
+
+		for(String puzzle : puzzles)
+		{
+			expected.add(BatchSolver.solveLine(puzzle, SudokuSolver::new));
+		}
+
+		return expected;
+	}
+
+	private Path write(List<String> lines) throws IOException
+	{
+		Path input = directory.resolve("input.txt");
+		Files.write(input, lines, StandardCharsets.US_ASCII);
+
+		return input;
+	}
+}
@@ -0,0 +1,98 @@
+package sudoku.generator;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import sudoku.SolutionCounter;
+import sudoku.SudokuBoard;
+import sudoku.logic.Difficulty;
+import sudoku.logic.DifficultyGrader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PuzzlePoolTest {
+	@Test
+	void countStarvationWhenEmpty()
+	{
+		try(PuzzlePool pool = new PuzzlePool(1, 2, Difficulty.EASY))
+		{
+			assertNull(pool.poll(Difficulty.EASY));
+			assertEquals(1, pool.getStarvations(Difficulty.EASY));
+			assertEquals(0, pool.getHits(Difficulty.EASY));
+		}
+	}
+
+	@Test
+	@Timeout(60)
+	void refillToHighWatermark() throws InterruptedException
+	{
+		try(PuzzlePool pool = new PuzzlePool(1, 3, Difficulty.EASY, Difficulty.MEDIUM))
+		{
+			pool.setSeed(43);
+			pool.start(1);
+
+			while(pool.size(Difficulty.EASY) < 3)
+			{
+				Thread.sleep(10);
+			}
+
+			for(int taken = 0; taken < 3; taken++)
+			{
+				SudokuBoard puzzle = pool.poll(Difficulty.EASY);
+
+				assertNotNull(puzzle);
+				assertTrue(new SolutionCounter().hasUniqueSolution(puzzle));
+				assertEquals(Difficulty.EASY, new DifficultyGrader().grade(puzzle).getDifficulty());
+			}
+
+			assertEquals(3, pool.getHits(Difficulty.EASY));
+
+			// Dropping to the low watermark starts refilling, so waiting always gets a puzzle.
+			assertNotNull(pool.take(Difficulty.EASY));
+			assertTrue(pool.size(Difficulty.EASY) <= 3);
+		}
+	}
+
+	/**
+	 * Test that a tier the generator hardly ever produces is given up on once the others are full, rather than keeping
+	 * the refill threads busy forever, and isn't started again straight away.
+	 */
+	@Test
+	@Timeout(60)
+	void giveUpOnRareTier() throws InterruptedException
+	{
+		try(PuzzlePool pool = new PuzzlePool(1, 3, Difficulty.EASY, Difficulty.HARD))
+		{
+			pool.setSeed(43);
+			pool.setGiveUpAfter(20);
+			pool.start(1);
+
+			while(pool.isRefilling(Difficulty.EASY) || pool.isRefilling(Difficulty.HARD))
+			{
+				Thread.sleep(10);
+			}
+
+			assertEquals(3, pool.size(Difficulty.EASY));
+			assertTrue(pool.size(Difficulty.HARD) < 3);
+
+			// Taking what little the rare tier has doesn't start it again while it's backing off.
+			while(pool.poll(Difficulty.HARD) != null)
+			{
+				assertFalse(pool.isRefilling(Difficulty.HARD));
+			}
+			assertFalse(pool.isRefilling(Difficulty.HARD));
+		}
+
+		assertThrows(IllegalArgumentException.class, () -> new PuzzlePool(1, 2, Difficulty.EASY).setGiveUpAfter(0));
+	}
+
+	@Test
+	void rejectTierNotKept()
+	{
+		try(PuzzlePool pool = new PuzzlePool(1, 2, Difficulty.EASY))
+		{
+			assertThrows(IllegalArgumentException.class, () -> pool.poll(Difficulty.EXPERT));
+		}
+
+		assertThrows(IllegalArgumentException.class, () -> new PuzzlePool(2, 2, Difficulty.EASY));
+	}
+}
@@ -0,0 +1,151 @@
+package sudoku.generator;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import sudoku.SolutionCounter;
+import sudoku.SudokuBoard;
+import sudoku.SudokuSolver;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PuzzleReducerTest {
+	private static final String LAYOUT = "9 1 0 7 0 0 0 0 0 " +
+										 "0 3 2 6 0 9 0 8 0 " +
+										 "0 0 7 0 8 0 9 0 0 " +
+										 "0 8 6 0 3 0 1 7 0 " +
+										 "3 0 0 0 0 0 0 0 6 " +
+										 "0 5 1 0 2 0 8 4 0 " +
+										 "0 0 9 0 5 0 3 0 0 " +
+										 "0 2 0 3 0 1 4 9 0 " +
+										 "0 0 0 0 0 2 0 6 1";
+
+	/**
+	 * Test that the reduced puzzle keeps the same unique solution and that no remaining clue can be removed, with one
+	 * thread and with several.
+	 */
+	@Test
+	void reduceToMinimalPuzzle() throws InterruptedException
+	{
+		SudokuBoard original = new SudokuBoard(LAYOUT);
+
+		for(int threads : new int[] {1, 4})
+		{
+			PuzzleReducer.Result result = new PuzzleReducer(threads).reduce(original, 7);
+			assertMinimal(original, result);
+		}
+	}
+
+	/**
+	 * Test that a solved board reduces to a minimal puzzle with that solution.
+	 */
+	@Test
+	void reduceSolvedBoard() throws InterruptedException
+	{
+		SudokuSolver solver = new SudokuSolver(new SudokuBoard(LAYOUT));
+		solver.solve();
+
+		PuzzleReducer.Result result = new PuzzleReducer(3).reduce(solver.getBoard());
+
+		assertMinimal(solver.getBoard(), result);
+		assertTrue(result.getChecks() >= 81);
+	}
+
+	/**
+	 * Test that every thread reducing a puzzle has the caller's priority and daemon status, so that a puzzle pool's
+	 * refill threads don't start threads which compete with the rest of the program.
+	 */
+	@Test
+	@Timeout(60)
+	void reduceAtCallersPriority() throws InterruptedException
+	{
+		SudokuSolver solver = new SudokuSolver(new SudokuBoard(LAYOUT));
+		solver.solve();
+		SudokuBoard solved = solver.getBoard();
+		AtomicBoolean sampling = new AtomicBoolean(true);
+
+		Thread caller = new Thread(() -> {
+			try
+			{
+				for(long seed = 0; sampling.get(); seed++)
+				{
+					new PuzzleReducer(3).reduce(solved, seed);
+				}
+			}
+			catch(InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+		}, "reducer-caller");
+		caller.setDaemon(true);
+		caller.setPriority(Thread.MIN_PRIORITY);
+		caller.start();
+
+		// Look for threads in the middle of testing clues until the caller and one it started have both been seen.
+		Set<Thread> reducing = new HashSet<>();
+		while(!reducing.contains(caller) || reducing.size() < 2)
+		{
+			for(Map.Entry<Thread, StackTraceElement[]> thread : Thread.getAllStackTraces().entrySet())
+			{
+				for(StackTraceElement frame : thread.getValue())
+				{
+					if(frame.getClassName().startsWith(PuzzleReducer.class.getName())
+							&& frame.getMethodName().equals("work"))
+					{
+						reducing.add(thread.getKey());
+					}
+				}
+			}
+		}
+
+		sampling.set(false);
+		caller.join();
+
+		for(Thread thread : reducing)
+		{
+			assertEquals(Thread.MIN_PRIORITY, thread.getPriority(), thread.getName());
+			assertTrue(thread.isDaemon(), thread.getName());
+		}
+	}
+
+	@Test
+	void rejectPuzzleWithoutUniqueSolution()
+	{
+		assertThrows(IllegalArgumentException.class, () -> new PuzzleReducer().reduce(new SudokuBoard()));
+	}
+
+	private static void assertMinimal(SudokuBoard original, PuzzleReducer.Result result)
+	{
+		SudokuBoard puzzle = result.getPuzzle();
+		SolutionCounter counter = new SolutionCounter();
+		int clues = 0;
+
+		for(int square = 0; square < 81; square++)
+		{
+			if(puzzle.isSquareEmpty(square))
+			{
+				continue;
+			}
+
+			clues++;
+			assertEquals(original.getValueAt(square), puzzle.getValueAt(square));
+
+			SudokuBoard removed = new SudokuBoard(puzzle);
+			removed.setValueAt(square, 0);
+			assertFalse(counter.hasUniqueSolution(removed));
+		}
+
+		assertEquals(clues, result.getClueCount());
+		assertTrue(counter.hasUniqueSolution(puzzle));
+
+		SudokuSolver originalSolver = new SudokuSolver(original);
+		SudokuSolver reducedSolver = new SudokuSolver(puzzle);
+		originalSolver.solve();
+		reducedSolver.solve();
+		assertEquals(originalSolver.getBoard().getLayoutString(), reducedSolver.getBoard().getLayoutString());
+	}
+}
@@ -0,0 +1,116 @@
+package sudoku.logic;
+
+import org.junit.jupiter.api.Test;
+import sudoku.SudokuBoard;
+import sudoku.sat.SatSudokuSolver;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DifficultyGraderTest {
+	private static final String EASY = "9 1 0 7 0 0 0 0 0 " +
+									   "0 3 2 6 0 9 0 8 0 " +
+									   "0 0 7 0 8 0 9 0 0 " +
+									   "0 8 6 0 3 0 1 7 0 " +
+									   "3 0 0 0 0 0 0 0 6 " +
+									   "0 5 1 0 2 0 8 4 0 " +
+									   "0 0 9 0 5 0 3 0 0 " +
+									   "0 2 0 3 0 1 4 9 0 " +
+									   "0 0 0 0 0 2 0 6 1 ";
+
+	// Known as "AI Escargot", which can't be solved without guessing.
+	private static final String ESCARGOT = "1 0 0 0 0 7 0 9 0 " +
+										   "0 3 0 0 2 0 0 0 8 " +
+										   "0 0 9 6 0 0 5 0 0 " +
+										   "0 0 5 3 0 0 9 0 0 " +
+										   "0 1 0 0 8 0 0 0 2 " +
+										   "6 0 0 0 0 4 0 0 0 " +
+										   "3 0 0 0 0 0 0 1 0 " +
+										   "0 4 0 0 0 0 0 0 7 " +
+										   "0 0 7 0 0 0 3 0 0 ";
+
+	private static final String SPARSE = "0 0 0 0 0 0 0 1 0 " +
+										 "4 0 0 0 0 0 0 0 0 " +
+										 "0 2 0 0 0 0 0 0 0 " +
+										 "0 0 0 0 5 0 4 0 7 " +
+										 "0 0 8 0 0 0 3 0 0 " +
+										 "0 0 1 0 9 0 0 0 0 " +
+										 "3 0 0 4 0 0 2 0 0 " +
+										 "0 5 0 1 0 0 0 0 0 " +
+										 "0 0 0 8 0 6 0 0 0 ";
+
+	@Test
+	void gradeEasyPuzzle()
+	{
+		Grade grade = new DifficultyGrader().grade(new SudokuBoard(EASY));
+
+		assertTrue(grade.isSolved());
+		assertEquals(Difficulty.EASY, grade.getDifficulty());
+	}
+
+	@Test
+	void gradePuzzleNeedingGuesses()
+	{
+		Grade grade = new DifficultyGrader().grade(new SudokuBoard(ESCARGOT));
+
+		assertFalse(grade.isSolved());
+		assertEquals(Difficulty.BEYOND_TECHNIQUES, grade.getDifficulty());
+	}
+
+	/**
+	 * Test that the techniques never remove the value that is actually in the solution, whether or not they manage to
+	 * finish the puzzle.
+	 */
+	@Test
+	void techniquesOnlyMakeCorrectDeductions()
+	{
+		DifficultyGrader grader = new DifficultyGrader();
+
+		for(String layout : Arrays.asList(EASY, ESCARGOT, SPARSE))
+		{
+			SatSudokuSolver solver = new SatSudokuSolver(new SudokuBoard(layout));
+			assertTrue(solver.solve());
+
+			grader.grade(new SudokuBoard(layout));
+			CandidateGrid grid = grader.getGrid();
+
+			assertFalse(grid.hasContradiction());
+
+			for(int square = 0; square < 81; square++)
+			{
+				int expected = solver.getBoard().getValueAt(square);
+
+				if(grid.getValue(square) != 0)
+				{
+					assertEquals(expected, grid.getValue(square));
+				}
+				else
+				{
+					assertNotEquals(0, grid.getCandidates(square) & (1 << (expected - 1)));
+				}
+			}
+		}
+	}
+
+	@Test
+	void gradeManyPuzzles()
+	{
+		Grade[] grades = DifficultyGrader.gradeAll(Arrays.asList(new SudokuBoard(EASY), new SudokuBoard(ESCARGOT)));
+
+		assertEquals(Difficulty.EASY, grades[0].getDifficulty());
+		assertEquals(Difficulty.BEYOND_TECHNIQUES, grades[1].getDifficulty());
+	}
+
+	@Test
+	void gradeCompleteBoard()
+	{
+		SatSudokuSolver solver = new SatSudokuSolver(new SudokuBoard(EASY));
+		solver.solve();
+
+		Grade grade = new DifficultyGrader().grade(solver.getBoard());
+
+		assertTrue(grade.isSolved());
+		assertNull(grade.getHardestTechnique());
+	}
+}
@@ -0,0 +1,93 @@
+package sudoku.logic;
+
+import org.junit.jupiter.api.Test;
+import sudoku.SudokuBoard;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncrementalCandidateModelTest {
+
+	/**
+	 * Test that conflicts appear and disappear as squares are edited.
+	 */
+	@Test
+	void trackConflictsAsSquaresChange()
+	{
+		IncrementalCandidateModel model = new IncrementalCandidateModel();
+
+		model.setValue(0, 5);
+		model.setValue(8, 5);
+
+		assertTrue(model.hasConflicts());
+		assertTrue(model.isConflicting(0));
+		assertTrue(model.isConflicting(8));
+		assertFalse(model.isConflicting(80));
+
+		model.setValue(8, 6);
+
+		assertFalse(model.hasConflicts());
+		assertFalse(model.isConflicting(0));
+	}
+
+	/**
+	 * Test that candidates are kept up to date as squares are edited.
+	 */
+	@Test
+	void trackCandidatesAsSquaresChange()
+	{
+		IncrementalCandidateModel model = new IncrementalCandidateModel();
+
+		model.setValue(0, 1);
+		model.setValue(10, 2);
+		model.setValue(72, 3);
+
+		assertEquals(0x1FF & ~0b111, model.getCandidates(9));
+		assertEquals(0, model.getCandidates(0));
+
+		model.setValue(10, 0);
+
+		assertEquals(0x1FF & ~0b101, model.getCandidates(9));
+	}
+
+	/**
+	 * Test that the hint matches the candidates of an almost complete board.
+	 */
+	@Test
+	void hintFillsInSquare()
+	{
+		String layout = "9 7 3 5 8 1 4 2 6 " +
+						"5 2 0 4 7 3 1 9 8 " +
+						"1 8 4 2 9 6 7 5 3 " +
+						"2 4 7 8 6 5 3 1 9 " +
+						"3 9 8 1 0 4 6 7 5 " +
+						"6 5 1 7 3 9 8 4 2 " +
+						"8 1 9 3 4 2 5 6 7 " +
+						"7 6 5 9 1 8 2 3 4 " +
+						"4 3 2 6 5 7 9 8 1 ";
+
+		SudokuBoard board = new SudokuBoard(layout);
+		IncrementalCandidateModel model = new IncrementalCandidateModel();
+
+		for(int square = 0; square < 81; square++)
+		{
+			model.setValue(square, board.getValueAt(square));
+		}
+
+		Hint hint = model.nextHint();
+
+		assertEquals(11, hint.getSquare());
+		assertEquals(6, hint.getValue());
+		assertEquals(Technique.NAKED_SINGLE, hint.getTechnique());
+	}
+
+	@Test
+	void noHintWhenConflicting()
+	{
+		IncrementalCandidateModel model = new IncrementalCandidateModel();
+
+		model.setValue(0, 5);
+		model.setValue(1, 5);
+
+		assertNull(model.nextHint());
+	}
+}
@@ -0,0 +1,111 @@
+package sudoku.metrics;
+
+import org.junit.jupiter.api.Test;
+import sudoku.SudokuBoard;
+import sudoku.SudokuSolver;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsRegistryTest {
+	private static final String PUZZLE = "9 1 0 7 0 0 0 0 0 " +
+										 "0 3 2 6 0 9 0 8 0 " +
+										 "0 0 7 0 8 0 9 0 0 " +
+										 "0 8 6 0 3 0 1 7 0 " +
+										 "3 0 0 0 0 0 0 0 6 " +
+										 "0 5 1 0 2 0 8 4 0 " +
+										 "0 0 9 0 5 0 3 0 0 " +
+										 "0 2 0 3 0 1 4 9 0 " +
+										 "0 0 0 0 0 2 0 6 1";
+
+	@Test
+	void countFromManyThreads()
+	{
+		Counter counter = new MetricsRegistry("test").counter("things");
+
+		IntStream.range(0, 10000).parallel().forEach(i -> counter.increment());
+		counter.add(-500);
+
+		assertEquals(9500, counter.getCount());
+	}
+
+	@Test
+	void lookUpByName()
+	{
+		MetricsRegistry registry = new MetricsRegistry("test");
+
+		assertSame(registry.counter("a.b"), registry.counter("a.b"));
+		assertSame(registry.histogram("c"), registry.histogram("c"));
+		assertEquals(2, registry.getMetrics().size());
+		assertThrows(IllegalArgumentException.class, () -> registry.histogram("a.b"));
+		assertThrows(IllegalArgumentException.class, () -> registry.counter("a,b=c"));
+	}
+
+	@Test
+	void histogramBuckets()
+	{
+		assertEquals(0, Histogram.bucketOf(-3));
+		assertEquals(0, Histogram.bucketOf(0));
+		assertEquals(1, Histogram.bucketOf(1));
+		assertEquals(2, Histogram.bucketOf(3));
+		assertEquals(3, Histogram.bucketOf(4));
+		assertEquals(63, Histogram.bucketOf(Long.MAX_VALUE));
+
+		Histogram histogram = new MetricsRegistry("test").histogram("latency");
+		assertEquals(0, histogram.getPercentile50());
+
+		for(int value = 1; value <= 100; value++)
+		{
+			histogram.record(value);
+		}
+
+		assertEquals(100, histogram.getCount());
+		assertEquals(5050, histogram.getSum());
+		assertEquals(50.5, histogram.getMean());
+		assertEquals(100, histogram.getMax());
+		// 50 falls in the bucket from 32 to 63, and 90 and 99 in the one from 64 to 127, capped at the largest value.
+		assertEquals(63, histogram.getPercentile50());
+		assertEquals(100, histogram.getPercentile90());
+		assertEquals(100, histogram.getPercentile99());
+		assertThrows(IllegalArgumentException.class, () -> histogram.getPercentile(101));
+	}
+
+	/**
+	 * Test that metrics are published over JMX, including ones created after registering.
+	 */
+	@Test
+	void publishOverJmx() throws Exception
+	{
+		MetricsRegistry registry = new MetricsRegistry("test");
+		MBeanServer server = MBeanServerFactory.newMBeanServer();
+
+		registry.counter("before").add(3);
+		registry.registerMBeans(server);
+		registry.histogram("after").record(7);
+
+		assertEquals(3L, server.getAttribute(new ObjectName("test:type=Counter,name=before"), "Count"));
+		assertEquals(7L, server.getAttribute(new ObjectName("test:type=Histogram,name=after"), "Max"));
+		assertThrows(IllegalStateException.class, () -> registry.registerMBeans(server));
+	}
+
+	@Test
+	void recordSolves()
+	{
+		Counter solved = MetricsRegistry.getDefault().counter("solver.solved");
+		Histogram nodes = MetricsRegistry.getDefault().histogram("solver.nodes");
+		long solvedBefore = solved.getCount();
+		long nodesBefore = nodes.getSum();
+
+		SudokuSolver solver = new SudokuSolver(new SudokuBoard(PUZZLE));
+		assertTrue(solver.solve());
+
+		// Other tests may be solving at the same time, so these can only be lower bounds.
+		assertTrue(solved.getCount() >= solvedBefore + 1);
+		assertTrue(nodes.getSum() >= nodesBefore + solver.getNodes());
+		assertTrue(solver.getNodes() > 0);
+	}
+}
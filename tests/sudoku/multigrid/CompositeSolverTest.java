@@ -0,0 +1,113 @@
+package sudoku.multigrid;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompositeSolverTest {
+	@Test
+	void samuraiSharesCornerSubBoards()
+	{
+		CompositeBoard board = CompositeBoard.samurai();
+
+		// 5 grids of 81 squares, with 4 sub-boards of 9 squares each counted twice.
+		assertEquals(5 * 81 - 4 * 9, board.getSquareCount());
+		assertEquals(-1, board.squareAt(0, 9));
+		assertEquals(5 * 27 - 4, board.getUnits().length);
+	}
+
+	@Test
+	void solveEmptySamurai()
+	{
+		CompositeSolver solver = new CompositeSolver(CompositeBoard.samurai());
+
+		assertTrue(solver.solve());
+		assertSolved(solver.getBoard());
+	}
+
+	@Test
+	void solveSamuraiKeepingClues()
+	{
+		CompositeSolver full = new CompositeSolver(CompositeBoard.samurai());
+		assertTrue(full.solve());
+
+		CompositeBoard puzzle = new CompositeBoard(full.getBoard());
+		Random random = new Random(40);
+		for(int square = 0; square < puzzle.getSquareCount(); square++)
+		{
+			if(random.nextInt(10) < 6)
+			{
+				puzzle.setValue(square, 0);
+			}
+		}
+
+		CompositeSolver solver = new CompositeSolver(puzzle);
+
+		assertTrue(solver.solve());
+		assertSolved(solver.getBoard());
+
+		for(int square = 0; square < puzzle.getSquareCount(); square++)
+		{
+			if(puzzle.getValue(square) != 0)
+			{
+				assertEquals(puzzle.getValue(square), solver.getBoard().getValue(square));
+			}
+		}
+
+		// The board given to the solver is left as it was.
+		assertFalse(puzzle.isValidAndComplete());
+	}
+
+	@Test
+	void layoutRoundTrips()
+	{
+		CompositeSolver solver = new CompositeSolver(CompositeBoard.samurai());
+		assertTrue(solver.solve());
+
+		CompositeBoard copy = CompositeBoard.samurai();
+		copy.setLayout(solver.getBoard().getLayout());
+
+		assertArrayEquals(solver.getBoard().getLayout(), copy.getLayout());
+		assertEquals(' ', copy.getLayout()[0].charAt(10));
+	}
+
+	/**
+	 * Test that a contradiction only visible across the overlap is found: the top left grid's row 6 leaves the shared
+	 * squares (6,6)-(6,8) needing 7, 8 and 9, but the middle grid's row 0 already has them.
+	 */
+	@Test
+	void detectContradictionAcrossOverlap()
+	{
+		CompositeBoard board = CompositeBoard.samurai();
+		int[] cornerRow = {1, 2, 3, 4, 5, 6};
+		int[] middleRow = {7, 8, 9, 1, 2, 3};
+
+		for(int column = 0; column < 6; column++)
+		{
+			board.setValue(board.squareAt(6, column), cornerRow[column]);
+			board.setValue(board.squareAt(6, 9 + column), middleRow[column]);
+		}
+
+		assertTrue(board.getGrid(0).isValid());
+		assertTrue(board.getGrid(2).isValid());
+		assertFalse(new CompositeSolver(board).solve());
+	}
+
+	@Test
+	void rejectMisalignedGrid()
+	{
+		assertThrows(IllegalArgumentException.class, () -> new CompositeBoard(12, 12, new int[][] {{0, 0}, {2, 3}}));
+	}
+
+	private static void assertSolved(CompositeBoard board)
+	{
+		assertTrue(board.isValidAndComplete());
+
+		for(int grid = 0; grid < board.getGridCount(); grid++)
+		{
+			assertTrue(board.getGrid(grid).isValidAndComplete());
+		}
+	}
+}
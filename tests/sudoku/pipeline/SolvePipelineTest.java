@@ -0,0 +1,159 @@
+package sudoku.pipeline;
+
+import org.junit.jupiter.api.Test;
+import sudoku.SudokuSolver;
+import sudoku.batch.BatchSolver;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SolvePipelineTest {
+	private static final String PUZZLE = "9 1 0 7 0 0 0 0 0 " +
+										 "0 3 2 6 0 9 0 8 0 " +
+										 "0 0 7 0 8 0 9 0 0 " +
+										 "0 8 6 0 3 0 1 7 0 " +
+										 "3 0 0 0 0 0 0 0 6 " +
+										 "0 5 1 0 2 0 8 4 0 " +
+										 "0 0 9 0 5 0 3 0 0 " +
+										 "0 2 0 3 0 1 4 9 0 " +
+										 "0 0 0 0 0 2 0 6 1";
+
+	private static final String COMPACT = PUZZLE.replace(" ", "").replace('0', '.');
+
+	private static final String CONFLICTING = "1 1" + PUZZLE.substring(3);
+
+	/**
+	 * Test that every line gets one line of output, in the same order, across several solving threads.
+	 */
+	@Test
+	void solveInOrder() throws IOException, InterruptedException
+	{
+		List<String> lines = new ArrayList<>();
+		for(int line = 0; line < 60; line++)
+		{
+			lines.add(Arrays.asList(PUZZLE, COMPACT, CONFLICTING, "not a puzzle", "").get(line % 5));
+		}
+
+		SolvePipeline pipeline = new SolvePipeline();
+		pipeline.setParallelism(SolvePipeline.Step.SOLVE, 3);
+		pipeline.setBufferSize(SolvePipeline.Step.PARSE, 2);
+
+		BoundedPublisher<String> source = new BoundedPublisher<>(4);
+		StringWriter output = new StringWriter();
+		WriterSubscriber sink = new WriterSubscriber(output, 5);
+		pipeline.connect(source).subscribe(sink);
+
+		for(String line : lines)
+		{
+			assertTrue(source.submit(line));
+		}
+		source.close();
+
+		assertEquals(60, sink.await());
+
+		String solved = BatchSolver.solveLine(PUZZLE, SudokuSolver::new);
+		String[] results = output.toString().split("\n");
+		for(int line = 0; line < 60; line++)
+		{
+			String expected = line % 5 < 2 ? solved : BatchSolver.INVALID;
+			assertEquals(expected, results[line], "line " + line);
+		}
+	}
+
+	/**
+	 * Test that a subscriber which stops asking for results blocks the producer once every buffer is full.
+	 */
+	@Test
+	void blockProducerWhenSubscriberStopsAsking() throws InterruptedException
+	{
+		SolvePipeline pipeline = new SolvePipeline();
+		for(SolvePipeline.Step step : SolvePipeline.Step.values())
+		{
+			pipeline.setParallelism(step, 1);
+			pipeline.setBufferSize(step, 2);
+		}
+
+		BoundedPublisher<String> source = new BoundedPublisher<>(2);
+		AtomicInteger received = new AtomicInteger();
+		List<Flow.Subscription> subscriptions = new ArrayList<>();
+
+		pipeline.connect(source).subscribe(new Flow.Subscriber<String>()
+		{
+			@Override
+			public void onSubscribe(Flow.Subscription subscription)
+			{
+				subscriptions.add(subscription);
+				subscription.request(1);
+			}
+
+			@Override
+			public void onNext(String item)
+			{
+				received.incrementAndGet();
+			}
+
+			@Override
+			public void onError(Throwable throwable)
+			{
+			}
+
+			@Override
+			public void onComplete()
+			{
+			}
+		});
+
+		AtomicInteger submitted = new AtomicInteger();
+		Thread producer = new Thread(() -> {
+			try
+			{
+				while(submitted.get() < 1000 && source.submit(PUZZLE))
+				{
+					submitted.incrementAndGet();
+				}
+			}
+			catch(InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+		});
+		producer.start();
+		producer.join(1000);
+
+		// One delivered, two held by each of the four stages, and two in the source's buffer.
+		assertTrue(producer.isAlive());
+		assertEquals(1, received.get());
+		assertTrue(submitted.get() <= 11, "submitted " + submitted.get());
+
+		subscriptions.get(0).cancel();
+		producer.join(5000);
+		assertFalse(producer.isAlive());
+	}
+
+	/**
+	 * Test that a failure in a stage is passed on to the end of the pipeline.
+	 */
+	@Test
+	void passOnStageFailure() throws InterruptedException
+	{
+		BoundedPublisher<String> source = new BoundedPublisher<>(4);
+		ProcessorStage<String, String> failing = new ProcessorStage<>("failing", line -> {
+			throw new IllegalStateException("broken");
+		}, 2, 4);
+		WriterSubscriber sink = new WriterSubscriber(new StringWriter(), 4);
+
+		source.subscribe(failing);
+		failing.subscribe(sink);
+		source.submit(PUZZLE);
+		source.close();
+
+		IOException failure = assertThrows(IOException.class, sink::await);
+		assertEquals("broken", failure.getCause().getMessage());
+	}
+}
@@ -0,0 +1,124 @@
+package sudoku.sat;
+
+import org.junit.jupiter.api.Test;
+import sudoku.SudokuBoard;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SatSudokuSolverTest {
+	private static final String EMPTY = "0 0 0 0 0 0 0 0 0 " +
+										"0 0 0 0 0 0 0 0 0 " +
+										"0 0 0 0 0 0 0 0 0 " +
+										"0 0 0 0 0 0 0 0 0 " +
+										"0 0 0 0 0 0 0 0 0 " +
+										"0 0 0 0 0 0 0 0 0 " +
+										"0 0 0 0 0 0 0 0 0 " +
+										"0 0 0 0 0 0 0 0 0 " +
+										"0 0 0 0 0 0 0 0 0 ";
+
+	@Test
+	void solveSolvableBoard() {
+		String layout = "9 1 0 7 0 0 0 0 0 " +
+						"0 3 2 6 0 9 0 8 0 " +
+						"0 0 7 0 8 0 9 0 0 " +
+						"0 8 6 0 3 0 1 7 0 " +
+						"3 0 0 0 0 0 0 0 6 " +
+						"0 5 1 0 2 0 8 4 0 " +
+						"0 0 9 0 5 0 3 0 0 " +
+						"0 2 0 3 0 1 4 9 0 " +
+						"0 0 0 0 0 2 0 6 1 ";
+
+		SatSudokuSolver solver = new SatSudokuSolver(new SudokuBoard(layout));
+
+		assertTrue(solver.solve());
+		assertTrue(solver.getBoard().isValidAndComplete());
+		assertEquals(9, solver.getBoard().getValueAt(0));
+	}
+
+	/**
+	 * Test a puzzle with only 17 clues, which needs real search rather than propagation alone.
+	 */
+	@Test
+	void solveSparseBoard() {
+		String layout = "0 0 0 0 0 0 0 1 0 " +
+						"4 0 0 0 0 0 0 0 0 " +
+						"0 2 0 0 0 0 0 0 0 " +
+						"0 0 0 0 5 0 4 0 7 " +
+						"0 0 8 0 0 0 3 0 0 " +
+						"0 0 1 0 9 0 0 0 0 " +
+						"3 0 0 4 0 0 2 0 0 " +
+						"0 5 0 1 0 0 0 0 0 " +
+						"0 0 0 8 0 6 0 0 0 ";
+
+		SatSudokuSolver solver = new SatSudokuSolver(new SudokuBoard(layout));
+
+		assertTrue(solver.solve());
+		assertTrue(solver.getBoard().isValidAndComplete());
+	}
+
+	/**
+	 * Test that an interrupted search gives up rather than running to the end, and isn't mistaken for no solution.
+	 */
+	@Test
+	void stopWhenInterrupted() {
+		SatSudokuSolver solver = new SatSudokuSolver(new SudokuBoard(EMPTY));
+
+		Thread.currentThread().interrupt();
+		try
+		{
+			assertFalse(solver.solve());
+			assertTrue(solver.wasCancelled());
+		}
+		finally
+		{
+			Thread.interrupted();
+		}
+
+		assertTrue(solver.solve());
+		assertFalse(solver.wasCancelled());
+	}
+
+	/**
+	 * Test a board which follows the rules but has no solution, as the top left square can't hold any value.
+	 */
+	@Test
+	void reportUnsolvableBoard() {
+		String layout = "0 1 2 0 0 0 0 0 0 " +
+						"3 4 5 0 0 0 0 0 0 " +
+						"6 7 0 0 0 0 0 0 0 " +
+						"8 0 0 0 0 0 0 0 0 " +
+						"0 0 0 0 0 0 0 0 0 " +
+						"0 0 0 0 0 0 0 0 0 " +
+						"9 0 0 0 0 0 0 0 0 " +
+						"0 0 0 0 0 0 0 0 0 " +
+						"0 0 0 0 0 0 0 0 0 ";
+
+		SatSudokuSolver solver = new SatSudokuSolver(new SudokuBoard(layout));
+
+		assertFalse(solver.solve());
+	}
+
+	/**
+	 * Test the solver directly on a small problem that needs a conflict to be learnt from.
+	 */
+	@Test
+	void solveUnsatisfiableFormula() {
+		CdclSolver solver = new CdclSolver(2);
+		solver.addClause(1, 2);
+		solver.addClause(-1, 2);
+		solver.addClause(1, -2);
+		solver.addClause(-1, -2);
+
+		assertFalse(solver.solve());
+	}
+
+	@Test
+	void lubySequence() {
+		long[] expected = {1, 1, 2, 1, 1, 2, 4, 1, 1, 2, 1, 1, 2, 4, 8};
+
+		for(int i = 0; i < expected.length; i++)
+		{
+			assertEquals(expected[i], CdclSolver.luby(i));
+		}
+	}
+}
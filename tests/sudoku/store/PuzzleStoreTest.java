@@ -0,0 +1,103 @@
+package sudoku.store;
+
+import org.junit.jupiter.api.Test;
+import sudoku.SudokuBoard;
+import sudoku.SudokuSolver;
+import sudoku.generator.PuzzleGenerator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PuzzleStoreTest {
+
+	/**
+	 * Test that every stored puzzle and solution can be found and read back, and that puzzles not added can't.
+	 */
+	@Test
+	void findStoredPuzzlesAndSolutions() throws InterruptedException
+	{
+		PuzzleGenerator generator = new PuzzleGenerator(11);
+		List<SudokuBoard> puzzles = new ArrayList<>();
+		List<SudokuBoard> solutions = new ArrayList<>();
+
+		for(int puzzle = 0; puzzle < 6; puzzle++)
+		{
+			puzzles.add(generator.generate());
+			solutions.add(solve(puzzles.get(puzzle)));
+		}
+
+		PuzzleStore store = new PuzzleStore(5);
+		for(int puzzle = 0; puzzle < 5; puzzle++)
+		{
+			assertEquals(puzzle, store.add(puzzles.get(puzzle), solutions.get(puzzle)));
+		}
+
+		SudokuBoard copy = new SudokuBoard();
+		for(int puzzle = 0; puzzle < 5; puzzle++)
+		{
+			assertEquals(puzzle, store.findPuzzle(puzzles.get(puzzle)));
+			assertEquals(puzzle, store.findSolution(solutions.get(puzzle)));
+
+			store.getPuzzle(puzzle, copy);
+			assertEquals(puzzles.get(puzzle).getLayoutString(), copy.getLayoutString());
+			store.getSolution(puzzle, copy);
+			assertEquals(solutions.get(puzzle).getLayoutString(), copy.getLayoutString());
+		}
+
+		assertEquals(-1, store.findPuzzle(puzzles.get(5)));
+		assertEquals(-1, store.findSolution(solutions.get(5)));
+		assertEquals(-1, store.findPuzzle(solutions.get(0)));
+		assertEquals(5, store.size());
+		assertThrows(IllegalStateException.class, () -> store.add(puzzles.get(5), solutions.get(5)));
+	}
+
+	/**
+	 * Test that the clue pattern index finds puzzles with clues in the same squares even when their values differ.
+	 */
+	@Test
+	void findByCluePattern() throws InterruptedException
+	{
+		SudokuBoard puzzle = new PuzzleGenerator(3).generate();
+		SudokuBoard solution = solve(puzzle);
+
+		// Swapping two values throughout gives a different puzzle with the same clue pattern.
+		SudokuBoard relabelled = new SudokuBoard();
+		SudokuBoard relabelledSolution = new SudokuBoard();
+		for(int square = 0; square < 81; square++)
+		{
+			relabelled.setValueAt(square, swap(puzzle.getValueAt(square)));
+			relabelledSolution.setValueAt(square, swap(solution.getValueAt(square)));
+		}
+
+		PuzzleStore store = new PuzzleStore(10);
+		store.add(puzzle, solution);
+		store.add(new PuzzleGenerator(4).generate(), solution);
+		store.add(relabelled, relabelledSolution);
+
+		List<Integer> matches = new ArrayList<>();
+		store.forEachWithCluePattern(puzzle, matches::add);
+
+		assertEquals(2, matches.size());
+		assertTrue(matches.contains(0));
+		assertTrue(matches.contains(2));
+		assertEquals(2, store.findPuzzle(relabelled));
+		// The most recent record with a solution is found first.
+		assertEquals(1, store.findSolution(solution));
+	}
+
+	private static int swap(int value)
+	{
+		return value == 1 ? 2 : value == 2 ? 1 : value;
+	}
+
+	private static SudokuBoard solve(SudokuBoard puzzle)
+	{
+		SudokuSolver solver = new SudokuSolver(puzzle, SudokuSolver.CellOrder.FEWEST_CANDIDATES,
+				SudokuSolver.ValueOrder.ASCENDING, 0);
+		assertTrue(solver.solve());
+
+		return solver.getBoard();
+	}
+}
@@ -0,0 +1,136 @@
+package sudoku.variant;
+
+import org.junit.jupiter.api.Test;
+import sudoku.SudokuBoard;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VariantSolverTest {
+	// The sub-boards, with squares 0 and 21 swapped between the top left two, and 30 and 58 between the middle two.
+	private static final String JIGSAW = "BAABBBCCC" +
+										 "AAABBBCCC" +
+										 "AAAABBCCC" +
+										 "DDDHEEFFF" +
+										 "DDDEEEFFF" +
+										 "DDDEEEFFF" +
+										 "GGGHEHIII" +
+										 "GGGHHHIII" +
+										 "GGGHHHIII";
+
+	@Test
+	void solveXSudoku()
+	{
+		SudokuBoard board = new SudokuBoard();
+		Constraint[] rules = {RegionConstraint.standard(), RegionConstraint.diagonals()};
+		VariantSolver solver = new VariantSolver(board, rules);
+
+		assertTrue(solver.solve());
+		assertTrue(solver.getBoard().isValidAndComplete());
+		assertTrue(VariantSolver.isValid(solver.getBoard(), rules));
+	}
+
+	@Test
+	void rejectRepeatOnDiagonal()
+	{
+		SudokuBoard board = new SudokuBoard();
+		board.setValueAt(0, 5);
+		board.setValueAt(80, 5);
+
+		assertTrue(board.isValid());
+		assertFalse(VariantSolver.isValid(board, RegionConstraint.standard(), RegionConstraint.diagonals()));
+		assertFalse(new VariantSolver(board, RegionConstraint.standard(), RegionConstraint.diagonals()).solve());
+	}
+
+	/**
+	 * Test that a Killer Sudoku with no clues at all, only cages across each third of a row, is solved so that every
+	 * cage adds up.
+	 */
+	@Test
+	void solveKillerSudoku()
+	{
+		SudokuBoard solution = new SudokuBoard();
+		assertTrue(new VariantSolver(solution, RegionConstraint.standard()).solve());
+
+		KillerCages cages = new KillerCages();
+		for(int start = 0; start < 81; start += 3)
+		{
+			cages.addCage(sumOf(solution, start, start + 1, start + 2), start, start + 1, start + 2);
+		}
+
+		VariantSolver solver = new VariantSolver(new SudokuBoard(), RegionConstraint.standard(), cages);
+
+		assertTrue(solver.solve());
+		assertTrue(solver.getBoard().isValidAndComplete());
+		for(int start = 0; start < 81; start += 3)
+		{
+			assertEquals(sumOf(solution, start, start + 1, start + 2),
+					sumOf(solver.getBoard(), start, start + 1, start + 2));
+		}
+	}
+
+	@Test
+	void narrowCageCandidates()
+	{
+		KillerCages cages = new KillerCages();
+		cages.addCage(4, 0, 1);
+		cages.addCage(10, 2, 3);
+
+		int[] values = new int[81];
+		int[] candidates = new int[81];
+		java.util.Arrays.fill(candidates, 0x1FF);
+		values[2] = 7;
+		candidates[2] = 1 << 6;
+
+		assertTrue(cages.propagate(values, candidates));
+		// Two values adding up to 4 can only be 1 and 3.
+		assertEquals(0b101, candidates[0]);
+		assertEquals(0b101, candidates[1]);
+		assertEquals(1 << 2, candidates[3]);
+	}
+
+	@Test
+	void rejectOverfullCage()
+	{
+		KillerCages cages = new KillerCages();
+		cages.addCage(5, 0, 1);
+
+		SudokuBoard board = new SudokuBoard();
+		board.setValueAt(0, 4);
+
+		assertTrue(VariantSolver.isValid(board, cages));
+		board.setValueAt(1, 2);
+		assertFalse(VariantSolver.isValid(board, cages));
+		assertThrows(IllegalArgumentException.class, () -> cages.addCage(3, 1, 2));
+		assertThrows(IllegalArgumentException.class, () -> cages.addCage(2, 2, 3));
+	}
+
+	@Test
+	void solveJigsawSudoku()
+	{
+		RegionConstraint regions = RegionConstraint.jigsaw(JIGSAW);
+		VariantSolver solver = new VariantSolver(new SudokuBoard(), RegionConstraint.rowsAndColumns(), regions);
+
+		assertTrue(solver.solve());
+		assertTrue(VariantSolver.isValid(solver.getBoard(), RegionConstraint.rowsAndColumns(), regions));
+		// Squares 0 and 3 are in the same region.
+		assertNotEquals(solver.getBoard().getValueAt(0), solver.getBoard().getValueAt(3));
+	}
+
+	@Test
+	void rejectUnevenJigsaw()
+	{
+		assertThrows(IllegalArgumentException.class, () -> RegionConstraint.jigsaw(JIGSAW.replaceFirst("B", "A")));
+	}
+
+	private static int sumOf(SudokuBoard board, int... squares)
+	{
+		int sum = 0;
+
+		for(int square : squares)
+		{
+			sum += board.getValueAt(square);
+		}
+
+		return sum;
+	}
+}
@@ -0,0 +1,119 @@
+package sudoku.verify;
+
+import org.junit.jupiter.api.Test;
+import sudoku.SudokuBoard;
+import sudoku.SudokuSolver;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SolutionVerifierTest {
+	private static final String PUZZLE = "9 1 0 7 0 0 0 0 0 " +
+										 "0 3 2 6 0 9 0 8 0 " +
+										 "0 0 7 0 8 0 9 0 0 " +
+										 "0 8 6 0 3 0 1 7 0 " +
+										 "3 0 0 0 0 0 0 0 6 " +
+										 "0 5 1 0 2 0 8 4 0 " +
+										 "0 0 9 0 5 0 3 0 0 " +
+										 "0 2 0 3 0 1 4 9 0 " +
+										 "0 0 0 0 0 2 0 6 1";
+
+	private final SudokuBoard puzzle = new SudokuBoard(PUZZLE);
+	private final SudokuBoard solution = solve(puzzle);
+
+	@Test
+	void acceptCorrectGrid()
+	{
+		Verification result = SolutionVerifier.verify(puzzle, solution);
+
+		assertTrue(result.isCorrect());
+		assertEquals(0, result.getSquares().length);
+	}
+
+	@Test
+	void reportEmptySquare()
+	{
+		SudokuBoard grid = new SudokuBoard(solution);
+		grid.setValueAt(40, 0);
+
+		Verification result = SolutionVerifier.verify(puzzle, grid);
+
+		assertEquals(Verification.Status.INCOMPLETE, result.getStatus());
+		assertArrayEquals(new int[] {40}, result.getSquares());
+	}
+
+	/**
+	 * Test that swapping two values in a row keeps the grid valid, but is caught as changing the clues.
+	 */
+	@Test
+	void reportChangedClue()
+	{
+		SudokuBoard grid = new SudokuBoard(solution);
+		grid.setValueAt(0, solution.getValueAt(1));
+		grid.setValueAt(1, solution.getValueAt(0));
+
+		Verification result = SolutionVerifier.verify(puzzle, grid);
+
+		assertEquals(Verification.Status.CLUE_CHANGED, result.getStatus());
+		assertArrayEquals(new int[] {0}, result.getSquares());
+	}
+
+	@Test
+	void reportFirstConflict()
+	{
+		// Square 78 isn't a clue; give it the value of the square before it.
+		SudokuBoard grid = new SudokuBoard(solution);
+		grid.setValueAt(78, solution.getValueAt(77));
+
+		Verification result = SolutionVerifier.verify(puzzle, grid);
+
+		assertEquals(Verification.Status.CONFLICT, result.getStatus());
+		assertArrayEquals(new int[] {77, 78}, result.getSquares());
+	}
+
+	/**
+	 * Test that packed grids get the same results as checking them one at a time, across several chunks.
+	 */
+	@Test
+	void verifyPackedGrids()
+	{
+		int count = 3000;
+		byte[] puzzles = new byte[count * SolutionVerifier.PACKED_BYTES];
+		byte[] grids = new byte[count * SolutionVerifier.PACKED_BYTES];
+
+		for(int index = 0; index < count; index++)
+		{
+			SudokuBoard grid = new SudokuBoard(solution);
+
+			if(index % 3 == 1)
+			{
+				grid.setValueAt(index % 81, 0);
+			}
+			else if(index % 3 == 2)
+			{
+				grid.setValueAt(78, solution.getValueAt(77));
+			}
+
+			SolutionVerifier.pack(puzzle, puzzles, index * SolutionVerifier.PACKED_BYTES);
+			SolutionVerifier.pack(grid, grids, index * SolutionVerifier.PACKED_BYTES);
+		}
+
+		Verification.Status[] results = SolutionVerifier.verifyAll(puzzles, grids);
+
+		assertEquals(count, results.length);
+		for(int index = 0; index < count; index++)
+		{
+			Verification.Status expected = index % 3 == 0 ? Verification.Status.CORRECT
+					: index % 3 == 1 ? Verification.Status.INCOMPLETE : Verification.Status.CONFLICT;
+
+			assertEquals(expected, results[index], "grid " + index);
+		}
+	}
+
+	private static SudokuBoard solve(SudokuBoard puzzle)
+	{
+		SudokuSolver solver = new SudokuSolver(puzzle);
+		assertTrue(solver.solve());
+
+		return solver.getBoard();
+	}
+}